@@ -145,10 +145,14 @@ goalDescription
 //<GD> ::= :disjunctive−preconditions (not <GD>)
 //<GD> ::= :disjunctive−preconditions (imply <GD> <GD>)
 //<GD> ::= :existential−preconditions (exists (<typed list(variable)>) <GD> )
-    | {isAllowed(Requirement.UNIVERSAL_PRECONDITIONS)}? '(' 'forall' '(' typedVariableList ')' goalDescription ')' {needed(Requirement.UNIVERSAL_PRECONDITIONS);}
+    | {isAllowed(Requirement.UNIVERSAL_PRECONDITIONS)}? forAllGoalDescription {needed(Requirement.UNIVERSAL_PRECONDITIONS);}
 //<GD> ::= :numeric-fluents <f-comp>
     ;
 
+forAllGoalDescription
+    : '(' 'forall' '(' typedVariableList ')' goalDescription ')'
+    ;
+
 goalDescriptionAnd
     : '(' 'and' goalDescription* ')'
     ;
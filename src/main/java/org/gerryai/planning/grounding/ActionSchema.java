@@ -0,0 +1,792 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding;
+
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.TypeHierarchy;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.ForAll;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.IfThen;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An action compiled for grounding. Each parameter gets the objects of its type as its domain, and each part of the
+ * precondition that can be decided before search, namely static atoms and equalities, is turned into a check made as
+ * soon as the last parameter it uses is bound. Parameters are bound in order, so a failed check prunes every binding
+ * of the parameters that follow.
+ *
+ * Effects may be universally quantified and conditional. The variables of a {@code forall} effect are numbered after
+ * the parameters and are expanded over the objects of their types when the action is instantiated, and the parts of
+ * a {@code when} condition that can be decided then are, leaving a ground conditional effect only if its condition
+ * still depends on the state.
+ */
+final class ActionSchema {
+
+    private final Action action;
+
+    private final GroundAtomTable table;
+
+    private final long[] initialState;
+
+    /**
+     * The objects each parameter can be bound to.
+     */
+    private final int[][] domains;
+
+    /**
+     * The checks to make once each parameter is bound, by parameter index.
+     */
+    private final Check[][] checks;
+
+    private final AtomTemplate[] precondition;
+    private final AtomTemplate[] staticPrecondition;
+    private final AtomTemplate[] negativePrecondition;
+
+    /**
+     * The effects, starting with the unconditional ones.
+     */
+    private final EffectTemplate[] effects;
+
+    /**
+     * The largest number of {@code forall} variables of any effect.
+     */
+    private final int locals;
+
+    /**
+     * True if a check that uses no parameters failed, so the action has no ground operators.
+     */
+    private final boolean impossible;
+
+    /**
+     * Constructor.
+     * @param action the action to compile
+     * @param table the table of ground atoms
+     * @param fluent for each predicate id, whether any action changes it
+     * @throws IllegalArgumentException if the action has a precondition that is not a conjunction of literals, an
+     * effect that is not made of literals, numeric effects, conditional and universally quantified effects, or uses a
+     * variable that is not in scope
+     */
+    ActionSchema(final Action action, final GroundAtomTable table, final boolean[] fluent) {
+        this.action = action;
+        this.table = table;
+        initialState = table.getInitialState();
+        TypeHierarchy hierarchy = table.getTypeHierarchy();
+        List<Variable> parameters = action.getParameters();
+        Map<String, Integer> parameterIndexes = new HashMap<>();
+        domains = new int[parameters.size()][];
+        for (int i = 0; i < parameters.size(); i++) {
+            parameterIndexes.put(parameters.get(i).getName(), i);
+            domains[i] = hierarchy.objects(parameters.get(i).getType());
+        }
+        Compiler compiler = new Compiler(parameterIndexes, fluent);
+        if (action.getPrecondition() != null && action.getPrecondition().getPrecondition().isPresent()) {
+            compiler.precondition(action.getPrecondition().getPrecondition().get(), true);
+        }
+        EffectTemplate unconditional = new EffectTemplate(parameterIndexes);
+        compiler.effects.add(unconditional);
+        if (action.getEffect() != null && action.getEffect().getEffect().isPresent()) {
+            compiler.effect(action.getEffect().getEffect().get(), true, unconditional);
+        }
+        List<List<Check>> checksByDepth = new ArrayList<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            checksByDepth.add(new ArrayList<Check>());
+        }
+        boolean failed = false;
+        for (Check check : compiler.checks) {
+            if (check.depth < 0) {
+                failed |= !check.holds(new int[0]);
+            } else {
+                checksByDepth.get(check.depth).add(check);
+            }
+        }
+        impossible = failed || compiler.impossible;
+        checks = new Check[parameters.size()][];
+        for (int i = 0; i < parameters.size(); i++) {
+            checks[i] = checksByDepth.get(i).toArray(new Check[checksByDepth.get(i).size()]);
+        }
+        precondition = compiler.precondition.toArray(new AtomTemplate[compiler.precondition.size()]);
+        staticPrecondition = compiler.staticPrecondition.toArray(
+                new AtomTemplate[compiler.staticPrecondition.size()]);
+        negativePrecondition = compiler.negativePrecondition.toArray(
+                new AtomTemplate[compiler.negativePrecondition.size()]);
+        effects = compiler.effects.toArray(new EffectTemplate[compiler.effects.size()]);
+        int mostLocals = 0;
+        for (EffectTemplate effect : effects) {
+            mostLocals = Math.max(mostLocals, effect.localDomains.size());
+        }
+        locals = mostLocals;
+    }
+
+    /**
+     * Compile every action of a domain, leaving out those that can have no ground operators.
+     * @param domain the domain
+     * @param table the table of ground atoms
+     * @return the compiled actions, in order of name
+     * @throws IllegalArgumentException if an action cannot be grounded
+     */
+    static List<ActionSchema> compileAll(final Domain domain, final GroundAtomTable table) {
+        List<Action> actions = new ArrayList<>(domain.getActions().asSet());
+        Collections.sort(actions, new Comparator<Action>() {
+            @Override
+            public int compare(final Action first, final Action second) {
+                return first.getName().compareTo(second.getName());
+            }
+        });
+        boolean[] fluent = new boolean[table.getPredicateCount()];
+        for (Action action : actions) {
+            markFluents(action, table, fluent);
+        }
+        List<ActionSchema> schemas = new ArrayList<>();
+        for (Action action : actions) {
+            ActionSchema schema = new ActionSchema(action, table, fluent);
+            if (!schema.isImpossible()) {
+                schemas.add(schema);
+            }
+        }
+        return schemas;
+    }
+
+    /**
+     * Mark the predicates an action changes as fluent.
+     * @param action the action
+     * @param table the table of ground atoms
+     * @param fluent for each predicate id, whether any action changes it, to be updated
+     */
+    private static void markFluents(final Action action, final GroundAtomTable table, final boolean[] fluent) {
+        if (action.getEffect() != null && action.getEffect().getEffect().isPresent()) {
+            markFluents(action.getEffect().getEffect().get(), table, fluent);
+        }
+    }
+
+    /**
+     * Mark the predicates an effect changes as fluent.
+     * @param effect the effect, or part of it
+     * @param table the table of ground atoms
+     * @param fluent for each predicate id, whether any action changes it, to be updated
+     */
+    private static void markFluents(final Formula effect, final GroundAtomTable table, final boolean[] fluent) {
+        if (effect instanceof And) {
+            for (Formula conjunct : ((And) effect).asList()) {
+                markFluents(conjunct, table, fluent);
+            }
+        } else if (effect instanceof Not) {
+            markFluents(((Not) effect).getFormula(), table, fluent);
+        } else if (effect instanceof IfThen) {
+            markFluents(((IfThen) effect).getConsequence(), table, fluent);
+        } else if (effect instanceof ForAll) {
+            markFluents(((ForAll) effect).getFormula(), table, fluent);
+        } else if (effect instanceof Predicate) {
+            int predicate = table.predicateId(((Predicate) effect).getName());
+            if (predicate >= 0) {
+                fluent[predicate] = true;
+            }
+        }
+    }
+
+    /**
+     * Get the action that was compiled.
+     * @return the action
+     */
+    Action getAction() {
+        return action;
+    }
+
+    /**
+     * Get the number of parameters.
+     * @return the number of parameters
+     */
+    int arity() {
+        return domains.length;
+    }
+
+    /**
+     * Check whether the action can have no ground operators whatever its parameters are bound to.
+     * @return true if the action has no ground operators
+     */
+    boolean isImpossible() {
+        return impossible;
+    }
+
+    /**
+     * Get the objects a parameter can be bound to.
+     * @param parameter the index of the parameter
+     * @return the ids of the objects
+     */
+    int[] domain(final int parameter) {
+        return domains[parameter];
+    }
+
+    /**
+     * Get the atoms of fluent predicates that must hold.
+     * @return the atoms, which are shared so must not be modified
+     */
+    AtomTemplate[] getPrecondition() {
+        return precondition;
+    }
+
+    /**
+     * Get the atoms of static predicates that must hold.
+     * @return the atoms, which are shared so must not be modified
+     */
+    AtomTemplate[] getStaticPrecondition() {
+        return staticPrecondition;
+    }
+
+    /**
+     * Make every check on a complete binding.
+     * @param binding the objects bound to every parameter
+     * @return true if every check passed
+     */
+    boolean acceptsAll(final int[] binding) {
+        for (int parameter = 0; parameter < checks.length; parameter++) {
+            if (!accepts(parameter, binding)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Make the checks that become decidable once a parameter is bound.
+     * @param parameter the index of the parameter just bound
+     * @param binding the objects bound to the parameters so far
+     * @return true if every check passed
+     */
+    boolean accepts(final int parameter, final int[] binding) {
+        for (Check check : checks[parameter]) {
+            if (!check.holds(binding)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add the ground operators for every binding of the remaining parameters.
+     * @param binding the objects bound to the parameters so far, to be filled in with the remaining ones
+     * @param bound the number of parameters bound so far
+     * @param operators the list to add the operators to
+     */
+    void ground(final int[] binding, final int bound, final List<GroundOperator> operators) {
+        if (bound == domains.length) {
+            GroundOperator operator = instantiate(binding);
+            if (operator != null) {
+                operators.add(operator);
+            }
+            return;
+        }
+        for (int object : domains[bound]) {
+            binding[bound] = object;
+            if (accepts(bound, binding)) {
+                ground(binding, bound + 1, operators);
+            }
+        }
+    }
+
+    /**
+     * Build the ground operator for a complete binding.
+     * @param binding the objects bound to every parameter
+     * @return the operator, or null if its precondition needs an atom that cannot exist
+     */
+    GroundOperator instantiate(final int[] binding) {
+        int[] positive = ids(precondition, binding, true);
+        if (positive == null) {
+            return null;
+        }
+        int[] extended = Arrays.copyOf(binding, binding.length + locals);
+        List<Integer> adds = new ArrayList<>();
+        List<Integer> deletes = new ArrayList<>();
+        List<ConditionalEffect> conditionalEffects = new ArrayList<>();
+        for (EffectTemplate effect : effects) {
+            expand(effect, extended, 0, adds, deletes, conditionalEffects);
+        }
+        int[] added = sortedUnique(ints(adds));
+        return new GroundOperator(action, binding.clone(), positive, ids(negativePrecondition, binding, false),
+                added, without(sortedUnique(ints(deletes)), added),
+                conditionalEffects.toArray(new ConditionalEffect[conditionalEffects.size()]));
+    }
+
+    /**
+     * Ground an effect for every binding of its {@code forall} variables.
+     * @param effect the effect
+     * @param binding the objects bound to the parameters, followed by room for the effect's variables
+     * @param bound the number of the effect's variables bound so far
+     * @param adds the list to add the atoms of unconditional add effects to
+     * @param deletes the list to add the atoms of unconditional delete effects to
+     * @param conditionalEffects the list to add the ground conditional effects to
+     */
+    private void expand(final EffectTemplate effect, final int[] binding, final int bound, final List<Integer> adds,
+                        final List<Integer> deletes, final List<ConditionalEffect> conditionalEffects) {
+        if (bound < effect.localDomains.size()) {
+            for (int object : effect.localDomains.get(bound)) {
+                binding[domains.length + bound] = object;
+                expand(effect, binding, bound + 1, adds, deletes, conditionalEffects);
+            }
+            return;
+        }
+        if (effect.never) {
+            return;
+        }
+        for (Check check : effect.checks) {
+            if (!check.holds(binding)) {
+                return;
+            }
+        }
+        int[] condition = ids(toArray(effect.condition), binding, true);
+        if (condition == null) {
+            return;
+        }
+        int[] negativeCondition = ids(toArray(effect.negativeCondition), binding, false);
+        int[] added = ids(toArray(effect.addEffects), binding, false);
+        int[] deleted = ids(toArray(effect.deleteEffects), binding, false);
+        if (condition.length == 0 && negativeCondition.length == 0) {
+            for (int id : added) {
+                adds.add(id);
+            }
+            for (int id : deleted) {
+                deletes.add(id);
+            }
+        } else if (added.length > 0 || deleted.length > 0) {
+            conditionalEffects.add(new ConditionalEffect(condition, negativeCondition, added,
+                    without(deleted, added)));
+        }
+    }
+
+    /**
+     * Copy a list of atoms to an array.
+     * @param atoms the atoms
+     * @return the array
+     */
+    private static AtomTemplate[] toArray(final List<AtomTemplate> atoms) {
+        return atoms.toArray(new AtomTemplate[atoms.size()]);
+    }
+
+    /**
+     * Copy a list of ids to an array.
+     * @param ids the ids
+     * @return the array
+     */
+    private static int[] ints(final List<Integer> ids) {
+        int[] array = new int[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Get the ids of the atoms of literals under a binding, in ascending order without duplicates. Atoms with the
+     * wrong types for their predicate are left out.
+     * @param literals the literals
+     * @param binding the objects bound to every parameter
+     * @param required true if every atom must exist, as for the atoms a precondition needs to hold
+     * @return the ids, or null if an atom was left out but every atom was required
+     */
+    private int[] ids(final AtomTemplate[] literals, final int[] binding, final boolean required) {
+        int[] ids = new int[literals.length];
+        int count = 0;
+        for (AtomTemplate literal : literals) {
+            int id = literal.id(table, binding);
+            if (id >= 0) {
+                ids[count++] = id;
+            } else if (required) {
+                return null;
+            }
+        }
+        return sortedUnique(Arrays.copyOf(ids, count));
+    }
+
+    /**
+     * Sort ids and remove duplicates.
+     * @param ids the ids, which are sorted in place
+     * @return the sorted ids without duplicates
+     */
+    private static int[] sortedUnique(final int[] ids) {
+        Arrays.sort(ids);
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (count == 0 || ids[count - 1] != ids[i]) {
+                ids[count++] = ids[i];
+            }
+        }
+        if (count == ids.length) {
+            return ids;
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Remove ids from a sorted array.
+     * @param ids the sorted ids
+     * @param removed the sorted ids to remove
+     * @return the ids not removed
+     */
+    private static int[] without(final int[] ids, final int[] removed) {
+        int[] kept = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            if (Arrays.binarySearch(removed, id) < 0) {
+                kept[count++] = id;
+            }
+        }
+        if (count == ids.length) {
+            return ids;
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    /**
+     * A part of the precondition decided while parameters are being bound.
+     */
+    private abstract static class Check {
+
+        private final int depth;
+
+        /**
+         * Constructor.
+         * @param depth the index of the last parameter the check uses, or -1 if it uses none
+         */
+        Check(final int depth) {
+            this.depth = depth;
+        }
+
+        /**
+         * Make the check.
+         * @param binding the objects bound to the parameters, at least up to the check's depth
+         * @return true if the check passed
+         */
+        abstract boolean holds(int[] binding);
+    }
+
+    /**
+     * Check that a static atom does or does not hold in the initial state.
+     */
+    private final class StaticCheck extends Check {
+
+        private final AtomTemplate literal;
+        private final boolean positive;
+
+        /**
+         * Constructor.
+         * @param literal the static atom
+         * @param positive true if the atom must hold, false if it must not
+         */
+        private StaticCheck(final AtomTemplate literal, final boolean positive) {
+            super(literal.depth());
+            this.literal = literal;
+            this.positive = positive;
+        }
+
+        @Override
+        boolean holds(final int[] binding) {
+            int id = literal.id(table, binding);
+            if (id < 0) {
+                return !positive;
+            }
+            return GroundAtomTable.contains(initialState, id) == positive;
+        }
+    }
+
+    /**
+     * Check that two arguments are or are not the same object.
+     */
+    private static final class EqualityCheck extends Check {
+
+        private final int left;
+        private final int right;
+        private final boolean equal;
+
+        /**
+         * Constructor.
+         * @param left the encoded left argument
+         * @param right the encoded right argument
+         * @param equal true if the arguments must be equal, false if they must differ
+         */
+        private EqualityCheck(final int left, final int right, final boolean equal) {
+            super(Math.max(left, right));
+            this.left = left;
+            this.right = right;
+            this.equal = equal;
+        }
+
+        @Override
+        boolean holds(final int[] binding) {
+            return (AtomTemplate.resolve(left, binding) == AtomTemplate.resolve(right, binding)) == equal;
+        }
+    }
+
+    /**
+     * An effect of an action, with the {@code forall} variables and {@code when} condition it is under.
+     */
+    private static final class EffectTemplate {
+
+        /**
+         * The index of each variable in scope, by name: the parameters, then the {@code forall} variables.
+         */
+        private final Map<String, Integer> indexes;
+
+        /**
+         * The objects each {@code forall} variable can be bound to.
+         */
+        private final List<int[]> localDomains = new ArrayList<>();
+
+        private final List<Check> checks = new ArrayList<>();
+        private final List<AtomTemplate> condition = new ArrayList<>();
+        private final List<AtomTemplate> negativeCondition = new ArrayList<>();
+        private final List<AtomTemplate> addEffects = new ArrayList<>();
+        private final List<AtomTemplate> deleteEffects = new ArrayList<>();
+
+        /**
+         * True if the condition needs an atom of an undeclared predicate, so never holds.
+         */
+        private boolean never;
+
+        /**
+         * Constructor.
+         * @param indexes the index of each variable in scope, by name
+         */
+        private EffectTemplate(final Map<String, Integer> indexes) {
+            this.indexes = new HashMap<>(indexes);
+        }
+
+        /**
+         * Start an effect nested in this one, under the same variables and condition.
+         * @return the nested effect, with no atoms of its own
+         */
+        private EffectTemplate nest() {
+            EffectTemplate nested = new EffectTemplate(indexes);
+            nested.localDomains.addAll(localDomains);
+            nested.checks.addAll(checks);
+            nested.condition.addAll(condition);
+            nested.negativeCondition.addAll(negativeCondition);
+            nested.never = never;
+            return nested;
+        }
+    }
+
+    /**
+     * Collects the literals and checks of an action's precondition and effect.
+     */
+    private final class Compiler {
+
+        private final Map<String, Integer> parameterIndexes;
+        private final boolean[] fluent;
+        private final List<Check> checks = new ArrayList<>();
+        private final List<AtomTemplate> precondition = new ArrayList<>();
+        private final List<AtomTemplate> staticPrecondition = new ArrayList<>();
+        private final List<AtomTemplate> negativePrecondition = new ArrayList<>();
+        private final List<EffectTemplate> effects = new ArrayList<>();
+        private boolean impossible;
+
+        /**
+         * Constructor.
+         * @param parameterIndexes the index of each parameter, by name
+         * @param fluent for each predicate id, whether any action changes it
+         */
+        private Compiler(final Map<String, Integer> parameterIndexes, final boolean[] fluent) {
+            this.parameterIndexes = parameterIndexes;
+            this.fluent = fluent;
+        }
+
+        /**
+         * Add a precondition, or part of one.
+         * @param formula the precondition
+         * @param positive false if the formula is negated
+         */
+        private void precondition(final Formula formula, final boolean positive) {
+            if (formula instanceof And && positive) {
+                for (Formula conjunct : ((And) formula).asList()) {
+                    precondition(conjunct, true);
+                }
+            } else if (formula instanceof Not && positive) {
+                precondition(((Not) formula).getFormula(), false);
+            } else if (formula instanceof Equals) {
+                checks.add(new EqualityCheck(argument(((Equals) formula).getLeft(), parameterIndexes),
+                        argument(((Equals) formula).getRight(), parameterIndexes), positive));
+            } else if (formula instanceof Predicate) {
+                Predicate atom = (Predicate) formula;
+                int predicate = table.predicateId(atom.getName());
+                if (predicate < 0) {
+                    // An atom of an undeclared predicate never holds
+                    impossible |= positive;
+                } else if (!fluent[predicate]) {
+                    AtomTemplate literal = literal(predicate, atom, parameterIndexes);
+                    checks.add(new StaticCheck(literal, positive));
+                    if (positive) {
+                        staticPrecondition.add(literal);
+                    }
+                } else if (positive) {
+                    precondition.add(literal(predicate, atom, parameterIndexes));
+                } else {
+                    negativePrecondition.add(literal(predicate, atom, parameterIndexes));
+                }
+            } else {
+                throw unsupported("precondition");
+            }
+        }
+
+        /**
+         * Add an effect, or part of one.
+         * @param formula the effect
+         * @param positive false if the formula is negated
+         * @param effect the effect to add atoms to, which gives the variables in scope and any condition
+         */
+        private void effect(final Formula formula, final boolean positive, final EffectTemplate effect) {
+            if (formula instanceof And && positive) {
+                for (Formula conjunct : ((And) formula).asList()) {
+                    effect(conjunct, true, effect);
+                }
+            } else if (formula instanceof Not && positive) {
+                effect(((Not) formula).getFormula(), false, effect);
+            } else if (formula instanceof IfThen && positive) {
+                EffectTemplate conditional = effect.nest();
+                condition(((IfThen) formula).getCondition(), true, conditional);
+                effect(((IfThen) formula).getConsequence(), true, conditional);
+                effects.add(conditional);
+            } else if (formula instanceof ForAll && positive) {
+                EffectTemplate quantified = effect.nest();
+                for (Variable variable : ((ForAll) formula).getVariables()) {
+                    quantified.indexes.put(variable.getName(), domains.length + quantified.localDomains.size());
+                    quantified.localDomains.add(table.getTypeHierarchy().objects(variable.getType()));
+                }
+                effect(((ForAll) formula).getFormula(), true, quantified);
+                effects.add(quantified);
+            } else if (formula instanceof Predicate) {
+                Predicate atom = (Predicate) formula;
+                int predicate = table.predicateId(atom.getName());
+                if (predicate >= 0 && positive) {
+                    effect.addEffects.add(literal(predicate, atom, effect.indexes));
+                } else if (predicate >= 0) {
+                    effect.deleteEffects.add(literal(predicate, atom, effect.indexes));
+                }
+            } else if (!(formula instanceof Operation && positive)) {
+                // Numeric effects do not change which atoms hold, so are left to the fluent compiler
+                throw unsupported("effect");
+            }
+        }
+
+        /**
+         * Add the condition of a conditional effect, or part of one.
+         * @param formula the condition
+         * @param positive false if the formula is negated
+         * @param effect the conditional effect
+         */
+        private void condition(final Formula formula, final boolean positive, final EffectTemplate effect) {
+            if (formula instanceof And && positive) {
+                for (Formula conjunct : ((And) formula).asList()) {
+                    condition(conjunct, true, effect);
+                }
+            } else if (formula instanceof Not && positive) {
+                condition(((Not) formula).getFormula(), false, effect);
+            } else if (formula instanceof Equals) {
+                effect.checks.add(new EqualityCheck(argument(((Equals) formula).getLeft(), effect.indexes),
+                        argument(((Equals) formula).getRight(), effect.indexes), positive));
+            } else if (formula instanceof Predicate) {
+                Predicate atom = (Predicate) formula;
+                int predicate = table.predicateId(atom.getName());
+                if (predicate < 0) {
+                    effect.never |= positive;
+                } else if (!fluent[predicate]) {
+                    effect.checks.add(new StaticCheck(literal(predicate, atom, effect.indexes), positive));
+                } else if (positive) {
+                    effect.condition.add(literal(predicate, atom, effect.indexes));
+                } else {
+                    effect.negativeCondition.add(literal(predicate, atom, effect.indexes));
+                }
+            } else {
+                throw unsupported("effect condition");
+            }
+        }
+
+        /**
+         * Encode the arguments of an atom.
+         * @param predicate the id of the atom's predicate
+         * @param atom the atom
+         * @param indexes the index of each variable in scope, by name
+         * @return the literal
+         */
+        private AtomTemplate literal(final int predicate, final Predicate atom, final Map<String, Integer> indexes) {
+            List<Term> terms = atom.getTerms();
+            int[] arguments = new int[terms.size()];
+            for (int i = 0; i < terms.size(); i++) {
+                arguments[i] = argument(terms.get(i), indexes);
+            }
+            return new AtomTemplate(predicate, arguments);
+        }
+
+        /**
+         * Encode an argument.
+         * @param term the argument
+         * @param indexes the index of each variable in scope, by name
+         * @return the index of the variable, or {@code -1 - id} for a constant
+         */
+        private int argument(final Term term, final Map<String, Integer> indexes) {
+            if (term instanceof Variable && indexes.containsKey(((Variable) term).getName())) {
+                return indexes.get(((Variable) term).getName());
+            } else if (term instanceof Constant) {
+                int id = table.getTypeHierarchy().objectId(((Constant) term).getName());
+                if (id >= 0) {
+                    return AtomTemplate.constant(id);
+                }
+            }
+            throw new IllegalArgumentException("Action " + action.getName() + " uses " + describe(term)
+                    + ", which is neither a variable in scope nor an object");
+        }
+
+        /**
+         * Describe a term for an error message.
+         * @param term the term
+         * @return the description
+         */
+        private String describe(final Term term) {
+            if (term instanceof Variable) {
+                return "variable " + ((Variable) term).getName();
+            } else if (term instanceof Constant) {
+                return "constant " + ((Constant) term).getName();
+            }
+            return "a term";
+        }
+
+        /**
+         * Build the exception thrown for a precondition or effect that cannot be grounded.
+         * @param part the part of the action
+         * @return the exception
+         */
+        private IllegalArgumentException unsupported(final String part) {
+            return new IllegalArgumentException("Action " + action.getName() + " has a " + part
+                    + " of a form that cannot be grounded");
+        }
+    }
+}
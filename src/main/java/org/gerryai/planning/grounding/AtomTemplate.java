@@ -0,0 +1,113 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding;
+
+import org.gerryai.planning.model.GroundAtomTable;
+
+/**
+ * An atom of an action's precondition or effect, with its arguments encoded as ints: the index of a parameter if not
+ * negative, otherwise {@code -1 - id} for the id of a constant.
+ */
+final class AtomTemplate {
+
+    private final int predicate;
+    private final int[] arguments;
+
+    /**
+     * Constructor.
+     * @param predicate the id of the predicate
+     * @param arguments the encoded arguments
+     */
+    AtomTemplate(final int predicate, final int[] arguments) {
+        this.predicate = predicate;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Get the id of the predicate.
+     * @return the id
+     */
+    int getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Get the encoded arguments. The array is shared, so must not be modified.
+     * @return the arguments
+     */
+    int[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Get the id of the atom under a binding.
+     * @param table the table of ground atoms
+     * @param binding the objects bound to the parameters
+     * @return the id, or -1 if the arguments have the wrong types for the predicate
+     */
+    int id(final GroundAtomTable table, final int[] binding) {
+        int[] objects = new int[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            objects[i] = resolve(arguments[i], binding);
+        }
+        return table.id(predicate, objects);
+    }
+
+    /**
+     * Get the index of the last parameter the atom uses.
+     * @return the index, or -1 if it uses none
+     */
+    int depth() {
+        int depth = -1;
+        for (int argument : arguments) {
+            depth = Math.max(depth, argument);
+        }
+        return depth;
+    }
+
+    /**
+     * Check whether an encoded argument is a constant.
+     * @param argument the encoded argument
+     * @return true if it is a constant rather than a parameter
+     */
+    static boolean isConstant(final int argument) {
+        return argument < 0;
+    }
+
+    /**
+     * Resolve an encoded argument under a binding.
+     * @param argument the encoded argument
+     * @param binding the objects bound to the parameters
+     * @return the id of the object
+     */
+    static int resolve(final int argument, final int[] binding) {
+        if (argument >= 0) {
+            return binding[argument];
+        }
+        return -1 - argument;
+    }
+
+    /**
+     * Encode a constant.
+     * @param object the id of the constant
+     * @return the encoded argument
+     */
+    static int constant(final int object) {
+        return -1 - object;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An effect of a ground operator that only takes place if its condition holds in the state the operator is applied
+ * in. Atoms are given by their ids, in ascending order without duplicates; the arrays are shared, so must not be
+ * modified.
+ */
+public final class ConditionalEffect {
+
+    private final int[] condition;
+    private final int[] negativeCondition;
+    private final int[] addEffects;
+    private final int[] deleteEffects;
+
+    /**
+     * Constructor.
+     * @param condition the atoms that must hold
+     * @param negativeCondition the atoms that must not hold
+     * @param addEffects the atoms made true
+     * @param deleteEffects the atoms made false
+     */
+    ConditionalEffect(final int[] condition, final int[] negativeCondition, final int[] addEffects,
+                      final int[] deleteEffects) {
+        this.condition = condition;
+        this.negativeCondition = negativeCondition;
+        this.addEffects = addEffects;
+        this.deleteEffects = deleteEffects;
+    }
+
+    /**
+     * Get the atoms that must hold for the effect to take place.
+     * @return the ids of the atoms
+     */
+    public int[] getCondition() {
+        return condition;
+    }
+
+    /**
+     * Get the atoms that must not hold for the effect to take place.
+     * @return the ids of the atoms
+     */
+    public int[] getNegativeCondition() {
+        return negativeCondition;
+    }
+
+    /**
+     * Get the atoms the effect makes true.
+     * @return the ids of the atoms
+     */
+    public int[] getAddEffects() {
+        return addEffects;
+    }
+
+    /**
+     * Get the atoms the effect makes false.
+     * @return the ids of the atoms
+     */
+    public int[] getDeleteEffects() {
+        return deleteEffects;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(Arrays.hashCode(condition), Arrays.hashCode(addEffects), Arrays.hashCode(deleteEffects));
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final ConditionalEffect other = (ConditionalEffect) obj;
+        return Arrays.equals(this.condition, other.condition)
+                && Arrays.equals(this.negativeCondition, other.negativeCondition)
+                && Arrays.equals(this.addEffects, other.addEffects)
+                && Arrays.equals(this.deleteEffects, other.deleteEffects);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding;
+
+import org.gerryai.planning.model.domain.Action;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An action with each of its parameters bound to an object. Atoms are given by their ids in the task's {@link
+ * org.gerryai.planning.model.GroundAtomTable}, and objects by their ids in its {@link
+ * org.gerryai.planning.model.TypeHierarchy}. The id arrays are in ascending order without duplicates; they are
+ * shared, so must not be modified.
+ */
+public final class GroundOperator {
+
+    private final Action action;
+    private final int[] arguments;
+    private final int[] precondition;
+    private final int[] negativePrecondition;
+    private final int[] addEffects;
+    private final int[] deleteEffects;
+    private final ConditionalEffect[] conditionalEffects;
+
+    /**
+     * Constructor.
+     * @param action the action that was grounded
+     * @param arguments the ids of the objects bound to its parameters, in order
+     * @param precondition the atoms that must hold
+     * @param negativePrecondition the atoms that must not hold
+     * @param addEffects the atoms made true
+     * @param deleteEffects the atoms made false
+     * @param conditionalEffects the effects that depend on the state the operator is applied in
+     */
+    GroundOperator(final Action action, final int[] arguments, final int[] precondition,
+                   final int[] negativePrecondition, final int[] addEffects, final int[] deleteEffects,
+                   final ConditionalEffect[] conditionalEffects) {
+        this.action = action;
+        this.arguments = arguments;
+        this.precondition = precondition;
+        this.negativePrecondition = negativePrecondition;
+        this.addEffects = addEffects;
+        this.deleteEffects = deleteEffects;
+        this.conditionalEffects = conditionalEffects;
+    }
+
+    /**
+     * Get the action that was grounded.
+     * @return the action
+     */
+    public Action getAction() {
+        return action;
+    }
+
+    /**
+     * Get the objects bound to the action's parameters.
+     * @return the ids of the objects, in the order of the parameters
+     */
+    public int[] getArguments() {
+        return arguments;
+    }
+
+    /**
+     * Get the atoms that must hold for the operator to be applicable.
+     * @return the ids of the atoms
+     */
+    public int[] getPrecondition() {
+        return precondition;
+    }
+
+    /**
+     * Get the atoms that must not hold for the operator to be applicable.
+     * @return the ids of the atoms
+     */
+    public int[] getNegativePrecondition() {
+        return negativePrecondition;
+    }
+
+    /**
+     * Get the atoms the operator makes true.
+     * @return the ids of the atoms
+     */
+    public int[] getAddEffects() {
+        return addEffects;
+    }
+
+    /**
+     * Get the atoms the operator makes false. An atom that is both added and deleted is only added, so is not in
+     * this list.
+     * @return the ids of the atoms
+     */
+    public int[] getDeleteEffects() {
+        return deleteEffects;
+    }
+
+    /**
+     * Get the effects that only take place if their conditions hold in the state the operator is applied in. Like
+     * the unconditional effects, their delete effects take place before any add effects.
+     * @return the conditional effects, which are shared so must not be modified
+     */
+    public ConditionalEffect[] getConditionalEffects() {
+        return conditionalEffects;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(action, Arrays.hashCode(arguments));
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final GroundOperator other = (GroundOperator) obj;
+        return Objects.equals(this.action, other.action)
+                && Arrays.equals(this.arguments, other.arguments)
+                && Arrays.equals(this.precondition, other.precondition)
+                && Arrays.equals(this.negativePrecondition, other.negativePrecondition)
+                && Arrays.equals(this.addEffects, other.addEffects)
+                && Arrays.equals(this.deleteEffects, other.deleteEffects)
+                && Arrays.equals(this.conditionalEffects, other.conditionalEffects);
+    }
+}
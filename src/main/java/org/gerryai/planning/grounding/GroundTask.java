@@ -0,0 +1,61 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding;
+
+import org.gerryai.planning.model.GroundAtomTable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A problem after grounding: the table of its ground atoms, which also gives its initial state and goal, and the
+ * ground operators that can change them.
+ */
+public final class GroundTask {
+
+    private final GroundAtomTable atoms;
+    private final List<GroundOperator> operators;
+
+    /**
+     * Constructor.
+     * @param atoms the table of ground atoms
+     * @param operators the ground operators
+     */
+    GroundTask(final GroundAtomTable atoms, final List<GroundOperator> operators) {
+        this.atoms = atoms;
+        this.operators = Collections.unmodifiableList(new ArrayList<>(operators));
+    }
+
+    /**
+     * Get the table of ground atoms.
+     * @return the table
+     */
+    public GroundAtomTable getAtoms() {
+        return atoms;
+    }
+
+    /**
+     * Get the ground operators, grouped by action in order of the actions' names, and
+     * within each action in order of the ids of their arguments.
+     * @return the operators
+     */
+    public List<GroundOperator> getOperators() {
+        return operators;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding;
+
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Grounds the actions of a domain against a problem, binding their parameters to objects in every way that could
+ * lead to an applicable operator. Each parameter only ranges over the objects of its type. Atoms of static
+ * predicates, which no action changes, and equalities are checked against the initial state as soon as the
+ * parameters they use are bound, so bindings that can never be applicable are pruned early rather than enumerated.
+ *
+ * The work is split into a task for each action, and each of those into tasks for each binding of its first
+ * parameters, which run on a fork/join pool. Only actions whose preconditions and effects are conjunctions of
+ * literals and equalities can be grounded.
+ */
+public final class Grounder {
+
+    /**
+     * Number of leading parameters whose bindings are each given their own task.
+     */
+    private static final int PREFIX_LENGTH = 2;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor for a grounder using a pool shared by every grounder not given one of its own. The pool uses all
+     * available processors and is only started the first time such a grounder is created.
+     */
+    public Grounder() {
+        this(SharedPool.POOL);
+    }
+
+    /**
+     * Constructor.
+     * @param pool the pool to ground on
+     */
+    public Grounder(final ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Ground a problem.
+     * @param domain the domain defining the actions
+     * @param problem the problem defining the objects and initial state
+     * @return the grounded task
+     * @throws IllegalArgumentException if an action cannot be grounded, or the problem has too many ground atoms
+     */
+    public GroundTask ground(final Domain domain, final Problem problem) {
+        GroundAtomTable table = new GroundAtomTable(domain, problem);
+        List<GroundingTask> tasks = new ArrayList<>();
+        for (ActionSchema schema : ActionSchema.compileAll(domain, table)) {
+            tasks.add(new GroundingTask(schema, new int[schema.arity()], 0));
+        }
+        return new GroundTask(table, pool.invoke(new AllActions(tasks)));
+    }
+
+    /**
+     * Ground only the action instances that are reachable from a problem's initial state, found by a {@link
+     * ReachabilityAnalysis}. The operators are those {@link #ground(Domain, Problem)} would give, less any that could
+     * never be applied. The analysis itself runs on the calling thread.
+     * @param domain the domain defining the actions
+     * @param problem the problem defining the objects and initial state
+     * @return the grounded task
+     * @throws IllegalArgumentException if an action cannot be grounded, or the problem has too many ground atoms
+     */
+    public GroundTask groundReachable(final Domain domain, final Problem problem) {
+        GroundAtomTable table = new GroundAtomTable(domain, problem);
+        List<ActionSchema> schemas = ActionSchema.compileAll(domain, table);
+        Reachability reachability = new ReachabilityAnalysis().analyse(table, schemas);
+        List<GroundOperator> operators = new ArrayList<>(reachability.getInstanceCount());
+        for (ActionSchema schema : schemas) {
+            for (int[] binding : reachability.getInstances(schema.getAction())) {
+                GroundOperator operator = schema.instantiate(binding);
+                if (operator != null) {
+                    operators.add(operator);
+                }
+            }
+        }
+        return new GroundTask(table, operators);
+    }
+
+    /**
+     * Task grounding every action, each in a task of its own.
+     */
+    private static final class AllActions extends RecursiveTask<List<GroundOperator>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<GroundingTask> tasks;
+
+        /**
+         * Constructor.
+         * @param tasks the task for each action
+         */
+        private AllActions(final List<GroundingTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected List<GroundOperator> compute() {
+            return joinAll(tasks);
+        }
+    }
+
+    /**
+     * Task grounding an action with some of its leading parameters already bound.
+     */
+    private static final class GroundingTask extends RecursiveTask<List<GroundOperator>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ActionSchema schema;
+        private final int[] binding;
+        private final int bound;
+
+        /**
+         * Constructor.
+         * @param schema the compiled action
+         * @param binding the objects bound to the parameters so far, which the task takes ownership of
+         * @param bound the number of parameters bound so far
+         */
+        private GroundingTask(final ActionSchema schema, final int[] binding, final int bound) {
+            this.schema = schema;
+            this.binding = binding;
+            this.bound = bound;
+        }
+
+        @Override
+        protected List<GroundOperator> compute() {
+            if (bound < PREFIX_LENGTH && bound < schema.arity()) {
+                List<GroundingTask> subtasks = new ArrayList<>();
+                for (int object : schema.domain(bound)) {
+                    binding[bound] = object;
+                    if (schema.accepts(bound, binding)) {
+                        subtasks.add(new GroundingTask(schema, binding.clone(), bound + 1));
+                    }
+                }
+                return joinAll(subtasks);
+            }
+            List<GroundOperator> operators = new ArrayList<>();
+            schema.ground(binding, bound, operators);
+            return operators;
+        }
+    }
+
+    /**
+     * Run tasks in parallel and join their results, keeping them in the order of the tasks.
+     * @param tasks the tasks
+     * @return the operators found by every task
+     */
+    private static List<GroundOperator> joinAll(final List<? extends RecursiveTask<List<GroundOperator>>> tasks) {
+        RecursiveTask.invokeAll(tasks);
+        List<GroundOperator> operators = new ArrayList<>();
+        for (RecursiveTask<List<GroundOperator>> task : tasks) {
+            operators.addAll(task.join());
+        }
+        return operators;
+    }
+
+    /**
+     * Holder for the shared pool, so that it is only created when first used. Its worker threads are daemon threads,
+     * so it never needs to be shut down.
+     */
+    private static final class SharedPool {
+
+        /**
+         * The shared pool.
+         */
+        private static final ForkJoinPool POOL = new ForkJoinPool();
+
+        /**
+         * Private constructor, as this class only holds the pool.
+         */
+        private SharedPool() { }
+    }
+}
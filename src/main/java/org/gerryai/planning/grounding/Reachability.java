@@ -0,0 +1,102 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding;
+
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Action;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a relaxed reachability analysis: the ground atoms and action instances that can be reached from the
+ * initial state when delete effects and negative fluent preconditions are ignored. Anything not reached here can
+ * never be reached by a real plan, so need not be grounded.
+ */
+public final class Reachability {
+
+    private final GroundAtomTable atoms;
+    private final long[] reachable;
+    private final Map<Action, List<int[]>> instances;
+    private final int instanceCount;
+
+    /**
+     * Constructor.
+     * @param atoms the table of ground atoms
+     * @param reachable a bitset of the reachable atoms
+     * @param instances the bindings of the parameters of each action that were reached, in ascending order
+     */
+    Reachability(final GroundAtomTable atoms, final long[] reachable, final Map<Action, List<int[]>> instances) {
+        this.atoms = atoms;
+        this.reachable = reachable;
+        this.instances = instances;
+        int count = 0;
+        for (List<int[]> bindings : instances.values()) {
+            count += bindings.size();
+        }
+        instanceCount = count;
+    }
+
+    /**
+     * Get the table of ground atoms.
+     * @return the table
+     */
+    public GroundAtomTable getAtoms() {
+        return atoms;
+    }
+
+    /**
+     * Get the reachable atoms.
+     * @return a new bitset of the ids of the atoms
+     */
+    public long[] getReachableAtoms() {
+        return reachable.clone();
+    }
+
+    /**
+     * Check whether an atom is reachable.
+     * @param id the id of the atom
+     * @return true if the atom is reachable
+     */
+    public boolean isReachable(final int id) {
+        return GroundAtomTable.contains(reachable, id);
+    }
+
+    /**
+     * Get the reachable instances of an action.
+     * @param action the action
+     * @return the ids of the objects bound to its parameters in each instance, in ascending order; the arrays are
+     * shared, so must not be modified
+     */
+    public List<int[]> getInstances(final Action action) {
+        List<int[]> bindings = instances.get(action);
+        if (bindings == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(bindings);
+    }
+
+    /**
+     * Get the number of reachable action instances.
+     * @return the number of instances of every action
+     */
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+}
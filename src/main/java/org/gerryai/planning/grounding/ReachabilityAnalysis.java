@@ -0,0 +1,550 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding;
+
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.TypeHierarchy;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Relaxed reachability analysis, treating each action as a Datalog rule. The rule's body is the action's positive
+ * preconditions, both static and fluent, and its heads are the action instance and its add effects. Delete effects
+ * and negative fluent preconditions are ignored, while types, equalities and negated static atoms still filter the
+ * bindings, since they can be decided exactly. Conditional effects are treated as if their conditions always held.
+ *
+ * Rules are evaluated semi-naively: each round only looks for bindings that use at least one fact derived in the
+ * previous round, joining it with the older facts through an index on each argument position, until a round derives
+ * nothing new.
+ */
+public final class ReachabilityAnalysis {
+
+    private static final Comparator<int[]> LEXICOGRAPHIC = new Comparator<int[]>() {
+        @Override
+        public int compare(final int[] first, final int[] second) {
+            for (int i = 0; i < first.length; i++) {
+                if (first[i] != second[i]) {
+                    return Integer.compare(first[i], second[i]);
+                }
+            }
+            return 0;
+        }
+    };
+
+    /**
+     * Find the atoms and action instances of a problem that are reachable from its initial state.
+     * @param domain the domain defining the actions
+     * @param problem the problem defining the objects and initial state
+     * @return the reachable atoms and action instances
+     * @throws IllegalArgumentException if an action cannot be grounded, or the problem has too many ground atoms
+     */
+    public Reachability analyse(final Domain domain, final Problem problem) {
+        GroundAtomTable table = new GroundAtomTable(domain, problem);
+        return analyse(table, ActionSchema.compileAll(domain, table));
+    }
+
+    /**
+     * Find the atoms and action instances that are reachable from the initial state.
+     * @param table the table of ground atoms
+     * @param schemas the compiled actions
+     * @return the reachable atoms and action instances
+     */
+    Reachability analyse(final GroundAtomTable table, final List<ActionSchema> schemas) {
+        return new Evaluation(table, schemas).run();
+    }
+
+    /**
+     * The state of one evaluation of the rules to a fixpoint.
+     */
+    private static final class Evaluation {
+
+        private final GroundAtomTable table;
+        private final Relation[] relations;
+        private final Rule[] rules;
+        private final long[] reached;
+
+        /**
+         * The number of facts of each relation before the current round's new facts, which are its delta.
+         */
+        private final int[] oldEnd;
+
+        /**
+         * The number of facts of each relation at the start of the current round.
+         */
+        private final int[] fullEnd;
+
+        /**
+         * Constructor.
+         * @param table the table of ground atoms
+         * @param schemas the compiled actions
+         */
+        private Evaluation(final GroundAtomTable table, final List<ActionSchema> schemas) {
+            this.table = table;
+            int objects = table.getTypeHierarchy().getObjects().size();
+            relations = new Relation[table.getPredicateCount()];
+            for (int p = 0; p < relations.length; p++) {
+                relations[p] = new Relation(table.getArity(p), objects);
+            }
+            rules = new Rule[schemas.size()];
+            for (int r = 0; r < rules.length; r++) {
+                rules[r] = new Rule(schemas.get(r), table.getTypeHierarchy());
+            }
+            reached = table.newBitSet();
+            oldEnd = new int[relations.length];
+            fullEnd = new int[relations.length];
+        }
+
+        /**
+         * Evaluate the rules to a fixpoint.
+         * @return the reachable atoms and action instances
+         */
+        private Reachability run() {
+            long[] initialState = table.getInitialState();
+            for (int id = 0; id < table.size(); id++) {
+                if (GroundAtomTable.contains(initialState, id)) {
+                    derive(id);
+                }
+            }
+            boolean first = true;
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int p = 0; p < relations.length; p++) {
+                    oldEnd[p] = fullEnd[p];
+                    fullEnd[p] = relations[p].size;
+                    changed |= fullEnd[p] > oldEnd[p];
+                }
+                for (Rule rule : rules) {
+                    if (rule.body.length == 0) {
+                        if (first) {
+                            join(rule, -1, 0);
+                        }
+                    } else {
+                        for (int delta = 0; delta < rule.body.length; delta++) {
+                            int predicate = rule.body[delta].getPredicate();
+                            if (fullEnd[predicate] > oldEnd[predicate]) {
+                                join(rule, delta, 0);
+                            }
+                        }
+                    }
+                }
+                first = false;
+            }
+            Map<Action, List<int[]>> instances = new HashMap<>();
+            for (Rule rule : rules) {
+                List<int[]> bindings = new ArrayList<>(rule.instances.size());
+                for (Binding binding : rule.instances) {
+                    bindings.add(binding.objects);
+                }
+                Collections.sort(bindings, LEXICOGRAPHIC);
+                instances.put(rule.schema.getAction(), bindings);
+            }
+            return new Reachability(table, reached, instances);
+        }
+
+        /**
+         * Add a fact, unless it is already known.
+         * @param id the id of the atom
+         */
+        private void derive(final int id) {
+            if (!GroundAtomTable.contains(reached, id)) {
+                GroundAtomTable.set(reached, id);
+                relations[table.predicateOf(id)].add(table.arguments(id));
+            }
+        }
+
+        /**
+         * Find the bindings of a rule's body that use at least one new fact, and fire the rule for each.
+         * @param rule the rule
+         * @param delta the position in the body of the atom to match against only the new facts, or -1 for a rule
+         * with no body
+         * @param step the number of atoms of the body matched so far, in the rule's join order for the delta
+         */
+        private void join(final Rule rule, final int delta, final int step) {
+            if (delta < 0 || step == rule.body.length) {
+                complete(rule, 0);
+                return;
+            }
+            int position = rule.orders[delta][step];
+            AtomTemplate atom = rule.body[position];
+            Relation relation = relations[atom.getPredicate()];
+            int low = 0;
+            int high = fullEnd[atom.getPredicate()];
+            if (position == delta) {
+                low = oldEnd[atom.getPredicate()];
+            } else if (position < delta) {
+                high = oldEnd[atom.getPredicate()];
+            }
+            int[] arguments = atom.getArguments();
+            IntList probe = null;
+            for (int i = 0; i < arguments.length && probe == null; i++) {
+                int object = rule.boundObject(arguments[i]);
+                if (object >= 0) {
+                    probe = relation.index(i, object);
+                }
+            }
+            if (probe == null) {
+                for (int fact = low; fact < high; fact++) {
+                    match(rule, delta, step, relation, fact, arguments);
+                }
+            } else {
+                for (int i = 0; i < probe.size; i++) {
+                    int fact = probe.values[i];
+                    if (fact >= high) {
+                        break;
+                    }
+                    if (fact >= low) {
+                        match(rule, delta, step, relation, fact, arguments);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Match an atom of a rule's body against a fact, binding its unbound parameters, and carry on joining if it
+         * matched.
+         * @param rule the rule
+         * @param delta the position in the body of the atom matched against only the new facts
+         * @param step the number of atoms of the body matched so far
+         * @param relation the relation of the atom's predicate
+         * @param fact the index of the fact in the relation
+         * @param arguments the encoded arguments of the atom
+         */
+        private void match(final Rule rule, final int delta, final int step, final Relation relation, final int fact,
+                           final int[] arguments) {
+            int[] binding = rule.binding;
+            int bound = 0;
+            boolean matched = true;
+            for (int i = 0; i < arguments.length && matched; i++) {
+                int object = relation.get(fact, i);
+                int argument = arguments[i];
+                if (AtomTemplate.isConstant(argument)) {
+                    matched = AtomTemplate.resolve(argument, binding) == object;
+                } else if (binding[argument] >= 0) {
+                    matched = binding[argument] == object;
+                } else if (GroundAtomTable.contains(rule.allowed[argument], object)) {
+                    binding[argument] = object;
+                    rule.newlyBound[step][bound++] = argument;
+                } else {
+                    matched = false;
+                }
+            }
+            if (matched) {
+                join(rule, delta, step + 1);
+            }
+            for (int i = 0; i < bound; i++) {
+                binding[rule.newlyBound[step][i]] = -1;
+            }
+        }
+
+        /**
+         * Bind the parameters the body left unbound to every object of their types, and fire the rule for each
+         * complete binding that passes the action's checks.
+         * @param rule the rule
+         * @param parameter the first parameter that may still be unbound
+         */
+        private void complete(final Rule rule, final int parameter) {
+            int[] binding = rule.binding;
+            if (parameter == binding.length) {
+                if (rule.schema.acceptsAll(binding)) {
+                    fire(rule);
+                }
+            } else if (binding[parameter] >= 0) {
+                complete(rule, parameter + 1);
+            } else {
+                for (int object : rule.schema.domain(parameter)) {
+                    binding[parameter] = object;
+                    complete(rule, parameter + 1);
+                }
+                binding[parameter] = -1;
+            }
+        }
+
+        /**
+         * Record a new instance of a rule's action and derive its add effects, including those of its conditional
+         * effects whatever their conditions.
+         * @param rule the rule, with every parameter bound
+         */
+        private void fire(final Rule rule) {
+            int[] objects = rule.binding.clone();
+            if (rule.instances.add(new Binding(objects))) {
+                GroundOperator operator = rule.schema.instantiate(objects);
+                if (operator != null) {
+                    for (int id : operator.getAddEffects()) {
+                        derive(id);
+                    }
+                    for (ConditionalEffect effect : operator.getConditionalEffects()) {
+                        for (int id : effect.getAddEffects()) {
+                            derive(id);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An action compiled to a rule, with its join order for each choice of delta atom and the state of the join in
+     * progress.
+     */
+    private static final class Rule {
+
+        private final ActionSchema schema;
+        private final AtomTemplate[] body;
+
+        /**
+         * For each position of the delta atom in the body, the order to match the body's atoms in.
+         */
+        private final int[][] orders;
+
+        /**
+         * For each parameter, a bitset of the objects of its type.
+         */
+        private final long[][] allowed;
+
+        private final Set<Binding> instances = new HashSet<>();
+
+        /**
+         * The object bound to each parameter, or -1 if it is unbound.
+         */
+        private final int[] binding;
+
+        /**
+         * For each step of the join, the parameters bound by that step.
+         */
+        private final int[][] newlyBound;
+
+        /**
+         * Constructor.
+         * @param schema the compiled action
+         * @param hierarchy the types and objects of the problem
+         */
+        private Rule(final ActionSchema schema, final TypeHierarchy hierarchy) {
+            this.schema = schema;
+            AtomTemplate[] fluent = schema.getPrecondition();
+            AtomTemplate[] fixed = schema.getStaticPrecondition();
+            body = Arrays.copyOf(fixed, fixed.length + fluent.length);
+            System.arraycopy(fluent, 0, body, fixed.length, fluent.length);
+            binding = new int[schema.arity()];
+            Arrays.fill(binding, -1);
+            allowed = new long[schema.arity()][];
+            for (int parameter = 0; parameter < allowed.length; parameter++) {
+                allowed[parameter] = hierarchy.newObjectSet();
+                for (int object : schema.domain(parameter)) {
+                    GroundAtomTable.set(allowed[parameter], object);
+                }
+            }
+            int width = 0;
+            for (AtomTemplate atom : body) {
+                width = Math.max(width, atom.getArguments().length);
+            }
+            newlyBound = new int[body.length][width];
+            orders = new int[body.length][];
+            for (int delta = 0; delta < body.length; delta++) {
+                orders[delta] = order(delta);
+            }
+        }
+
+        /**
+         * Choose the order to match the body's atoms in, starting from the delta atom and then greedily taking the
+         * atom with the most parameters already bound, so each join probes an index where it can.
+         * @param delta the position of the delta atom in the body
+         * @return the positions of the atoms, in the order to match them
+         */
+        private int[] order(final int delta) {
+            int[] order = new int[body.length];
+            boolean[] used = new boolean[body.length];
+            boolean[] bound = new boolean[binding.length];
+            int next = delta;
+            for (int step = 0; step < body.length; step++) {
+                if (step > 0) {
+                    int bestScore = -1;
+                    for (int position = 0; position < body.length; position++) {
+                        int score = score(body[position], bound);
+                        if (!used[position] && score > bestScore) {
+                            next = position;
+                            bestScore = score;
+                        }
+                    }
+                }
+                order[step] = next;
+                used[next] = true;
+                for (int argument : body[next].getArguments()) {
+                    if (!AtomTemplate.isConstant(argument)) {
+                        bound[argument] = true;
+                    }
+                }
+            }
+            return order;
+        }
+
+        /**
+         * Count the arguments of an atom that will already be bound when it is matched.
+         * @param atom the atom
+         * @param bound for each parameter, whether it will be bound
+         * @return the number of constants and bound parameters among its arguments
+         */
+        private static int score(final AtomTemplate atom, final boolean[] bound) {
+            int score = 0;
+            for (int argument : atom.getArguments()) {
+                if (AtomTemplate.isConstant(argument) || bound[argument]) {
+                    score++;
+                }
+            }
+            return score;
+        }
+
+        /**
+         * Get the object an encoded argument is bound to.
+         * @param argument the encoded argument
+         * @return the id of the object, or -1 if the argument is an unbound parameter
+         */
+        private int boundObject(final int argument) {
+            return AtomTemplate.resolve(argument, binding);
+        }
+    }
+
+    /**
+     * The facts of a predicate, in the order they were derived, with an index on each argument position.
+     */
+    private static final class Relation {
+
+        private final int arity;
+        private int[] facts;
+        private int size;
+
+        /**
+         * For each argument position and object, the indexes of the facts with that object in that position.
+         */
+        private final IntList[][] index;
+
+        /**
+         * Constructor.
+         * @param arity the number of arguments of the predicate
+         * @param objects the number of objects
+         */
+        private Relation(final int arity, final int objects) {
+            this.arity = arity;
+            facts = new int[arity];
+            index = new IntList[arity][objects];
+        }
+
+        /**
+         * Add a fact.
+         * @param arguments the ids of its arguments
+         */
+        private void add(final int[] arguments) {
+            if ((size + 1) * arity > facts.length) {
+                facts = Arrays.copyOf(facts, 2 * (size + 1) * arity);
+            }
+            System.arraycopy(arguments, 0, facts, size * arity, arity);
+            for (int i = 0; i < arity; i++) {
+                if (index[i][arguments[i]] == null) {
+                    index[i][arguments[i]] = new IntList();
+                }
+                index[i][arguments[i]].add(size);
+            }
+            size++;
+        }
+
+        /**
+         * Get an argument of a fact.
+         * @param fact the index of the fact
+         * @param position the argument position
+         * @return the id of the object
+         */
+        private int get(final int fact, final int position) {
+            return facts[fact * arity + position];
+        }
+
+        /**
+         * Get the facts with an object in an argument position.
+         * @param position the argument position
+         * @param object the id of the object
+         * @return the indexes of the facts in ascending order
+         */
+        private IntList index(final int position, final int object) {
+            IntList facts = index[position][object];
+            if (facts == null) {
+                return IntList.EMPTY;
+            }
+            return facts;
+        }
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static final class IntList {
+
+        private static final IntList EMPTY = new IntList();
+
+        private static final int INITIAL_CAPACITY = 4;
+
+        private int[] values = new int[INITIAL_CAPACITY];
+        private int size;
+
+        /**
+         * Add a value.
+         * @param value the value
+         */
+        private void add(final int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * The objects bound to the parameters of an action instance, compared by value.
+     */
+    private static final class Binding {
+
+        private final int[] objects;
+
+        /**
+         * Constructor.
+         * @param objects the ids of the objects
+         */
+        private Binding(final int[] objects) {
+            this.objects = objects;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(objects);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof Binding && Arrays.equals(objects, ((Binding) obj).objects);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic;
+
+import org.gerryai.planning.search.PackedState;
+
+import java.util.Arrays;
+
+/**
+ * Generalised Dijkstra over the unary operators of a {@link RelaxedTask}, finding the cost of each atom from a state
+ * when the cost of a set of atoms is either the sum or the maximum of their costs. Each unary operator keeps a count
+ * of the atoms of its precondition not yet reached, and fires when that reaches zero, so each is looked at once per
+ * atom of its precondition. Propagation stops as soon as the cost of every goal atom is known.
+ *
+ * Every buffer is allocated up front and reused, so evaluating a state allocates nothing. Not thread safe.
+ */
+final class CostPropagation {
+
+    /**
+     * Cost of an atom that cannot be reached.
+     */
+    static final int INFINITY = Integer.MAX_VALUE;
+
+    /**
+     * Mask giving the atom of an entry in the queue, whose high bits hold its cost.
+     */
+    private static final long ATOM_MASK = 0xFFFFFFFFL;
+
+    private final RelaxedTask task;
+
+    private final int atomCount;
+
+    private final boolean[] goal;
+
+    private final int[] atomCosts;
+
+    private final int[] supporters;
+
+    private final int[] remaining;
+
+    private final int[] preconditionCosts;
+
+    /**
+     * Binary heap of atoms whose cost has been lowered, each entry holding the cost in its high bits and the atom in
+     * its low bits. An atom is only added when its cost is lowered and each unary operator fires once, so the heap
+     * never needs more room than there are atoms and unary operators.
+     */
+    private final long[] heap;
+
+    private int heapSize;
+
+    /**
+     * Constructor.
+     * @param task the relaxed task
+     */
+    CostPropagation(final RelaxedTask task) {
+        this.task = task;
+        atomCount = task.getAtoms().size();
+        goal = new boolean[atomCount];
+        for (int atom : task.goal()) {
+            goal[atom] = true;
+        }
+        atomCosts = new int[atomCount];
+        supporters = new int[atomCount];
+        remaining = new int[task.getUnaryOperatorCount()];
+        preconditionCosts = new int[task.getUnaryOperatorCount()];
+        heap = new long[atomCount + task.getUnaryOperatorCount()];
+    }
+
+    /**
+     * Find the cost of the atoms from a state, or at least of those that cost no more than the dearest goal atom.
+     * @param state the state
+     * @param additive true if the cost of a precondition is the sum of the costs of its atoms, false if it is the
+     * maximum
+     */
+    void run(final PackedState state, final boolean additive) {
+        Arrays.fill(atomCosts, INFINITY);
+        Arrays.fill(supporters, -1);
+        Arrays.fill(preconditionCosts, 0);
+        heapSize = 0;
+        int goalsLeft = task.goal().length;
+        for (int atom = state.nextSetBit(0); atom >= 0 && atom < atomCount; atom = state.nextSetBit(atom + 1)) {
+            atomCosts[atom] = 0;
+            push(0, atom);
+        }
+        for (int unary = 0; unary < remaining.length; unary++) {
+            remaining[unary] = task.preconditionStart(unary + 1) - task.preconditionStart(unary);
+            if (remaining[unary] == 0) {
+                fire(unary);
+            }
+        }
+        int[] triggers = task.triggers();
+        while (heapSize > 0 && goalsLeft > 0) {
+            long top = pop();
+            int cost = (int) (top >>> Integer.SIZE);
+            int atom = (int) (top & ATOM_MASK);
+            if (cost > atomCosts[atom]) {
+                continue;
+            }
+            if (goal[atom]) {
+                goalsLeft--;
+            }
+            for (int i = task.triggerStart(atom); i < task.triggerStart(atom + 1); i++) {
+                int unary = triggers[i];
+                if (additive) {
+                    preconditionCosts[unary] = add(preconditionCosts[unary], cost);
+                } else {
+                    preconditionCosts[unary] = Math.max(preconditionCosts[unary], cost);
+                }
+                remaining[unary]--;
+                if (remaining[unary] == 0) {
+                    fire(unary);
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply a unary operator whose precondition has been reached, lowering the cost of its effect if it is cheaper.
+     * @param unary the unary operator
+     */
+    private void fire(final int unary) {
+        int cost = add(preconditionCosts[unary], task.cost(unary));
+        int effect = task.effect(unary);
+        if (cost < atomCosts[effect]) {
+            atomCosts[effect] = cost;
+            supporters[effect] = unary;
+            push(cost, effect);
+        }
+    }
+
+    /**
+     * Add two costs, without overflowing.
+     * @param first the first cost
+     * @param second the second cost
+     * @return the sum, or {@link #INFINITY} if that is too large for an int
+     */
+    static int add(final int first, final int second) {
+        long sum = (long) first + second;
+        if (sum >= INFINITY) {
+            return INFINITY;
+        }
+        return (int) sum;
+    }
+
+    /**
+     * Get the cost of an atom found by the last run.
+     * @param atom the atom
+     * @return the cost, or {@link #INFINITY} if it was not reached
+     */
+    int cost(final int atom) {
+        return atomCosts[atom];
+    }
+
+    /**
+     * Get the unary operator that reached an atom most cheaply in the last run.
+     * @param atom the atom
+     * @return the unary operator, or -1 if the atom holds in the state or was not reached
+     */
+    int supporter(final int atom) {
+        return supporters[atom];
+    }
+
+    /**
+     * Add an atom to the queue.
+     * @param cost the cost it was reached at
+     * @param atom the atom
+     */
+    private void push(final int cost, final int atom) {
+        long entry = (long) cost << Integer.SIZE | atom;
+        int child = heapSize;
+        heapSize++;
+        while (child > 0) {
+            int parent = (child - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[child] = heap[parent];
+            child = parent;
+        }
+        heap[child] = entry;
+    }
+
+    /**
+     * Remove the cheapest atom from the queue.
+     * @return its entry
+     */
+    private long pop() {
+        long top = heap[0];
+        heapSize--;
+        long last = heap[heapSize];
+        int parent = 0;
+        int child = 1;
+        while (child < heapSize) {
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[parent] = heap[child];
+            parent = child;
+            child = 2 * parent + 1;
+        }
+        heap[parent] = last;
+        return top;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.search.PackedState;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The h_FF heuristic: the cost of a relaxed plan, found by following the cheapest way of reaching each goal atom
+ * under {@link AdditiveHeuristic} back to the state, counting each operator once however many atoms it is used for.
+ * The operators of the relaxed plan that can be applied in the state are its preferred operators, which search can
+ * try before the others.
+ *
+ * Keeps buffers from one evaluation to the next, so allocates nothing per state and is not thread safe; use one
+ * instance per thread, sharing the {@link RelaxedTask}.
+ */
+public final class FFHeuristic implements Heuristic {
+
+    private final RelaxedTask task;
+
+    private final CostPropagation propagation;
+
+    /**
+     * The evaluation in which each atom was last added to the relaxed plan, so marks never need clearing.
+     */
+    private final int[] atomMarks;
+
+    /**
+     * The evaluation in which each ground operator was last added to the relaxed plan.
+     */
+    private final int[] operatorMarks;
+
+    private final int[] stack;
+
+    private int evaluation;
+
+    /**
+     * Constructor.
+     * @param task the relaxed task
+     */
+    public FFHeuristic(final RelaxedTask task) {
+        this.task = task;
+        propagation = new CostPropagation(task);
+        atomMarks = new int[task.getAtoms().size()];
+        operatorMarks = new int[task.getOperators().size()];
+        stack = new int[task.getAtoms().size()];
+    }
+
+    @Override
+    public int evaluate(final PackedState state) {
+        return evaluate(state, null);
+    }
+
+    /**
+     * Estimate the cost of reaching the goal from a state, and find the preferred operators in it.
+     * @param state the state
+     * @param preferred the list to add the preferred operators to, in the order they were added to the relaxed plan,
+     * or null if they are not wanted
+     * @return the estimate, or {@link #DEAD_END} if the goal cannot be reached
+     */
+    public int evaluate(final PackedState state, final List<GroundOperator> preferred) {
+        propagation.run(state, true);
+        for (int atom : task.goal()) {
+            if (propagation.cost(atom) == CostPropagation.INFINITY) {
+                return DEAD_END;
+            }
+        }
+        nextEvaluation();
+        int size = 0;
+        for (int atom : task.goal()) {
+            if (atomMarks[atom] != evaluation) {
+                atomMarks[atom] = evaluation;
+                stack[size] = atom;
+                size++;
+            }
+        }
+        int estimate = 0;
+        int[] preconditions = task.preconditions();
+        List<GroundOperator> operators = task.getOperators();
+        while (size > 0) {
+            size--;
+            int unary = propagation.supporter(stack[size]);
+            if (unary < 0) {
+                continue;
+            }
+            int operator = task.operatorOf(unary);
+            if (operatorMarks[operator] != evaluation) {
+                operatorMarks[operator] = evaluation;
+                estimate = CostPropagation.add(estimate, task.cost(unary));
+                if (preferred != null && state.isApplicable(operators.get(operator))) {
+                    preferred.add(operators.get(operator));
+                }
+            }
+            for (int i = task.preconditionStart(unary); i < task.preconditionStart(unary + 1); i++) {
+                int atom = preconditions[i];
+                if (atomMarks[atom] != evaluation) {
+                    atomMarks[atom] = evaluation;
+                    stack[size] = atom;
+                    size++;
+                }
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * Start a new evaluation, clearing the marks only when the counter wraps around.
+     */
+    private void nextEvaluation() {
+        evaluation++;
+        if (evaluation == Integer.MAX_VALUE) {
+            Arrays.fill(atomMarks, 0);
+            Arrays.fill(operatorMarks, 0);
+            evaluation = 1;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic;
+
+import org.gerryai.planning.search.PackedState;
+
+/**
+ * An estimate of the cost of reaching the goal of a task from a state.
+ */
+public interface Heuristic {
+
+    /**
+     * The estimate for a state from which the goal cannot be reached.
+     */
+    int DEAD_END = Integer.MAX_VALUE;
+
+    /**
+     * Estimate the cost of reaching the goal from a state.
+     * @param state the state
+     * @return the estimate, or {@link #DEAD_END} if the goal cannot be reached
+     */
+    int evaluate(PackedState state);
+}
@@ -0,0 +1,53 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic;
+
+import org.gerryai.planning.search.PackedState;
+
+/**
+ * The h_max heuristic: the cost of the dearest goal atom, where the cost of a set of atoms is the maximum of their
+ * costs. It never overestimates, so is admissible, but is usually far from the true cost.
+ *
+ * Keeps buffers from one evaluation to the next, so allocates nothing per state and is not thread safe; use one
+ * instance per thread, sharing the {@link RelaxedTask}.
+ */
+public final class MaxHeuristic implements Heuristic {
+
+    private final RelaxedTask task;
+
+    private final CostPropagation propagation;
+
+    /**
+     * Constructor.
+     * @param task the relaxed task
+     */
+    public MaxHeuristic(final RelaxedTask task) {
+        this.task = task;
+        propagation = new CostPropagation(task);
+    }
+
+    @Override
+    public int evaluate(final PackedState state) {
+        propagation.run(state, false);
+        int estimate = 0;
+        for (int atom : task.goal()) {
+            estimate = Math.max(estimate, propagation.cost(atom));
+        }
+        return estimate;
+    }
+}
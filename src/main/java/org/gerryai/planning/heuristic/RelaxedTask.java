@@ -0,0 +1,313 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic;
+
+import org.gerryai.planning.grounding.ConditionalEffect;
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.model.GroundAtomTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The delete relaxation of a ground task, split into unary operators: one for each add effect of each ground
+ * operator, whose precondition is the operator's positive precondition together with the condition of the effect if
+ * it is conditional. Delete effects and negative preconditions are dropped. The unary operators are held in flat
+ * arrays, together with, for each atom, the unary operators it is a precondition of, so the heuristics built on the
+ * task can propagate costs without following references or allocating.
+ *
+ * Immutable, so one task can be shared by any number of heuristics, including on different threads.
+ */
+public final class RelaxedTask {
+
+    private final GroundAtomTable atoms;
+
+    private final List<GroundOperator> operators;
+
+    private final int[] goal;
+
+    /**
+     * The index of the ground operator each unary operator was split from.
+     */
+    private final int[] operatorOf;
+
+    private final int[] effects;
+
+    private final int[] costs;
+
+    /**
+     * Where the precondition of each unary operator starts in {@link #preconditions}, followed by its length.
+     */
+    private final int[] preconditionStarts;
+
+    private final int[] preconditions;
+
+    /**
+     * Where the unary operators each atom is a precondition of start in {@link #triggers}, followed by its length.
+     */
+    private final int[] triggerStarts;
+
+    private final int[] triggers;
+
+    /**
+     * Constructor for a task in which every operator costs one.
+     * @param task the ground task
+     * @throws IllegalArgumentException if the goal of the task is not a conjunction of literals
+     */
+    public RelaxedTask(final GroundTask task) {
+        this(task, unitCosts(task.getOperators().size()));
+    }
+
+    /**
+     * Constructor.
+     * @param task the ground task
+     * @param operatorCosts the cost of each ground operator, in the order of the task's operators
+     * @throws IllegalArgumentException if the goal of the task is not a conjunction of literals, the wrong number of
+     * costs is given or a cost is negative
+     */
+    public RelaxedTask(final GroundTask task, final int[] operatorCosts) {
+        atoms = task.getAtoms();
+        operators = task.getOperators();
+        if (!atoms.isConjunctiveGoal()) {
+            throw new IllegalArgumentException("The goal of the task is not a conjunction of literals");
+        }
+        if (operatorCosts.length != operators.size()) {
+            throw new IllegalArgumentException("Expected " + operators.size() + " operator costs but got "
+                    + operatorCosts.length);
+        }
+        goal = ids(atoms.getGoal());
+
+        List<Integer> operatorList = new ArrayList<>();
+        List<Integer> effectList = new ArrayList<>();
+        List<int[]> preconditionList = new ArrayList<>();
+        for (int i = 0; i < operators.size(); i++) {
+            if (operatorCosts[i] < 0) {
+                throw new IllegalArgumentException("Operator " + i + " has a negative cost");
+            }
+            GroundOperator operator = operators.get(i);
+            split(i, operator.getPrecondition(), operator.getAddEffects(), operatorList, effectList,
+                    preconditionList);
+            for (ConditionalEffect effect : operator.getConditionalEffects()) {
+                split(i, union(operator.getPrecondition(), effect.getCondition()), effect.getAddEffects(),
+                        operatorList, effectList, preconditionList);
+            }
+        }
+
+        int count = operatorList.size();
+        operatorOf = new int[count];
+        effects = new int[count];
+        costs = new int[count];
+        preconditionStarts = new int[count + 1];
+        int total = 0;
+        for (int u = 0; u < count; u++) {
+            operatorOf[u] = operatorList.get(u);
+            effects[u] = effectList.get(u);
+            costs[u] = operatorCosts[operatorOf[u]];
+            preconditionStarts[u] = total;
+            total += preconditionList.get(u).length;
+        }
+        preconditionStarts[count] = total;
+        preconditions = new int[total];
+        triggerStarts = new int[atoms.size() + 1];
+        for (int u = 0; u < count; u++) {
+            System.arraycopy(preconditionList.get(u), 0, preconditions, preconditionStarts[u],
+                    preconditionList.get(u).length);
+            for (int atom : preconditionList.get(u)) {
+                triggerStarts[atom + 1]++;
+            }
+        }
+        for (int atom = 0; atom < atoms.size(); atom++) {
+            triggerStarts[atom + 1] += triggerStarts[atom];
+        }
+        triggers = new int[total];
+        int[] next = Arrays.copyOf(triggerStarts, atoms.size());
+        for (int u = 0; u < count; u++) {
+            for (int i = preconditionStarts[u]; i < preconditionStarts[u + 1]; i++) {
+                triggers[next[preconditions[i]]++] = u;
+            }
+        }
+    }
+
+    /**
+     * Create costs of one for every operator.
+     * @param count the number of operators
+     * @return the costs
+     */
+    private static int[] unitCosts(final int count) {
+        int[] costs = new int[count];
+        Arrays.fill(costs, 1);
+        return costs;
+    }
+
+    /**
+     * Add a unary operator for each add effect of an operator or conditional effect that is not already part of its
+     * precondition, as those can never lower the cost of an atom.
+     * @param operator the index of the ground operator
+     * @param precondition the atoms that must hold, sorted and without duplicates
+     * @param adds the atoms added
+     * @param operatorList the ground operator of each unary operator
+     * @param effectList the effect of each unary operator
+     * @param preconditionList the precondition of each unary operator
+     */
+    private static void split(final int operator, final int[] precondition, final int[] adds,
+                              final List<Integer> operatorList, final List<Integer> effectList,
+                              final List<int[]> preconditionList) {
+        for (int add : adds) {
+            if (Arrays.binarySearch(precondition, add) < 0) {
+                operatorList.add(operator);
+                effectList.add(add);
+                preconditionList.add(precondition);
+            }
+        }
+    }
+
+    /**
+     * Merge two sorted sets of atoms.
+     * @param first the first set, sorted
+     * @param second the second set, in any order
+     * @return the atoms in either, sorted and without duplicates
+     */
+    private static int[] union(final int[] first, final int[] second) {
+        int[] merged = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, merged, first.length, second.length);
+        Arrays.sort(merged);
+        int size = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (size == 0 || merged[size - 1] != merged[i]) {
+                merged[size] = merged[i];
+                size++;
+            }
+        }
+        return Arrays.copyOf(merged, size);
+    }
+
+    /**
+     * List the atoms in a bitset.
+     * @param bits the bitset
+     * @return the ids of the atoms, in ascending order
+     */
+    private int[] ids(final long[] bits) {
+        List<Integer> list = new ArrayList<>();
+        for (int id = 0; id < atoms.size(); id++) {
+            if (GroundAtomTable.contains(bits, id)) {
+                list.add(id);
+            }
+        }
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Get the atoms of the task.
+     * @return the table of ground atoms
+     */
+    public GroundAtomTable getAtoms() {
+        return atoms;
+    }
+
+    /**
+     * Get the ground operators the unary operators were split from.
+     * @return the operators, in the order of the task
+     */
+    public List<GroundOperator> getOperators() {
+        return Collections.unmodifiableList(operators);
+    }
+
+    /**
+     * Get the number of unary operators.
+     * @return the number of unary operators
+     */
+    public int getUnaryOperatorCount() {
+        return effects.length;
+    }
+
+    /**
+     * Get the atoms that must hold in a goal state.
+     * @return the ids of the atoms; shared, so must not be modified
+     */
+    int[] goal() {
+        return goal;
+    }
+
+    /**
+     * Get the ground operator a unary operator was split from.
+     * @param unary the unary operator
+     * @return the index of the ground operator
+     */
+    int operatorOf(final int unary) {
+        return operatorOf[unary];
+    }
+
+    /**
+     * Get the atom a unary operator adds.
+     * @param unary the unary operator
+     * @return the id of the atom
+     */
+    int effect(final int unary) {
+        return effects[unary];
+    }
+
+    /**
+     * Get the cost of a unary operator, which is that of its ground operator.
+     * @param unary the unary operator
+     * @return the cost
+     */
+    int cost(final int unary) {
+        return costs[unary];
+    }
+
+    /**
+     * Get where the precondition of a unary operator starts in {@link #preconditions()}.
+     * @param unary the unary operator, or the number of unary operators for the end of the last precondition
+     * @return the index of its first atom
+     */
+    int preconditionStart(final int unary) {
+        return preconditionStarts[unary];
+    }
+
+    /**
+     * Get the preconditions of every unary operator, one after another.
+     * @return the ids of the atoms; shared, so must not be modified
+     */
+    int[] preconditions() {
+        return preconditions;
+    }
+
+    /**
+     * Get where the unary operators an atom is a precondition of start in {@link #triggers()}.
+     * @param atom the atom, or the number of atoms for the end of the last list
+     * @return the index of its first unary operator
+     */
+    int triggerStart(final int atom) {
+        return triggerStarts[atom];
+    }
+
+    /**
+     * Get the unary operators each atom is a precondition of, one atom after another.
+     * @return the unary operators; shared, so must not be modified
+     */
+    int[] triggers() {
+        return triggers;
+    }
+}
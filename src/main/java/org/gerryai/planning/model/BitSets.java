@@ -0,0 +1,77 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model;
+
+/**
+ * Operations on bitsets held as arrays of longs, in which bit {@code id % 64} of word {@code id / 64} is set if
+ * {@code id} is in the set.
+ */
+final class BitSets {
+
+    /**
+     * Number of bits in a word of a bitset, as a shift.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * Mask giving the index of a bit within a word of a bitset.
+     */
+    private static final int WORD_MASK = 63;
+
+    /**
+     * Private constructor, as this is a utility class.
+     */
+    private BitSets() { }
+
+    /**
+     * Get the number of words needed for a bitset.
+     * @param size the number of ids the bitset must be able to hold
+     * @return the number of words
+     */
+    static int words(final int size) {
+        return (size + WORD_MASK) >>> WORD_SHIFT;
+    }
+
+    /**
+     * Check whether an id is in a bitset.
+     * @param bits the bitset
+     * @param id the id
+     * @return true if the id is in the set
+     */
+    static boolean contains(final long[] bits, final int id) {
+        return (bits[id >>> WORD_SHIFT] & (1L << id)) != 0;
+    }
+
+    /**
+     * Add an id to a bitset.
+     * @param bits the bitset
+     * @param id the id
+     */
+    static void set(final long[] bits, final int id) {
+        bits[id >>> WORD_SHIFT] |= 1L << id;
+    }
+
+    /**
+     * Remove an id from a bitset.
+     * @param bits the bitset
+     * @param id the id
+     */
+    static void clear(final long[] bits, final int id) {
+        bits[id >>> WORD_SHIFT] &= ~(1L << id);
+    }
+}
@@ -19,6 +19,7 @@ package org.gerryai.planning.model;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -44,6 +45,23 @@ public class ConstantDefinitions {
         return Collections.unmodifiableSet(constants);
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(constants);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final ConstantDefinitions other = (ConstantDefinitions) obj;
+        return Objects.equals(this.constants, other.constants);
+    }
+
     /**
      * Builder class for {@link ConstantDefinitions}.
      */
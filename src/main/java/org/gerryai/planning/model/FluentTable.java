@@ -0,0 +1,306 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.logic.AssignmentOperator;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Type;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Table giving every ground numeric fluent of a problem a slot in a vector of doubles. The fluents are every instance
+ * of the domain's functions whose arguments are objects or constants of the right types, numbered in the same way as
+ * the atoms of a {@link GroundAtomTable}: functions in order of name, and the instances of each function in order of
+ * their arguments' names.
+ *
+ * The values of the fluents in a state are held in a {@code double[]} indexed by slot, with fluents that have not
+ * been given a value holding {@link Double#NaN}.
+ */
+public final class FluentTable {
+
+    private final String[] functionNames;
+
+    private final Map<String, Integer> functionIds;
+
+    /**
+     * The slot of the first fluent of each function, followed by the total number of fluents.
+     */
+    private final int[] offsets;
+
+    /**
+     * For each function and parameter, the number of objects the parameter can take.
+     */
+    private final int[][] counts;
+
+    /**
+     * For each function and parameter, the position of each object among those it can take, or -1 if it cannot.
+     */
+    private final int[][][] positions;
+
+    private final double[] initialValues;
+
+    private final TypeHierarchy hierarchy;
+
+    /**
+     * Constructor.
+     * @param domain the domain defining the functions and types
+     * @param problem the problem defining the objects and initial values
+     * @throws IllegalArgumentException if the problem has too many ground fluents to number with an int, or its initial
+     * state gives a value to something that is not one of them
+     */
+    public FluentTable(final Domain domain, final Problem problem) {
+        this(domain, problem, new TypeHierarchy(domain, problem));
+    }
+
+    /**
+     * Constructor, for a table sharing the object ids of another.
+     * @param domain the domain defining the functions and types
+     * @param problem the problem defining the objects and initial values
+     * @param hierarchy the type hierarchy of the domain and problem, such as that of a {@link GroundAtomTable}
+     * @throws IllegalArgumentException if the problem has too many ground fluents to number with an int, or its initial
+     * state gives a value to something that is not one of them
+     */
+    public FluentTable(final Domain domain, final Problem problem, final TypeHierarchy hierarchy) {
+        this.hierarchy = hierarchy;
+        int objectCount = hierarchy.getObjects().size();
+
+        Map<String, FunctionDefinition> functions = new TreeMap<>();
+        for (FunctionDefinition function : domain.getFunctions().asSet()) {
+            if (functions.put(function.getName(), function) != null) {
+                throw new IllegalArgumentException("Function " + function.getName() + " is defined twice");
+            }
+        }
+        functionNames = functions.keySet().toArray(new String[functions.size()]);
+        functionIds = new HashMap<>();
+        offsets = new int[functionNames.length + 1];
+        counts = new int[functionNames.length][];
+        positions = new int[functionNames.length][][];
+
+        long total = 0;
+        for (int f = 0; f < functionNames.length; f++) {
+            functionIds.put(functionNames[f], f);
+            List<Term> parameters = functions.get(functionNames[f]).getTerms();
+            counts[f] = new int[parameters.size()];
+            positions[f] = new int[parameters.size()][];
+            long count = 1;
+            for (int i = 0; i < parameters.size(); i++) {
+                Optional<Type> required = Optional.absent();
+                if (parameters.get(i) instanceof Variable) {
+                    required = ((Variable) parameters.get(i)).getType();
+                }
+                int[] candidates = hierarchy.objects(required);
+                counts[f][i] = candidates.length;
+                positions[f][i] = new int[objectCount];
+                Arrays.fill(positions[f][i], -1);
+                for (int position = 0; position < candidates.length; position++) {
+                    positions[f][i][candidates[position]] = position;
+                }
+                count *= candidates.length;
+                if (count > Integer.MAX_VALUE) {
+                    break;
+                }
+            }
+            offsets[f] = (int) total;
+            total += count;
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Problem " + problem.getName() + " has too many ground fluents");
+            }
+        }
+        offsets[functionNames.length] = (int) total;
+
+        initialValues = new double[(int) total];
+        Arrays.fill(initialValues, Double.NaN);
+        for (Formula fact : problem.getInitialState().asSet()) {
+            if (fact instanceof Operation) {
+                setInitialValue(problem, (Operation) fact);
+            }
+        }
+    }
+
+    /**
+     * Set the initial value of a fluent.
+     * @param problem the problem whose initial state holds the value
+     * @param operation the operation giving the value
+     * @throws IllegalArgumentException if the operation does not set a ground fluent to a number
+     */
+    private void setInitialValue(final Problem problem, final Operation operation) {
+        int slot = slot(operation.getConsequent());
+        Optional<NumberTerm> value = operation.getAntecedent().getNumber();
+        if (slot < 0 || !value.isPresent() || operation.getAssignmentOperator().orNull() != AssignmentOperator.ASSIGN) {
+            throw new IllegalArgumentException("Initial state of problem " + problem.getName() + " holds "
+                    + operation.getOperator() + " on " + operation.getConsequent().getName()
+                    + ", which does not give one of its ground fluents a number");
+        }
+        initialValues[slot] = value.get().getValue();
+    }
+
+    /**
+     * Get the number of ground fluents.
+     * @return the number of fluents, one more than the highest slot
+     */
+    public int size() {
+        return offsets[functionNames.length];
+    }
+
+    /**
+     * Get the type hierarchy the table was built from, whose object ids are the ones used here.
+     * @return the type hierarchy
+     */
+    public TypeHierarchy getTypeHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Get the number of functions.
+     * @return the number of functions, one more than the highest function id
+     */
+    public int getFunctionCount() {
+        return functionNames.length;
+    }
+
+    /**
+     * Get the id of a function.
+     * @param name the name of the function
+     * @return the id, or -1 if the domain has no function with that name
+     */
+    public int functionId(final String name) {
+        Integer function = functionIds.get(name);
+        if (function == null) {
+            return -1;
+        }
+        return function;
+    }
+
+    /**
+     * Get the slot of a ground fluent from the ids of its function and arguments, without building the term.
+     * @param function the id of the function
+     * @param arguments the ids of the objects that are its arguments
+     * @return the slot, or -1 if the arguments are of the wrong number or types for the function
+     */
+    public int slot(final int function, final int[] arguments) {
+        int[][] functionPositions = positions[function];
+        if (arguments.length != functionPositions.length) {
+            return -1;
+        }
+        int local = 0;
+        for (int i = 0; i < functionPositions.length; i++) {
+            int position = functionPositions[i][arguments[i]];
+            if (position < 0) {
+                return -1;
+            }
+            local = local * counts[function][i] + position;
+        }
+        return offsets[function] + local;
+    }
+
+    /**
+     * Get the slot of a ground fluent.
+     * @param fluent the function term naming the fluent
+     * @return the slot, or -1 if the term is not ground or is not one of the fluents in this table
+     */
+    public int slot(final FunctionTerm fluent) {
+        if (fluent.getName() == null) {
+            return -1;
+        }
+        Integer function = functionIds.get(fluent.getName());
+        if (function == null) {
+            return -1;
+        }
+        List<Term> terms = fluent.getTerms();
+        int[] arguments = new int[terms.size()];
+        for (int i = 0; i < arguments.length; i++) {
+            Term term = terms.get(i);
+            if (!(term instanceof Constant)) {
+                return -1;
+            }
+            arguments[i] = hierarchy.objectId(((Constant) term).getName());
+            if (arguments[i] < 0) {
+                return -1;
+            }
+        }
+        return slot(function, arguments);
+    }
+
+    /**
+     * Get the number of arguments a function takes.
+     * @param function the id of the function
+     * @return the number of arguments
+     */
+    public int getArity(final int function) {
+        return counts[function].length;
+    }
+
+    /**
+     * Get the slot of the first fluent of a function. The slot of a fluent is this plus, for each argument, the
+     * position of the object in {@link #positions(int, int)} times {@link #stride(int, int)}.
+     * @param function the id of the function
+     * @return the slot of its first fluent
+     */
+    public int offset(final int function) {
+        return offsets[function];
+    }
+
+    /**
+     * Get the position of each object among those an argument of a function can take.
+     * @param function the id of the function
+     * @param argument the index of the argument
+     * @return the position of each object, indexed by object id, or -1 for objects of the wrong type; shared, so must
+     * not be modified
+     */
+    public int[] positions(final int function, final int argument) {
+        return positions[function][argument];
+    }
+
+    /**
+     * Get how far apart the slots of fluents of a function are whose arguments differ by one position in one
+     * argument.
+     * @param function the id of the function
+     * @param argument the index of the argument
+     * @return the stride
+     */
+    public int stride(final int function, final int argument) {
+        int stride = 1;
+        for (int i = argument + 1; i < counts[function].length; i++) {
+            stride *= counts[function][i];
+        }
+        return stride;
+    }
+
+    /**
+     * Get the values of the fluents in the initial state.
+     * @return a new vector of values indexed by slot, holding {@link Double#NaN} for fluents with no initial value
+     */
+    public double[] getInitialValues() {
+        return initialValues.clone();
+    }
+}
@@ -0,0 +1,459 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Type;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Table giving every ground atom of a problem a dense integer id. The atoms are every instance of the domain's
+ * predicates whose arguments are objects or constants of the right types. Predicates are numbered in order of name,
+ * and the instances of each predicate in order of their arguments' names, so ids only depend on the domain and the
+ * problem.
+ *
+ * Sets of atoms, such as the initial state and the atoms of a conjunctive goal, are given as bitsets: arrays of longs
+ * in which bit {@code id % 64} of word {@code id / 64} is set if the atom with that id is in the set. Ids are
+ * computed from the arguments' positions rather than stored, so the table stays small however many atoms there are.
+ */
+public final class GroundAtomTable {
+
+    private final String[] objects;
+
+    private final Map<String, Integer> objectIds;
+
+    private final String[] predicateNames;
+
+    private final Map<String, Integer> predicateIds;
+
+    /**
+     * The id of the first atom of each predicate, followed by the total number of atoms.
+     */
+    private final int[] offsets;
+
+    /**
+     * For each predicate and parameter, the ids of the objects the parameter can take, in ascending order.
+     */
+    private final int[][][] candidates;
+
+    /**
+     * For each predicate and parameter, the position of each object in its candidates, or -1 if not a candidate.
+     */
+    private final int[][][] positions;
+
+    private final long[] initialState;
+
+    private final long[] goal;
+
+    private final long[] negatedGoal;
+
+    private final boolean conjunctiveGoal;
+
+    private final TypeHierarchy hierarchy;
+
+    /**
+     * Constructor.
+     * @param domain the domain defining the predicates and types
+     * @param problem the problem defining the objects, initial state and goal
+     * @throws IllegalArgumentException if the problem has too many ground atoms to number with an int, or its initial
+     * state holds an atom that is not one of them
+     */
+    public GroundAtomTable(final Domain domain, final Problem problem) {
+        hierarchy = new TypeHierarchy(domain, problem);
+        objects = hierarchy.getObjects().toArray(new String[0]);
+        objectIds = new HashMap<>();
+        for (int i = 0; i < objects.length; i++) {
+            objectIds.put(objects[i], i);
+        }
+
+        Map<String, Predicate> predicates = new TreeMap<>();
+        for (Predicate predicate : domain.getPredicates().asSet()) {
+            if (predicates.put(predicate.getName(), predicate) != null) {
+                throw new IllegalArgumentException("Predicate " + predicate.getName() + " is defined twice");
+            }
+        }
+        predicateNames = predicates.keySet().toArray(new String[predicates.size()]);
+        predicateIds = new HashMap<>();
+        offsets = new int[predicateNames.length + 1];
+        candidates = new int[predicateNames.length][][];
+        positions = new int[predicateNames.length][][];
+
+        long total = 0;
+        for (int p = 0; p < predicateNames.length; p++) {
+            predicateIds.put(predicateNames[p], p);
+            List<Term> parameters = predicates.get(predicateNames[p]).getTerms();
+            candidates[p] = new int[parameters.size()][];
+            positions[p] = new int[parameters.size()][];
+            long count = 1;
+            for (int i = 0; i < parameters.size(); i++) {
+                Optional<Type> required = Optional.absent();
+                if (parameters.get(i) instanceof Variable) {
+                    required = ((Variable) parameters.get(i)).getType();
+                }
+                candidates[p][i] = hierarchy.objects(required);
+                positions[p][i] = new int[objects.length];
+                Arrays.fill(positions[p][i], -1);
+                for (int position = 0; position < candidates[p][i].length; position++) {
+                    positions[p][i][candidates[p][i][position]] = position;
+                }
+                count *= candidates[p][i].length;
+                if (count > Integer.MAX_VALUE) {
+                    break;
+                }
+            }
+            offsets[p] = (int) total;
+            total += count;
+            if (total > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Problem " + problem.getName() + " has too many ground atoms");
+            }
+        }
+        offsets[predicateNames.length] = (int) total;
+
+        initialState = newBitSet();
+        for (Formula fact : problem.getInitialState().asSet()) {
+            if (fact instanceof Predicate) {
+                int id = id((Predicate) fact);
+                if (id < 0) {
+                    throw new IllegalArgumentException("Initial state of problem " + problem.getName()
+                            + " holds " + ((Predicate) fact).getName() + ", which is not one of its ground atoms");
+                }
+                set(initialState, id);
+            }
+        }
+
+        goal = newBitSet();
+        negatedGoal = newBitSet();
+        conjunctiveGoal = problem.getGoal() != null && addGoal(problem.getGoal().getFormula());
+    }
+
+    /**
+     * Get the number of ground atoms.
+     * @return the number of atoms, one more than the highest id
+     */
+    public int size() {
+        return offsets[predicateNames.length];
+    }
+
+    /**
+     * Get the type hierarchy the table was built from, whose object ids are the ones used here.
+     * @return the type hierarchy
+     */
+    public TypeHierarchy getTypeHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * Get the number of predicates.
+     * @return the number of predicates, one more than the highest predicate id
+     */
+    public int getPredicateCount() {
+        return predicateNames.length;
+    }
+
+    /**
+     * Get the id of a predicate, for use with {@link #id(int, int[])}.
+     * @param name the name of the predicate
+     * @return the id, or -1 if the domain has no predicate with that name
+     */
+    public int predicateId(final String name) {
+        Integer predicate = predicateIds.get(name);
+        if (predicate == null) {
+            return -1;
+        }
+        return predicate;
+    }
+
+    /**
+     * Get the id of a ground atom from the ids of its predicate and arguments, without building the atom.
+     * @param predicate the id of the predicate
+     * @param arguments the ids of the objects that are its arguments
+     * @return the id, or -1 if the arguments are of the wrong number or types for the predicate
+     */
+    public int id(final int predicate, final int[] arguments) {
+        int[][] predicatePositions = positions[predicate];
+        if (arguments.length != predicatePositions.length) {
+            return -1;
+        }
+        int local = 0;
+        for (int i = 0; i < predicatePositions.length; i++) {
+            int position = predicatePositions[i][arguments[i]];
+            if (position < 0) {
+                return -1;
+            }
+            local = local * candidates[predicate][i].length + position;
+        }
+        return offsets[predicate] + local;
+    }
+
+    /**
+     * Get the id of a ground atom.
+     * @param atom the atom
+     * @return the id, or -1 if the atom is not ground or is not one of the atoms in this table
+     */
+    public int id(final Predicate atom) {
+        Integer predicate = predicateIds.get(atom.getName());
+        if (predicate == null) {
+            return -1;
+        }
+        int[][] predicatePositions = positions[predicate];
+        List<Term> terms = atom.getTerms();
+        if (terms.size() != predicatePositions.length) {
+            return -1;
+        }
+        int local = 0;
+        for (int i = 0; i < predicatePositions.length; i++) {
+            Term term = terms.get(i);
+            if (!(term instanceof Constant)) {
+                return -1;
+            }
+            Integer object = objectIds.get(((Constant) term).getName());
+            if (object == null || predicatePositions[i][object] < 0) {
+                return -1;
+            }
+            local = local * candidates[predicate][i].length + predicatePositions[i][object];
+        }
+        return offsets[predicate] + local;
+    }
+
+    /**
+     * Get the ground atom with a given id.
+     * @param id the id
+     * @return the atom
+     */
+    public Predicate atom(final int id) {
+        int predicate = predicateOf(id);
+        Predicate.Builder builder = new Predicate.Builder().name(predicateNames[predicate]);
+        for (int argument : arguments(id)) {
+            builder.term(new Constant(objects[argument]));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the predicate of a ground atom.
+     * @param id the id of the atom
+     * @return the id of its predicate
+     */
+    public int predicateOf(final int id) {
+        if (id < 0 || id >= size()) {
+            throw new IndexOutOfBoundsException("No ground atom with id " + id);
+        }
+        int predicate = Arrays.binarySearch(offsets, id);
+        if (predicate < 0) {
+            predicate = -predicate - 2;
+        }
+        // Predicates with no atoms share their offset with the next predicate, so skip past them
+        while (offsets[predicate + 1] <= id) {
+            predicate++;
+        }
+        return predicate;
+    }
+
+    /**
+     * Get the arguments of a ground atom, without building the atom.
+     * @param id the id of the atom
+     * @return the ids of the objects that are its arguments
+     */
+    public int[] arguments(final int id) {
+        int predicate = predicateOf(id);
+        int[][] predicateCandidates = candidates[predicate];
+        int[] arguments = new int[predicateCandidates.length];
+        int local = id - offsets[predicate];
+        for (int i = predicateCandidates.length - 1; i >= 0; i--) {
+            arguments[i] = predicateCandidates[i][local % predicateCandidates[i].length];
+            local /= predicateCandidates[i].length;
+        }
+        return arguments;
+    }
+
+    /**
+     * Get the number of arguments a predicate takes.
+     * @param predicate the id of the predicate
+     * @return the number of arguments
+     */
+    public int getArity(final int predicate) {
+        return candidates[predicate].length;
+    }
+
+    /**
+     * Get the id of the first atom of a predicate. The id of an atom is this plus, for each argument, the position of
+     * the object in {@link #positions(int, int)} times {@link #stride(int, int)}, which lets ids be computed from
+     * arguments held anywhere.
+     * @param predicate the id of the predicate
+     * @return the id of its first atom
+     */
+    public int offset(final int predicate) {
+        return offsets[predicate];
+    }
+
+    /**
+     * Get the position of each object among those an argument of a predicate can take.
+     * @param predicate the id of the predicate
+     * @param argument the index of the argument
+     * @return the position of each object, indexed by object id, or -1 for objects of the wrong type; shared, so must
+     * not be modified
+     */
+    public int[] positions(final int predicate, final int argument) {
+        return positions[predicate][argument];
+    }
+
+    /**
+     * Get how far apart the ids of atoms of a predicate are whose arguments differ by one position in one argument.
+     * @param predicate the id of the predicate
+     * @param argument the index of the argument
+     * @return the stride
+     */
+    public int stride(final int predicate, final int argument) {
+        int stride = 1;
+        for (int i = argument + 1; i < candidates[predicate].length; i++) {
+            stride *= candidates[predicate][i].length;
+        }
+        return stride;
+    }
+
+    /**
+     * Get the names of the objects and constants that atoms can take as arguments, in the order used for ids.
+     * @return the names
+     */
+    public List<String> getObjects() {
+        return Collections.unmodifiableList(Arrays.asList(objects));
+    }
+
+    /**
+     * Get the atoms that hold in the initial state. Negated facts are ignored, as anything not in the initial state
+     * is false.
+     * @return a new bitset of the atoms
+     */
+    public long[] getInitialState() {
+        return initialState.clone();
+    }
+
+    /**
+     * Get the atoms of the goal that must hold.
+     * @return a new bitset of the atoms
+     * @see #isConjunctiveGoal()
+     */
+    public long[] getGoal() {
+        return goal.clone();
+    }
+
+    /**
+     * Get the atoms of the goal that must not hold.
+     * @return a new bitset of the atoms
+     * @see #isConjunctiveGoal()
+     */
+    public long[] getNegatedGoal() {
+        return negatedGoal.clone();
+    }
+
+    /**
+     * Check whether the goal is a conjunction of atoms and negated atoms, and so is fully described by
+     * {@link #getGoal()} and {@link #getNegatedGoal()}. For other goals these only hold the literals found at the top
+     * level of the goal.
+     * @return true if the goal is a conjunction of literals
+     */
+    public boolean isConjunctiveGoal() {
+        return conjunctiveGoal;
+    }
+
+    /**
+     * Create an empty bitset large enough for every atom in this table.
+     * @return the bitset
+     */
+    public long[] newBitSet() {
+        return new long[BitSets.words(size())];
+    }
+
+    /**
+     * Check whether an atom is in a bitset.
+     * @param bits the bitset
+     * @param id the id of the atom
+     * @return true if the atom is in the set
+     */
+    public static boolean contains(final long[] bits, final int id) {
+        return BitSets.contains(bits, id);
+    }
+
+    /**
+     * Add an atom to a bitset.
+     * @param bits the bitset
+     * @param id the id of the atom
+     */
+    public static void set(final long[] bits, final int id) {
+        BitSets.set(bits, id);
+    }
+
+    /**
+     * Remove an atom from a bitset.
+     * @param bits the bitset
+     * @param id the id of the atom
+     */
+    public static void clear(final long[] bits, final int id) {
+        BitSets.clear(bits, id);
+    }
+
+    /**
+     * Add the literals of a goal to the goal bitsets.
+     * @param formula the goal, or part of it
+     * @return true if the formula was made up only of conjunctions of literals
+     */
+    private boolean addGoal(final Formula formula) {
+        if (formula instanceof And) {
+            boolean conjunctive = true;
+            for (Formula conjunct : ((And) formula).asList()) {
+                conjunctive &= addGoal(conjunct);
+            }
+            return conjunctive;
+        } else if (formula instanceof Predicate) {
+            return addLiteral(goal, (Predicate) formula);
+        } else if (formula instanceof Not && ((Not) formula).getFormula() instanceof Predicate) {
+            return addLiteral(negatedGoal, (Predicate) ((Not) formula).getFormula());
+        }
+        return false;
+    }
+
+    /**
+     * Add an atom of the goal to a bitset.
+     * @param bits the bitset
+     * @param atom the atom
+     * @return true if the atom was one of the atoms in this table
+     */
+    private boolean addLiteral(final long[] bits, final Predicate atom) {
+        int id = id(atom);
+        if (id < 0) {
+            return false;
+        }
+        set(bits, id);
+        return true;
+    }
+}
@@ -19,6 +19,7 @@ package org.gerryai.planning.model;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -44,6 +45,23 @@ public class Requirements {
         return Collections.unmodifiableSet(requirements);
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(requirements);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final Requirements other = (Requirements) obj;
+        return Objects.equals(this.requirements, other.requirements);
+    }
+
     /**
      * Builder class for {@link org.gerryai.planning.model.Requirements}.
      */
@@ -0,0 +1,359 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.TypeDefinition;
+import org.gerryai.planning.model.logic.EitherType;
+import org.gerryai.planning.model.logic.PrimitiveType;
+import org.gerryai.planning.model.logic.Type;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The type hierarchy of a domain, compiled together with the objects of a problem. Each type is given an id, with the
+ * implicit root type {@code object} always having id 0 and the other types numbered in order of name. For each type
+ * the hierarchy holds a bitset of its subtypes, itself included, and the ids of the objects and constants of that
+ * type, so finding the objects a typed parameter can take is an array lookup rather than a walk up the hierarchy for
+ * every object.
+ *
+ * A type whose parent is an {@code either} type is a subtype of each of its members, and an object declared with an
+ * {@code either} type belongs to each of them. Objects are numbered in order of name, as in {@link GroundAtomTable}.
+ * A hierarchy is immutable once built, so may be shared freely between threads.
+ */
+public final class TypeHierarchy {
+
+    /**
+     * Id of the root type.
+     */
+    public static final int OBJECT = 0;
+
+    private static final int[] NONE = new int[0];
+
+    private final String[] types;
+
+    private final Map<String, Integer> typeIds;
+
+    /**
+     * For each type, a bitset of the ids of its subtypes, itself included.
+     */
+    private final long[][] subtypes;
+
+    private final String[] objects;
+
+    private final Map<String, Integer> objectIds;
+
+    /**
+     * For each type, the ids of the objects of that type in ascending order.
+     */
+    private final int[][] objectsOfType;
+
+    /**
+     * The objects of each {@code either} type asked for so far.
+     */
+    private final ConcurrentMap<EitherType, int[]> objectsOfEitherType = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     * @param domain the domain defining the types and constants
+     * @param problem the problem defining the objects
+     */
+    public TypeHierarchy(final Domain domain, final Problem problem) {
+        Map<String, List<String>> parents = new HashMap<>();
+        TreeSet<String> names = new TreeSet<>();
+        for (TypeDefinition definition : domain.getTypes().asSet()) {
+            List<String> parentNames = names(definition.getParent());
+            parents.put(definition.getName(), parentNames);
+            names.add(definition.getName());
+            names.addAll(parentNames);
+        }
+
+        Map<String, List<String>> objectTypes = new TreeMap<>();
+        for (ConstantDefinition constant : domain.getConstants().asSet()) {
+            objectTypes.put(constant.getName(), names(constant.getType()));
+        }
+        for (ConstantDefinition object : problem.getObjects().asSet()) {
+            objectTypes.put(object.getName(), names(object.getType()));
+        }
+        for (List<String> declared : objectTypes.values()) {
+            names.addAll(declared);
+        }
+
+        String root = TypeDefinition.object().getName();
+        names.remove(root);
+        types = new String[names.size() + 1];
+        types[OBJECT] = root;
+        typeIds = new HashMap<>();
+        typeIds.put(root, OBJECT);
+        int next = OBJECT + 1;
+        for (String name : names) {
+            typeIds.put(name, next);
+            types[next++] = name;
+        }
+
+        int[][] ancestors = new int[types.length][];
+        subtypes = new long[types.length][];
+        for (int t = 0; t < types.length; t++) {
+            subtypes[t] = new long[BitSets.words(types.length)];
+        }
+        for (int t = 0; t < types.length; t++) {
+            ancestors[t] = ancestors(t, parents);
+            for (int ancestor : ancestors[t]) {
+                BitSets.set(subtypes[ancestor], t);
+            }
+        }
+
+        objects = objectTypes.keySet().toArray(new String[objectTypes.size()]);
+        objectIds = new HashMap<>();
+        long[][] members = new long[types.length][];
+        for (int t = 0; t < types.length; t++) {
+            members[t] = new long[BitSets.words(objects.length)];
+        }
+        for (int o = 0; o < objects.length; o++) {
+            objectIds.put(objects[o], o);
+            BitSets.set(members[OBJECT], o);
+            for (String declared : objectTypes.get(objects[o])) {
+                for (int ancestor : ancestors[typeIds.get(declared)]) {
+                    BitSets.set(members[ancestor], o);
+                }
+            }
+        }
+        objectsOfType = new int[types.length][];
+        for (int t = 0; t < types.length; t++) {
+            objectsOfType[t] = ids(members[t], objects.length);
+        }
+    }
+
+    /**
+     * Get the names of the types, in order of id.
+     * @return the names
+     */
+    public List<String> getTypes() {
+        return Collections.unmodifiableList(Arrays.asList(types));
+    }
+
+    /**
+     * Get the id of a type.
+     * @param name the name of the type
+     * @return the id, or -1 if the type is neither defined nor used by the domain or problem
+     */
+    public int typeId(final String name) {
+        Integer id = typeIds.get(name);
+        if (id == null) {
+            return -1;
+        }
+        return id;
+    }
+
+    /**
+     * Check whether one type is a subtype of another. Every type is a subtype of itself and of {@code object}.
+     * @param subtype the name of the possible subtype
+     * @param supertype the name of the possible supertype
+     * @return true if the first type is a subtype of the second
+     */
+    public boolean isSubtype(final String subtype, final String supertype) {
+        int sub = typeId(subtype);
+        int sup = typeId(supertype);
+        return sub >= 0 && sup >= 0 && BitSets.contains(subtypes[sup], sub);
+    }
+
+    /**
+     * Get the subtypes of a type.
+     * @param typeId the id of the type
+     * @return a new bitset of the ids of its subtypes, itself included
+     */
+    public long[] getSubtypes(final int typeId) {
+        return subtypes[typeId].clone();
+    }
+
+    /**
+     * Get the names of the objects and constants, in order of id.
+     * @return the names
+     */
+    public List<String> getObjects() {
+        return Collections.unmodifiableList(Arrays.asList(objects));
+    }
+
+    /**
+     * Create an empty bitset large enough for every object in this hierarchy.
+     * @return the bitset
+     */
+    public long[] newObjectSet() {
+        return new long[BitSets.words(objects.length)];
+    }
+
+    /**
+     * Get the id of an object or constant.
+     * @param name the name of the object
+     * @return the id, or -1 if there is no object or constant with that name
+     */
+    public int objectId(final String name) {
+        Integer id = objectIds.get(name);
+        if (id == null) {
+            return -1;
+        }
+        return id;
+    }
+
+    /**
+     * Get the objects of a type, including those of its subtypes. The array returned is shared, so must not be
+     * modified.
+     * @param typeId the id of the type
+     * @return the ids of the objects in ascending order
+     */
+    public int[] objects(final int typeId) {
+        return objectsOfType[typeId];
+    }
+
+    /**
+     * Get the objects of a type, including those of its subtypes. The objects of an {@code either} type are the union
+     * of the objects of its members. The array returned is shared, so must not be modified.
+     * @param type the type
+     * @return the ids of the objects in ascending order, which are empty if the type is not known
+     */
+    public int[] objects(final Type type) {
+        if (type instanceof PrimitiveType) {
+            int id = typeId(((PrimitiveType) type).getName());
+            if (id < 0) {
+                return NONE;
+            }
+            return objectsOfType[id];
+        } else if (type instanceof EitherType) {
+            int[] union = objectsOfEitherType.get(type);
+            if (union == null) {
+                union = union((EitherType) type);
+                objectsOfEitherType.putIfAbsent((EitherType) type, union);
+            }
+            return union;
+        }
+        return NONE;
+    }
+
+    /**
+     * Get the objects that a parameter can take.
+     * @param type the type of the parameter, or absent if it is untyped
+     * @return the ids of the objects in ascending order
+     */
+    public int[] objects(final Optional<Type> type) {
+        if (type.isPresent()) {
+            return objects(type.get());
+        }
+        return objectsOfType[OBJECT];
+    }
+
+    /**
+     * Find the objects of any of the members of an {@code either} type.
+     * @param type the type
+     * @return the ids of the objects in ascending order
+     */
+    private int[] union(final EitherType type) {
+        long[] members = new long[BitSets.words(objects.length)];
+        for (PrimitiveType member : type.getTypes()) {
+            for (int object : objects(member)) {
+                BitSets.set(members, object);
+            }
+        }
+        return ids(members, objects.length);
+    }
+
+    /**
+     * Find the ancestors of a type by walking up from it through its parents.
+     * @param type the id of the type
+     * @param parents the names of the parents of each defined type, by name
+     * @return the ids of the ancestors, including the type itself and {@code object}
+     */
+    private int[] ancestors(final int type, final Map<String, List<String>> parents) {
+        long[] seen = new long[BitSets.words(types.length)];
+        BitSets.set(seen, OBJECT);
+        BitSets.set(seen, type);
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(types[type]);
+        while (!pending.isEmpty()) {
+            List<String> parentNames = parents.get(pending.remove());
+            if (parentNames != null) {
+                for (String parent : parentNames) {
+                    int parentId = typeIds.get(parent);
+                    if (!BitSets.contains(seen, parentId)) {
+                        BitSets.set(seen, parentId);
+                        pending.add(parent);
+                    }
+                }
+            }
+        }
+        return ids(seen, types.length);
+    }
+
+    /**
+     * List the members of a bitset.
+     * @param bits the bitset
+     * @param size the number of ids the bitset can hold
+     * @return the ids in the bitset, in ascending order
+     */
+    private static int[] ids(final long[] bits, final int size) {
+        int[] ids = new int[size];
+        int count = 0;
+        for (int id = 0; id < size; id++) {
+            if (BitSets.contains(bits, id)) {
+                ids[count++] = id;
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Get the names of the primitive types making up a type.
+     * @param type the type, or absent for an untyped object
+     * @return the names, which are empty for an untyped object
+     */
+    private static List<String> names(final Optional<Type> type) {
+        if (type.isPresent()) {
+            return names(type.get());
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Get the names of the primitive types making up a type.
+     * @param type the type
+     * @return the names
+     */
+    private static List<String> names(final Type type) {
+        List<String> names = new ArrayList<>();
+        if (type instanceof PrimitiveType) {
+            names.add(((PrimitiveType) type).getName());
+        } else if (type instanceof EitherType) {
+            for (PrimitiveType member : ((EitherType) type).getTypes()) {
+                names.add(member.getName());
+            }
+        }
+        return names;
+    }
+}
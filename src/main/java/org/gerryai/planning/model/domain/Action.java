@@ -37,13 +37,18 @@ public class Action {
     private final Precondition precondition;
     private final Effect effect;
 
+    /**
+     * Cached hash code, or zero if it has not been computed yet.
+     */
+    private int hash;
+
     /**
      * Constructor.
      * @param builder the builder to build from
      */
     private Action(final Builder builder) {
         this.name = builder.name;
-        this.parameters = builder.parameters;
+        this.parameters = new ArrayList<>(builder.parameters);
         this.precondition = builder.precondition;
         this.effect = builder.effect;
     }
@@ -82,7 +87,12 @@ public class Action {
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, parameters, precondition, effect);
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(name, parameters, precondition, effect);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -94,6 +104,9 @@ public class Action {
             return false;
         }
         final Action other = (Action) obj;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
         return Objects.equals(this.name, other.name)
                 && Objects.equals(this.parameters, other.parameters)
                 && Objects.equals(this.precondition, other.precondition)
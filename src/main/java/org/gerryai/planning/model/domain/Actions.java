@@ -20,7 +20,10 @@ package org.gerryai.planning.model.domain;
 import com.google.common.base.Optional;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -31,12 +34,18 @@ public class Actions {
 
     private Set<Action> actions;
 
+    private Map<String, Action> actionsByName;
+
     /**
      * Constructor.
      * @param actions the actions
      */
     private Actions(final Set<Action> actions) {
-        this.actions = actions;
+        this.actions = new HashSet<>(actions);
+        actionsByName = new HashMap<>();
+        for (Action action : actions) {
+            actionsByName.put(action.getName(), action);
+        }
     }
 
     /**
@@ -53,12 +62,24 @@ public class Actions {
      * @return an option of an action
      */
     public Optional<Action> byName(final String actionName) {
-        for (Action action : actions) {
-            if (actionName.equals(action.getName())) {
-                return Optional.of(action);
-            }
+        return Optional.fromNullable(actionsByName.get(actionName));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(actions);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
         }
-        return Optional.absent();
+        final Actions other = (Actions) obj;
+        return Objects.equals(this.actions, other.actions);
     }
 
     /**
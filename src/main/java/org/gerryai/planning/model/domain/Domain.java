@@ -23,6 +23,8 @@ import org.gerryai.planning.model.Requirement;
 import org.gerryai.planning.model.Requirements;
 import org.gerryai.planning.model.logic.Predicate;
 
+import java.util.Objects;
+
 /**
  * Defines a planning domain.
  * TODO: Ensure that types are only supported if the :typing requirement is present, etc
@@ -36,6 +38,7 @@ public class Domain {
     private final Predicates predicates;
     private final Actions actions;
     private final FunctionDefinitions functions;
+    private volatile DomainIndex index;
 
     /**
      * Constructor.
@@ -107,6 +110,47 @@ public class Domain {
         return functions;
     }
 
+    /**
+     * Get the index over this domain's definitions, building it the first time it is needed.
+     * @return the index
+     */
+    public DomainIndex getIndex() {
+        DomainIndex result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = new DomainIndex(this);
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, requirements, types, constants, predicates, actions, functions);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final Domain other = (Domain) obj;
+        return Objects.equals(this.name, other.name)
+                && Objects.equals(this.requirements, other.requirements)
+                && Objects.equals(this.types, other.types)
+                && Objects.equals(this.constants, other.constants)
+                && Objects.equals(this.predicates, other.predicates)
+                && Objects.equals(this.actions, other.actions)
+                && Objects.equals(this.functions, other.functions);
+    }
+
     /**
      * Builder class for {@link Domain} objects.
      */
@@ -0,0 +1,213 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.domain;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.EitherType;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.PrimitiveType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index over the definitions of a domain, giving constant time lookup of each by name. An index is immutable once
+ * built, so may be shared freely between threads; use {@link Domain#getIndex()} to get the one shared index of a
+ * domain rather than building another.
+ *
+ * The index also holds one shared {@link Constant} for each constant of the domain and one shared {@link
+ * PrimitiveType} for each of its types, {@code object} included, so that the problems of a domain can all refer to the
+ * same instances rather than each building its own.
+ */
+public final class DomainIndex {
+
+    private final Map<String, Action> actions;
+    private final Map<String, List<Predicate>> predicates;
+    private final Map<String, FunctionDefinition> functions;
+    private final Map<String, TypeDefinition> types;
+    private final Map<String, ConstantDefinition> constants;
+    private final Map<String, Constant> constantTerms;
+    private final Map<String, PrimitiveType> primitiveTypes;
+
+    /**
+     * Constructor.
+     * @param domain the domain to index
+     */
+    public DomainIndex(final Domain domain) {
+        Map<String, Action> actionsByName = new HashMap<>();
+        for (Action action : domain.getActions().asSet()) {
+            actionsByName.put(action.getName(), action);
+        }
+        actions = Collections.unmodifiableMap(actionsByName);
+
+        Map<String, List<Predicate>> predicatesByName = new HashMap<>();
+        for (Predicate predicate : domain.getPredicates().asSet()) {
+            List<Predicate> overloads = predicatesByName.get(predicate.getName());
+            if (overloads == null) {
+                overloads = new ArrayList<>(1);
+                predicatesByName.put(predicate.getName(), overloads);
+            }
+            overloads.add(predicate);
+        }
+        predicates = Collections.unmodifiableMap(predicatesByName);
+
+        Map<String, FunctionDefinition> functionsByName = new HashMap<>();
+        for (FunctionDefinition function : domain.getFunctions().asSet()) {
+            functionsByName.put(function.getName(), function);
+        }
+        functions = Collections.unmodifiableMap(functionsByName);
+
+        Map<String, TypeDefinition> typesByName = new HashMap<>();
+        for (TypeDefinition type : domain.getTypes().asSet()) {
+            typesByName.put(type.getName(), type);
+        }
+        types = Collections.unmodifiableMap(typesByName);
+
+        Map<String, PrimitiveType> primitiveTypesByName = new HashMap<>();
+        primitiveTypesByName.put(TypeDefinition.object().getName(), TypeDefinition.object());
+        for (TypeDefinition type : domain.getTypes().asSet()) {
+            addPrimitiveType(primitiveTypesByName, type.getName());
+            if (type.getParent() instanceof PrimitiveType) {
+                addPrimitiveType(primitiveTypesByName, ((PrimitiveType) type.getParent()).getName());
+            } else if (type.getParent() instanceof EitherType) {
+                for (PrimitiveType member : ((EitherType) type.getParent()).getTypes()) {
+                    addPrimitiveType(primitiveTypesByName, member.getName());
+                }
+            }
+        }
+        primitiveTypes = Collections.unmodifiableMap(primitiveTypesByName);
+
+        Map<String, ConstantDefinition> constantsByName = new HashMap<>();
+        for (ConstantDefinition constant : domain.getConstants().asSet()) {
+            constantsByName.put(constant.getName(), constant);
+        }
+        constants = Collections.unmodifiableMap(constantsByName);
+
+        Map<String, Constant> constantTermsByName = new HashMap<>();
+        for (String name : constantsByName.keySet()) {
+            constantTermsByName.put(name, new Constant(name));
+        }
+        constantTerms = Collections.unmodifiableMap(constantTermsByName);
+    }
+
+    /**
+     * Look up an action.
+     * @param name the name of the action
+     * @return the action, or absent if the domain has no action with that name
+     */
+    public Optional<Action> action(final String name) {
+        return Optional.fromNullable(actions.get(name));
+    }
+
+    /**
+     * Look up a predicate.
+     * @param name the name of the predicate
+     * @param arity the number of terms it takes
+     * @return the predicate, or absent if the domain has no predicate with that name and arity
+     */
+    public Optional<Predicate> predicate(final String name, final int arity) {
+        List<Predicate> overloads = predicates.get(name);
+        if (overloads != null) {
+            for (Predicate predicate : overloads) {
+                if (predicate.getTerms().size() == arity) {
+                    return Optional.of(predicate);
+                }
+            }
+        }
+        return Optional.absent();
+    }
+
+    /**
+     * Look up a function.
+     * @param name the name of the function
+     * @return the function definition, or absent if the domain has no function with that name
+     */
+    public Optional<FunctionDefinition> function(final String name) {
+        return Optional.fromNullable(functions.get(name));
+    }
+
+    /**
+     * Look up a type.
+     * @param name the name of the type
+     * @return the type definition, or absent if the domain does not define a type with that name
+     */
+    public Optional<TypeDefinition> type(final String name) {
+        return Optional.fromNullable(types.get(name));
+    }
+
+    /**
+     * Look up a constant.
+     * @param name the name of the constant
+     * @return the constant definition, or absent if the domain has no constant with that name
+     */
+    public Optional<ConstantDefinition> constant(final String name) {
+        return Optional.fromNullable(constants.get(name));
+    }
+
+    /**
+     * Look up the shared instance of a primitive type. The root type {@code object} is always present, whether or not
+     * the domain declares it.
+     * @param name the name of the type
+     * @return the type, or absent if the domain does not define a type with that name
+     */
+    public Optional<PrimitiveType> primitiveType(final String name) {
+        return Optional.fromNullable(primitiveTypes.get(name));
+    }
+
+    /**
+     * Look up the shared instance of a constant.
+     * @param name the name of the constant
+     * @return the constant, or absent if the domain has no constant with that name
+     */
+    public Optional<Constant> constantTerm(final String name) {
+        return Optional.fromNullable(constantTerms.get(name));
+    }
+
+    /**
+     * Get the shared instances of the types of the domain, {@code object} included.
+     * @return the types
+     */
+    public Collection<PrimitiveType> getPrimitiveTypes() {
+        return primitiveTypes.values();
+    }
+
+    /**
+     * Get the shared instances of the constants of the domain.
+     * @return the constants
+     */
+    public Collection<Constant> getConstantTerms() {
+        return constantTerms.values();
+    }
+
+    /**
+     * Add a primitive type to a map of types by name, unless one with that name is there already.
+     * @param typesByName the map
+     * @param name the name of the type
+     */
+    private static void addPrimitiveType(final Map<String, PrimitiveType> typesByName, final String name) {
+        if (!typesByName.containsKey(name)) {
+            typesByName.put(name, new PrimitiveType(name));
+        }
+    }
+}
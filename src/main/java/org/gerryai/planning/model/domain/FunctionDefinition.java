@@ -18,6 +18,7 @@
 package org.gerryai.planning.model.domain;
 
 import org.gerryai.planning.model.logic.AtomicFormula;
+import org.gerryai.planning.model.logic.FormulaVisitor;
 import org.gerryai.planning.model.logic.Term;
 import org.gerryai.planning.model.logic.Type;
 import org.gerryai.planning.model.logic.Variable;
@@ -62,6 +63,11 @@ public class FunctionDefinition implements AtomicFormula {
         return Collections.unmodifiableList(terms);
     }
 
+    @Override
+    public <R> R accept(final FormulaVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(name, terms);
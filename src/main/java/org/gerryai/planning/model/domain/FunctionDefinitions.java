@@ -2,6 +2,7 @@ package org.gerryai.planning.model.domain;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -29,6 +30,23 @@ public class FunctionDefinitions {
         return Collections.unmodifiableSet(functionDefinitions);
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(functionDefinitions);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final FunctionDefinitions other = (FunctionDefinitions) obj;
+        return Objects.equals(this.functionDefinitions, other.functionDefinitions);
+    }
+
     /**
      * Builder class for {@link FunctionDefinitions}.
      */
@@ -21,6 +21,7 @@ import org.gerryai.planning.model.logic.Predicate;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -46,6 +47,23 @@ public class Predicates {
         return Collections.unmodifiableSet(predicates);
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(predicates);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final Predicates other = (Predicates) obj;
+        return Objects.equals(this.predicates, other.predicates);
+    }
+
     /**
      * Builder class for {@link Predicates}.
      */
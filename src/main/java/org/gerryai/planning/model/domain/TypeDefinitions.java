@@ -19,6 +19,7 @@ package org.gerryai.planning.model.domain;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -44,6 +45,23 @@ public class TypeDefinitions {
         return Collections.unmodifiableSet(types);
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(types);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final TypeDefinitions other = (TypeDefinitions) obj;
+        return Objects.equals(this.types, other.types);
+    }
+
     /**
      * Builder class for {@link TypeDefinitions}.
      */
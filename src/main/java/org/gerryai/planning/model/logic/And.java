@@ -46,6 +46,11 @@ public class And implements Formula {
         return Collections.unmodifiableList(conjuncts);
     }
 
+    @Override
+    public <R> R accept(final FormulaVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(conjuncts);
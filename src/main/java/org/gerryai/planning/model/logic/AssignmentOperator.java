@@ -0,0 +1,119 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.logic;
+
+import com.google.common.base.Optional;
+
+/**
+ * The operators that change the value of a numeric fluent, as used by an {@link Operation}.
+ */
+public enum AssignmentOperator {
+
+    /**
+     * Set the fluent to a value. Written as <code>assign</code> in effects and <code>=</code> in initial states.
+     */
+    ASSIGN("assign") {
+        @Override
+        public double apply(final double current, final double value) {
+            return value;
+        }
+    },
+
+    /**
+     * Multiply the fluent by a value.
+     */
+    SCALE_UP("scale-up") {
+        @Override
+        public double apply(final double current, final double value) {
+            return current * value;
+        }
+    },
+
+    /**
+     * Divide the fluent by a value.
+     */
+    SCALE_DOWN("scale-down") {
+        @Override
+        public double apply(final double current, final double value) {
+            return current / value;
+        }
+    },
+
+    /**
+     * Add a value to the fluent.
+     */
+    INCREASE("increase") {
+        @Override
+        public double apply(final double current, final double value) {
+            return current + value;
+        }
+    },
+
+    /**
+     * Subtract a value from the fluent.
+     */
+    DECREASE("decrease") {
+        @Override
+        public double apply(final double current, final double value) {
+            return current - value;
+        }
+    };
+
+    private final String symbol;
+
+    /**
+     * Constructor.
+     * @param symbol the name of the operator in PDDL
+     */
+    AssignmentOperator(final String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Get the name of the operator in PDDL.
+     * @return the name
+     */
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Work out the new value of a fluent.
+     * @param current the value of the fluent before the operator is applied
+     * @param value the value the operator is applied with
+     * @return the new value of the fluent
+     */
+    public abstract double apply(double current, double value);
+
+    /**
+     * Find the operator with a given name.
+     * @param symbol the name of the operator in PDDL
+     * @return the operator, or absent if the name is not that of an assignment operator
+     */
+    public static Optional<AssignmentOperator> forSymbol(final String symbol) {
+        if ("=".equals(symbol)) {
+            return Optional.of(ASSIGN);
+        }
+        for (AssignmentOperator operator : values()) {
+            if (operator.symbol.equals(symbol)) {
+                return Optional.of(operator);
+            }
+        }
+        return Optional.absent();
+    }
+}
@@ -24,7 +24,12 @@ import java.util.Objects;
  */
 public class Constant implements Term {
 
-    private String name;
+    private final String name;
+
+    /**
+     * Cached hash code, or zero if it has not been computed yet.
+     */
+    private int hash;
 
     /**
      * Constructor.
@@ -42,9 +47,19 @@ public class Constant implements Term {
         return name;
     }
 
+    @Override
+    public <R> R accept(final TermVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(name);
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(name);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
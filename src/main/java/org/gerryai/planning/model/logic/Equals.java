@@ -52,6 +52,11 @@ public class Equals implements Formula {
         return right;
     }
 
+    @Override
+    public <R> R accept(final FormulaVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(left, right);
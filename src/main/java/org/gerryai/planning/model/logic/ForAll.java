@@ -55,6 +55,11 @@ public class ForAll implements Formula {
         return formula;
     }
 
+    @Override
+    public <R> R accept(final FormulaVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(variables, formula);
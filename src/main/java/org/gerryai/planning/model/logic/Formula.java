@@ -21,4 +21,12 @@ package org.gerryai.planning.model.logic;
  * Created by david on 11/03/14.
  */
 public interface Formula {
+
+    /**
+     * Pass this formula to the method of a visitor for its class.
+     * @param visitor the visitor
+     * @param <R> the type of result returned by the visitor
+     * @return the result returned by the visitor
+     */
+    <R> R accept(FormulaVisitor<R> visitor);
 }
@@ -21,7 +21,8 @@ import org.gerryai.planning.model.ConstantDefinition;
 import org.gerryai.planning.model.domain.TypeDefinition;
 
 /**
- * Utility class containing methods for building formulas.
+ * Utility class containing methods for building formulas. Each call builds new instances; to share equal atoms
+ * between formulas built here, pass them through {@link HashConsingFactory#intern(Formula)}.
  */
 public class FormulaBuilder {
 
@@ -0,0 +1,151 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.logic;
+
+import org.gerryai.planning.model.domain.FunctionDefinition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Walks a formula and every formula nested in it, passing each to a visitor. The walk keeps its own stack rather
+ * than recursing, so formulas nested far deeper than the call stack allows, as generated problems can be, are walked
+ * safely.
+ */
+public final class FormulaTraversal {
+
+    private static final FormulaVisitor<List<Formula>> CHILDREN = new FormulaVisitor<List<Formula>>() {
+        @Override
+        public List<Formula> visit(final And and) {
+            return and.asList();
+        }
+
+        @Override
+        public List<Formula> visit(final Or or) {
+            return or.asList();
+        }
+
+        @Override
+        public List<Formula> visit(final Not not) {
+            return Collections.singletonList(not.getFormula());
+        }
+
+        @Override
+        public List<Formula> visit(final Predicate predicate) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Formula> visit(final Equals equals) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Formula> visit(final ForAll forAll) {
+            return Collections.singletonList(forAll.getFormula());
+        }
+
+        @Override
+        public List<Formula> visit(final IfThen ifThen) {
+            return Arrays.asList(ifThen.getCondition(), ifThen.getConsequence());
+        }
+
+        @Override
+        public List<Formula> visit(final Operation operation) {
+            List<Formula> children = new ArrayList<>(2);
+            if (operation.getConsequent() != null) {
+                children.add(operation.getConsequent());
+            }
+            if (operation.getAntecedent() != null) {
+                children.add(operation.getAntecedent());
+            }
+            return children;
+        }
+
+        @Override
+        public List<Formula> visit(final FunctionTerm functionTerm) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<Formula> visit(final FunctionDefinition functionDefinition) {
+            return Collections.emptyList();
+        }
+    };
+
+    /**
+     * Private constructor, as this is a utility class.
+     */
+    private FormulaTraversal() { }
+
+    /**
+     * Get the formulas nested directly in a formula, such as the conjuncts of a conjunction or the condition and
+     * consequence of a conditional effect.
+     * @param formula the formula
+     * @return the nested formulas, in the order they appear
+     */
+    public static List<Formula> children(final Formula formula) {
+        return Visitors.visit(formula, CHILDREN);
+    }
+
+    /**
+     * Visit a formula and the formulas nested in it, each before those nested in it and in the order they appear.
+     * The formulas nested in one are only visited if the visitor returns true for it, so a walk can stop at formulas
+     * it has no need to look inside.
+     * @param formula the formula
+     * @param visitor the visitor, returning whether to visit the formulas nested in the one it is passed
+     */
+    public static void preOrder(final Formula formula, final FormulaVisitor<Boolean> visitor) {
+        Deque<Formula> stack = new ArrayDeque<>();
+        stack.push(formula);
+        while (!stack.isEmpty()) {
+            Formula next = stack.pop();
+            if (Boolean.TRUE.equals(Visitors.visit(next, visitor))) {
+                List<Formula> children = children(next);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Visit a formula and the formulas nested in it, each after those nested in it and in the order they appear.
+     * @param formula the formula
+     * @param visitor the visitor, whose results are ignored
+     */
+    public static void postOrder(final Formula formula, final FormulaVisitor<?> visitor) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        Deque<Formula> visits = new ArrayDeque<>();
+        pending.push(formula);
+        while (!pending.isEmpty()) {
+            Formula next = pending.pop();
+            visits.push(next);
+            for (Formula child : children(next)) {
+                pending.push(child);
+            }
+        }
+        while (!visits.isEmpty()) {
+            Visitors.visit(visits.pop(), visitor);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.logic;
+
+import org.gerryai.planning.model.domain.FunctionDefinition;
+
+/**
+ * Visitor over the classes of {@link Formula}, so that code handling each kind of formula differently can be
+ * dispatched by {@link Formula#accept(FormulaVisitor)} rather than by a chain of {@code instanceof} checks. Hot loops
+ * should dispatch through {@link Visitors#visit(Formula, FormulaVisitor)} instead. Visitors are not expected to
+ * descend into subformulas themselves; {@link FormulaTraversal} does that without recursion.
+ * @param <R> the type of result returned for each formula
+ */
+public interface FormulaVisitor<R> {
+
+    /**
+     * Visit a conjunction.
+     * @param and the conjunction
+     * @return the result
+     */
+    R visit(And and);
+
+    /**
+     * Visit a disjunction.
+     * @param or the disjunction
+     * @return the result
+     */
+    R visit(Or or);
+
+    /**
+     * Visit a negation.
+     * @param not the negation
+     * @return the result
+     */
+    R visit(Not not);
+
+    /**
+     * Visit a predicate.
+     * @param predicate the predicate
+     * @return the result
+     */
+    R visit(Predicate predicate);
+
+    /**
+     * Visit an equality.
+     * @param equals the equality
+     * @return the result
+     */
+    R visit(Equals equals);
+
+    /**
+     * Visit a universally quantified formula.
+     * @param forAll the formula
+     * @return the result
+     */
+    R visit(ForAll forAll);
+
+    /**
+     * Visit a conditional effect.
+     * @param ifThen the conditional effect
+     * @return the result
+     */
+    R visit(IfThen ifThen);
+
+    /**
+     * Visit a numeric operation.
+     * @param operation the operation
+     * @return the result
+     */
+    R visit(Operation operation);
+
+    /**
+     * Visit a function term.
+     * @param functionTerm the function term
+     * @return the result
+     */
+    R visit(FunctionTerm functionTerm);
+
+    /**
+     * Visit the definition of a function.
+     * @param functionDefinition the definition
+     * @return the result
+     */
+    R visit(FunctionDefinition functionDefinition);
+}
@@ -17,6 +17,8 @@
  */
 package org.gerryai.planning.model.logic;
 
+import com.google.common.base.Optional;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -27,15 +29,20 @@ import java.util.Objects;
  */
 public class FunctionTerm implements AtomicFormula {
 
-    private String name;
-    private List<Term> terms;
+    private final String name;
+    private final List<Term> terms;
+
+    /**
+     * Cached hash code, or zero if it has not been computed yet.
+     */
+    private int hash;
 
     /**
      * Constructor.
      * @param name the name of the function term
      * @param terms the terms for this function term
      */
-    private FunctionTerm(final String name, final List<Term> terms) {
+    FunctionTerm(final String name, final List<Term> terms) {
         this.name = name;
         this.terms = terms;
     }
@@ -56,9 +63,30 @@ public class FunctionTerm implements AtomicFormula {
         return Collections.unmodifiableList(terms);
     }
 
+    /**
+     * Get the number this function term stands for, if it is a number rather than the value of a function.
+     * @return the number, or absent if the term is a function
+     */
+    public Optional<NumberTerm> getNumber() {
+        if (name == null && terms.size() == 1 && terms.get(0) instanceof NumberTerm) {
+            return Optional.of((NumberTerm) terms.get(0));
+        }
+        return Optional.absent();
+    }
+
+    @Override
+    public <R> R accept(final FormulaVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(name, terms);
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(name, terms);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -70,6 +98,9 @@ public class FunctionTerm implements AtomicFormula {
             return false;
         }
         final FunctionTerm other = (FunctionTerm) obj;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
         return Objects.equals(this.name, other.name) && Objects.equals(this.terms, other.terms);
     }
 
@@ -143,7 +174,7 @@ public class FunctionTerm implements AtomicFormula {
          * @return the function term
          */
         public FunctionTerm build() {
-            return new FunctionTerm(name, terms);
+            return new FunctionTerm(name, new ArrayList<>(terms));
         }
     }
 }
@@ -0,0 +1,286 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Factory that hash-conses terms and atomic formulas, so that equal terms, predicates, function terms and negated
+ * atoms built through the same factory are the same instance. Hash codes are then only computed once per distinct
+ * value, and comparing two values built by the factory is usually settled by the identity check in {@code equals}.
+ *
+ * Its methods mirror those of {@link FormulaBuilder}, and {@link #intern(Formula)} gives the shared form of a formula
+ * built some other way. Values from different factories, or built without one, still compare equal as usual. The
+ * factory holds on to every value it has built, so it should live no longer than the model it is used for. Not thread
+ * safe.
+ */
+public class HashConsingFactory {
+
+    private final Map<String, Constant> constants = new HashMap<>();
+
+    private final Map<String, Variable> variables = new HashMap<>();
+
+    private final Map<String, PrimitiveType> types = new HashMap<>();
+
+    private final Map<Object, Object> instances = new HashMap<>();
+
+    /**
+     * Constructor.
+     */
+    public HashConsingFactory() {
+    }
+
+    /**
+     * Constructor for a factory that shares instances built elsewhere, such as the constants and types of a domain,
+     * so that everything built by the factory refers to those instances rather than to copies of them.
+     * @param constants the constants to share
+     * @param types the primitive types to share
+     */
+    public HashConsingFactory(final Collection<Constant> constants, final Collection<PrimitiveType> types) {
+        for (Constant constant : constants) {
+            this.constants.put(constant.getName(), constant);
+        }
+        for (PrimitiveType type : types) {
+            this.types.put(type.getName(), type);
+        }
+    }
+
+    /**
+     * Get the shared primitive type with a given name.
+     * @param name the name
+     * @return the type
+     */
+    public PrimitiveType type(final String name) {
+        PrimitiveType type = types.get(name);
+        if (type == null) {
+            type = new PrimitiveType(name);
+            types.put(name, type);
+        }
+        return type;
+    }
+
+    /**
+     * Get the shared constant with a given name.
+     * @param name the name
+     * @return the constant
+     */
+    public Constant constant(final String name) {
+        Constant constant = constants.get(name);
+        if (constant == null) {
+            constant = new Constant(name);
+            constants.put(name, constant);
+        }
+        return constant;
+    }
+
+    /**
+     * Get the shared untyped variable with a given name.
+     * @param name the name
+     * @return the variable
+     */
+    public Variable variable(final String name) {
+        Variable variable = variables.get(name);
+        if (variable == null) {
+            variable = new Variable(name);
+            variables.put(name, variable);
+        }
+        return variable;
+    }
+
+    /**
+     * Get the shared variable with a given name and type.
+     * @param name the name
+     * @param type the type
+     * @return the variable
+     */
+    public Variable variable(final String name, final Type type) {
+        return share(new Variable(name, intern(type)));
+    }
+
+    /**
+     * Get the shared predicate with a given name and terms.
+     * @param name the name of the predicate
+     * @param terms the terms of the predicate
+     * @return the predicate
+     */
+    public Predicate predicate(final String name, final Term... terms) {
+        return predicate(name, Arrays.asList(terms));
+    }
+
+    /**
+     * Get the shared predicate with a given name and terms.
+     * @param name the name of the predicate
+     * @param terms the terms of the predicate
+     * @return the predicate
+     */
+    public Predicate predicate(final String name, final List<Term> terms) {
+        return share(new Predicate(name, internAll(terms)));
+    }
+
+    /**
+     * Get the shared function term with a given name and terms.
+     * @param name the name of the function
+     * @param terms the terms of the function
+     * @return the function term
+     */
+    public FunctionTerm functionTerm(final String name, final List<Term> terms) {
+        return share(new FunctionTerm(name, internAll(terms)));
+    }
+
+    /**
+     * Get the shared negation of a formula.
+     * @param formula the formula to negate
+     * @return the negation
+     */
+    public Not not(final Formula formula) {
+        return share(new Not(intern(formula)));
+    }
+
+    /**
+     * Get the shared form of a term.
+     * @param term the term
+     * @return the equal term built by this factory
+     */
+    public Term intern(final Term term) {
+        if (term instanceof Constant) {
+            return constant(((Constant) term).getName());
+        } else if (term instanceof Variable) {
+            Variable variable = (Variable) term;
+            if (variable.getType().isPresent()) {
+                return variable(variable.getName(), variable.getType().get());
+            }
+            return variable(variable.getName());
+        }
+        return term;
+    }
+
+    /**
+     * Get the shared form of a type. Only primitive types are shared, other types are returned unchanged.
+     * @param type the type
+     * @return the equal type built by this factory
+     */
+    public Type intern(final Type type) {
+        if (type instanceof PrimitiveType) {
+            return type(((PrimitiveType) type).getName());
+        }
+        return type;
+    }
+
+    /**
+     * Get the shared form of a formula. Predicates, function terms and negations are shared along with their terms.
+     * Conjunctions, disjunctions, equalities, quantified formulas, conditional effects and numeric operations are
+     * rebuilt from the shared forms of their parts, so the atoms nested in them are shared too.
+     * @param formula the formula
+     * @return the equal formula built by this factory
+     */
+    public Formula intern(final Formula formula) {
+        if (formula instanceof AtomicFormula || formula instanceof Not) {
+            Object existing = instances.get(formula);
+            if (existing != null) {
+                return (Formula) existing;
+            }
+        }
+        if (formula instanceof Predicate) {
+            Predicate predicate = (Predicate) formula;
+            return predicate(predicate.getName(), predicate.getTerms());
+        } else if (formula instanceof FunctionTerm) {
+            FunctionTerm functionTerm = (FunctionTerm) formula;
+            return functionTerm(functionTerm.getName(), functionTerm.getTerms());
+        } else if (formula instanceof Not) {
+            return not(((Not) formula).getFormula());
+        } else if (formula instanceof And) {
+            And.Builder builder = new And.Builder();
+            for (Formula conjunct : ((And) formula).asList()) {
+                builder.and(intern(conjunct));
+            }
+            return builder.build();
+        } else if (formula instanceof Or) {
+            Or.Builder builder = new Or.Builder();
+            for (Formula disjunct : ((Or) formula).asList()) {
+                builder.or(intern(disjunct));
+            }
+            return builder.build();
+        } else if (formula instanceof Equals) {
+            Equals equals = (Equals) formula;
+            return new Equals.Builder()
+                    .left(intern(equals.getLeft()))
+                    .right(intern(equals.getRight()))
+                    .build();
+        } else if (formula instanceof ForAll) {
+            ForAll forAll = (ForAll) formula;
+            ForAll.Builder builder = new ForAll.Builder();
+            for (Variable variable : forAll.getVariables()) {
+                builder.variable((Variable) intern(variable));
+            }
+            return builder.formula(intern(forAll.getFormula())).build();
+        } else if (formula instanceof IfThen) {
+            IfThen ifThen = (IfThen) formula;
+            return new IfThen(intern(ifThen.getCondition()), intern(ifThen.getConsequence()));
+        } else if (formula instanceof Operation) {
+            Operation operation = (Operation) formula;
+            return new Operation.Builder()
+                    .operator(operation.getOperator())
+                    .consequent((FunctionTerm) intern(operation.getConsequent()))
+                    .antecedent((FunctionTerm) intern(operation.getAntecedent()))
+                    .build();
+        }
+        return formula;
+    }
+
+    /**
+     * Get the number of distinct values built by this factory.
+     * @return the number of values
+     */
+    public int size() {
+        return constants.size() + variables.size() + types.size() + instances.size();
+    }
+
+    /**
+     * Replace each of a list of terms by its shared form.
+     * @param terms the terms
+     * @return a new list holding the shared terms
+     */
+    private List<Term> internAll(final List<Term> terms) {
+        List<Term> shared = new ArrayList<>(terms.size());
+        for (Term term : terms) {
+            shared.add(intern(term));
+        }
+        return shared;
+    }
+
+    /**
+     * Get the instance equal to a candidate that was built first, keeping the candidate if there was none.
+     * @param candidate the candidate
+     * @param <T> the type of the candidate
+     * @return the shared instance
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T share(final T candidate) {
+        Object existing = instances.get(candidate);
+        if (existing == null) {
+            instances.put(candidate, candidate);
+            return candidate;
+        }
+        return (T) existing;
+    }
+}
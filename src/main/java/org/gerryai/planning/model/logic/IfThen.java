@@ -37,6 +37,27 @@ public class IfThen implements Formula {
         this.consequence = consequence;
     }
 
+    /**
+     * Get the condition.
+     * @return the condition
+     */
+    public Formula getCondition() {
+        return condition;
+    }
+
+    /**
+     * Get the consequence.
+     * @return the consequence
+     */
+    public Formula getConsequence() {
+        return consequence;
+    }
+
+    @Override
+    public <R> R accept(final FormulaVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(condition, consequence);
@@ -42,6 +42,11 @@ public class Not implements Formula {
         return formula;
     }
 
+    @Override
+    public <R> R accept(final FormulaVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(formula);
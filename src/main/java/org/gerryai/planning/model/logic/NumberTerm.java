@@ -3,30 +3,68 @@ package org.gerryai.planning.model.logic;
 import java.util.Objects;
 
 /**
- * Represents a numeric term.
+ * Represents a numeric term. The number is parsed once, when the term is created, and kept as a double.
  */
 public class NumberTerm implements Term {
-    private String value;
+
+    private final String text;
+
+    private final double value;
 
     /**
      * Builds a number with a given value.
      *
-     * @param value the value of the number
+     * @param value the value of the number, as written
+     * @throws NumberFormatException if the value is not a number
      */
     public NumberTerm(final String value) {
+        this.text = value;
+        this.value = Double.parseDouble(value);
+    }
+
+    /**
+     * Builds a number with a given value.
+     *
+     * @param value the value of the number
+     */
+    public NumberTerm(final double value) {
+        this.text = String.valueOf(value);
         this.value = value;
     }
 
+    /**
+     * Get the value of the number.
+     *
+     * @return the value
+     */
+    public double getValue() {
+        return value;
+    }
+
+    /**
+     * Get the number as it was written.
+     *
+     * @return the text of the number
+     */
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public <R> R accept(final TermVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if (obj == this) {
             return true;
         }
-        if (!(obj instanceof Term)) {
+        if (!(obj instanceof NumberTerm)) {
             return false;
         }
         NumberTerm that = (NumberTerm) obj;
-        return Objects.equals(this.value, that.value);
+        return Double.compare(this.value, that.value) == 0;
     }
 
     @Override
@@ -1,5 +1,7 @@
 package org.gerryai.planning.model.logic;
 
+import com.google.common.base.Optional;
+
 import java.util.Objects;
 
 /**
@@ -10,6 +12,7 @@ public class Operation implements Formula {
     private final String operator;
     private final FunctionTerm consequent;
     private final FunctionTerm antecedent;
+    private final Optional<AssignmentOperator> assignmentOperator;
 
     /**
      * Build an Operation.
@@ -22,6 +25,12 @@ public class Operation implements Formula {
         this.operator = operator;
         this.consequent = consequent;
         this.antecedent = antecedent;
+        this.assignmentOperator = AssignmentOperator.forSymbol(operator);
+    }
+
+    @Override
+    public <R> R accept(final FormulaVisitor<R> visitor) {
+        return visitor.visit(this);
     }
 
     @Override
@@ -52,6 +61,15 @@ public class Operation implements Formula {
         return operator;
     }
 
+    /**
+     * Return the assignment operator for this operation, looked up once when the operation is built.
+     *
+     * @return the assignment operator, or absent if the operator is not one
+     */
+    public Optional<AssignmentOperator> getAssignmentOperator() {
+        return assignmentOperator;
+    }
+
     /**
      * Returns the consequent for this operation.
      *
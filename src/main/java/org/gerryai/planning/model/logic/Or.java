@@ -45,6 +45,11 @@ public class Or implements Formula {
         return Collections.unmodifiableList(disjuncts);
     }
 
+    @Override
+    public <R> R accept(final FormulaVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(disjuncts);
@@ -27,16 +27,21 @@ import java.util.Objects;
  */
 public class Predicate implements AtomicFormula {
 
-    private String name;
+    private final String name;
 
-    private List<Term> terms;
+    private final List<Term> terms;
+
+    /**
+     * Cached hash code, or zero if it has not been computed yet.
+     */
+    private int hash;
 
     /**
      * Constructor.
      * @param name the name of the predicate
      * @param terms the terms for this predicate
      */
-    private Predicate(final String name, final List<Term> terms) {
+    Predicate(final String name, final List<Term> terms) {
         this.name = name;
         this.terms = terms;
     }
@@ -57,9 +62,19 @@ public class Predicate implements AtomicFormula {
         return Collections.unmodifiableList(terms);
     }
 
+    @Override
+    public <R> R accept(final FormulaVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(name, terms);
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(name, terms);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
@@ -71,6 +86,9 @@ public class Predicate implements AtomicFormula {
             return false;
         }
         final Predicate other = (Predicate) obj;
+        if (hash != 0 && other.hash != 0 && hash != other.hash) {
+            return false;
+        }
         return Objects.equals(this.name, other.name) && Objects.equals(this.terms, other.terms);
     }
 
@@ -144,7 +162,7 @@ public class Predicate implements AtomicFormula {
          * @return the predicate
          */
         public Predicate build() {
-            return new Predicate(name, terms);
+            return new Predicate(name, new ArrayList<>(terms));
         }
     }
 }
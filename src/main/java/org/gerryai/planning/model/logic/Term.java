@@ -21,4 +21,12 @@ package org.gerryai.planning.model.logic;
  * Interface representing a logical term.
  */
 public interface Term {
+
+    /**
+     * Pass this term to the method of a visitor for its class.
+     * @param visitor the visitor
+     * @param <R> the type of result returned by the visitor
+     * @return the result returned by the visitor
+     */
+    <R> R accept(TermVisitor<R> visitor);
 }
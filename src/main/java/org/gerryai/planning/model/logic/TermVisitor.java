@@ -0,0 +1,47 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.logic;
+
+/**
+ * Visitor over the classes of {@link Term}, so that code handling each kind of term differently can be dispatched by
+ * {@link Term#accept(TermVisitor)} rather than by a chain of {@code instanceof} checks.
+ * @param <R> the type of result returned for each term
+ */
+public interface TermVisitor<R> {
+
+    /**
+     * Visit a constant.
+     * @param constant the constant
+     * @return the result
+     */
+    R visit(Constant constant);
+
+    /**
+     * Visit a variable.
+     * @param variable the variable
+     * @return the result
+     */
+    R visit(Variable variable);
+
+    /**
+     * Visit a number.
+     * @param number the number
+     * @return the result
+     */
+    R visit(NumberTerm number);
+}
@@ -29,6 +29,11 @@ public class Variable implements Term {
     private String name;
     private Optional<Type> type = Optional.absent();
 
+    /**
+     * Cached hash code, or zero if it has not been computed yet.
+     */
+    private int hash;
+
     /**
      * Constructor.
      * @param name the name of the variable
@@ -63,9 +68,19 @@ public class Variable implements Term {
         return type;
     }
 
+    @Override
+    public <R> R accept(final TermVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hash(name, type);
+        int h = hash;
+        if (h == 0) {
+            h = Objects.hash(name, type);
+            hash = h;
+        }
+        return h;
     }
 
     @Override
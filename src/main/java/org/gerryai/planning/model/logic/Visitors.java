@@ -0,0 +1,85 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.logic;
+
+import org.gerryai.planning.model.domain.FunctionDefinition;
+
+/**
+ * Dispatches formulas and terms to visitors by comparing their exact class. A call to {@link Formula#accept} from code
+ * that walks every kind of formula sees many receiver classes and cannot be inlined, whereas comparing classes here
+ * leaves only monomorphic calls. Subclasses of the model classes fall back to their own {@code accept} method.
+ */
+public final class Visitors {
+
+    /**
+     * Private constructor, as this is a utility class.
+     */
+    private Visitors() { }
+
+    /**
+     * Pass a formula to the method of a visitor for its class.
+     * @param formula the formula
+     * @param visitor the visitor
+     * @param <R> the type of result returned by the visitor
+     * @return the result of the visitor
+     */
+    public static <R> R visit(final Formula formula, final FormulaVisitor<R> visitor) {
+        Class<?> type = formula.getClass();
+        if (type == Predicate.class) {
+            return visitor.visit((Predicate) formula);
+        } else if (type == And.class) {
+            return visitor.visit((And) formula);
+        } else if (type == Not.class) {
+            return visitor.visit((Not) formula);
+        } else if (type == FunctionTerm.class) {
+            return visitor.visit((FunctionTerm) formula);
+        } else if (type == Equals.class) {
+            return visitor.visit((Equals) formula);
+        } else if (type == Or.class) {
+            return visitor.visit((Or) formula);
+        } else if (type == ForAll.class) {
+            return visitor.visit((ForAll) formula);
+        } else if (type == IfThen.class) {
+            return visitor.visit((IfThen) formula);
+        } else if (type == Operation.class) {
+            return visitor.visit((Operation) formula);
+        } else if (type == FunctionDefinition.class) {
+            return visitor.visit((FunctionDefinition) formula);
+        }
+        return formula.accept(visitor);
+    }
+
+    /**
+     * Pass a term to the method of a visitor for its class.
+     * @param term the term
+     * @param visitor the visitor
+     * @param <R> the type of result returned by the visitor
+     * @return the result of the visitor
+     */
+    public static <R> R visit(final Term term, final TermVisitor<R> visitor) {
+        Class<?> type = term.getClass();
+        if (type == Variable.class) {
+            return visitor.visit((Variable) term);
+        } else if (type == Constant.class) {
+            return visitor.visit((Constant) term);
+        } else if (type == NumberTerm.class) {
+            return visitor.visit((NumberTerm) term);
+        }
+        return term.accept(visitor);
+    }
+}
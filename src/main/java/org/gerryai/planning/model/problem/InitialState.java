@@ -21,6 +21,7 @@ import org.gerryai.planning.model.logic.Formula;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -46,6 +47,23 @@ public class InitialState {
         return Collections.unmodifiableSet(formulas);
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(formulas);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final InitialState other = (InitialState) obj;
+        return Objects.equals(this.formulas, other.formulas);
+    }
+
     /**
      * Builder class for {@link org.gerryai.planning.model.problem.InitialState} objects.
      */
@@ -2,6 +2,8 @@ package org.gerryai.planning.model.problem;
 
 import org.gerryai.planning.model.logic.Formula;
 
+import java.util.Objects;
+
 /**
  * Represents a metric to evaluate a plan.
  */
@@ -36,6 +38,23 @@ public class Metric {
         return formula;
     }
 
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, formula);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final Metric other = (Metric) obj;
+        return Objects.equals(this.name, other.name) && Objects.equals(this.formula, other.formula);
+    }
+
     /**
      * Builder of metrics.
      */
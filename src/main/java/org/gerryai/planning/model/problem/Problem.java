@@ -23,6 +23,8 @@ import org.gerryai.planning.model.Requirement;
 import org.gerryai.planning.model.Requirements;
 import org.gerryai.planning.model.logic.Formula;
 
+import java.util.Objects;
+
 /**
  * Defines a planning problem.
  */
@@ -35,6 +37,7 @@ public class Problem {
     private final ConstantDefinitions objects;
     private final InitialState initialState;
     private final Goal goal;
+    private volatile ProblemIndex index;
 
     /**
      * Constructor.
@@ -114,6 +117,47 @@ public class Problem {
         return metric;
     }
 
+    /**
+     * Get the index over this problem's objects, building it the first time it is needed.
+     * @return the index
+     */
+    public ProblemIndex getIndex() {
+        ProblemIndex result = index;
+        if (result == null) {
+            synchronized (this) {
+                result = index;
+                if (result == null) {
+                    result = new ProblemIndex(this);
+                    index = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, domainName, requirements, objects, initialState, goal, metric);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final Problem other = (Problem) obj;
+        return Objects.equals(this.name, other.name)
+                && Objects.equals(this.domainName, other.domainName)
+                && Objects.equals(this.requirements, other.requirements)
+                && Objects.equals(this.objects, other.objects)
+                && Objects.equals(this.initialState, other.initialState)
+                && Objects.equals(this.goal, other.goal)
+                && Objects.equals(this.metric, other.metric);
+    }
+
     /**
      * Builder class for {@link Problem} objects.
      */
@@ -0,0 +1,91 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.problem;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.Predicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index over the objects and initial state of a problem, giving constant time lookup of each object by name and of
+ * the initial facts by predicate name. An index is immutable once built, so may be shared freely between threads; use
+ * {@link Problem#getIndex()} to get the one shared index of a problem rather than building another.
+ */
+public final class ProblemIndex {
+
+    private final Map<String, ConstantDefinition> objects;
+    private final Map<String, List<Predicate>> facts;
+
+    /**
+     * Constructor.
+     * @param problem the problem to index
+     */
+    public ProblemIndex(final Problem problem) {
+        Map<String, ConstantDefinition> objectsByName = new HashMap<>();
+        for (ConstantDefinition object : problem.getObjects().asSet()) {
+            objectsByName.put(object.getName(), object);
+        }
+        objects = Collections.unmodifiableMap(objectsByName);
+
+        Map<String, List<Predicate>> factsByName = new HashMap<>();
+        for (Formula formula : problem.getInitialState().asSet()) {
+            if (formula instanceof Predicate) {
+                Predicate fact = (Predicate) formula;
+                List<Predicate> matching = factsByName.get(fact.getName());
+                if (matching == null) {
+                    matching = new ArrayList<>();
+                    factsByName.put(fact.getName(), matching);
+                }
+                matching.add(fact);
+            }
+        }
+        for (Map.Entry<String, List<Predicate>> entry : factsByName.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        facts = Collections.unmodifiableMap(factsByName);
+    }
+
+    /**
+     * Look up an object.
+     * @param name the name of the object
+     * @return the object definition, or absent if the problem has no object with that name
+     */
+    public Optional<ConstantDefinition> object(final String name) {
+        return Optional.fromNullable(objects.get(name));
+    }
+
+    /**
+     * Get the atoms of a predicate that hold in the initial state.
+     * @param predicateName the name of the predicate
+     * @return the atoms, which are empty if none hold
+     */
+    public List<Predicate> facts(final String predicateName) {
+        List<Predicate> matching = facts.get(predicateName);
+        if (matching == null) {
+            return Collections.emptyList();
+        }
+        return matching;
+    }
+}
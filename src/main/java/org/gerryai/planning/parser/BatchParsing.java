@@ -0,0 +1,87 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import org.gerryai.planning.parser.error.ParseException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the tasks of a batch parse, for implementations of the batch methods of {@link ParserService}. Each file is
+ * parsed by a separate task on the executor, and a file given more than once is only parsed once.
+ */
+public final class BatchParsing {
+
+    /**
+     * Private constructor, as this is a utility class.
+     */
+    private BatchParsing() { }
+
+    /**
+     * Parses a single file of a batch.
+     * @param <T> the type of model extracted from the file
+     */
+    public interface FileParser<T> {
+
+        /**
+         * Parse a file.
+         * @param path the file to parse
+         * @return the model extracted from the file
+         * @throws IOException if the file could not be read correctly
+         * @throws ParseException if there was a syntax error parsing the file
+         */
+        T parse(Path path) throws IOException, ParseException;
+    }
+
+    /**
+     * Submit a task to the executor for each distinct file.
+     * @param paths the files to parse
+     * @param executor the executor to run the parsing tasks on
+     * @param parser the parser to run on each file
+     * @param <T> the type of model extracted from each file
+     * @return a future for each file, in the order the files were given
+     * @throws java.util.concurrent.RejectedExecutionException if the executor would not accept a task
+     */
+    public static <T> Map<Path, ListenableFuture<T>> submit(final Collection<Path> paths, final Executor executor,
+                                                             final FileParser<T> parser) {
+        Map<Path, ListenableFuture<T>> results = new LinkedHashMap<>();
+        for (final Path path : paths) {
+            if (results.containsKey(path)) {
+                continue;
+            }
+            ListenableFutureTask<T> task = ListenableFutureTask.create(new Callable<T>() {
+                @Override
+                public T call() throws IOException, ParseException {
+                    return parser.parse(path);
+                }
+            });
+            results.put(path, task);
+            executor.execute(task);
+        }
+        return Collections.unmodifiableMap(results);
+    }
+}
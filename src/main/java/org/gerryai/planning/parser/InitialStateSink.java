@@ -0,0 +1,35 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser;
+
+import org.gerryai.planning.model.logic.Formula;
+
+/**
+ * Receives the facts of a problem's initial state one at a time as they are parsed.
+ * Facts are passed on in the order they appear in the input, including any duplicates, and can arrive before the
+ * rest of the problem has been checked. If parsing then fails, any facts already received should be discarded.
+ */
+public interface InitialStateSink {
+
+    /**
+     * Receive a fact from the initial state.
+     * @param fact a ground literal, or an {@link org.gerryai.planning.model.logic.Operation} assigning a value to a
+     *             numeric fluent
+     */
+    void add(final Formula fact);
+}
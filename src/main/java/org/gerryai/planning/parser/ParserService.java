@@ -17,18 +17,30 @@
  */
 package org.gerryai.planning.parser;
 
+import com.google.common.util.concurrent.ListenableFuture;
 import org.gerryai.planning.model.domain.Domain;
 import org.gerryai.planning.model.problem.Problem;
 import org.gerryai.planning.parser.error.ParseException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Interface for parsing domains and problems described using PDDL.
  */
 public interface ParserService {
 
+    /**
+     * Prepare the parser so that the first real parses are not slowed down by one-off start-up costs, such as
+     * loading the grammar and compiling the parsing code. Calling this is optional and can be done more than once.
+     */
+    void warmUp();
+
     /**
      * Parse an input stream and extract a {@link org.gerryai.planning.model.domain.Domain}.
      * @param inputStream the input stream to parse
@@ -47,5 +59,153 @@ public interface ParserService {
      */
     Problem parseProblem(final InputStream inputStream) throws IOException, ParseException;
 
+    /**
+     * Parse an input stream and extract a {@link org.gerryai.planning.model.problem.Problem} of a domain that has
+     * already been parsed. The types of the problem's objects and any constants of the domain it refers to are the
+     * domain's own instances, and each predicate it uses is checked against those the domain declares, so the problem
+     * need not be resolved against the domain again later.
+     * @param inputStream the input stream to parse
+     * @param domain the domain the problem is for
+     * @return the result of parsing the file
+     * @throws java.io.IOException if the input could not be read correctly
+     * @throws org.gerryai.planning.parser.error.DomainMismatchException if the problem does not fit the domain
+     * @throws ParseException if there was a syntax error parsing the input
+     */
+    Problem parseProblemFor(final InputStream inputStream, final Domain domain) throws IOException, ParseException;
+
+    /**
+     * Parse a file and extract a {@link org.gerryai.planning.model.domain.Domain}.
+     * The file is memory-mapped rather than read onto the heap.
+     * @param path the file to parse
+     * @return the result of parsing the file
+     * @throws java.io.IOException if the file could not be read correctly
+     * @throws ParseException if there was a syntax error parsing the input
+     */
+    Domain parseDomain(final Path path) throws IOException, ParseException;
+
+    /**
+     * Parse a file and extract a {@link org.gerryai.planning.model.problem.Problem}.
+     * The file is memory-mapped rather than read onto the heap.
+     * @param path the file to parse
+     * @return the result of parsing the file
+     * @throws java.io.IOException if the file could not be read correctly
+     * @throws ParseException if there was a syntax error parsing the input
+     */
+    Problem parseProblem(final Path path) throws IOException, ParseException;
+
+    /**
+     * Parse a file and extract a {@link org.gerryai.planning.model.problem.Problem} of a domain that has already been
+     * parsed, as {@link #parseProblemFor(java.io.InputStream, org.gerryai.planning.model.domain.Domain)} does.
+     * The file is memory-mapped rather than read onto the heap.
+     * @param path the file to parse
+     * @param domain the domain the problem is for
+     * @return the result of parsing the file
+     * @throws java.io.IOException if the file could not be read correctly
+     * @throws org.gerryai.planning.parser.error.DomainMismatchException if the problem does not fit the domain
+     * @throws ParseException if there was a syntax error parsing the input
+     */
+    Problem parseProblemFor(final Path path, final Domain domain) throws IOException, ParseException;
+
+    /**
+     * Parse an array of bytes and extract a {@link org.gerryai.planning.model.domain.Domain}.
+     * @param bytes the ASCII encoded input to parse
+     * @return the result of parsing the input
+     * @throws ParseException if there was a syntax error parsing the input
+     */
+    Domain parseDomain(final byte[] bytes) throws ParseException;
+
+    /**
+     * Parse an array of bytes and extract a {@link org.gerryai.planning.model.problem.Problem}.
+     * @param bytes the ASCII encoded input to parse
+     * @return the result of parsing the input
+     * @throws ParseException if there was a syntax error parsing the input
+     */
+    Problem parseProblem(final byte[] bytes) throws ParseException;
+
+    /**
+     * Parse a buffer and extract a {@link org.gerryai.planning.model.domain.Domain}.
+     * The buffer is read from its position to its limit, neither of which are changed.
+     * @param buffer the ASCII encoded input to parse
+     * @return the result of parsing the input
+     * @throws ParseException if there was a syntax error parsing the input
+     */
+    Domain parseDomain(final ByteBuffer buffer) throws ParseException;
 
+    /**
+     * Parse a buffer and extract a {@link org.gerryai.planning.model.problem.Problem}.
+     * The buffer is read from its position to its limit, neither of which are changed.
+     * @param buffer the ASCII encoded input to parse
+     * @return the result of parsing the input
+     * @throws ParseException if there was a syntax error parsing the input
+     */
+    Problem parseProblem(final ByteBuffer buffer) throws ParseException;
+
+    /**
+     * Parse an input stream and extract a {@link org.gerryai.planning.model.problem.Problem}, handing the facts of its
+     * initial state to a sink as they are parsed rather than collecting them in the problem.
+     * @param inputStream the input stream to parse
+     * @param sink the sink to pass initial state facts to
+     * @return the problem, with an empty initial state
+     * @throws java.io.IOException if the input could not be read correctly
+     * @throws ParseException if there was a syntax error parsing the input
+     */
+    Problem parseProblem(final InputStream inputStream, final InitialStateSink sink)
+            throws IOException, ParseException;
+
+    /**
+     * Parse a file and extract a {@link org.gerryai.planning.model.problem.Problem}, handing the facts of its initial
+     * state to a sink as they are parsed rather than collecting them in the problem.
+     * The file is memory-mapped rather than read onto the heap.
+     * @param path the file to parse
+     * @param sink the sink to pass initial state facts to
+     * @return the problem, with an empty initial state
+     * @throws java.io.IOException if the file could not be read correctly
+     * @throws ParseException if there was a syntax error parsing the input
+     */
+    Problem parseProblem(final Path path, final InitialStateSink sink) throws IOException, ParseException;
+
+    /**
+     * Parse many files in parallel, extracting a {@link org.gerryai.planning.model.domain.Domain} from each.
+     * Each file is parsed by a separate task on the executor, so the parallelism is bounded by the executor; a
+     * {@link java.util.concurrent.ForkJoinPool} sized to the number of cores suits most uses.
+     * A file that fails to parse only fails its own future, with an {@link java.util.concurrent.ExecutionException}
+     * wrapping the {@link java.io.IOException} or {@link ParseException} that parsing it threw. Cancelling a future
+     * whose file has not yet started parsing stops it being parsed at all. A file given more than once is only parsed
+     * once.
+     * @param paths the files to parse
+     * @param executor the executor to run the parsing tasks on
+     * @return a future for each file, in the order the files were given
+     * @throws java.util.concurrent.RejectedExecutionException if the executor would not accept a task
+     */
+    Map<Path, ListenableFuture<Domain>> parseDomains(final Collection<Path> paths, final Executor executor);
+
+    /**
+     * Parse many files in parallel, extracting a {@link org.gerryai.planning.model.problem.Problem} from each.
+     * Each file is parsed by a separate task on the executor, so the parallelism is bounded by the executor; a
+     * {@link java.util.concurrent.ForkJoinPool} sized to the number of cores suits most uses.
+     * A file that fails to parse only fails its own future, with an {@link java.util.concurrent.ExecutionException}
+     * wrapping the {@link java.io.IOException} or {@link ParseException} that parsing it threw. Cancelling a future
+     * whose file has not yet started parsing stops it being parsed at all. A file given more than once is only parsed
+     * once.
+     * @param paths the files to parse
+     * @param executor the executor to run the parsing tasks on
+     * @return a future for each file, in the order the files were given
+     * @throws java.util.concurrent.RejectedExecutionException if the executor would not accept a task
+     */
+    Map<Path, ListenableFuture<Problem>> parseProblems(final Collection<Path> paths, final Executor executor);
+
+    /**
+     * Parse many files in parallel, extracting from each a {@link org.gerryai.planning.model.problem.Problem} of a
+     * domain that has already been parsed, as {@link #parseProblemFor(java.nio.file.Path,
+     * org.gerryai.planning.model.domain.Domain)} does. The lookup tables built from the domain are shared by every
+     * problem in the batch. Otherwise this behaves as {@link #parseProblems(java.util.Collection,
+     * java.util.concurrent.Executor)} does.
+     * @param paths the files to parse
+     * @param domain the domain the problems are for
+     * @param executor the executor to run the parsing tasks on
+     * @return a future for each file, in the order the files were given
+     * @throws java.util.concurrent.RejectedExecutionException if the executor would not accept a task
+     */
+    Map<Path, ListenableFuture<Problem>> parseProblemsFor(final Collection<Path> paths, final Domain domain,
+                                                          final Executor executor);
 }
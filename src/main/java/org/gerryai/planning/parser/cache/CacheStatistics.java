@@ -0,0 +1,236 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.cache;
+
+/**
+ * Statistics of a {@link CachingParserService}, taken at a point in time. Every request for a domain or problem that
+ * can be cached is counted exactly once, as a hit in memory, a hit on disk, or a miss that had to be parsed.
+ */
+public final class CacheStatistics {
+
+    private final long hitCount;
+
+    private final long diskHitCount;
+
+    private final long missCount;
+
+    private final long evictionCount;
+
+    private final long diskErrorCount;
+
+    private final long entryCount;
+
+    private final long retainedSize;
+
+    /**
+     * Constructor.
+     * @param builder the builder to build from
+     */
+    private CacheStatistics(final Builder builder) {
+        hitCount = builder.hitCount;
+        diskHitCount = builder.diskHitCount;
+        missCount = builder.missCount;
+        evictionCount = builder.evictionCount;
+        diskErrorCount = builder.diskErrorCount;
+        entryCount = builder.entryCount;
+        retainedSize = builder.retainedSize;
+    }
+
+    /**
+     * Get the number of requests answered from memory, including those that waited for another request for the same
+     * input to finish loading it.
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Get the number of requests not found in memory but read from a snapshot on disk.
+     * @return the number of disk hits
+     */
+    public long getDiskHitCount() {
+        return diskHitCount;
+    }
+
+    /**
+     * Get the number of requests that had to be parsed, whether or not parsing succeeded.
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Get the number of requests made.
+     * @return the number of requests
+     */
+    public long getRequestCount() {
+        return hitCount + diskHitCount + missCount;
+    }
+
+    /**
+     * Get the fraction of requests answered from memory or disk without parsing.
+     * @return the hit rate, or 1 if no requests have been made
+     */
+    public double getHitRate() {
+        long requests = getRequestCount();
+        if (requests == 0) {
+            return 1;
+        }
+        return (double) (hitCount + diskHitCount) / requests;
+    }
+
+    /**
+     * Get the number of entries evicted from memory to keep the estimated retained size within its bound.
+     * @return the number of evictions
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Get the number of snapshots on disk that could not be read or written. Such errors never fail a request; the
+     * input is parsed instead, or the snapshot is simply not kept.
+     * @return the number of disk errors
+     */
+    public long getDiskErrorCount() {
+        return diskErrorCount;
+    }
+
+    /**
+     * Get the number of entries held in memory.
+     * @return the number of entries
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Get the estimated heap retained by the entries held in memory.
+     * @return the estimate in bytes
+     */
+    public long getRetainedSize() {
+        return retainedSize;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatistics{hits=" + hitCount + ", diskHits=" + diskHitCount + ", misses=" + missCount
+                + ", evictions=" + evictionCount + ", diskErrors=" + diskErrorCount + ", entries=" + entryCount
+                + ", retainedSize=" + retainedSize + "}";
+    }
+
+    /**
+     * Builder class for {@link CacheStatistics}.
+     */
+    static class Builder {
+
+        private long hitCount;
+
+        private long diskHitCount;
+
+        private long missCount;
+
+        private long evictionCount;
+
+        private long diskErrorCount;
+
+        private long entryCount;
+
+        private long retainedSize;
+
+        /**
+         * Set the number of hits in memory.
+         * @param count the number
+         * @return an updated builder
+         */
+        Builder hitCount(final long count) {
+            this.hitCount = count;
+            return this;
+        }
+
+        /**
+         * Set the number of hits on disk.
+         * @param count the number
+         * @return an updated builder
+         */
+        Builder diskHitCount(final long count) {
+            this.diskHitCount = count;
+            return this;
+        }
+
+        /**
+         * Set the number of misses.
+         * @param count the number
+         * @return an updated builder
+         */
+        Builder missCount(final long count) {
+            this.missCount = count;
+            return this;
+        }
+
+        /**
+         * Set the number of evictions.
+         * @param count the number
+         * @return an updated builder
+         */
+        Builder evictionCount(final long count) {
+            this.evictionCount = count;
+            return this;
+        }
+
+        /**
+         * Set the number of disk errors.
+         * @param count the number
+         * @return an updated builder
+         */
+        Builder diskErrorCount(final long count) {
+            this.diskErrorCount = count;
+            return this;
+        }
+
+        /**
+         * Set the number of entries in memory.
+         * @param count the number
+         * @return an updated builder
+         */
+        Builder entryCount(final long count) {
+            this.entryCount = count;
+            return this;
+        }
+
+        /**
+         * Set the estimated retained size of the entries in memory.
+         * @param size the estimate in bytes
+         * @return an updated builder
+         */
+        Builder retainedSize(final long size) {
+            this.retainedSize = size;
+            return this;
+        }
+
+        /**
+         * Build the finished statistics.
+         * @return the statistics
+         */
+        CacheStatistics build() {
+            return new CacheStatistics(this);
+        }
+    }
+}
@@ -0,0 +1,530 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.cache;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.BatchParsing;
+import org.gerryai.planning.parser.InitialStateSink;
+import org.gerryai.planning.parser.ParserService;
+import org.gerryai.planning.parser.error.ParseException;
+import org.gerryai.planning.snapshot.SnapshotReader;
+import org.gerryai.planning.snapshot.SnapshotWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A parser service that caches the domains and problems parsed by another, keyed on a SHA-256 hash of the bytes of
+ * the input, so the same file sent again is only parsed once however it is given and whatever it is called.
+ *
+ * Entries are held in memory up to a bound on their estimated retained size, evicting the least recently used first.
+ * Optionally, every model parsed is also written as a snapshot to a directory on disk, and an entry missing from
+ * memory is read back from its snapshot rather than parsed, which is much faster and survives restarts. Concurrent
+ * requests for the same input wait for a single load rather than each parsing it. Inputs that fail to parse are not
+ * cached, so the error is reported again on every request.
+ *
+ * The models returned are shared between every request for the same input, so must not be modified. Problems parsed
+ * with an {@link InitialStateSink} are never cached, as the sink has to see each fact, and nor are problems parsed
+ * against a {@link Domain}, as they share the instances of that particular domain. Thread safe.
+ */
+public final class CachingParserService implements ParserService {
+
+    /**
+     * The default bound on the estimated retained size of the entries held in memory, in bytes.
+     */
+    public static final long DEFAULT_MAXIMUM_RETAINED_SIZE = 64L * 1024 * 1024;
+
+    private static final Kind<Domain> DOMAIN = new Kind<Domain>("domain") {
+        @Override
+        Domain parse(final ParserService parserService, final byte[] bytes) throws ParseException {
+            return parserService.parseDomain(bytes);
+        }
+
+        @Override
+        Domain read(final SnapshotReader reader, final Path path) throws IOException {
+            return reader.readDomain(path);
+        }
+
+        @Override
+        void write(final SnapshotWriter writer, final Domain model, final Path path) throws IOException {
+            writer.write(model, path);
+        }
+
+        @Override
+        long size(final Domain model) {
+            return RetainedSize.of(model);
+        }
+    };
+
+    private static final Kind<Problem> PROBLEM = new Kind<Problem>("problem") {
+        @Override
+        Problem parse(final ParserService parserService, final byte[] bytes) throws ParseException {
+            return parserService.parseProblem(bytes);
+        }
+
+        @Override
+        Problem read(final SnapshotReader reader, final Path path) throws IOException {
+            return reader.readProblem(path);
+        }
+
+        @Override
+        void write(final SnapshotWriter writer, final Problem model, final Path path) throws IOException {
+            writer.write(model, path);
+        }
+
+        @Override
+        long size(final Problem model) {
+            return RetainedSize.of(model);
+        }
+    };
+
+    private final ParserService delegate;
+
+    private final Optional<Path> diskDirectory;
+
+    private final Cache<String, Entry> cache;
+
+    private final SnapshotReader reader = new SnapshotReader();
+
+    private final SnapshotWriter writer = new SnapshotWriter();
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong diskHits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong diskErrors = new AtomicLong();
+
+    private final AtomicLong retainedSize = new AtomicLong();
+
+    /**
+     * Constructor.
+     * @param builder the builder to build from
+     */
+    private CachingParserService(final Builder builder) {
+        delegate = builder.delegate;
+        diskDirectory = builder.diskDirectory;
+        cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(builder.maximumRetainedSize)
+                .weigher(new Weigher<String, Entry>() {
+                    @Override
+                    public int weigh(final String key, final Entry entry) {
+                        return entry.weight;
+                    }
+                })
+                .removalListener(new RemovalListener<String, Entry>() {
+                    @Override
+                    public void onRemoval(final RemovalNotification<String, Entry> notification) {
+                        retainedSize.addAndGet(-notification.getValue().weight);
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the statistics of the cache so far.
+     * @return the statistics
+     */
+    public CacheStatistics getStatistics() {
+        long diskHitCount = diskHits.get();
+        long missCount = misses.get();
+        return new CacheStatistics.Builder()
+                .hitCount(Math.max(0, requests.get() - diskHitCount - missCount))
+                .diskHitCount(diskHitCount)
+                .missCount(missCount)
+                .evictionCount(cache.stats().evictionCount())
+                .diskErrorCount(diskErrors.get())
+                .entryCount(cache.size())
+                .retainedSize(retainedSize.get())
+                .build();
+    }
+
+    /**
+     * Discard every entry held in memory. Snapshots on disk are kept.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void warmUp() {
+        delegate.warmUp();
+    }
+
+    @Override
+    public Domain parseDomain(final InputStream inputStream) throws IOException, ParseException {
+        return get(DOMAIN, ByteStreams.toByteArray(inputStream));
+    }
+
+    @Override
+    public Problem parseProblem(final InputStream inputStream) throws IOException, ParseException {
+        return get(PROBLEM, ByteStreams.toByteArray(inputStream));
+    }
+
+    @Override
+    public Domain parseDomain(final Path path) throws IOException, ParseException {
+        return get(DOMAIN, Files.readAllBytes(path));
+    }
+
+    @Override
+    public Problem parseProblem(final Path path) throws IOException, ParseException {
+        return get(PROBLEM, Files.readAllBytes(path));
+    }
+
+    @Override
+    public Domain parseDomain(final byte[] bytes) throws ParseException {
+        return get(DOMAIN, bytes);
+    }
+
+    @Override
+    public Problem parseProblem(final byte[] bytes) throws ParseException {
+        return get(PROBLEM, bytes);
+    }
+
+    @Override
+    public Domain parseDomain(final ByteBuffer buffer) throws ParseException {
+        return get(DOMAIN, toByteArray(buffer));
+    }
+
+    @Override
+    public Problem parseProblem(final ByteBuffer buffer) throws ParseException {
+        return get(PROBLEM, toByteArray(buffer));
+    }
+
+    @Override
+    public Problem parseProblem(final InputStream inputStream, final InitialStateSink sink)
+            throws IOException, ParseException {
+        return delegate.parseProblem(inputStream, sink);
+    }
+
+    @Override
+    public Problem parseProblem(final Path path, final InitialStateSink sink) throws IOException, ParseException {
+        return delegate.parseProblem(path, sink);
+    }
+
+    @Override
+    public Problem parseProblemFor(final InputStream inputStream, final Domain domain)
+            throws IOException, ParseException {
+        return delegate.parseProblemFor(inputStream, domain);
+    }
+
+    @Override
+    public Problem parseProblemFor(final Path path, final Domain domain) throws IOException, ParseException {
+        return delegate.parseProblemFor(path, domain);
+    }
+
+    @Override
+    public Map<Path, ListenableFuture<Domain>> parseDomains(final Collection<Path> paths, final Executor executor) {
+        return BatchParsing.submit(paths, executor, new BatchParsing.FileParser<Domain>() {
+            @Override
+            public Domain parse(final Path path) throws IOException, ParseException {
+                return parseDomain(path);
+            }
+        });
+    }
+
+    @Override
+    public Map<Path, ListenableFuture<Problem>> parseProblems(final Collection<Path> paths, final Executor executor) {
+        return BatchParsing.submit(paths, executor, new BatchParsing.FileParser<Problem>() {
+            @Override
+            public Problem parse(final Path path) throws IOException, ParseException {
+                return parseProblem(path);
+            }
+        });
+    }
+
+    @Override
+    public Map<Path, ListenableFuture<Problem>> parseProblemsFor(final Collection<Path> paths, final Domain domain,
+                                                                 final Executor executor) {
+        return delegate.parseProblemsFor(paths, domain, executor);
+    }
+
+    /**
+     * Get a model from the cache, loading it if it is not held in memory.
+     * @param kind the kind of model
+     * @param bytes the input
+     * @param <T> the class of model
+     * @return the model
+     * @throws ParseException if the model had to be parsed and there was a syntax error
+     */
+    private <T> T get(final Kind<T> kind, final byte[] bytes) throws ParseException {
+        requests.incrementAndGet();
+        final String key = Hashing.sha256().hashBytes(bytes).toString() + "." + kind.name;
+        try {
+            Entry entry = cache.get(key, new Callable<Entry>() {
+                @Override
+                public Entry call() throws ParseException {
+                    return load(kind, key, bytes);
+                }
+            });
+            return kind.cast(entry.model);
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), ParseException.class);
+            throw Throwables.propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Load a model that is not held in memory, reading its snapshot from disk if there is one and otherwise parsing
+     * it and writing a snapshot of it to disk.
+     * @param kind the kind of model
+     * @param key the key of the model, which is also the name of its snapshot
+     * @param bytes the input
+     * @param <T> the class of model
+     * @return the entry to hold in memory
+     * @throws ParseException if there was a syntax error
+     */
+    private <T> Entry load(final Kind<T> kind, final String key, final byte[] bytes) throws ParseException {
+        if (diskDirectory.isPresent()) {
+            Path snapshot = diskDirectory.get().resolve(key);
+            if (Files.isRegularFile(snapshot)) {
+                try {
+                    T model = kind.read(reader, snapshot);
+                    diskHits.incrementAndGet();
+                    return entry(kind, model);
+                } catch (IOException e) {
+                    diskErrors.incrementAndGet();
+                }
+            }
+        }
+        misses.incrementAndGet();
+        T model = kind.parse(delegate, bytes);
+        if (diskDirectory.isPresent()) {
+            store(kind, model, key);
+        }
+        return entry(kind, model);
+    }
+
+    /**
+     * Create the entry for a model, adding its estimated size to the total held in memory.
+     * @param kind the kind of model
+     * @param model the model
+     * @param <T> the class of model
+     * @return the entry
+     */
+    private <T> Entry entry(final Kind<T> kind, final T model) {
+        int weight = (int) Math.min(Integer.MAX_VALUE, kind.size(model));
+        retainedSize.addAndGet(weight);
+        return new Entry(model, weight);
+    }
+
+    /**
+     * Write a snapshot of a model to disk, first to a temporary file that is then moved into place, so a snapshot
+     * that is only partly written is never read.
+     * @param kind the kind of model
+     * @param model the model
+     * @param key the key of the model, which is also the name of its snapshot
+     * @param <T> the class of model
+     */
+    private <T> void store(final Kind<T> kind, final T model, final String key) {
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(diskDirectory.get(), key, ".tmp");
+            kind.write(writer, model, temporary);
+            Files.move(temporary, diskDirectory.get().resolve(key), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+            deleteQuietly(temporary);
+        }
+    }
+
+    /**
+     * Delete a temporary file that may have been left behind, ignoring any error.
+     * @param path the file, or null
+     */
+    private void deleteQuietly(final Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            diskErrors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Copy the contents of a buffer, from its position to its limit, leaving the buffer unchanged.
+     * @param buffer the buffer
+     * @return the contents
+     */
+    private static byte[] toByteArray(final ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * A model held in memory, with its estimated retained size.
+     */
+    private static final class Entry {
+
+        private final Object model;
+
+        private final int weight;
+
+        /**
+         * Constructor.
+         * @param model the model
+         * @param weight the estimated retained size of the model
+         */
+        private Entry(final Object model, final int weight) {
+            this.model = model;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * The operations that differ between caching domains and problems.
+     * @param <T> the class of model
+     */
+    private abstract static class Kind<T> {
+
+        private final String name;
+
+        /**
+         * Constructor.
+         * @param name the name of the kind, used in keys
+         */
+        Kind(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Parse a model.
+         * @param parserService the parser service to parse with
+         * @param bytes the input
+         * @return the model
+         * @throws ParseException if there was a syntax error
+         */
+        abstract T parse(ParserService parserService, byte[] bytes) throws ParseException;
+
+        /**
+         * Read a model from a snapshot.
+         * @param snapshotReader the snapshot reader
+         * @param path the snapshot
+         * @return the model
+         * @throws IOException if the snapshot could not be read
+         */
+        abstract T read(SnapshotReader snapshotReader, Path path) throws IOException;
+
+        /**
+         * Write a snapshot of a model.
+         * @param snapshotWriter the snapshot writer
+         * @param model the model
+         * @param path the snapshot
+         * @throws IOException if the snapshot could not be written
+         */
+        abstract void write(SnapshotWriter snapshotWriter, T model, Path path) throws IOException;
+
+        /**
+         * Estimate the heap retained by a model.
+         * @param model the model
+         * @return the estimate in bytes
+         */
+        abstract long size(T model);
+
+        /**
+         * Cast a model held in memory to this kind.
+         * @param model the model
+         * @return the model
+         */
+        @SuppressWarnings("unchecked")
+        T cast(final Object model) {
+            return (T) model;
+        }
+    }
+
+    /**
+     * Builder class for {@link CachingParserService}.
+     */
+    public static class Builder {
+
+        private final ParserService delegate;
+
+        private long maximumRetainedSize = DEFAULT_MAXIMUM_RETAINED_SIZE;
+
+        private Optional<Path> diskDirectory = Optional.absent();
+
+        /**
+         * Constructor.
+         * @param delegate the parser service to parse with when a model is not cached
+         */
+        public Builder(final ParserService delegate) {
+            this.delegate = delegate;
+        }
+
+        /**
+         * Set the bound on the estimated heap retained by the entries held in memory. An entry whose own estimate is
+         * larger than this is not held at all. Defaults to {@link #DEFAULT_MAXIMUM_RETAINED_SIZE}.
+         * @param bytes the bound in bytes
+         * @return an updated builder
+         */
+        public Builder maximumRetainedSize(final long bytes) {
+            this.maximumRetainedSize = bytes;
+            return this;
+        }
+
+        /**
+         * Set a directory to keep a snapshot of every model parsed in, which must already exist. It can be shared by
+         * any number of services, including in other processes, as snapshots are named by the hash of their input and
+         * only ever appear whole. Snapshots are not cleaned up. By default nothing is kept on disk.
+         * @param directory the directory
+         * @return an updated builder
+         */
+        public Builder diskDirectory(final Path directory) {
+            this.diskDirectory = Optional.of(directory);
+            return this;
+        }
+
+        /**
+         * Build the finished service.
+         * @return the service
+         */
+        public CachingParserService build() {
+            return new CachingParserService(this);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.cache;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.domain.TypeDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.EitherType;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.ForAll;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FormulaVisitor;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.IfThen;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Or;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.PrimitiveType;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.TermVisitor;
+import org.gerryai.planning.model.logic.Type;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Estimates the heap retained by a domain or problem, for weighing entries in the cache. The estimate assumes a
+ * 64-bit JVM with compressed references and counts every object reached from the model, except that an instance
+ * reached more than once, such as a hash-consed constant or a name shared through the symbol table, is only counted
+ * once. It is meant to be within a small factor of the truth, which is all the cache needs, not exact.
+ * Not thread safe; each estimate has its own instance.
+ */
+final class RetainedSize implements FormulaVisitor<Void>, TermVisitor<Void> {
+
+    /**
+     * Bytes taken by a small object: its header and up to three fields.
+     */
+    private static final int OBJECT = 24;
+
+    /**
+     * Bytes taken by a list, with its backing array, before its elements.
+     */
+    private static final int LIST = 40;
+
+    /**
+     * Bytes taken by a reference held in an array.
+     */
+    private static final int REFERENCE = 4;
+
+    /**
+     * Bytes taken by a hash set, with its map, before its elements.
+     */
+    private static final int SET = 64;
+
+    /**
+     * Bytes taken by each element of a hash set: its node and its share of the table.
+     */
+    private static final int SET_ENTRY = 40;
+
+    /**
+     * Bytes taken by a string, with its backing array, before its characters.
+     */
+    private static final int STRING = 40;
+
+    private final Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+    private long bytes;
+
+    /**
+     * Estimate the heap retained by a domain.
+     * @param domain the domain
+     * @return the estimate in bytes
+     */
+    static long of(final Domain domain) {
+        RetainedSize size = new RetainedSize();
+        size.add(OBJECT + OBJECT);
+        size.string(domain.getName());
+        size.set(domain.getRequirements().asSet().size());
+        size.set(domain.getTypes().asSet().size());
+        for (TypeDefinition type : domain.getTypes().asSet()) {
+            size.add(OBJECT);
+            size.string(type.getName());
+            size.type(type.getParent());
+        }
+        size.constants(domain.getConstants().asSet());
+        size.formulas(domain.getPredicates().asSet());
+        size.formulas(domain.getFunctions().asSet());
+        size.set(domain.getActions().asSet().size());
+        for (Action action : domain.getActions().asSet()) {
+            size.add(OBJECT + OBJECT + OBJECT);
+            size.string(action.getName());
+            size.terms(action.getParameters());
+            if (action.getPrecondition() != null) {
+                size.formula(action.getPrecondition().getPrecondition().orNull());
+            }
+            if (action.getEffect() != null) {
+                size.formula(action.getEffect().getEffect().orNull());
+            }
+        }
+        return size.bytes;
+    }
+
+    /**
+     * Estimate the heap retained by a problem.
+     * @param problem the problem
+     * @return the estimate in bytes
+     */
+    static long of(final Problem problem) {
+        RetainedSize size = new RetainedSize();
+        size.add(OBJECT + OBJECT + OBJECT);
+        size.string(problem.getName());
+        size.string(problem.getDomainName());
+        size.set(problem.getRequirements().asSet().size());
+        size.constants(problem.getObjects().asSet());
+        size.formulas(problem.getInitialState().asSet());
+        size.formula(problem.getGoal().getFormula());
+        if (problem.getMetric() != null) {
+            size.add(OBJECT);
+            size.string(problem.getMetric().getName());
+            size.formula(problem.getMetric().getFormula());
+        }
+        return size.bytes;
+    }
+
+    @Override
+    public Void visit(final And and) {
+        list(and.asList());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Or or) {
+        list(or.asList());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Not not) {
+        if (seen.add(not)) {
+            add(OBJECT);
+            formula(not.getFormula());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(final Predicate predicate) {
+        if (seen.add(predicate)) {
+            add(OBJECT);
+            string(predicate.getName());
+            terms(predicate.getTerms());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(final Equals equals) {
+        add(OBJECT);
+        term(equals.getLeft());
+        term(equals.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visit(final ForAll forAll) {
+        add(OBJECT);
+        terms(forAll.getVariables());
+        formula(forAll.getFormula());
+        return null;
+    }
+
+    @Override
+    public Void visit(final IfThen ifThen) {
+        add(OBJECT);
+        formula(ifThen.getCondition());
+        formula(ifThen.getConsequence());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Operation operation) {
+        add(OBJECT + OBJECT);
+        string(operation.getOperator());
+        formula(operation.getConsequent());
+        formula(operation.getAntecedent());
+        return null;
+    }
+
+    @Override
+    public Void visit(final FunctionTerm functionTerm) {
+        add(OBJECT);
+        string(functionTerm.getName());
+        terms(functionTerm.getTerms());
+        return null;
+    }
+
+    @Override
+    public Void visit(final FunctionDefinition functionDefinition) {
+        add(OBJECT);
+        string(functionDefinition.getName());
+        terms(functionDefinition.getTerms());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Constant constant) {
+        if (seen.add(constant)) {
+            add(OBJECT);
+            string(constant.getName());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(final Variable variable) {
+        if (seen.add(variable)) {
+            add(OBJECT + OBJECT);
+            string(variable.getName());
+            type(variable.getType());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(final NumberTerm number) {
+        add(OBJECT);
+        string(number.getText());
+        return null;
+    }
+
+    /**
+     * Add to the estimate.
+     * @param extra the bytes to add
+     */
+    private void add(final long extra) {
+        bytes += extra;
+    }
+
+    /**
+     * Add a hash set of objects whose own size is counted separately.
+     * @param size the number of elements
+     */
+    private void set(final int size) {
+        add(SET + (long) SET_ENTRY * size);
+    }
+
+    /**
+     * Add a string, unless it has been counted already.
+     * @param string the string, or null
+     */
+    private void string(final String string) {
+        if (string != null && seen.add(string)) {
+            add(STRING + string.length());
+        }
+    }
+
+    /**
+     * Add a type that may be absent.
+     * @param type the type
+     */
+    private void type(final Optional<Type> type) {
+        add(OBJECT / 2);
+        type(type.orNull());
+    }
+
+    /**
+     * Add a type, unless it has been counted already.
+     * @param type the type, or null
+     */
+    private void type(final Type type) {
+        if (type == null || !seen.add(type)) {
+            return;
+        }
+        if (type instanceof PrimitiveType) {
+            add(OBJECT);
+            string(((PrimitiveType) type).getName());
+        } else if (type instanceof EitherType) {
+            List<PrimitiveType> types = ((EitherType) type).getTypes();
+            add(OBJECT + LIST + REFERENCE * types.size());
+            for (PrimitiveType primitive : types) {
+                type(primitive);
+            }
+        }
+    }
+
+    /**
+     * Add a collection of constant definitions held in a hash set.
+     * @param constants the constants
+     */
+    private void constants(final Collection<ConstantDefinition> constants) {
+        set(constants.size());
+        for (ConstantDefinition constant : constants) {
+            add(OBJECT);
+            string(constant.getName());
+            type(constant.getType());
+        }
+    }
+
+    /**
+     * Add a collection of formulas held in a hash set.
+     * @param formulas the formulas
+     */
+    private void formulas(final Collection<? extends Formula> formulas) {
+        set(formulas.size());
+        for (Formula formula : formulas) {
+            formula(formula);
+        }
+    }
+
+    /**
+     * Add a formula held in a list, such as a conjunction.
+     * @param formulas the formulas
+     */
+    private void list(final List<Formula> formulas) {
+        add(OBJECT + LIST + REFERENCE * formulas.size());
+        for (Formula formula : formulas) {
+            formula(formula);
+        }
+    }
+
+    /**
+     * Add a formula that may be missing.
+     * @param formula the formula, or null
+     */
+    private void formula(final Formula formula) {
+        if (formula != null) {
+            formula.accept(this);
+        }
+    }
+
+    /**
+     * Add a list of terms.
+     * @param terms the terms
+     */
+    private void terms(final List<? extends Term> terms) {
+        add(LIST + REFERENCE * terms.size());
+        for (Term term : terms) {
+            term(term);
+        }
+    }
+
+    /**
+     * Add a term that may be missing.
+     * @param term the term, or null
+     */
+    private void term(final Term term) {
+        if (term != null) {
+            term.accept(this);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.error;
+
+/**
+ * Parsing exception thrown when a problem parsed against a domain does not fit it, such as by using a type or
+ * predicate the domain does not define, or a predicate with the wrong number of terms.
+ */
+public class DomainMismatchException extends ParseException {
+
+    /**
+     * Constructor.
+     * @param message the detail message
+     */
+    public DomainMismatchException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl;
+
+/**
+ * Options controlling how the PDDL parser does its work. None of the options change the model that is produced for
+ * valid input, they only trade off speed, memory and the quality of error reporting.
+ */
+public final class PDDLParserOptions {
+
+    private static final PDDLParserOptions DEFAULTS = new Builder().build();
+
+    private final boolean twoStagePrediction;
+
+    private final boolean buildParseTree;
+
+    private final boolean warmUp;
+
+    private final boolean handWrittenLexer;
+
+    private final boolean fastPath;
+
+    private final boolean hashConsing;
+
+    /**
+     * Constructor.
+     * @param builder the builder to build from
+     */
+    private PDDLParserOptions(final Builder builder) {
+        twoStagePrediction = builder.twoStagePrediction;
+        buildParseTree = builder.buildParseTree;
+        warmUp = builder.warmUp;
+        handWrittenLexer = builder.handWrittenLexer;
+        fastPath = builder.fastPath;
+        hashConsing = builder.hashConsing;
+    }
+
+    /**
+     * Get the default options.
+     * @return the defaults
+     */
+    public static PDDLParserOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Check whether input is first parsed using the faster SLL prediction mode, falling back to full LL prediction
+     * only if that fails.
+     * @return true if two-stage prediction is enabled
+     */
+    public boolean isTwoStagePrediction() {
+        return twoStagePrediction;
+    }
+
+    /**
+     * Check whether a full parse tree is built and then walked to extract the model, rather than extracting the model
+     * from listener events fired while parsing.
+     * @return true if a parse tree is built
+     */
+    public boolean isBuildParseTree() {
+        return buildParseTree;
+    }
+
+    /**
+     * Check whether the parser is warmed up as soon as it is created.
+     * @return true if the parser is warmed up eagerly
+     */
+    public boolean isWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * Check whether input held in a byte buffer is lexed by the hand-written byte-level lexer rather than the
+     * generated one.
+     * @return true if the hand-written lexer is used
+     */
+    public boolean isHandWrittenLexer() {
+        return handWrittenLexer;
+    }
+
+    /**
+     * Check whether domains and problems are first parsed by the hand-written recursive-descent parser, falling back
+     * to the generated parser only for input it does not support.
+     * @return true if the fast path is enabled
+     */
+    public boolean isFastPath() {
+        return fastPath;
+    }
+
+    /**
+     * Check whether equal terms and atoms in a parsed domain or problem are shared, rather than each use being a
+     * separate instance.
+     * @return true if hash-consing is enabled
+     */
+    public boolean isHashConsing() {
+        return hashConsing;
+    }
+
+    /**
+     * Builder class for {@link PDDLParserOptions}.
+     */
+    public static class Builder {
+
+        private boolean twoStagePrediction = true;
+
+        private boolean buildParseTree = true;
+
+        private boolean warmUp;
+
+        private boolean handWrittenLexer = true;
+
+        private boolean fastPath = true;
+
+        private boolean hashConsing;
+
+        /**
+         * Set whether to parse using SLL prediction first and only re-parse using full LL prediction, with full
+         * error reporting, if the input could not be parsed by SLL alone. Enabled by default.
+         * @param enabled true to enable two-stage prediction
+         * @return an updated builder
+         */
+        public Builder twoStagePrediction(final boolean enabled) {
+            this.twoStagePrediction = enabled;
+            return this;
+        }
+
+        /**
+         * Set whether to build a parse tree and walk it once parsing has finished. When disabled the model is
+         * extracted by listeners attached to the parser, so each rule context can be collected as soon as the parser
+         * leaves it. This keeps peak memory use far lower for large problems. Enabled by default.
+         * @param enabled true to build a parse tree
+         * @return an updated builder
+         */
+        public Builder buildParseTree(final boolean enabled) {
+            this.buildParseTree = enabled;
+            return this;
+        }
+
+        /**
+         * Set whether to warm up the parser as soon as it is created, rather than leaving the first parses to pay
+         * the start-up costs. Disabled by default.
+         * @param enabled true to warm up the parser eagerly
+         * @return an updated builder
+         */
+        public Builder warmUp(final boolean enabled) {
+            this.warmUp = enabled;
+            return this;
+        }
+
+        /**
+         * Set whether to lex input held in a byte buffer, which is all input other than a {@link
+         * org.antlr.v4.runtime.CharStream} supplied directly, with a hand-written lexer that scans the bytes directly.
+         * It produces the same tokens as the lexer generated from the grammar, only faster. Enabled by default.
+         * @param enabled true to use the hand-written lexer
+         * @return an updated builder
+         */
+        public Builder handWrittenLexer(final boolean enabled) {
+            this.handWrittenLexer = enabled;
+            return this;
+        }
+
+        /**
+         * Set whether to try parsing domains and problems with a hand-written recursive-descent parser before the
+         * generated one. It covers STRIPS with typing and negative literals, which is most of what is seen in
+         * practice, and builds the model directly without a parse tree. Anything else, including any input that is
+         * not valid, is left to the generated parser, so the result and any error reported are unchanged. Enabled by
+         * default.
+         * @param enabled true to enable the fast path
+         * @return an updated builder
+         */
+        public Builder fastPath(final boolean enabled) {
+            this.fastPath = enabled;
+            return this;
+        }
+
+        /**
+         * Set whether to hash-cons the terms and atoms of each parsed domain or problem, using a {@link
+         * org.gerryai.planning.model.logic.HashConsingFactory}. Equal constants, variables, types, predicates and
+         * negated atoms then share one instance, which saves memory when the same atoms appear many times and makes
+         * comparing them cheap, at the cost of a lookup for each one parsed. Disabled by default.
+         * @param enabled true to enable hash-consing
+         * @return an updated builder
+         */
+        public Builder hashConsing(final boolean enabled) {
+            this.hashConsing = enabled;
+            return this;
+        }
+
+        /**
+         * Build the finished options.
+         * @return the options
+         */
+        public PDDLParserOptions build() {
+            return new PDDLParserOptions(this);
+        }
+    }
+}
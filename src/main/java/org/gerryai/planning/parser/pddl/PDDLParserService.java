@@ -17,28 +17,124 @@
  */
 package org.gerryai.planning.parser.pddl;
 
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.gerryai.planning.model.domain.Domain;
 import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.BatchParsing;
+import org.gerryai.planning.parser.InitialStateSink;
 import org.gerryai.planning.parser.ParserService;
 import org.gerryai.planning.parser.error.ParseException;
+import org.gerryai.planning.parser.pddl.internal.DomainBinding;
 import org.gerryai.planning.parser.pddl.internal.PDDLParser;
 import org.gerryai.planning.parser.pddl.internal.PDDLParserUtils;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * A service that can be used for parsing PDDL files into planning problems or domains.
  */
 public class PDDLParserService implements ParserService {
 
+    /**
+     * Resources, relative to this class, containing the domains to parse when warming up.
+     */
+    private static final String[] WARM_UP_DOMAINS = {
+        "warmup/blocksworld-domain.pddl",
+        "warmup/briefcase-domain.pddl",
+        "warmup/logistics-domain.pddl",
+        "warmup/tasks-domain.pddl",
+    };
+
+    /**
+     * Resources, relative to this class, containing the problems to parse when warming up.
+     */
+    private static final String[] WARM_UP_PROBLEMS = {
+        "warmup/blocksworld-problem.pddl",
+        "warmup/briefcase-problem.pddl",
+        "warmup/logistics-problem.pddl",
+        "warmup/tasks-problem.pddl",
+    };
+
+    /**
+     * The number of times to parse the warm-up corpus, which needs to be enough for the JIT to compile the lexer and
+     * parser.
+     */
+    private static final int WARM_UP_ROUNDS = 100;
+
     private PDDLParser parserService;
 
+    private PDDLParserUtils parserUtils;
+
     /**
      * Constructor.
      */
     public PDDLParserService() {
-        parserService = new PDDLParser(new PDDLParserUtils());
+        this(PDDLParserOptions.defaults());
+    }
+
+    /**
+     * Constructor.
+     * @param options the options controlling how parsing is done
+     */
+    public PDDLParserService(final PDDLParserOptions options) {
+        parserUtils = new PDDLParserUtils(options);
+        parserService = new PDDLParser(parserUtils, options);
+        if (options.isWarmUp()) {
+            warmUp();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * This parses a small corpus of domains and problems bundled with the parser, covering typing, numeric fluents,
+     * conditional effects and the like, which loads the grammar and fills the prediction caches shared by all
+     * parsers.
+     */
+    @Override
+    public void warmUp() {
+        try {
+            List<byte[]> domains = readResources(WARM_UP_DOMAINS);
+            List<byte[]> problems = readResources(WARM_UP_PROBLEMS);
+            for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+                for (byte[] domain : domains) {
+                    parseDomain(domain);
+                }
+                for (byte[] problem : problems) {
+                    parseProblem(problem);
+                }
+            }
+        } catch (IOException | ParseException ex) {
+            throw new IllegalStateException("Could not parse the warm-up corpus", ex);
+        }
+    }
+
+    /**
+     * Read resources bundled alongside this class.
+     * @param names the names of the resources
+     * @return the contents of each resource
+     * @throws IOException if a resource could not be read
+     */
+    private List<byte[]> readResources(final String[] names) throws IOException {
+        List<byte[]> contents = new ArrayList<>(names.length);
+        for (String name : names) {
+            try (InputStream inputStream = PDDLParserService.class.getResourceAsStream(name)) {
+                if (inputStream == null) {
+                    throw new FileNotFoundException(name);
+                }
+                contents.add(ByteStreams.toByteArray(inputStream));
+            }
+        }
+        return contents;
     }
 
     @Override
@@ -50,4 +146,90 @@ public class PDDLParserService implements ParserService {
     public Domain parseDomain(final InputStream inputStream) throws IOException, ParseException {
         return parserService.parseDomain(inputStream);
     }
+
+    @Override
+    public Problem parseProblemFor(final InputStream inputStream, final Domain domain)
+            throws IOException, ParseException {
+        return parserService.parseProblemFor(parserUtils.createInputStream(inputStream),
+                parserUtils.createDomainBinding(domain));
+    }
+
+    @Override
+    public Domain parseDomain(final Path path) throws IOException, ParseException {
+        return parserService.parseDomain(parserUtils.createInputStream(path));
+    }
+
+    @Override
+    public Problem parseProblem(final Path path) throws IOException, ParseException {
+        return parserService.parseProblem(parserUtils.createInputStream(path));
+    }
+
+    @Override
+    public Problem parseProblemFor(final Path path, final Domain domain) throws IOException, ParseException {
+        return parserService.parseProblemFor(parserUtils.createInputStream(path),
+                parserUtils.createDomainBinding(domain));
+    }
+
+    @Override
+    public Domain parseDomain(final byte[] bytes) throws ParseException {
+        return parseDomain(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public Problem parseProblem(final byte[] bytes) throws ParseException {
+        return parseProblem(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public Domain parseDomain(final ByteBuffer buffer) throws ParseException {
+        return parserService.parseDomain(parserUtils.createInputStream(buffer));
+    }
+
+    @Override
+    public Problem parseProblem(final ByteBuffer buffer) throws ParseException {
+        return parserService.parseProblem(parserUtils.createInputStream(buffer));
+    }
+
+    @Override
+    public Problem parseProblem(final InputStream inputStream, final InitialStateSink sink)
+            throws IOException, ParseException {
+        return parserService.parseProblem(parserUtils.createInputStream(inputStream), sink);
+    }
+
+    @Override
+    public Problem parseProblem(final Path path, final InitialStateSink sink) throws IOException, ParseException {
+        return parserService.parseProblem(parserUtils.createInputStream(path), sink);
+    }
+
+    @Override
+    public Map<Path, ListenableFuture<Domain>> parseDomains(final Collection<Path> paths, final Executor executor) {
+        return BatchParsing.submit(paths, executor, new BatchParsing.FileParser<Domain>() {
+            @Override
+            public Domain parse(final Path path) throws IOException, ParseException {
+                return parseDomain(path);
+            }
+        });
+    }
+
+    @Override
+    public Map<Path, ListenableFuture<Problem>> parseProblems(final Collection<Path> paths, final Executor executor) {
+        return BatchParsing.submit(paths, executor, new BatchParsing.FileParser<Problem>() {
+            @Override
+            public Problem parse(final Path path) throws IOException, ParseException {
+                return parseProblem(path);
+            }
+        });
+    }
+
+    @Override
+    public Map<Path, ListenableFuture<Problem>> parseProblemsFor(final Collection<Path> paths, final Domain domain,
+                                                                 final Executor executor) {
+        final DomainBinding binding = parserUtils.createDomainBinding(domain);
+        return BatchParsing.submit(paths, executor, new BatchParsing.FileParser<Problem>() {
+            @Override
+            public Problem parse(final Path path) throws IOException, ParseException {
+                return parserService.parseProblemFor(parserUtils.createInputStream(path), binding);
+            }
+        });
+    }
 }
@@ -0,0 +1,34 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.antlr.v4.runtime.CharStream;
+
+/**
+ * A character stream that can give direct access to its case-folded characters, so that the text of a token can be
+ * read without first being copied into a string.
+ */
+interface CaseFoldedStream extends CharStream {
+
+    /**
+     * Get the case-folded character at an index of the stream, regardless of the stream's current position.
+     * @param index the index of the character
+     * @return the character, in lower case
+     */
+    int foldedCharAt(int index);
+}
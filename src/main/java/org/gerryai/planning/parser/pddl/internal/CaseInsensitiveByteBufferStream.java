@@ -0,0 +1,190 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.lang.String.format;
+
+/**
+ * Input stream for ANTLR that reads single-byte characters straight out of a {@link ByteBuffer}, converting ASCII
+ * letters to lower case as they are looked at by the lexer. Like {@link CaseInsensitiveInputStream} the original text
+ * is still returned by {@link #getText(Interval)}, but no copy of the input is ever made, so a memory-mapped file
+ * can be lexed without its contents being loaded onto the heap.
+ *
+ * PDDL is an ASCII language, so bytes are read as ISO-8859-1; anything outside ASCII can only appear in comments.
+ * Inputs are limited to 2GB, as ANTLR streams are indexed by int.
+ */
+public class CaseInsensitiveByteBufferStream implements CaseFoldedStream {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int CASE_OFFSET = 'a' - 'A';
+
+    private final ByteBuffer buffer;
+
+    private final int offset;
+
+    private final int n;
+
+    private final String name;
+
+    private int p;
+
+    /**
+     * Constructor. The buffer is read from its position up to its limit, and neither are changed.
+     * @param buffer the buffer holding the input
+     * @param name the name of the source of the input
+     */
+    public CaseInsensitiveByteBufferStream(final ByteBuffer buffer, final String name) {
+        this.buffer = buffer.duplicate();
+        this.offset = buffer.position();
+        this.n = buffer.remaining();
+        this.name = name;
+    }
+
+    /**
+     * Constructor.
+     * @param buffer the buffer holding the input
+     */
+    public CaseInsensitiveByteBufferStream(final ByteBuffer buffer) {
+        this(buffer, IntStream.UNKNOWN_SOURCE_NAME);
+    }
+
+    /**
+     * Memory-map a file and create a stream reading from it.
+     * @param path the file to read
+     * @return the stream
+     * @throws IOException if the file could not be mapped
+     */
+    public static CaseInsensitiveByteBufferStream map(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(format("%s is too large to parse (%d bytes)", path, size));
+            }
+            return new CaseInsensitiveByteBufferStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size),
+                    path.toString());
+        }
+    }
+
+    @Override
+    public void consume() {
+        if (p >= n) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        p++;
+    }
+
+    @Override
+    //CHECKSTYLE:OFF
+    public int LA(int i) {
+        //CHECKSTYLE:ON
+        if (i == 0) {
+            return 0; // undefined
+        }
+        if (i < 0) {
+            i++; // e.g., translate LA(-1) to use offset i=0; then data[p+0-1]
+            if ((p + i - 1) < 0) {
+                return IntStream.EOF; // invalid; no char before first char
+            }
+        }
+
+        if ((p + i - 1) >= n) {
+            return IntStream.EOF;
+        }
+        return foldedCharAt(p + i - 1);
+    }
+
+    @Override
+    public int foldedCharAt(final int index) {
+        int c = buffer.get(offset + index) & BYTE_MASK;
+        if (c >= 'A' && c <= 'Z') {
+            return c + CASE_OFFSET;
+        }
+        return c;
+    }
+
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(final int marker) {
+        // the whole input is always available, so there is nothing to release
+    }
+
+    @Override
+    public int index() {
+        return p;
+    }
+
+    @Override
+    public void seek(final int index) {
+        p = Math.min(index, n);
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public String getSourceName() {
+        return name;
+    }
+
+    @Override
+    public String getText(final Interval interval) {
+        int start = interval.a;
+        int stop = Math.min(interval.b, n - 1);
+        if (start >= n || stop < start) {
+            return "";
+        }
+        byte[] bytes = new byte[stop - start + 1];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Get a view of the input as raw bytes, indexed the same way as this stream and without any case folding.
+     * @return a buffer whose position is zero and whose limit is the size of the input
+     */
+    ByteBuffer bytes() {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + n);
+        return view.slice();
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, n - 1));
+    }
+}
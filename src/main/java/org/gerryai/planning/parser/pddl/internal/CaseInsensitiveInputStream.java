@@ -30,7 +30,7 @@ import java.io.Reader;
  * case insensitive. The original test is still returned for everything except the lexer, so toLowerCase() needs
  * to be used on calls to getText(), etc if the tokens need to be case insensitive too.
  */
-public class CaseInsensitiveInputStream  extends ANTLRInputStream {
+public class CaseInsensitiveInputStream  extends ANTLRInputStream implements CaseFoldedStream {
 
     private char[] lowerCaseData;
 
@@ -133,6 +133,11 @@ public class CaseInsensitiveInputStream  extends ANTLRInputStream {
         return lowerCaseData[p + i - 1];
     }
 
+    @Override
+    public int foldedCharAt(final int index) {
+        return lowerCaseData[index];
+    }
+
     /**
      * Reload the data converted to lower case.
      */
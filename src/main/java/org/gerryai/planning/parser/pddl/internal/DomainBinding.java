@@ -0,0 +1,261 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.DomainIndex;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.EitherType;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.ForAll;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FormulaTraversal;
+import org.gerryai.planning.model.logic.FormulaVisitor;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.HashConsingFactory;
+import org.gerryai.planning.model.logic.IfThen;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Or;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.PrimitiveType;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Type;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.error.DomainMismatchException;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Binds the problems parsed against a domain to it. Each problem is built through a {@link HashConsingFactory} seeded
+ * with the shared constants and types held by the domain's {@link DomainIndex}, so its objects' types and any domain
+ * constants it uses are the domain's own instances, and is then checked against the same index: every object type
+ * must be defined by the domain, and every predicate used in the initial state or goal must be declared with that
+ * number of terms and only name objects of the problem or constants of the domain.
+ *
+ * All of the lookup tables belong to the domain and are built once, the first time any problem is bound to it, so a
+ * binding holds no state of its own and may be shared between threads parsing a batch of problems.
+ */
+public class DomainBinding {
+
+    private final Domain domain;
+
+    private final DomainIndex index;
+
+    /**
+     * Constructor.
+     * @param domain the domain to bind problems to
+     */
+    public DomainBinding(final Domain domain) {
+        this.domain = domain;
+        this.index = domain.getIndex();
+    }
+
+    /**
+     * Get the domain that problems are bound to.
+     * @return the domain
+     */
+    public Domain getDomain() {
+        return domain;
+    }
+
+    /**
+     * Create a factory for building the terms and atoms of one problem, sharing the constants and types of the
+     * domain. As with any factory it is not thread safe, so each parse needs its own.
+     * @return the factory
+     */
+    public HashConsingFactory createHashConsingFactory() {
+        return new HashConsingFactory(index.getConstantTerms(), index.getPrimitiveTypes());
+    }
+
+    /**
+     * Check that a problem fits the domain.
+     * @param problem the problem, built using a factory from {@link #createHashConsingFactory()}
+     * @return the problem
+     * @throws DomainMismatchException if the problem names a different domain, or uses a type, predicate or constant
+     * that the domain does not define
+     */
+    public Problem check(final Problem problem) throws DomainMismatchException {
+        if (problem.getDomainName() != null && !problem.getDomainName().equals(domain.getName())) {
+            throw new DomainMismatchException("Problem " + problem.getName() + " is for domain "
+                    + problem.getDomainName() + ", not " + domain.getName());
+        }
+        Set<String> objects = new HashSet<>();
+        for (ConstantDefinition object : problem.getObjects().asSet()) {
+            objects.add(object.getName());
+            if (object.getType().isPresent()) {
+                checkType(object.getName(), object.getType().get());
+            }
+        }
+        Checker checker = new Checker(objects);
+        for (Formula formula : problem.getInitialState().asSet()) {
+            checker.check(formula);
+        }
+        if (problem.getGoal().getFormula() != null) {
+            checker.check(problem.getGoal().getFormula());
+        }
+        return problem;
+    }
+
+    /**
+     * Check that the type of an object is defined by the domain.
+     * @param object the name of the object
+     * @param type the type of the object
+     * @throws DomainMismatchException if the type, or one of the members of an {@code either} type, is not defined
+     */
+    private void checkType(final String object, final Type type) throws DomainMismatchException {
+        if (type instanceof PrimitiveType) {
+            checkType(object, (PrimitiveType) type);
+        } else if (type instanceof EitherType) {
+            for (PrimitiveType member : ((EitherType) type).getTypes()) {
+                checkType(object, member);
+            }
+        }
+    }
+
+    /**
+     * Check that a primitive type of an object is defined by the domain.
+     * @param object the name of the object
+     * @param type the type
+     * @throws DomainMismatchException if the type is not defined
+     */
+    private void checkType(final String object, final PrimitiveType type) throws DomainMismatchException {
+        if (!index.primitiveType(type.getName()).isPresent()) {
+            throw new DomainMismatchException("Object " + object + " has type " + type.getName()
+                    + ", which is not defined by domain " + domain.getName());
+        }
+    }
+
+    /**
+     * Walks the formulas of a problem, stopping at the first predicate or term that does not fit the domain.
+     */
+    private final class Checker implements FormulaVisitor<Boolean> {
+
+        private final Set<String> objects;
+
+        private Optional<String> mismatch = Optional.absent();
+
+        /**
+         * Constructor.
+         * @param objects the names of the objects of the problem
+         */
+        private Checker(final Set<String> objects) {
+            this.objects = objects;
+        }
+
+        /**
+         * Check a formula and the formulas nested in it.
+         * @param formula the formula
+         * @throws DomainMismatchException if any of them do not fit the domain
+         */
+        private void check(final Formula formula) throws DomainMismatchException {
+            FormulaTraversal.preOrder(formula, this);
+            if (mismatch.isPresent()) {
+                throw new DomainMismatchException(mismatch.get());
+            }
+        }
+
+        /**
+         * Check that a term is a variable, a number, an object of the problem or a constant of the domain.
+         * @param term the term
+         * @return true if it is
+         */
+        private boolean checkTerm(final Term term) {
+            if (term instanceof Constant) {
+                String name = ((Constant) term).getName();
+                if (!objects.contains(name) && !index.constant(name).isPresent()) {
+                    mismatch = Optional.of("Constant " + name + " is neither an object of the problem nor a constant"
+                            + " of domain " + domain.getName());
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Boolean visit(final And and) {
+            return !mismatch.isPresent();
+        }
+
+        @Override
+        public Boolean visit(final Or or) {
+            return !mismatch.isPresent();
+        }
+
+        @Override
+        public Boolean visit(final Not not) {
+            return !mismatch.isPresent();
+        }
+
+        @Override
+        public Boolean visit(final Predicate predicate) {
+            if (mismatch.isPresent()) {
+                return false;
+            }
+            if (!index.predicate(predicate.getName(), predicate.getTerms().size()).isPresent()) {
+                mismatch = Optional.of("Predicate " + predicate.getName() + " with " + predicate.getTerms().size()
+                        + " terms is not declared by domain " + domain.getName());
+                return false;
+            }
+            for (Term term : predicate.getTerms()) {
+                if (!checkTerm(term)) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Boolean visit(final Equals equals) {
+            if (!mismatch.isPresent() && checkTerm(equals.getLeft())) {
+                checkTerm(equals.getRight());
+            }
+            return false;
+        }
+
+        @Override
+        public Boolean visit(final ForAll forAll) {
+            return !mismatch.isPresent();
+        }
+
+        @Override
+        public Boolean visit(final IfThen ifThen) {
+            return !mismatch.isPresent();
+        }
+
+        @Override
+        public Boolean visit(final Operation operation) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(final FunctionTerm functionTerm) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(final FunctionDefinition functionDefinition) {
+            return false;
+        }
+    }
+}
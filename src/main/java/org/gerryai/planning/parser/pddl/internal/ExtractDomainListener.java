@@ -68,7 +68,7 @@ public class ExtractDomainListener extends LogicListener implements ExtractingLi
 
     @Override
     public void exitTypeDef(@NotNull final PDDL31Parser.TypeDefContext ctx) {
-        typeDefinitionStash.add(new TypeDefinition(ctx.NAME().getSymbol().getText().toLowerCase()));
+        typeDefinitionStash.add(new TypeDefinition(name(ctx.NAME())));
     }
 
     @Override
@@ -90,7 +90,7 @@ public class ExtractDomainListener extends LogicListener implements ExtractingLi
 
     @Override
     public void exitConstantDef(@NotNull final PDDL31Parser.ConstantDefContext ctx) {
-        constantDefinitionStash.add(new ConstantDefinition(ctx.NAME().getSymbol().getText().toLowerCase()));
+        constantDefinitionStash.add(new ConstantDefinition(name(ctx.NAME())));
     }
 
     @Override
@@ -117,7 +117,7 @@ public class ExtractDomainListener extends LogicListener implements ExtractingLi
 
     @Override
     public void exitDomainName(@NotNull final PDDL31Parser.DomainNameContext ctx) {
-        domainBuilder = domainBuilder.name(ctx.NAME().getSymbol().getText().toLowerCase());
+        domainBuilder = domainBuilder.name(name(ctx.NAME()));
     }
 
     @Override
@@ -146,7 +146,7 @@ public class ExtractDomainListener extends LogicListener implements ExtractingLi
 
     @Override
     public void exitActionSymbol(@NotNull final PDDL31Parser.ActionSymbolContext ctx) {
-        actionBuilder.name(ctx.NAME().getSymbol().getText().toLowerCase());
+        actionBuilder.name(name(ctx.NAME()));
     }
 
     /**
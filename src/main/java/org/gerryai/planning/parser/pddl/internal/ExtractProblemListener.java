@@ -24,6 +24,7 @@ import org.gerryai.planning.model.Requirement;
 import org.gerryai.planning.model.logic.Formula;
 import org.gerryai.planning.model.logic.Type;
 import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.InitialStateSink;
 import org.gerryai.planning.parser.error.MissingRequirementsException;
 import org.gerryai.planning.parser.error.ParseException;
 import org.gerryai.planning.parser.pddl.antlr.PDDL31Parser;
@@ -47,6 +48,11 @@ public class ExtractProblemListener extends LogicListener implements ExtractingL
      */
     private ConstantDefinitionStash constantDefinitionStash = new ConstantDefinitionStash();
 
+    /**
+     * Where to put the facts of the initial state, if not in the problem.
+     */
+    private Optional<InitialStateSink> initialStateSink;
+
     /**
      * Constructor.
      *
@@ -54,6 +60,18 @@ public class ExtractProblemListener extends LogicListener implements ExtractingL
      */
     public ExtractProblemListener(final LogicStackHandler stackHandler) {
         setStackHandler(stackHandler);
+        initialStateSink = Optional.absent();
+    }
+
+    /**
+     * Constructor for a listener that passes the facts of the initial state to a sink instead of the problem.
+     *
+     * @param stackHandler the logical stack handler to use
+     * @param sink the sink to pass initial state facts to
+     */
+    public ExtractProblemListener(final LogicStackHandler stackHandler, final InitialStateSink sink) {
+        setStackHandler(stackHandler);
+        initialStateSink = Optional.of(sink);
     }
 
     @Override
@@ -63,12 +81,12 @@ public class ExtractProblemListener extends LogicListener implements ExtractingL
 
     @Override
     public void exitProblemName(@NotNull final PDDL31Parser.ProblemNameContext ctx) {
-        problemBuilder = problemBuilder.name(ctx.NAME().getSymbol().getText().toLowerCase());
+        problemBuilder = problemBuilder.name(name(ctx.NAME()));
     }
 
     @Override
     public void exitProblemDomain(@NotNull final PDDL31Parser.ProblemDomainContext ctx) {
-        problemBuilder = problemBuilder.domain(ctx.NAME().getSymbol().getText().toLowerCase());
+        problemBuilder = problemBuilder.domain(name(ctx.NAME()));
     }
 
     @Override
@@ -81,7 +99,7 @@ public class ExtractProblemListener extends LogicListener implements ExtractingL
 
     @Override
     public void exitObjectDec(@NotNull final PDDL31Parser.ObjectDecContext ctx) {
-        constantDefinitionStash.add(new ConstantDefinition(ctx.NAME().getSymbol().getText().toLowerCase()));
+        constantDefinitionStash.add(new ConstantDefinition(name(ctx.NAME())));
     }
 
     @Override
@@ -103,7 +121,11 @@ public class ExtractProblemListener extends LogicListener implements ExtractingL
 
     @Override
     public void exitInitEl(@NotNull final PDDL31Parser.InitElContext ctx) {
-        problemBuilder = problemBuilder.initialState(getFormula().get());
+        if (initialStateSink.isPresent()) {
+            initialStateSink.get().add(getFormula().get());
+        } else {
+            problemBuilder = problemBuilder.initialState(getFormula().get());
+        }
     }
 
 
@@ -112,13 +134,9 @@ public class ExtractProblemListener extends LogicListener implements ExtractingL
         problemBuilder = problemBuilder.goal(getFormula().get());
     }
 
-    @Override
-    public void enterMetricsDef(@NotNull final PDDL31Parser.MetricsDefContext ctx) {
-        problemBuilder = problemBuilder.metric(ctx.NAME().getText().toLowerCase());
-    }
-
     @Override
     public void exitMetricsDef(@NotNull final PDDL31Parser.MetricsDefContext ctx) {
+        problemBuilder = problemBuilder.metric(name(ctx.NAME()));
         Optional<Formula> formula = getFormula();
         problemBuilder.metricFormula(formula.get());
     }
@@ -0,0 +1,870 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import com.google.common.base.Optional;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.Requirement;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.TypeDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.EitherType;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.HashConsingFactory;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.PrimitiveType;
+import org.gerryai.planning.model.logic.Type;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.antlr.PDDL31Lexer;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hand-written recursive-descent parser for the subset of PDDL that most domains and problems use: STRIPS with typing
+ * and negative literals. It reads tokens straight from a lexer and builds the model as it goes, without a parse tree
+ * or any of the stashes the listeners need to rebuild structure from parse events.
+ *
+ * Anything outside that subset, and any input that is not valid, makes it give up rather than report an error, so
+ * the caller can parse the same input again with {@link PDDLParser} and get exactly the result or error it would have
+ * got anyway. For input it does accept it builds the same model that {@link PDDLParser} would.
+ */
+public class FastPathParser {
+
+    /**
+     * Token type of an opening parenthesis.
+     */
+    private static final int LEFT = typeOf("(");
+
+    /**
+     * Token type of a closing parenthesis.
+     */
+    private static final int RIGHT = typeOf(")");
+
+    /**
+     * Token type of the keyword starting a domain or problem.
+     */
+    private static final int DEFINE = typeOf("define");
+
+    /**
+     * Token type of the keyword naming a domain.
+     */
+    private static final int DOMAIN = typeOf("domain");
+
+    /**
+     * Token type of the keyword naming a problem.
+     */
+    private static final int PROBLEM = typeOf("problem");
+
+    /**
+     * Token type of the keyword naming the domain of a problem.
+     */
+    private static final int PROBLEM_DOMAIN = typeOf(":domain");
+
+    /**
+     * Token type of the keyword starting the requirements section.
+     */
+    private static final int REQUIREMENTS = typeOf(":requirements");
+
+    /**
+     * Token type of the keyword starting the types section.
+     */
+    private static final int TYPES = typeOf(":types");
+
+    /**
+     * Token type of the keyword starting the constants section.
+     */
+    private static final int CONSTANTS = typeOf(":constants");
+
+    /**
+     * Token type of the keyword starting the predicates section.
+     */
+    private static final int PREDICATES = typeOf(":predicates");
+
+    /**
+     * Token type of the keyword starting an action.
+     */
+    private static final int ACTION = typeOf(":action");
+
+    /**
+     * Token type of the keyword starting the parameters of an action.
+     */
+    private static final int PARAMETERS = typeOf(":parameters");
+
+    /**
+     * Token type of the keyword starting the precondition of an action.
+     */
+    private static final int PRECONDITION = typeOf(":precondition");
+
+    /**
+     * Token type of the keyword starting the effect of an action.
+     */
+    private static final int EFFECT = typeOf(":effect");
+
+    /**
+     * Token type of the keyword starting the objects section.
+     */
+    private static final int OBJECTS = typeOf(":objects");
+
+    /**
+     * Token type of the keyword starting the initial state.
+     */
+    private static final int INIT = typeOf(":init");
+
+    /**
+     * Token type of the keyword starting the goal.
+     */
+    private static final int GOAL = typeOf(":goal");
+
+    /**
+     * Token type of the conjunction keyword.
+     */
+    private static final int AND = typeOf("and");
+
+    /**
+     * Token type of the negation keyword.
+     */
+    private static final int NOT = typeOf("not");
+
+    /**
+     * Token type of the keyword starting a union of types.
+     */
+    private static final int EITHER = typeOf("either");
+
+    /**
+     * Token type of the question mark starting a variable.
+     */
+    private static final int VARIABLE = typeOf("?");
+
+    /**
+     * Token type of the dash preceding a type.
+     */
+    private static final int DASH = typeOf("-");
+
+    /**
+     * The requirement declared by each token type, or null if the token type is not a requirement.
+     */
+    private static final Requirement[] REQUIREMENT_KEYS = requirementKeys();
+
+    /**
+     * Thrown, without a stack trace, to give up on input that is not supported.
+     */
+    private static final Unsupported UNSUPPORTED = new Unsupported();
+
+    private final Lexer lexer;
+
+    private final SymbolTable symbolTable = new SymbolTable();
+
+    private Optional<HashConsingFactory> hashConsingFactory = Optional.absent();
+
+    private final Set<Requirement> requirementsDeclared = EnumSet.noneOf(Requirement.class);
+
+    private final Set<Requirement> requirementsNeeded = EnumSet.noneOf(Requirement.class);
+
+    private boolean lexerError;
+
+    private Token token;
+
+    private Token lookahead;
+
+    /**
+     * Constructor.
+     * @param lexer the lexer to read tokens from
+     */
+    public FastPathParser(final Lexer lexer) {
+        this.lexer = lexer;
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(final Recognizer<?, ?> recognizer, final Object offendingSymbol, final int line,
+                                    final int charPositionInLine, final String msg, final RecognitionException e) {
+                lexerError = true;
+            }
+        });
+    }
+
+    /**
+     * Set a factory to share the terms and atoms that are built.
+     * @param hashConsingFactory the factory
+     */
+    public void setHashConsingFactory(final HashConsingFactory hashConsingFactory) {
+        this.hashConsingFactory = Optional.of(hashConsingFactory);
+    }
+
+    /**
+     * Parse a domain.
+     * @return the domain, or absent if the input was not supported
+     */
+    public Optional<Domain> parseDomain() {
+        try {
+            advance();
+            return Optional.of(domain());
+        } catch (Unsupported ex) {
+            return Optional.absent();
+        }
+    }
+
+    /**
+     * Parse a problem.
+     * @return the problem, or absent if the input was not supported
+     */
+    public Optional<Problem> parseProblem() {
+        try {
+            advance();
+            return Optional.of(problem());
+        } catch (Unsupported ex) {
+            return Optional.absent();
+        }
+    }
+
+    /**
+     * Parse a complete domain.
+     * @return the domain
+     */
+    private Domain domain() {
+        Domain.Builder builder = new Domain.Builder();
+        expect(LEFT);
+        expect(DEFINE);
+        expect(LEFT);
+        expect(DOMAIN);
+        builder.name(name());
+        expect(RIGHT);
+        if (isSection(REQUIREMENTS)) {
+            for (Requirement requirement : requirements()) {
+                builder.requirement(requirement);
+            }
+        }
+        if (isSection(TYPES)) {
+            openSection();
+            requirementsNeeded.add(Requirement.TYPING);
+            TypedList types = typedList(false);
+            for (int i = 0; i < types.size(); i++) {
+                if (types.isTyped(i)) {
+                    builder.type(new TypeDefinition(types.name(i), types.type(i)));
+                } else {
+                    builder.type(new TypeDefinition(types.name(i)));
+                }
+            }
+            expect(RIGHT);
+        }
+        if (isSection(CONSTANTS)) {
+            openSection();
+            for (ConstantDefinition constant : constantDefinitions()) {
+                builder.constant(constant);
+            }
+            expect(RIGHT);
+        }
+        if (isSection(PREDICATES)) {
+            openSection();
+            do {
+                builder.predicate(predicateDefinition());
+            } while (token.getType() == LEFT);
+            expect(RIGHT);
+        }
+        while (isSection(ACTION)) {
+            builder.action(action());
+        }
+        expect(RIGHT);
+        expectEnd();
+        return builder.build();
+    }
+
+    /**
+     * Parse a complete problem.
+     * @return the problem
+     */
+    private Problem problem() {
+        Problem.Builder builder = new Problem.Builder();
+        expect(LEFT);
+        expect(DEFINE);
+        expect(LEFT);
+        expect(PROBLEM);
+        builder.name(name());
+        expect(RIGHT);
+        expect(LEFT);
+        expect(PROBLEM_DOMAIN);
+        builder.domain(name());
+        expect(RIGHT);
+        if (isSection(REQUIREMENTS)) {
+            for (Requirement requirement : requirements()) {
+                builder.requirement(requirement);
+            }
+        }
+        if (isSection(OBJECTS)) {
+            openSection();
+            for (ConstantDefinition object : constantDefinitions()) {
+                builder.object(object);
+            }
+            expect(RIGHT);
+        }
+        expect(LEFT);
+        expect(INIT);
+        while (token.getType() != RIGHT) {
+            builder.initialState(literal(false));
+        }
+        advance();
+        expect(LEFT);
+        expect(GOAL);
+        builder.goal(goalDescription());
+        expect(RIGHT);
+        expect(RIGHT);
+        expectEnd();
+        return builder.build();
+    }
+
+    /**
+     * Parse a requirements section, recording the requirements as declared.
+     * @return the requirements, in the order they were declared
+     */
+    private List<Requirement> requirements() {
+        openSection();
+        List<Requirement> requirements = new ArrayList<>();
+        Requirement requirement = requirementKey();
+        while (requirement != null) {
+            requirements.add(requirement);
+            requirementsDeclared.add(requirement);
+            advance();
+            requirement = requirementKey();
+        }
+        if (requirements.isEmpty()) {
+            throw UNSUPPORTED;
+        }
+        expect(RIGHT);
+        return requirements;
+    }
+
+    /**
+     * Get the requirement declared by the current token.
+     * @return the requirement, or null if the token does not declare one
+     */
+    private Requirement requirementKey() {
+        int type = token.getType();
+        if (type < 0 || type >= REQUIREMENT_KEYS.length) {
+            return null;
+        }
+        return REQUIREMENT_KEYS[type];
+    }
+
+    /**
+     * Parse a possibly typed list of constant or object names.
+     * @return the constant definitions
+     */
+    private List<ConstantDefinition> constantDefinitions() {
+        TypedList names = typedList(false);
+        List<ConstantDefinition> constants = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            if (names.isTyped(i)) {
+                constants.add(new ConstantDefinition(names.name(i), names.type(i)));
+            } else {
+                constants.add(new ConstantDefinition(names.name(i)));
+            }
+        }
+        return constants;
+    }
+
+    /**
+     * Parse a possibly typed list of variables.
+     * @return the variables
+     */
+    private List<Variable> variables() {
+        TypedList names = typedList(true);
+        List<Variable> variables = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            if (names.isTyped(i)) {
+                variables.add(variable(names.name(i), names.type(i)));
+            } else {
+                variables.add(variable(names.name(i)));
+            }
+        }
+        return variables;
+    }
+
+    /**
+     * Parse a list of names or variables, where each group of names can be followed by a type that applies to the
+     * whole group.
+     * @param variables true to parse variables rather than plain names
+     * @return the names and their types
+     */
+    private TypedList typedList(final boolean variables) {
+        TypedList list = new TypedList();
+        int untyped = 0;
+        while (true) {
+            if (variables && token.getType() == VARIABLE) {
+                advance();
+                list.add(name());
+                untyped++;
+            } else if (!variables && token.getType() == PDDL31Lexer.NAME) {
+                list.add(name());
+                untyped++;
+            } else if (token.getType() == DASH && untyped > 0) {
+                advance();
+                list.apply(type(), untyped);
+                requirementsNeeded.add(Requirement.TYPING);
+                untyped = 0;
+            } else {
+                return list;
+            }
+        }
+    }
+
+    /**
+     * Parse a primitive type or a union of primitive types.
+     * @return the type
+     */
+    private Type type() {
+        if (token.getType() != LEFT) {
+            return primitiveType(name());
+        }
+        advance();
+        expect(EITHER);
+        List<PrimitiveType> types = new ArrayList<>();
+        do {
+            types.add(primitiveType(name()));
+        } while (token.getType() != RIGHT);
+        advance();
+        return new EitherType(types);
+    }
+
+    /**
+     * Parse the definition of a predicate.
+     * @return the predicate, with its typed parameters
+     */
+    private Predicate predicateDefinition() {
+        expect(LEFT);
+        Predicate.Builder builder = new Predicate.Builder().name(name());
+        for (Variable variable : variables()) {
+            builder.term(variable);
+        }
+        expect(RIGHT);
+        return share(builder.build());
+    }
+
+    /**
+     * Parse an action.
+     * @return the action
+     */
+    private Action action() {
+        openSection();
+        Action.Builder builder = new Action.Builder().name(name());
+        expect(PARAMETERS);
+        expect(LEFT);
+        for (Variable parameter : variables()) {
+            builder.parameter(parameter);
+        }
+        expect(RIGHT);
+        if (token.getType() == PRECONDITION) {
+            advance();
+            if (isEmptyList()) {
+                builder.precondition();
+            } else {
+                builder.precondition(goalDescription());
+            }
+        }
+        if (token.getType() == EFFECT) {
+            advance();
+            if (isEmptyList()) {
+                builder.effect();
+            } else {
+                builder.effect(effect());
+            }
+        }
+        expect(RIGHT);
+        return builder.build();
+    }
+
+    /**
+     * Parse a goal description, as used for goals and preconditions.
+     * @return the formula
+     */
+    private Formula goalDescription() {
+        expect(LEFT);
+        if (token.getType() == AND) {
+            advance();
+            And.Builder builder = new And.Builder();
+            do {
+                builder.and(goalDescription());
+            } while (token.getType() != RIGHT);
+            advance();
+            return builder.build();
+        } else if (token.getType() == NOT) {
+            advance();
+            requirementsNeeded.add(Requirement.NEGATIVE_PRECONDITIONS);
+            Formula formula = not(atom(true));
+            expect(RIGHT);
+            return formula;
+        }
+        return atomBody(true);
+    }
+
+    /**
+     * Parse an effect, which is a conjunction of literals or a single literal.
+     * @return the formula
+     */
+    private Formula effect() {
+        if (token.getType() == LEFT && peek() == AND) {
+            advance();
+            advance();
+            And.Builder builder = new And.Builder();
+            do {
+                builder.and(literal(true));
+            } while (token.getType() != RIGHT);
+            advance();
+            return builder.build();
+        }
+        return literal(true);
+    }
+
+    /**
+     * Parse a predicate or a negated predicate.
+     * @param allowVariables true if the predicate's terms can be variables, false if they must all be constants
+     * @return the formula
+     */
+    private Formula literal(final boolean allowVariables) {
+        expect(LEFT);
+        if (token.getType() == NOT) {
+            advance();
+            Formula formula = not(atom(allowVariables));
+            expect(RIGHT);
+            return formula;
+        }
+        return atomBody(allowVariables);
+    }
+
+    /**
+     * Parse a predicate.
+     * @param allowVariables true if the predicate's terms can be variables, false if they must all be constants
+     * @return the predicate
+     */
+    private Predicate atom(final boolean allowVariables) {
+        expect(LEFT);
+        return atomBody(allowVariables);
+    }
+
+    /**
+     * Parse a predicate whose opening parenthesis has already been read.
+     * @param allowVariables true if the predicate's terms can be variables, false if they must all be constants
+     * @return the predicate
+     */
+    private Predicate atomBody(final boolean allowVariables) {
+        Predicate.Builder builder = new Predicate.Builder().name(name());
+        while (token.getType() != RIGHT) {
+            if (token.getType() == PDDL31Lexer.NAME) {
+                builder.term(constant(name()));
+            } else if (allowVariables && token.getType() == VARIABLE) {
+                advance();
+                builder.term(variable(name()));
+            } else {
+                throw UNSUPPORTED;
+            }
+        }
+        advance();
+        return share(builder.build());
+    }
+
+    /**
+     * Get a constant, shared if hash-consing.
+     * @param name the name of the constant
+     * @return the constant
+     */
+    private Constant constant(final String name) {
+        if (hashConsingFactory.isPresent()) {
+            return hashConsingFactory.get().constant(name);
+        }
+        return new Constant(name);
+    }
+
+    /**
+     * Get an untyped variable, shared if hash-consing.
+     * @param name the name of the variable
+     * @return the variable
+     */
+    private Variable variable(final String name) {
+        if (hashConsingFactory.isPresent()) {
+            return hashConsingFactory.get().variable(name);
+        }
+        return new Variable(name);
+    }
+
+    /**
+     * Get a typed variable, shared if hash-consing.
+     * @param name the name of the variable
+     * @param type the type of the variable
+     * @return the variable
+     */
+    private Variable variable(final String name, final Type type) {
+        if (hashConsingFactory.isPresent()) {
+            return hashConsingFactory.get().variable(name, type);
+        }
+        return new Variable(name, type);
+    }
+
+    /**
+     * Get a primitive type, shared if hash-consing.
+     * @param name the name of the type
+     * @return the type
+     */
+    private PrimitiveType primitiveType(final String name) {
+        if (hashConsingFactory.isPresent()) {
+            return hashConsingFactory.get().type(name);
+        }
+        return new PrimitiveType(name);
+    }
+
+    /**
+     * Get the negation of a predicate, shared if hash-consing.
+     * @param predicate the predicate
+     * @return the negation
+     */
+    private Not not(final Predicate predicate) {
+        if (hashConsingFactory.isPresent()) {
+            return hashConsingFactory.get().not(predicate);
+        }
+        return new Not(predicate);
+    }
+
+    /**
+     * Get the shared instance of a predicate if hash-consing.
+     * @param predicate the predicate
+     * @return the predicate
+     */
+    private Predicate share(final Predicate predicate) {
+        if (hashConsingFactory.isPresent()) {
+            return (Predicate) hashConsingFactory.get().intern(predicate);
+        }
+        return predicate;
+    }
+
+    /**
+     * Check whether the next two tokens open the given section.
+     * @param keyword the token type of the keyword naming the section
+     * @return true if the section starts here
+     */
+    private boolean isSection(final int keyword) {
+        return token.getType() == LEFT && peek() == keyword;
+    }
+
+    /**
+     * Skip past the opening parenthesis and keyword of a section already found by {@link #isSection(int)}.
+     */
+    private void openSection() {
+        advance();
+        advance();
+    }
+
+    /**
+     * Check for an empty pair of parentheses, skipping past them if found.
+     * @return true if there was an empty pair of parentheses
+     */
+    private boolean isEmptyList() {
+        if (token.getType() == LEFT && peek() == RIGHT) {
+            advance();
+            advance();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Read a name and move past it.
+     * @return the interned name, in lower case
+     */
+    private String name() {
+        if (token.getType() != PDDL31Lexer.NAME) {
+            throw UNSUPPORTED;
+        }
+        String name = symbolTable.intern(token);
+        advance();
+        return name;
+    }
+
+    /**
+     * Move past a token of the given type.
+     * @param type the type of token expected
+     */
+    private void expect(final int type) {
+        if (token.getType() != type) {
+            throw UNSUPPORTED;
+        }
+        advance();
+    }
+
+    /**
+     * Check that the end of the input has been reached and that every requirement needed was declared.
+     */
+    private void expectEnd() {
+        if (token.getType() != Token.EOF || !requirementsDeclared.containsAll(requirementsNeeded)) {
+            throw UNSUPPORTED;
+        }
+    }
+
+    /**
+     * Move on to the next token.
+     */
+    private void advance() {
+        if (lookahead == null) {
+            token = read();
+        } else {
+            token = lookahead;
+            lookahead = null;
+        }
+    }
+
+    /**
+     * Get the type of the token after the current one, without moving past the current one.
+     * @return the token type
+     */
+    private int peek() {
+        if (lookahead == null) {
+            lookahead = read();
+        }
+        return lookahead.getType();
+    }
+
+    /**
+     * Read a token from the lexer, giving up if the lexer has reported an error.
+     * @return the token
+     */
+    private Token read() {
+        Token next = lexer.nextToken();
+        if (lexerError) {
+            throw UNSUPPORTED;
+        }
+        return next;
+    }
+
+    /**
+     * Look up the token type of a literal in the grammar.
+     * @param literal the literal
+     * @return its token type
+     */
+    private static int typeOf(final String literal) {
+        String quoted = "'" + literal + "'";
+        for (int type = 1; type < PDDL31Lexer.tokenNames.length; type++) {
+            if (PDDL31Lexer.tokenNames[type].equals(quoted)) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("Unknown literal " + quoted);
+    }
+
+    /**
+     * Map the token types of the requirement keywords in the grammar to the requirements they declare.
+     * @return the requirement declared by each token type
+     */
+    private static Requirement[] requirementKeys() {
+        Requirement[] keys = new Requirement[PDDL31Lexer.tokenNames.length];
+        for (Requirement requirement : Requirement.values()) {
+            String quoted = "':" + requirement.name().toLowerCase().replace('_', '-') + "'";
+            for (int type = 1; type < PDDL31Lexer.tokenNames.length; type++) {
+                if (PDDL31Lexer.tokenNames[type].equals(quoted)) {
+                    keys[type] = requirement;
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Names collected from a typed list, along with the type given to each, if any.
+     */
+    private static final class TypedList {
+
+        private final List<String> names = new ArrayList<>();
+
+        private final List<Type> types = new ArrayList<>();
+
+        /**
+         * Add an untyped name.
+         * @param name the name
+         */
+        void add(final String name) {
+            names.add(name);
+            types.add(null);
+        }
+
+        /**
+         * Give a type to the most recently added names.
+         * @param type the type
+         * @param count the number of names to give the type to
+         */
+        void apply(final Type type, final int count) {
+            for (int i = types.size() - count; i < types.size(); i++) {
+                types.set(i, type);
+            }
+        }
+
+        /**
+         * Get the number of names in the list.
+         * @return the number of names
+         */
+        int size() {
+            return names.size();
+        }
+
+        /**
+         * Get a name from the list.
+         * @param index the index of the name
+         * @return the name
+         */
+        String name(final int index) {
+            return names.get(index);
+        }
+
+        /**
+         * Check whether a name in the list was given a type.
+         * @param index the index of the name
+         * @return true if the name has a type
+         */
+        boolean isTyped(final int index) {
+            return types.get(index) != null;
+        }
+
+        /**
+         * Get the type given to a name in the list.
+         * @param index the index of the name
+         * @return the type
+         */
+        Type type(final int index) {
+            return types.get(index);
+        }
+    }
+
+    /**
+     * Signals that the input is not supported, or is not valid, and should be left to {@link PDDLParser}.
+     */
+    private static final class Unsupported extends RuntimeException {
+
+        /**
+         * Constructor.
+         */
+        private Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -19,9 +19,11 @@ package org.gerryai.planning.parser.pddl.internal;
 
 import com.google.common.base.Optional;
 import org.antlr.v4.runtime.misc.NotNull;
+import org.antlr.v4.runtime.tree.TerminalNode;
 import org.gerryai.planning.model.domain.FunctionDefinition;
 import org.gerryai.planning.model.logic.Constant;
 import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.HashConsingFactory;
 import org.gerryai.planning.model.logic.Predicate;
 import org.gerryai.planning.model.logic.Type;
 import org.gerryai.planning.model.logic.Variable;
@@ -39,6 +41,10 @@ public class LogicListener extends PDDL31BaseListener {
 
     private LogicStackHandler stackHandler;
 
+    private SymbolTable symbolTable = new SymbolTable();
+
+    private Optional<HashConsingFactory> hashConsingFactory = Optional.absent();
+
     /**
      * Set the logical stack handler.
      * @param stackHandler the stack handler
@@ -47,9 +53,42 @@ public class LogicListener extends PDDL31BaseListener {
         this.stackHandler = stackHandler;
     }
 
+    /**
+     * Set the symbol table that names are interned in.
+     * @param symbolTable the symbol table
+     */
+    public void setSymbolTable(final SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    /**
+     * Get the symbol table that names are interned in.
+     * @return the symbol table
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * Set a factory to share the terms and formulas that are extracted.
+     * @param hashConsingFactory the factory
+     */
+    public void setHashConsingFactory(final HashConsingFactory hashConsingFactory) {
+        this.hashConsingFactory = Optional.of(hashConsingFactory);
+    }
+
+    /**
+     * Get the interned, lower-case name held by a terminal node.
+     * @param node the node
+     * @return the name
+     */
+    protected String name(final TerminalNode node) {
+        return symbolTable.intern(node.getSymbol());
+    }
+
     @Override
     public void exitPrimitiveType(@NotNull final PDDL31Parser.PrimitiveTypeContext ctx) {
-        stackHandler.type(ctx.NAME().getSymbol().getText().toLowerCase());
+        stackHandler.type(name(ctx.NAME()));
     }
 
     @Override
@@ -65,7 +104,7 @@ public class LogicListener extends PDDL31BaseListener {
 
     @Override
     public void exitConstant(@NotNull final PDDL31Parser.ConstantContext ctx) {
-        stackHandler.addConstant(ctx.NAME().getSymbol().getText().toLowerCase());
+        stackHandler.addConstant(name(ctx.NAME()));
     }
 
     @Override
@@ -75,7 +114,7 @@ public class LogicListener extends PDDL31BaseListener {
 
     @Override
     public void exitVariable(@NotNull final PDDL31Parser.VariableContext ctx) {
-        stackHandler.addVariable(ctx.NAME().getSymbol().getText().toLowerCase());
+        stackHandler.addVariable(name(ctx.NAME()));
     }
 
     @Override
@@ -95,7 +134,7 @@ public class LogicListener extends PDDL31BaseListener {
 
     @Override
     public void exitFunctionName(@NotNull final PDDL31Parser.FunctionNameContext ctx) {
-        stackHandler.symbol(ctx.NAME().getSymbol().getText().toLowerCase());
+        stackHandler.symbol(name(ctx.NAME()));
     }
 
     @Override public void enterUngroundPredicate(@NotNull final PDDL31Parser.UngroundPredicateContext ctx) {
@@ -104,7 +143,7 @@ public class LogicListener extends PDDL31BaseListener {
 
     @Override
     public void exitPredicateName(@NotNull final PDDL31Parser.PredicateNameContext ctx) {
-        stackHandler.symbol(ctx.NAME().getSymbol().getText().toLowerCase());
+        stackHandler.symbol(name(ctx.NAME()));
     }
 
     @Override
@@ -237,6 +276,16 @@ public class LogicListener extends PDDL31BaseListener {
         stackHandler.endIfThen();
     }
 
+    @Override
+    public void enterForAllGoalDescription(@NotNull final PDDL31Parser.ForAllGoalDescriptionContext ctx) {
+        stackHandler.beginForAll();
+    }
+
+    @Override
+    public void exitForAllGoalDescription(@NotNull final PDDL31Parser.ForAllGoalDescriptionContext ctx) {
+        stackHandler.endForAll();
+    }
+
     @Override
     public void enterForAllEffect(@NotNull final PDDL31Parser.ForAllEffectContext ctx) {
         stackHandler.beginForAll();
@@ -252,7 +301,11 @@ public class LogicListener extends PDDL31BaseListener {
      * @return the type
      */
     protected Type getType() {
-        return stackHandler.getType();
+        Type type = stackHandler.getType();
+        if (hashConsingFactory.isPresent()) {
+            return hashConsingFactory.get().intern(type);
+        }
+        return type;
     }
 
     /**
@@ -260,7 +313,11 @@ public class LogicListener extends PDDL31BaseListener {
      * @return the constant
      */
     protected Constant getConstant() {
-        return stackHandler.getConstant();
+        Constant constant = stackHandler.getConstant();
+        if (hashConsingFactory.isPresent()) {
+            return hashConsingFactory.get().constant(constant.getName());
+        }
+        return constant;
     }
 
     /**
@@ -268,7 +325,11 @@ public class LogicListener extends PDDL31BaseListener {
      * @return the predicate
      */
     protected Predicate getPredicate() {
-        return stackHandler.getPredicate();
+        Predicate predicate = stackHandler.getPredicate();
+        if (hashConsingFactory.isPresent()) {
+            return hashConsingFactory.get().predicate(predicate.getName(), predicate.getTerms());
+        }
+        return predicate;
     }
 
     /**
@@ -284,7 +345,11 @@ public class LogicListener extends PDDL31BaseListener {
      * @return the function
      */
     protected Optional<Formula> getFormula() {
-        return stackHandler.getOptionalFormula();
+        Optional<Formula> formula = stackHandler.getOptionalFormula();
+        if (hashConsingFactory.isPresent() && formula.isPresent()) {
+            return Optional.of(hashConsingFactory.get().intern(formula.get()));
+        }
+        return formula;
     }
 
     /**
@@ -292,7 +357,13 @@ public class LogicListener extends PDDL31BaseListener {
      * @return the variables
      */
     protected List<Variable> getVariables() {
-        return stackHandler.variables();
+        List<Variable> variables = stackHandler.variables();
+        if (hashConsingFactory.isPresent()) {
+            for (int i = 0; i < variables.size(); i++) {
+                variables.set(i, (Variable) hashConsingFactory.get().intern(variables.get(i)));
+            }
+        }
+        return variables;
     }
 
     /**
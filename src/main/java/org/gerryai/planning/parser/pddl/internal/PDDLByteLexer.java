@@ -0,0 +1,540 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.antlr.v4.runtime.LexerNoViableAltException;
+import org.antlr.v4.runtime.Token;
+import org.gerryai.planning.parser.pddl.antlr.PDDL31Lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written lexer for PDDL that scans the bytes of a {@link CaseInsensitiveByteBufferStream} directly, rather than
+ * running the generated lexer's ATN over the stream a character at a time.
+ *
+ * It produces exactly the same tokens as {@link PDDL31Lexer}, including how it recovers from characters it does not
+ * recognise, and reports the same errors to its error listeners. Keywords are recognised by a perfect hash over their
+ * case-folded bytes, computed as a name is scanned, so no text is extracted from the input to classify a token.
+ */
+public class PDDLByteLexer extends PDDL31Lexer {
+
+    private static final int BYTE_MASK = 0xFF;
+
+    private static final int CASE_OFFSET = 'a' - 'A';
+
+    private static final int CHARACTERS = 256;
+
+    /**
+     * Character class flag for characters that can start a name.
+     */
+    private static final int LETTER = 1;
+
+    /**
+     * Character class flag for digits.
+     */
+    private static final int DIGIT = 2;
+
+    /**
+     * Character class flag for characters that can appear in a name after the first.
+     */
+    private static final int NAME_PART = 4;
+
+    /**
+     * Character class flag for whitespace that is skipped.
+     */
+    private static final int SPACE = 8;
+
+    /**
+     * Character class flag for characters that can appear in a keyword.
+     */
+    private static final int KEYWORD_PART = 16;
+
+    /**
+     * The character classes of every byte.
+     */
+    private static final int[] CLASSES = new int[CHARACTERS];
+
+    /**
+     * The token type of every single character token, or zero.
+     */
+    private static final int[] SINGLE_CHARACTER_TYPES = new int[CHARACTERS];
+
+    /**
+     * The multiplier used by the keyword hash.
+     */
+    private static final int HASH_MULTIPLIER;
+
+    /**
+     * The mask that turns a keyword hash into a slot in the keyword tables.
+     */
+    private static final int HASH_MASK;
+
+    /**
+     * The bytes of the keyword that hashes to each slot, or null.
+     */
+    private static final byte[][] KEYWORDS;
+
+    /**
+     * The token type of the keyword that hashes to each slot.
+     */
+    private static final int[] KEYWORD_TYPES;
+
+    /**
+     * Every keyword, for finding where an unrecognised keyword went wrong.
+     */
+    private static final List<byte[]> KEYWORD_LIST = new ArrayList<>();
+
+    /**
+     * The length of the longest keyword.
+     */
+    private static final int MAX_KEYWORD_LENGTH;
+
+    /**
+     * The largest multiplier to try when searching for a perfect hash of the keywords.
+     */
+    private static final int MAX_HASH_MULTIPLIER = 65536;
+
+    /**
+     * The largest table size to try when searching for a perfect hash of the keywords.
+     */
+    private static final int MAX_HASH_SIZE = 4096;
+
+    static {
+        for (int c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LETTER | NAME_PART | KEYWORD_PART;
+            CLASSES[c - CASE_OFFSET] = LETTER | NAME_PART | KEYWORD_PART;
+        }
+        for (int c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT | NAME_PART;
+        }
+        CLASSES['_'] = NAME_PART;
+        CLASSES['-'] = NAME_PART | KEYWORD_PART;
+        CLASSES[' '] = SPACE;
+        CLASSES['\t'] = SPACE;
+        CLASSES['\r'] = SPACE;
+        CLASSES['\n'] = SPACE;
+
+        int maxKeywordLength = 0;
+        for (int type = 1; type < tokenNames.length; type++) {
+            String name = tokenNames[type];
+            if (name.length() > 2 && name.startsWith("'") && name.endsWith("'")) {
+                byte[] literal = name.substring(1, name.length() - 1).getBytes(StandardCharsets.US_ASCII);
+                if (literal.length == 1) {
+                    SINGLE_CHARACTER_TYPES[literal[0]] = type;
+                } else {
+                    KEYWORD_LIST.add(literal);
+                    maxKeywordLength = Math.max(maxKeywordLength, literal.length);
+                }
+            }
+        }
+        MAX_KEYWORD_LENGTH = maxKeywordLength;
+
+        int size = Integer.highestOneBit(KEYWORD_LIST.size()) * 2;
+        int multiplier = findHashMultiplier(size);
+        while (multiplier == 0 && size < MAX_HASH_SIZE) {
+            size *= 2;
+            multiplier = findHashMultiplier(size);
+        }
+        if (multiplier == 0) {
+            throw new IllegalStateException("Could not find a perfect hash for the PDDL keywords");
+        }
+        HASH_MULTIPLIER = multiplier;
+        HASH_MASK = size - 1;
+        KEYWORDS = new byte[size][];
+        KEYWORD_TYPES = new int[size];
+        for (byte[] keyword : KEYWORD_LIST) {
+            int slot = hash(keyword, keyword.length, HASH_MULTIPLIER) & HASH_MASK;
+            KEYWORDS[slot] = keyword;
+            KEYWORD_TYPES[slot] = typeOf(keyword);
+        }
+    }
+
+    /**
+     * The input, as raw bytes.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * The number of bytes of input.
+     */
+    private final int n;
+
+    /**
+     * The index of the next byte to scan.
+     */
+    private int position;
+
+    /**
+     * The current line, counting from one.
+     */
+    private int line = 1;
+
+    /**
+     * The current position in the current line, counting from zero.
+     */
+    private int column;
+
+    /**
+     * Constructor.
+     * @param input the input to lex
+     */
+    public PDDLByteLexer(final CaseInsensitiveByteBufferStream input) {
+        super(input);
+        data = input.bytes();
+        n = input.size();
+        position = input.index();
+    }
+
+    @Override
+    public Token nextToken() {
+        while (position < n) {
+            int start = position;
+            int c = data.get(start) & BYTE_MASK;
+            int characterClass = CLASSES[c];
+            if ((characterClass & SPACE) != 0) {
+                skipSpace();
+            } else if ((characterClass & LETTER) != 0) {
+                return name(start);
+            } else if ((characterClass & DIGIT) != 0) {
+                return number(start);
+            } else if (SINGLE_CHARACTER_TYPES[c] != 0) {
+                position++;
+                return emitToken(SINGLE_CHARACTER_TYPES[c], start);
+            } else if (c == ':') {
+                Token token = colonKeyword(start);
+                if (token != null) {
+                    return token;
+                }
+            } else if (c == ';') {
+                comment(start, start + 1);
+            } else if (c == '/' && start + 1 < n && data.get(start + 1) == '/') {
+                comment(start, start + 2);
+            } else if (c == '/') {
+                fail(start, start + 1);
+            } else {
+                fail(start, start);
+            }
+        }
+        return emitEndOfFile();
+    }
+
+    /**
+     * Skip a run of whitespace.
+     */
+    private void skipSpace() {
+        int p = position;
+        while (p < n) {
+            int c = data.get(p) & BYTE_MASK;
+            if ((CLASSES[c] & SPACE) == 0) {
+                break;
+            }
+            if (c == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+            p++;
+        }
+        position = p;
+    }
+
+    /**
+     * Scan a name, which may turn out to be a keyword.
+     * @param start the index of the first character of the name
+     * @return the token
+     */
+    private Token name(final int start) {
+        int multiplier = HASH_MULTIPLIER;
+        int p = start;
+        int hash = 0;
+        int c = data.get(p) & BYTE_MASK;
+        while ((CLASSES[c] & NAME_PART) != 0) {
+            hash = hash * multiplier + fold(c);
+            p++;
+            if (p == n) {
+                break;
+            }
+            c = data.get(p) & BYTE_MASK;
+        }
+        position = p;
+        int type = NAME;
+        if (p - start <= MAX_KEYWORD_LENGTH) {
+            type = keywordType(start, p - start, hash & HASH_MASK, type);
+        }
+        return emitToken(type, start);
+    }
+
+    /**
+     * Scan a number, with an optional decimal part.
+     * @param start the index of the first digit
+     * @return the token
+     */
+    private Token number(final int start) {
+        int p = skipDigits(start);
+        if (p + 1 < n && data.get(p) == '.' && (CLASSES[data.get(p + 1) & BYTE_MASK] & DIGIT) != 0) {
+            p = skipDigits(p + 1);
+        }
+        position = p;
+        return emitToken(NUMBER, start);
+    }
+
+    /**
+     * Skip a run of digits.
+     * @param start the index to start from
+     * @return the index of the first character that is not a digit
+     */
+    private int skipDigits(final int start) {
+        int p = start;
+        while (p < n && (CLASSES[data.get(p) & BYTE_MASK] & DIGIT) != 0) {
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Scan a keyword starting with a colon, such as a requirement. Like the generated lexer this matches the longest
+     * keyword that the input starts with, even if it is followed by more letters.
+     * @param start the index of the colon
+     * @return the token, or null if no keyword matched
+     */
+    private Token colonKeyword(final int start) {
+        int limit = Math.min(n, start + MAX_KEYWORD_LENGTH);
+        int multiplier = HASH_MULTIPLIER;
+        int hash = ':';
+        int type = 0;
+        int end = start;
+        for (int p = start + 1; p < limit; p++) {
+            int c = data.get(p) & BYTE_MASK;
+            if ((CLASSES[c] & KEYWORD_PART) == 0) {
+                break;
+            }
+            hash = hash * multiplier + fold(c);
+            int length = p + 1 - start;
+            int matched = keywordType(start, length, hash & HASH_MASK, 0);
+            if (matched != 0) {
+                type = matched;
+                end = p + 1;
+            }
+        }
+        if (type == 0) {
+            fail(start, start + longestKeywordPrefix(start));
+            return null;
+        }
+        position = end;
+        return emitToken(type, start);
+    }
+
+    /**
+     * Find how much of the input matches the start of some keyword, which is where the generated lexer gives up.
+     * @param start the index to start from
+     * @return the length of the longest prefix of the input shared with a keyword
+     */
+    private int longestKeywordPrefix(final int start) {
+        int longest = 0;
+        for (byte[] keyword : KEYWORD_LIST) {
+            int length = 0;
+            while (length < keyword.length && start + length < n
+                    && fold(data.get(start + length) & BYTE_MASK) == keyword[length]) {
+                length++;
+            }
+            longest = Math.max(longest, length);
+        }
+        return longest;
+    }
+
+    /**
+     * Skip a comment, which runs up to and including the end of the line.
+     * @param start the index of the start of the comment
+     * @param contentStart the index of the first character after the comment marker
+     */
+    private void comment(final int start, final int contentStart) {
+        int p = contentStart;
+        while (p < n && data.get(p) != '\n' && data.get(p) != '\r') {
+            p++;
+        }
+        if (p < n && data.get(p) == '\r') {
+            p++;
+        }
+        if (p < n && data.get(p) == '\n') {
+            position = p + 1;
+            line++;
+            column = 0;
+        } else {
+            fail(start, p);
+        }
+    }
+
+    /**
+     * Report that no token could be matched and recover the same way as the generated lexer, by skipping everything
+     * up to and including the character where matching failed.
+     * @param start the index of the start of the failed token
+     * @param failure the index of the character where matching failed
+     */
+    private void fail(final int start, final int failure) {
+        _tokenStartCharIndex = start;
+        _tokenStartLine = line;
+        _tokenStartCharPositionInLine = column;
+        column += failure - start;
+        _input.seek(failure);
+        notifyListeners(new LexerNoViableAltException(this, _input, start, null));
+        position = failure;
+        if (failure < n) {
+            if (data.get(failure) == '\n') {
+                line++;
+                column = 0;
+            } else {
+                column++;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Look up the keyword that hashes to a slot, and check whether it matches the input.
+     * @param start the index of the start of the candidate keyword
+     * @param length the length of the candidate keyword
+     * @param slot the slot that the candidate hashes to
+     * @param otherwise the type to return if the candidate is not a keyword
+     * @return the type of the keyword, or the fallback type
+     */
+    private int keywordType(final int start, final int length, final int slot, final int otherwise) {
+        byte[] keyword = KEYWORDS[slot];
+        if (keyword == null || keyword.length != length) {
+            return otherwise;
+        }
+        for (int i = 0; i < length; i++) {
+            if (fold(data.get(start + i) & BYTE_MASK) != keyword[i]) {
+                return otherwise;
+            }
+        }
+        return KEYWORD_TYPES[slot];
+    }
+
+    /**
+     * Create a token running from a start index up to the current position, and move past it.
+     * @param type the type of token
+     * @param start the index of the first character of the token
+     * @return the token
+     */
+    private Token emitToken(final int type, final int start) {
+        Token token = _factory.create(_tokenFactorySourcePair, type, null, Token.DEFAULT_CHANNEL, start,
+                position - 1, line, column);
+        column += position - start;
+        _input.seek(position);
+        return token;
+    }
+
+    /**
+     * Create the end of file token.
+     * @return the token
+     */
+    private Token emitEndOfFile() {
+        _input.seek(position);
+        _hitEOF = true;
+        return _factory.create(_tokenFactorySourcePair, Token.EOF, null, Token.DEFAULT_CHANNEL, position,
+                position - 1, line, column);
+    }
+
+    @Override
+    public int getLine() {
+        return line;
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return column;
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        position = 0;
+        line = 1;
+        column = 0;
+    }
+
+    /**
+     * Convert an ASCII letter to lower case.
+     * @param c the character
+     * @return the lower case character
+     */
+    private static int fold(final int c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c + CASE_OFFSET;
+        }
+        return c;
+    }
+
+    /**
+     * Hash the start of a keyword, the same way as {@link #name(int)} does as it scans.
+     * @param bytes the case-folded bytes to hash
+     * @param length the number of bytes to hash
+     * @param multiplier the multiplier to hash with
+     * @return the hash
+     */
+    private static int hash(final byte[] bytes, final int length, final int multiplier) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = hash * multiplier + bytes[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Search for a hash multiplier that maps every keyword to a different slot in a table.
+     * @param size the size of the table, a power of two
+     * @return the multiplier, or zero if none was found
+     */
+    private static int findHashMultiplier(final int size) {
+        for (int multiplier = 2; multiplier < MAX_HASH_MULTIPLIER; multiplier++) {
+            boolean[] used = new boolean[size];
+            boolean perfect = true;
+            for (byte[] keyword : KEYWORD_LIST) {
+                int slot = hash(keyword, keyword.length, multiplier) & (size - 1);
+                if (used[slot]) {
+                    perfect = false;
+                    break;
+                }
+                used[slot] = true;
+            }
+            if (perfect) {
+                return multiplier;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Look up the token type of a keyword.
+     * @param keyword the keyword
+     * @return its token type
+     */
+    private static int typeOf(final byte[] keyword) {
+        String literal = "'" + new String(keyword, StandardCharsets.US_ASCII) + "'";
+        for (int type = 1; type < tokenNames.length; type++) {
+            if (tokenNames[type].equals(literal)) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("Unknown keyword " + literal);
+    }
+}
@@ -17,15 +17,19 @@
  */
 package org.gerryai.planning.parser.pddl.internal;
 
+import com.google.common.base.Optional;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.Lexer;
 import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.gerryai.planning.model.domain.Domain;
 import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.InitialStateSink;
 import org.gerryai.planning.parser.error.ParseException;
 import org.gerryai.planning.parser.error.SyntaxErrorException;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
 import org.gerryai.planning.parser.pddl.antlr.PDDL31Parser;
 import org.gerryai.planning.parser.pddl.internal.error.SyntaxErrorCollector;
 
@@ -42,12 +46,27 @@ public class PDDLParser {
      */
     private PDDLParserUtils parserServiceUtils;
 
+    /**
+     * Options controlling how parsing is done.
+     */
+    private PDDLParserOptions options;
+
     /**
      * Constructor.
      * @param utils the helper class to use for parsing files, etc
      */
     public PDDLParser(final PDDLParserUtils utils) {
+        this(utils, PDDLParserOptions.defaults());
+    }
+
+    /**
+     * Constructor.
+     * @param utils the helper class to use for parsing files, etc
+     * @param options the options controlling how parsing is done
+     */
+    public PDDLParser(final PDDLParserUtils utils, final PDDLParserOptions options) {
         this.parserServiceUtils = utils;
+        this.options = options;
     }
 
     /**
@@ -58,12 +77,36 @@ public class PDDLParser {
      * @throws org.gerryai.planning.parser.error.ParseException if there was a syntax error parsing the input
      */
     public Domain parseDomain(final InputStream inputStream) throws IOException, ParseException {
-        SyntaxErrorCollector syntaxErrorCollector = parserServiceUtils.createSyntaxErrorCollector();
-        PDDL31Parser parser = createParser(inputStream, syntaxErrorCollector);
-        ExtractDomainListener listener = parserServiceUtils.createExtractDomainListener();
-        ParseTree tree = parserServiceUtils.getDomainContext(parser);
+        return parseDomain(parserServiceUtils.createInputStream(inputStream));
+    }
+
+    /**
+     * Parse a character stream and extract a {@link org.gerryai.planning.model.domain.Domain}.
+     * Unless disabled in the options, the {@link FastPathParser} is tried first, and the input only parsed again using
+     * the generated parser if it contains something the fast path does not support.
+     * @param charStream the character stream to parse
+     * @return the result of parsing the input
+     * @throws org.gerryai.planning.parser.error.ParseException if there was a syntax error parsing the input
+     */
+    public Domain parseDomain(final CharStream charStream) throws ParseException {
+        if (options.isFastPath()) {
+            Optional<Domain> domain = parserServiceUtils.createFastPathParser(charStream).parseDomain();
+            if (domain.isPresent()) {
+                return domain.get();
+            }
+            charStream.seek(0);
+        }
+        return parse(createTokenStream(charStream), new Extraction<Domain>() {
+            @Override
+            public ExtractingListener<Domain> createListener() {
+                return parserServiceUtils.createExtractDomainListener();
+            }
 
-        return extract(parser, tree, listener, syntaxErrorCollector);
+            @Override
+            public ParseTree parse(final PDDL31Parser parser) {
+                return parserServiceUtils.getDomainContext(parser);
+            }
+        }, options.isBuildParseTree());
     }
 
     /**
@@ -74,50 +117,167 @@ public class PDDLParser {
      * @throws org.gerryai.planning.parser.error.ParseException if there was a syntax error parsing the input
      */
     public Problem parseProblem(final InputStream inputStream) throws IOException, ParseException  {
-        SyntaxErrorCollector syntaxErrorCollector = parserServiceUtils.createSyntaxErrorCollector();
-        PDDL31Parser parser = createParser(inputStream, syntaxErrorCollector);
-        ExtractProblemListener listener = parserServiceUtils.createExtractProblemListener();
-        ParseTree tree = parserServiceUtils.getProblemContext(parser);
+        return parseProblem(parserServiceUtils.createInputStream(inputStream));
+    }
+
+    /**
+     * Parse a character stream and extract a {@link org.gerryai.planning.model.problem.Problem}.
+     * Unless disabled in the options, the {@link FastPathParser} is tried first, and the input only parsed again using
+     * the generated parser if it contains something the fast path does not support.
+     * @param charStream the character stream to parse
+     * @return the result of parsing the input
+     * @throws org.gerryai.planning.parser.error.ParseException if there was a syntax error parsing the input
+     */
+    public Problem parseProblem(final CharStream charStream) throws ParseException {
+        if (options.isFastPath()) {
+            Optional<Problem> problem = parserServiceUtils.createFastPathParser(charStream).parseProblem();
+            if (problem.isPresent()) {
+                return problem.get();
+            }
+            charStream.seek(0);
+        }
+        return parse(createTokenStream(charStream), new Extraction<Problem>() {
+            @Override
+            public ExtractingListener<Problem> createListener() {
+                return parserServiceUtils.createExtractProblemListener();
+            }
 
-        return extract(parser, tree, listener, syntaxErrorCollector);
+            @Override
+            public ParseTree parse(final PDDL31Parser parser) {
+                return parserServiceUtils.getProblemContext(parser);
+            }
+        }, options.isBuildParseTree());
     }
 
     /**
-     * Create a {@link org.gerryai.planning.parser.pddl.antlr.PDDL31Parser} from an {@link java.io.InputStream}.
-     * @param inputStream the input stream
-     * @param syntaxErrorCollector the collector to put syntax errors in
+     * Parse a character stream and extract a {@link org.gerryai.planning.model.problem.Problem} bound to a domain.
+     * Whatever the options say, the terms and atoms of the problem are built through a factory sharing the domain's
+     * constants and types, and the problem is then checked against the domain.
+     * @param charStream the character stream to parse
+     * @param binding the binding to the domain the problem is for
+     * @return the result of parsing the input
+     * @throws org.gerryai.planning.parser.error.DomainMismatchException if the problem does not fit the domain
+     * @throws org.gerryai.planning.parser.error.ParseException if there was a syntax error parsing the input
+     */
+    public Problem parseProblemFor(final CharStream charStream, final DomainBinding binding) throws ParseException {
+        if (options.isFastPath()) {
+            FastPathParser fastPathParser = parserServiceUtils.createFastPathParser(charStream);
+            fastPathParser.setHashConsingFactory(binding.createHashConsingFactory());
+            Optional<Problem> problem = fastPathParser.parseProblem();
+            if (problem.isPresent()) {
+                return binding.check(problem.get());
+            }
+            charStream.seek(0);
+        }
+        return binding.check(parse(createTokenStream(charStream), new Extraction<Problem>() {
+            @Override
+            public ExtractingListener<Problem> createListener() {
+                ExtractProblemListener listener = parserServiceUtils.createExtractProblemListener();
+                listener.setHashConsingFactory(binding.createHashConsingFactory());
+                return listener;
+            }
+
+            @Override
+            public ParseTree parse(final PDDL31Parser parser) {
+                return parserServiceUtils.getProblemContext(parser);
+            }
+        }, options.isBuildParseTree()));
+    }
+
+    /**
+     * Parse a character stream and extract a {@link org.gerryai.planning.model.problem.Problem}, passing the facts of
+     * its initial state to a sink as they are parsed. No parse tree is built, whatever the options say, as it would
+     * hold on to every fact until parsing had finished.
+     * @param charStream the character stream to parse
+     * @param sink the sink to pass initial state facts to
+     * @return the result of parsing the input, with an empty initial state
+     * @throws org.gerryai.planning.parser.error.ParseException if there was a syntax error parsing the input
+     */
+    public Problem parseProblem(final CharStream charStream, final InitialStateSink sink) throws ParseException {
+        final ResumingInitialStateSink resumingSink = parserServiceUtils.createResumingInitialStateSink(sink);
+        return parse(createTokenStream(charStream), new Extraction<Problem>() {
+            @Override
+            public ExtractingListener<Problem> createListener() {
+                resumingSink.rewind();
+                return parserServiceUtils.createExtractProblemListener(resumingSink);
+            }
+
+            @Override
+            public ParseTree parse(final PDDL31Parser parser) {
+                return parserServiceUtils.getProblemContext(parser);
+            }
+        }, false);
+    }
+
+    /**
+     * Create a {@link TokenStream} from a {@link CharStream}.
+     * @param charStream the character stream
      * @return the token stream
-     * @throws IOException if the input could not be read correctly
      */
-    private PDDL31Parser createParser(final InputStream inputStream, final SyntaxErrorCollector syntaxErrorCollector)
-            throws IOException {
-        CharStream charStream = parserServiceUtils.createInputStream(inputStream);
+    private TokenStream createTokenStream(final CharStream charStream) {
         Lexer lexer = parserServiceUtils.createLexer(charStream);
-        TokenStream tokenStream = parserServiceUtils.createTokenStream(lexer);
-        return parserServiceUtils.createParser(tokenStream, syntaxErrorCollector);
+        return parserServiceUtils.createTokenStream(lexer);
+    }
+
+    /**
+     * Parse a token stream and extract an entity of type T from it.
+     * When two-stage prediction is enabled the input is first parsed using SLL prediction, which is enough for nearly
+     * all valid input. Only if that fails is the input parsed again using full LL prediction, which is also the pass
+     * that collects any syntax errors.
+     * @param tokenStream the token stream to parse
+     * @param extraction the rule to parse and the listener to extract with
+     * @param buildParseTree whether to build a parse tree and walk it, or to extract the entity while parsing
+     * @param <T> the type of entity being extracted
+     * @return the extracted entity
+     * @throws ParseException if there were errors encountered whilst parsing
+     */
+    private <T> T parse(final TokenStream tokenStream, final Extraction<T> extraction, final boolean buildParseTree)
+            throws ParseException {
+        if (options.isTwoStagePrediction()) {
+            SyntaxErrorCollector syntaxErrorCollector = parserServiceUtils.createSyntaxErrorCollector();
+            PDDL31Parser parser = parserServiceUtils.createParser(tokenStream, syntaxErrorCollector);
+            parserServiceUtils.enableFastPrediction(parser);
+            try {
+                return extract(parser, extraction, buildParseTree, syntaxErrorCollector);
+            } catch (ParseCancellationException ex) {
+                // SLL prediction could not parse the input, so rewind and try again with full LL prediction
+                tokenStream.seek(0);
+            }
+        }
+
+        SyntaxErrorCollector syntaxErrorCollector = parserServiceUtils.createSyntaxErrorCollector();
+        PDDL31Parser parser = parserServiceUtils.createParser(tokenStream, syntaxErrorCollector);
+        return extract(parser, extraction, buildParseTree, syntaxErrorCollector);
     }
 
     /**
-     * Extract an entity of type T using the supplied parsing objects.
+     * Parse and extract an entity of type T using the supplied parser.
+     * Unless a parse tree is to be built, a fresh listener is attached to the parser so that the entity is extracted
+     * as the parser goes and each rule context can be discarded as soon as it has been parsed.
      * @param parser the parser to use
-     * @param tree the parse tree to use
-     * @param listener the listener to use to do the extraction
+     * @param extraction the rule to parse and the listener to extract with
+     * @param buildParseTree whether to build a parse tree and walk it, or to extract the entity while parsing
      * @param syntaxErrorCollector the collector to put syntax errors in
      * @param <T> the type of entity being extracted
      * @return the extracted entity
      * @throws ParseException if there were errors encountered whilst parsing
      */
-    private <T>  T extract(final PDDL31Parser parser, final ParseTree tree, final ExtractingListener<T> listener,
+    private <T>  T extract(final PDDL31Parser parser, final Extraction<T> extraction, final boolean buildParseTree,
                            final SyntaxErrorCollector syntaxErrorCollector)
             throws ParseException {
 
-        if (parser.getNumberOfSyntaxErrors() > 0) {
-            throw new SyntaxErrorException(syntaxErrorCollector.getErrors());
+        ExtractingListener<T> listener = extraction.createListener();
+        if (buildParseTree) {
+            ParseTree tree = extraction.parse(parser);
+            checkSyntaxErrors(parser, syntaxErrorCollector);
+            ParseTreeWalker parseTreeWalker = parserServiceUtils.createParseTreeWalker();
+            parseTreeWalker.walk(listener, tree);
+        } else {
+            parserServiceUtils.addParseListener(parser, listener);
+            extraction.parse(parser);
+            checkSyntaxErrors(parser, syntaxErrorCollector);
         }
 
-        ParseTreeWalker parseTreeWalker = parserServiceUtils.createParseTreeWalker();
-        parseTreeWalker.walk(listener, tree);
-
         if (!parser.getEnforceRequirments()) {
             return listener.extract(parser.getRequirementsNeeded());
         } else {
@@ -125,4 +285,36 @@ public class PDDLParser {
         }
     }
 
+    /**
+     * Check whether the parser found any syntax errors.
+     * @param parser the parser to check
+     * @param syntaxErrorCollector the collector the syntax errors were put in
+     * @throws SyntaxErrorException if there were any syntax errors
+     */
+    private void checkSyntaxErrors(final PDDL31Parser parser, final SyntaxErrorCollector syntaxErrorCollector)
+            throws SyntaxErrorException {
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            throw new SyntaxErrorException(syntaxErrorCollector.getErrors());
+        }
+    }
+
+    /**
+     * The parts of parsing that differ between domains and problems.
+     * @param <T> the type of entity being extracted
+     */
+    private interface Extraction<T> {
+
+        /**
+         * Create a new listener to extract the entity from a parse.
+         * @return the listener
+         */
+        ExtractingListener<T> createListener();
+
+        /**
+         * Parse the top level rule for the entity.
+         * @param parser the parser to use
+         * @return the parse tree
+         */
+        ParseTree parse(final PDDL31Parser parser);
+    }
 }
@@ -17,11 +17,19 @@
  */
 package org.gerryai.planning.parser.pddl.internal;
 
+import com.google.common.io.ByteStreams;
+import org.antlr.v4.runtime.BailErrorStrategy;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.Lexer;
 import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.HashConsingFactory;
+import org.gerryai.planning.parser.InitialStateSink;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
 import org.gerryai.planning.parser.pddl.antlr.PDDL31Lexer;
 import org.gerryai.planning.parser.pddl.antlr.PDDL31Parser;
 import org.gerryai.planning.parser.pddl.internal.error.ErrorListener;
@@ -30,6 +38,8 @@ import org.gerryai.planning.parser.pddl.internal.logic.LogicStackHandler;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 
 /**
  * Helper functions for handling parser input, etc.
@@ -37,13 +47,54 @@ import java.io.InputStream;
 public class PDDLParserUtils {
 
     /**
-     * Create a {@link CaseInsensitiveInputStream} from a file.
+     * Options controlling how parsing is done.
+     */
+    private final PDDLParserOptions options;
+
+    /**
+     * Constructor.
+     */
+    public PDDLParserUtils() {
+        this(PDDLParserOptions.defaults());
+    }
+
+    /**
+     * Constructor.
+     * @param options the options controlling how parsing is done
+     */
+    public PDDLParserUtils(final PDDLParserOptions options) {
+        this.options = options;
+    }
+
+    /**
+     * Create a {@link CaseInsensitiveByteBufferStream} from an input stream.
+     * The input is read as bytes, which takes a quarter of the memory that {@link CaseInsensitiveInputStream} needs
+     * for its original and lower case copies of the input as chars.
      * @param inputStream the InputStream to read
      * @return the ANTLR input stream
      * @throws java.io.IOException if there was a problem reading the input stream
      */
     public CharStream createInputStream(final InputStream inputStream) throws IOException {
-        return new CaseInsensitiveInputStream(inputStream);
+        return new CaseInsensitiveByteBufferStream(ByteBuffer.wrap(ByteStreams.toByteArray(inputStream)));
+    }
+
+    /**
+     * Create a {@link CaseInsensitiveByteBufferStream} by memory-mapping a file.
+     * @param path the file to read
+     * @return the ANTLR input stream
+     * @throws java.io.IOException if there was a problem mapping the file
+     */
+    public CharStream createInputStream(final Path path) throws IOException {
+        return CaseInsensitiveByteBufferStream.map(path);
+    }
+
+    /**
+     * Create a {@link CaseInsensitiveByteBufferStream} reading from a buffer.
+     * @param buffer the buffer to read, from its position to its limit
+     * @return the ANTLR input stream
+     */
+    public CharStream createInputStream(final ByteBuffer buffer) {
+        return new CaseInsensitiveByteBufferStream(buffer);
     }
 
     /**
@@ -57,13 +108,39 @@ public class PDDLParserUtils {
 
     /**
      * Create a Lexer from the given input stream.
+     * Input held in a byte buffer is lexed by the hand-written {@link PDDLByteLexer}, unless the options say otherwise.
      * @param inputStream the input stream to process
      * @return the lexer
      */
     public Lexer createLexer(final CharStream inputStream) {
+        if (options.isHandWrittenLexer() && inputStream instanceof CaseInsensitiveByteBufferStream) {
+            return new PDDLByteLexer((CaseInsensitiveByteBufferStream) inputStream);
+        }
         return new PDDL31Lexer(inputStream);
     }
 
+    /**
+     * Create a recursive-descent parser for the subset of PDDL supported by the fast path.
+     * @param inputStream the input stream to parse
+     * @return the parser
+     */
+    public FastPathParser createFastPathParser(final CharStream inputStream) {
+        FastPathParser parser = new FastPathParser(createLexer(inputStream));
+        if (options.isHashConsing()) {
+            parser.setHashConsingFactory(new HashConsingFactory());
+        }
+        return parser;
+    }
+
+    /**
+     * Create a binding for parsing problems against a domain.
+     * @param domain the domain
+     * @return the binding
+     */
+    public DomainBinding createDomainBinding(final Domain domain) {
+        return new DomainBinding(domain);
+    }
+
     /**
      * Create a collector for syntax errors.
      * @return the syntax error collector
@@ -86,6 +163,27 @@ public class PDDLParserUtils {
         return parser;
     }
 
+    /**
+     * Switch a parser to SLL prediction, bailing out on the first syntax error instead of reporting it. A parse that
+     * fails in this mode needs repeating with a fresh parser using full LL prediction before errors can be reported.
+     * @param parser the parser to configure
+     */
+    public void enableFastPrediction(final PDDL31Parser parser) {
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.setErrorHandler(new BailErrorStrategy());
+    }
+
+    /**
+     * Stop a parser building a parse tree and have it fire events at a listener as it parses instead. Events stop
+     * once the parser reports a syntax error, as the listener could not make sense of them.
+     * @param parser the parser to configure
+     * @param listener the listener to fire events at
+     */
+    public void addParseListener(final PDDL31Parser parser, final ParseTreeListener listener) {
+        parser.setBuildParseTree(false);
+        parser.addParseListener(new SyntaxErrorGuardListener(parser, listener));
+    }
+
     /**
      * Get the domain context from the given parser.
      * @param parser the parser to use
@@ -118,7 +216,7 @@ public class PDDLParserUtils {
      * @return the listener to apply when walking the parse tree
      */
     public ExtractDomainListener createExtractDomainListener() {
-        return new ExtractDomainListener(new LogicStackHandler());
+        return configure(new ExtractDomainListener(new LogicStackHandler()));
     }
 
     /**
@@ -126,6 +224,38 @@ public class PDDLParserUtils {
      * @return the listener to apply when walking the parse tree
      */
     public ExtractProblemListener createExtractProblemListener() {
-        return new ExtractProblemListener(new LogicStackHandler());
+        return configure(new ExtractProblemListener(new LogicStackHandler()));
+    }
+
+    /**
+     * Create the listener for extracting the {@link org.gerryai.planning.model.problem.Problem} from the parser,
+     * passing the facts of its initial state to a sink instead of collecting them.
+     * @param sink the sink to pass initial state facts to
+     * @return the listener to apply when walking the parse tree
+     */
+    public ExtractProblemListener createExtractProblemListener(final InitialStateSink sink) {
+        return configure(new ExtractProblemListener(new LogicStackHandler(), sink));
+    }
+
+    /**
+     * Create a sink that can be fed the initial state again when the input has to be re-parsed.
+     * @param sink the sink to pass facts on to
+     * @return the resuming sink
+     */
+    public ResumingInitialStateSink createResumingInitialStateSink(final InitialStateSink sink) {
+        return new ResumingInitialStateSink(sink);
+    }
+
+    /**
+     * Apply the options to a newly created extracting listener.
+     * @param listener the listener
+     * @param <T> the type of listener
+     * @return the listener
+     */
+    private <T extends LogicListener> T configure(final T listener) {
+        if (options.isHashConsing()) {
+            listener.setHashConsingFactory(new HashConsingFactory());
+        }
+        return listener;
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.parser.InitialStateSink;
+
+/**
+ * Sink that lets the same input be parsed more than once while passing each fact on only once.
+ * When two-stage prediction has to re-parse the input, the facts of the initial state are parsed again from the
+ * start; those already passed on by the abandoned parse are skipped.
+ */
+public class ResumingInitialStateSink implements InitialStateSink {
+
+    private final InitialStateSink sink;
+
+    /**
+     * The number of facts seen by the current parse.
+     */
+    private long seen;
+
+    /**
+     * The number of facts passed on by any parse.
+     */
+    private long passed;
+
+    /**
+     * Constructor.
+     * @param sink the sink to pass facts on to
+     */
+    public ResumingInitialStateSink(final InitialStateSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Start seeing facts from the beginning of the input again.
+     */
+    public void rewind() {
+        seen = 0;
+    }
+
+    @Override
+    public void add(final Formula fact) {
+        seen++;
+        if (seen > passed) {
+            passed = seen;
+            sink.add(fact);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+
+import java.util.Arrays;
+
+/**
+ * Table of the names seen while parsing a single domain or problem. Each name is folded to lower case and stored
+ * once, so every constant, variable, predicate and type with the same name shares one string, and is given a dense
+ * integer id in the order it was first seen.
+ *
+ * Names are read directly from the case-folded characters of the input where the stream allows it, so looking up a
+ * name that is already in the table allocates nothing. Not thread safe; each parse has its own table.
+ */
+public class SymbolTable {
+
+    /**
+     * Initial number of slots in the hash table, which must be a power of two.
+     */
+    private static final int INITIAL_SLOTS = 256;
+
+    /**
+     * Highest character that is folded in the same way by {@link String#toLowerCase()} and the input streams.
+     */
+    private static final int MAX_ASCII = 127;
+
+    /**
+     * Number of bits to shift a hash code right by when spreading its high bits into the low bits.
+     */
+    private static final int SPREAD_SHIFT = 16;
+
+    /**
+     * Multiplier used to build a hash code one character at a time, as {@link String#hashCode()} does.
+     */
+    private static final int HASH_MULTIPLIER = 31;
+
+    private String[] names = new String[INITIAL_SLOTS / 2];
+
+    private int[] hashes = new int[INITIAL_SLOTS / 2];
+
+    private int[] slots = new int[INITIAL_SLOTS];
+
+    private int size;
+
+    /**
+     * Get the interned, lower-case text of a token.
+     * @param token the token
+     * @return the name
+     */
+    public String intern(final Token token) {
+        CharStream input = token.getInputStream();
+        if (!(input instanceof CaseFoldedStream)) {
+            return intern(token.getText().toLowerCase());
+        }
+        CaseFoldedStream folded = (CaseFoldedStream) input;
+        int start = token.getStartIndex();
+        int stop = token.getStopIndex();
+        int hash = 0;
+        for (int i = start; i <= stop; i++) {
+            int c = folded.foldedCharAt(i);
+            if (c > MAX_ASCII) {
+                return intern(token.getText().toLowerCase());
+            }
+            hash = HASH_MULTIPLIER * hash + c;
+        }
+
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && matches(names[id], folded, start, stop)) {
+                return names[id];
+            }
+        }
+        char[] chars = new char[stop - start + 1];
+        for (int i = start; i <= stop; i++) {
+            chars[i - start] = (char) folded.foldedCharAt(i);
+        }
+        int id = add(new String(chars), hash);
+        return names[id];
+    }
+
+    /**
+     * Get the interned instance of a name that is already in lower case.
+     * @param name the name
+     * @return the interned name
+     */
+    public String intern(final String name) {
+        return names[id(name)];
+    }
+
+    /**
+     * Get the id of a name that is already in lower case, adding it to the table if it is not there yet.
+     * @param name the name
+     * @return the id, between zero and one less than the size of the table
+     */
+    public int id(final String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+        }
+        return add(name, hash);
+    }
+
+    /**
+     * Get the name with the given id.
+     * @param id the id
+     * @return the name
+     */
+    public String name(final int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No name with id " + id);
+        }
+        return names[id];
+    }
+
+    /**
+     * Get the number of names in the table.
+     * @return the number of names
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add a name that is not yet in the table.
+     * @param name the name
+     * @param hash the name's hash code
+     * @return the id given to the name
+     */
+    private int add(final String name, final int hash) {
+        if (size == names.length) {
+            grow();
+        }
+        int id = size++;
+        names[id] = name;
+        hashes[id] = hash;
+        insert(id);
+        return id;
+    }
+
+    /**
+     * Double the capacity of the table, re-inserting every name.
+     */
+    private void grow() {
+        names = Arrays.copyOf(names, names.length * 2);
+        hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        slots = new int[slots.length * 2];
+        for (int id = 0; id < size; id++) {
+            insert(id);
+        }
+    }
+
+    /**
+     * Put a name's id into the first free slot for its hash code.
+     * @param id the id of the name
+     */
+    private void insert(final int id) {
+        int mask = slots.length - 1;
+        int slot = spread(hashes[id]) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+    }
+
+    /**
+     * Spread the high bits of a hash code into the low bits used to pick a slot.
+     * @param hash the hash code
+     * @return the spread hash code
+     */
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> SPREAD_SHIFT);
+    }
+
+    /**
+     * Check whether a name matches a range of case-folded characters.
+     * @param name the name
+     * @param folded the stream holding the characters
+     * @param start the index of the first character
+     * @param stop the index of the last character
+     * @return true if they match
+     */
+    private static boolean matches(final String name, final CaseFoldedStream folded, final int start, final int stop) {
+        if (name.length() != stop - start + 1) {
+            return false;
+        }
+        for (int i = start; i <= stop; i++) {
+            if (name.charAt(i - start) != folded.foldedCharAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Parse listener that passes events on to another listener until the parser reports its first syntax error.
+ * Extracting listeners assume the input is well formed, so once the parser starts recovering from errors their
+ * events are dropped rather than risking exceptions that would stop the parser collecting the remaining errors.
+ * Rules being exited because the parser bailed out are dropped for the same reason.
+ */
+public class SyntaxErrorGuardListener implements ParseTreeListener {
+
+    private final Parser parser;
+
+    private final ParseTreeListener listener;
+
+    /**
+     * Constructor.
+     * @param parser the parser reporting syntax errors
+     * @param listener the listener to pass events on to
+     */
+    public SyntaxErrorGuardListener(final Parser parser, final ParseTreeListener listener) {
+        this.parser = parser;
+        this.listener = listener;
+    }
+
+    @Override
+    public void visitTerminal(final TerminalNode node) {
+        if (isClean()) {
+            listener.visitTerminal(node);
+        }
+    }
+
+    @Override
+    public void visitErrorNode(final ErrorNode node) {
+        // Error nodes only appear after a syntax error has been reported
+    }
+
+    @Override
+    public void enterEveryRule(final ParserRuleContext ctx) {
+        if (isClean()) {
+            listener.enterEveryRule(ctx);
+            ctx.enterRule(listener);
+        }
+    }
+
+    @Override
+    public void exitEveryRule(final ParserRuleContext ctx) {
+        if (isClean() && ctx.exception == null) {
+            ctx.exitRule(listener);
+            listener.exitEveryRule(ctx);
+        }
+    }
+
+    /**
+     * Check whether the parser has yet to report a syntax error.
+     * @return true if there have been no syntax errors
+     */
+    private boolean isClean() {
+        return parser.getNumberOfSyntaxErrors() == 0;
+    }
+}
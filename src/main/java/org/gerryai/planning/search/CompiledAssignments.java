@@ -0,0 +1,245 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+import org.gerryai.planning.model.logic.AssignmentOperator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The numeric effects of an action, compiled by a {@link FluentCompiler} into assignments to the slots of a vector
+ * of fluent values laid out by a {@link org.gerryai.planning.model.FluentTable}.
+ *
+ * Each assignment changes one fluent by an {@link AssignmentOperator} and a value, which is either a number or the
+ * value of another fluent. The slots of the fluents are worked out from the binding of the action's parameters, so
+ * one program serves every instance of the action, and applying it allocates nothing. As PDDL requires, every value
+ * is read from the state before any of the assignments take place. Assignments to the same fluent are applied one
+ * after another, so two increases of the total cost both count.
+ */
+public final class CompiledAssignments {
+
+    /**
+     * Reference standing for a number rather than the value of a fluent.
+     */
+    static final int CONSTANT = -1;
+
+    private static final int[] NO_BINDING = new int[0];
+
+    private final int parameterCount;
+
+    private final AssignmentOperator[] operators;
+
+    private final int[] targets;
+
+    private final int[] values;
+
+    private final double[] constants;
+
+    private final int[] bases;
+
+    private final int[] argumentStarts;
+
+    private final int[] arguments;
+
+    private final int[] strides;
+
+    private final int[][] positions;
+
+    /**
+     * Constructor.
+     * @param builder the builder holding the assignments
+     * @param parameterCount the number of parameters to bind
+     */
+    private CompiledAssignments(final Builder builder, final int parameterCount) {
+        this.parameterCount = parameterCount;
+        operators = builder.operators.toArray(new AssignmentOperator[builder.operators.size()]);
+        targets = ints(builder.targets);
+        values = ints(builder.values);
+        constants = new double[builder.constants.size()];
+        for (int i = 0; i < constants.length; i++) {
+            constants[i] = builder.constants.get(i);
+        }
+        bases = ints(builder.bases);
+        argumentStarts = new int[bases.length + 1];
+        for (int i = 0; i < bases.length; i++) {
+            argumentStarts[i] = builder.argumentStarts.get(i);
+        }
+        argumentStarts[bases.length] = builder.arguments.size();
+        arguments = ints(builder.arguments);
+        strides = ints(builder.strides);
+        positions = builder.positions.toArray(new int[builder.positions.size()][]);
+    }
+
+    /**
+     * Copy a list of integers into an array.
+     * @param list the integers
+     * @return the array
+     */
+    private static int[] ints(final List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    /**
+     * Get the number of parameters that must be bound to apply the assignments.
+     * @return the number of parameters
+     */
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Get the number of assignments.
+     * @return the number of assignments
+     */
+    public int getAssignmentCount() {
+        return operators.length;
+    }
+
+    /**
+     * Apply assignments with no parameters.
+     * @param state the values of the fluents before the assignments
+     * @param successor the vector to fill in with the values after the assignments
+     * @throws IllegalArgumentException if the successor is the same vector as the state
+     */
+    public void apply(final double[] state, final double[] successor) {
+        apply(state, NO_BINDING, successor);
+    }
+
+    /**
+     * Apply the assignments. The successor is first given the values of the state, then each assignment changes the
+     * value of its fluent in the successor, using values read from the state.
+     * @param state the values of the fluents before the assignments
+     * @param binding the id of the object bound to each parameter
+     * @param successor the vector to fill in with the values after the assignments
+     * @throws IllegalArgumentException if the successor is the same vector as the state, the wrong number of objects
+     * are bound, or an object is bound that is of the wrong type for a fluent
+     */
+    public void apply(final double[] state, final int[] binding, final double[] successor) {
+        if (successor == state) {
+            throw new IllegalArgumentException("The successor must be a different vector to the one applied to");
+        }
+        if (binding.length != parameterCount) {
+            throw new IllegalArgumentException("Expected " + parameterCount + " objects to be bound but got "
+                    + binding.length);
+        }
+        System.arraycopy(state, 0, successor, 0, state.length);
+        for (int i = 0; i < operators.length; i++) {
+            double value = constants[i];
+            if (values[i] != CONSTANT) {
+                value = state[slot(values[i], binding)];
+            }
+            int target = slot(targets[i], binding);
+            successor[target] = operators[i].apply(successor[target], value);
+        }
+    }
+
+    /**
+     * Work out the slot of a fluent that is the target or value of an assignment.
+     * @param reference the fluent
+     * @param binding the id of the object bound to each parameter
+     * @return the slot
+     * @throws IllegalArgumentException if an object is bound that is of the wrong type for the fluent
+     */
+    private int slot(final int reference, final int[] binding) {
+        int slot = bases[reference];
+        for (int i = argumentStarts[reference]; i < argumentStarts[reference + 1]; i++) {
+            int position = positions[i][binding[arguments[i]]];
+            if (position < 0) {
+                throw new IllegalArgumentException("Object " + binding[arguments[i]] + " bound to parameter "
+                        + arguments[i] + " is of the wrong type for a fluent it is an argument of");
+            }
+            slot += position * strides[i];
+        }
+        return slot;
+    }
+
+    /**
+     * Builder for {@link CompiledAssignments}, to which fluents and the assignments between them are added one at a
+     * time.
+     */
+    static final class Builder {
+
+        private final List<AssignmentOperator> operators = new ArrayList<>();
+        private final List<Integer> targets = new ArrayList<>();
+        private final List<Integer> values = new ArrayList<>();
+        private final List<Double> constants = new ArrayList<>();
+        private final List<Integer> bases = new ArrayList<>();
+        private final List<Integer> argumentStarts = new ArrayList<>();
+        private final List<Integer> arguments = new ArrayList<>();
+        private final List<Integer> strides = new ArrayList<>();
+        private final List<int[]> positions = new ArrayList<>();
+
+        /**
+         * Add a fluent that is the target or value of an assignment.
+         * @param base the slot of the fluent if each of its arguments that is a parameter were in position zero
+         * @param parameters the parameters that are arguments of the fluent
+         * @param parameterStrides the stride of each of those arguments
+         * @param parameterPositions the position of each object for each of those arguments
+         * @return the reference to the fluent
+         */
+        int fluent(final int base, final List<Integer> parameters, final List<Integer> parameterStrides,
+                   final List<int[]> parameterPositions) {
+            argumentStarts.add(arguments.size());
+            arguments.addAll(parameters);
+            strides.addAll(parameterStrides);
+            positions.addAll(parameterPositions);
+            bases.add(base);
+            return bases.size() - 1;
+        }
+
+        /**
+         * Add an assignment of the value of one fluent to another.
+         * @param operator the operator
+         * @param target the reference to the fluent changed
+         * @param value the reference to the fluent whose value it is changed by
+         */
+        void assign(final AssignmentOperator operator, final int target, final int value) {
+            operators.add(operator);
+            targets.add(target);
+            values.add(value);
+            constants.add(0.0);
+        }
+
+        /**
+         * Add an assignment of a number to a fluent.
+         * @param operator the operator
+         * @param target the reference to the fluent changed
+         * @param value the number it is changed by
+         */
+        void assign(final AssignmentOperator operator, final int target, final double value) {
+            operators.add(operator);
+            targets.add(target);
+            values.add(CONSTANT);
+            constants.add(value);
+        }
+
+        /**
+         * Build the finished assignments.
+         * @param parameterCount the number of parameters to bind
+         * @return the assignments
+         */
+        CompiledAssignments build(final int parameterCount) {
+            return new CompiledAssignments(this, parameterCount);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A formula compiled by a {@link FormulaCompiler} into a flat program that is evaluated against a state.
+ *
+ * Each instruction tests either whether an atom holds or whether two arguments are the same object, and gives the
+ * instruction to go to next if the test passes and the one to go to if it fails, or the result if evaluation is over.
+ * Conjunctions and disjunctions become chains of tests that stop at the first that settles the result, and negation
+ * costs nothing, as it only swaps where a test leads. Evaluating allocates nothing and does not recurse.
+ *
+ * A formula can have parameters, bound to objects each time it is evaluated, so the program compiled for the
+ * precondition of an action serves every instance of it. Atoms whose arguments are parameters have their ids
+ * computed from the binding; an atom whose arguments are of the wrong types for its predicate does not hold.
+ */
+public final class CompiledFormula {
+
+    /**
+     * Target of an instruction that ends evaluation with the formula holding.
+     */
+    static final int TRUE = -1;
+
+    /**
+     * Target of an instruction that ends evaluation with the formula not holding.
+     */
+    static final int FALSE = -2;
+
+    private static final int[] NO_BINDING = new int[0];
+
+    private final int parameterCount;
+
+    private final int entry;
+
+    private final boolean[] equalities;
+
+    private final int[] bases;
+
+    private final int[] argumentStarts;
+
+    private final int[] arguments;
+
+    private final int[] strides;
+
+    private final int[][] positions;
+
+    private final int[] onTrue;
+
+    private final int[] onFalse;
+
+    /**
+     * Constructor.
+     * @param builder the builder holding the instructions
+     * @param parameterCount the number of parameters to bind
+     * @param entry the first instruction, or {@link #TRUE} or {@link #FALSE} if the formula is constant
+     */
+    private CompiledFormula(final Builder builder, final int parameterCount, final int entry) {
+        this.parameterCount = parameterCount;
+        this.entry = entry;
+        int size = builder.onTrue.size();
+        equalities = new boolean[size];
+        bases = new int[size];
+        argumentStarts = new int[size + 1];
+        onTrue = new int[size];
+        onFalse = new int[size];
+        for (int i = 0; i < size; i++) {
+            equalities[i] = builder.equalities.get(i);
+            bases[i] = builder.bases.get(i);
+            argumentStarts[i] = builder.argumentStarts.get(i);
+            onTrue[i] = builder.onTrue.get(i);
+            onFalse[i] = builder.onFalse.get(i);
+        }
+        argumentStarts[size] = builder.arguments.size();
+        arguments = new int[builder.arguments.size()];
+        strides = new int[builder.arguments.size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = builder.arguments.get(i);
+            strides[i] = builder.strides.get(i);
+        }
+        positions = builder.positions.toArray(new int[builder.positions.size()][]);
+    }
+
+    /**
+     * Get the number of parameters that must be bound to evaluate the formula.
+     * @return the number of parameters
+     */
+    public int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Get the number of instructions in the program.
+     * @return the number of instructions
+     */
+    public int getInstructionCount() {
+        return onTrue.length;
+    }
+
+    /**
+     * Evaluate a formula with no parameters.
+     * @param state the state
+     * @return true if the formula holds in the state
+     */
+    public boolean evaluate(final PackedState state) {
+        return evaluate(state, NO_BINDING);
+    }
+
+    /**
+     * Evaluate the formula.
+     * @param state the state
+     * @param binding the id of the object bound to each parameter
+     * @return true if the formula holds in the state
+     * @throws IllegalArgumentException if the wrong number of objects are bound
+     */
+    public boolean evaluate(final PackedState state, final int[] binding) {
+        if (binding.length != parameterCount) {
+            throw new IllegalArgumentException("Expected " + parameterCount + " objects to be bound but got "
+                    + binding.length);
+        }
+        int instruction = entry;
+        while (instruction >= 0) {
+            if (test(instruction, state, binding)) {
+                instruction = onTrue[instruction];
+            } else {
+                instruction = onFalse[instruction];
+            }
+        }
+        return instruction == TRUE;
+    }
+
+    /**
+     * Carry out the test of an instruction.
+     * @param instruction the instruction
+     * @param state the state
+     * @param binding the id of the object bound to each parameter
+     * @return true if the test passes
+     */
+    private boolean test(final int instruction, final PackedState state, final int[] binding) {
+        int start = argumentStarts[instruction];
+        if (equalities[instruction]) {
+            return object(arguments[start], binding) == object(arguments[start + 1], binding);
+        }
+        int id = bases[instruction];
+        for (int i = start; i < argumentStarts[instruction + 1]; i++) {
+            int position = positions[i][binding[arguments[i]]];
+            if (position < 0) {
+                return false;
+            }
+            id += position * strides[i];
+        }
+        return state.get(id);
+    }
+
+    /**
+     * Get the object an argument of an equality stands for.
+     * @param argument the index of a parameter, or minus one minus the id of an object
+     * @param binding the id of the object bound to each parameter
+     * @return the id of the object
+     */
+    private static int object(final int argument, final int[] binding) {
+        if (argument < 0) {
+            return -1 - argument;
+        }
+        return binding[argument];
+    }
+
+    /**
+     * Builder for {@link CompiledFormula} programs, to which instructions are added one at a time. Each instruction
+     * must be given where to go next, so programs are usually built from their last instruction to their first.
+     */
+    static final class Builder {
+
+        private final List<Boolean> equalities = new ArrayList<>();
+        private final List<Integer> bases = new ArrayList<>();
+        private final List<Integer> argumentStarts = new ArrayList<>();
+        private final List<Integer> arguments = new ArrayList<>();
+        private final List<Integer> strides = new ArrayList<>();
+        private final List<int[]> positions = new ArrayList<>();
+        private final List<Integer> onTrue = new ArrayList<>();
+        private final List<Integer> onFalse = new ArrayList<>();
+
+        /**
+         * Add an instruction testing whether an atom holds.
+         * @param base the id of the atom if each of its arguments that is a parameter were in position zero
+         * @param parameters the parameters that are arguments of the atom
+         * @param parameterStrides the stride of each of those arguments
+         * @param parameterPositions the position of each object for each of those arguments
+         * @param whenTrue the instruction to go to if the atom holds
+         * @param whenFalse the instruction to go to if it does not
+         * @return the instruction
+         */
+        int atom(final int base, final List<Integer> parameters, final List<Integer> parameterStrides,
+                 final List<int[]> parameterPositions, final int whenTrue, final int whenFalse) {
+            int start = arguments.size();
+            arguments.addAll(parameters);
+            strides.addAll(parameterStrides);
+            positions.addAll(parameterPositions);
+            return add(false, base, start, whenTrue, whenFalse);
+        }
+
+        /**
+         * Add an instruction testing whether two arguments are the same object.
+         * @param left the first argument, as a parameter index or minus one minus the id of an object
+         * @param right the second argument, as a parameter index or minus one minus the id of an object
+         * @param whenTrue the instruction to go to if they are the same
+         * @param whenFalse the instruction to go to if they are not
+         * @return the instruction
+         */
+        int equality(final int left, final int right, final int whenTrue, final int whenFalse) {
+            int start = arguments.size();
+            arguments.add(left);
+            arguments.add(right);
+            strides.add(0);
+            strides.add(0);
+            positions.add(null);
+            positions.add(null);
+            return add(true, 0, start, whenTrue, whenFalse);
+        }
+
+        /**
+         * Add an instruction whose arguments have already been added.
+         * @param equality true if the instruction tests an equality rather than an atom
+         * @param base for atoms, the id of the atom if each parameter argument were in position zero
+         * @param start where the arguments of the instruction start
+         * @param whenTrue the instruction to go to if the test passes
+         * @param whenFalse the instruction to go to if the test fails
+         * @return the instruction
+         */
+        private int add(final boolean equality, final int base, final int start, final int whenTrue,
+                        final int whenFalse) {
+            equalities.add(equality);
+            bases.add(base);
+            argumentStarts.add(start);
+            onTrue.add(whenTrue);
+            onFalse.add(whenFalse);
+            return onTrue.size() - 1;
+        }
+
+        /**
+         * Build the finished program.
+         * @param parameterCount the number of parameters to bind
+         * @param entry the first instruction, or {@link #TRUE} or {@link #FALSE} if the formula is constant
+         * @return the program
+         */
+        CompiledFormula build(final int parameterCount, final int entry) {
+            return new CompiledFormula(this, parameterCount, entry);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+/**
+ * The metric of a problem, compiled by a {@link FluentCompiler} into a read of one slot of a vector of fluent values,
+ * so the cost of a state can be found without allocating or looking anything up.
+ */
+public final class CompiledMetric {
+
+    private final boolean minimize;
+
+    private final int slot;
+
+    private final double constant;
+
+    /**
+     * Constructor.
+     * @param minimize true if the metric is to be minimized, false if it is to be maximized
+     * @param slot the slot of the fluent the metric is the value of, or -1 if it is a number
+     * @param constant the number the metric is, if it is not the value of a fluent
+     */
+    CompiledMetric(final boolean minimize, final int slot, final double constant) {
+        this.minimize = minimize;
+        this.slot = slot;
+        this.constant = constant;
+    }
+
+    /**
+     * Check whether the metric is to be minimized.
+     * @return true if lower values are better, false if higher values are
+     */
+    public boolean isMinimize() {
+        return minimize;
+    }
+
+    /**
+     * Evaluate the metric.
+     * @param values the values of the fluents in a state
+     * @return the value of the metric in the state
+     */
+    public double evaluate(final double[] values) {
+        if (slot < 0) {
+            return constant;
+        }
+        return values[slot];
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.FluentTable;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.ForAll;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FormulaVisitor;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.IfThen;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Or;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Metric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiles the numeric effects of actions into {@link CompiledAssignments} and the metric of a problem into a
+ * {@link CompiledMetric}, over the fluents of a {@link FluentTable}. Each operator and number is resolved once, while
+ * compiling, so applying an effect involves no lookups or string comparisons.
+ *
+ * Only the numeric effects of an effect are compiled; its literals are left to the grounder. Numeric effects must be
+ * unconditional, and change a fluent by a number or by the value of another fluent. The program compiled for the
+ * effect of each action is cached. Thread safe.
+ */
+public final class FluentCompiler {
+
+    private final FluentTable table;
+
+    private final ConcurrentMap<String, CompiledAssignments> effects = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     * @param table the fluents of the problem that effects will change
+     */
+    public FluentCompiler(final FluentTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Get the program for the numeric effects of an action, compiling it the first time it is asked for. The
+     * parameters of the program are those of the action, in order, so the arguments of a ground operator can be
+     * used as the binding.
+     * @param action the action
+     * @return the program, which has no assignments if the action has no numeric effects
+     * @throws IllegalArgumentException if the numeric effects cannot be compiled
+     */
+    public CompiledAssignments effect(final Action action) {
+        CompiledAssignments compiled = effects.get(action.getName());
+        if (compiled == null) {
+            Formula formula = new And.Builder().build();
+            if (action.getEffect().getEffect().isPresent()) {
+                formula = action.getEffect().getEffect().get();
+            }
+            compiled = compile(formula, action.getParameters());
+            CompiledAssignments existing = effects.putIfAbsent(action.getName(), compiled);
+            if (existing != null) {
+                compiled = existing;
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Compile the numeric effects of a ground effect.
+     * @param formula the effect
+     * @return the program
+     * @throws IllegalArgumentException if the numeric effects cannot be compiled
+     */
+    public CompiledAssignments compile(final Formula formula) {
+        return compile(formula, Collections.<Variable>emptyList());
+    }
+
+    /**
+     * Compile the numeric effects of an effect whose free variables are bound each time it is applied.
+     * @param formula the effect
+     * @param parameters the free variables, in the order objects will be bound to them
+     * @return the program
+     * @throws IllegalArgumentException if the numeric effects cannot be compiled
+     */
+    public CompiledAssignments compile(final Formula formula, final List<Variable> parameters) {
+        Map<String, Integer> scope = new HashMap<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            scope.put(parameters.get(i).getName(), i);
+        }
+        CompiledAssignments.Builder builder = new CompiledAssignments.Builder();
+        formula.accept(new Assignments(builder, scope, false));
+        return builder.build(parameters.size());
+    }
+
+    /**
+     * Compile the metric of a problem.
+     * @param metric the metric
+     * @return the compiled metric
+     * @throws IllegalArgumentException if the metric is neither minimized nor maximized, or is not a number or the
+     * value of a ground fluent
+     */
+    public CompiledMetric metric(final Metric metric) {
+        boolean minimize = "minimize".equals(metric.getName());
+        if (!minimize && !"maximize".equals(metric.getName())) {
+            throw new IllegalArgumentException("Metric " + metric.getName() + " is neither minimize nor maximize");
+        }
+        if (!(metric.getFormula() instanceof FunctionTerm)) {
+            throw new IllegalArgumentException("Metric " + metric.getFormula()
+                    + " is of a form that cannot be compiled");
+        }
+        FunctionTerm term = (FunctionTerm) metric.getFormula();
+        Optional<NumberTerm> number = term.getNumber();
+        if (number.isPresent()) {
+            return new CompiledMetric(minimize, -1, number.get().getValue());
+        }
+        int slot = table.slot(term);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Metric " + term.getName() + " is not one of the ground fluents");
+        }
+        return new CompiledMetric(minimize, slot, 0.0);
+    }
+
+    /**
+     * Collects the numeric effects of an effect, ignoring its literals.
+     */
+    private final class Assignments implements FormulaVisitor<Void> {
+
+        private final CompiledAssignments.Builder builder;
+
+        private final Map<String, Integer> scope;
+
+        private final boolean conditional;
+
+        /**
+         * Constructor.
+         * @param builder the builder to add assignments to
+         * @param scope the index of each parameter in scope
+         * @param conditional true if the effect is part of a conditional or quantified effect
+         */
+        private Assignments(final CompiledAssignments.Builder builder, final Map<String, Integer> scope,
+                            final boolean conditional) {
+            this.builder = builder;
+            this.scope = scope;
+            this.conditional = conditional;
+        }
+
+        @Override
+        public Void visit(final And and) {
+            for (Formula conjunct : and.asList()) {
+                conjunct.accept(this);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(final Not not) {
+            return null;
+        }
+
+        @Override
+        public Void visit(final Predicate predicate) {
+            return null;
+        }
+
+        @Override
+        public Void visit(final Equals equals) {
+            return null;
+        }
+
+        @Override
+        public Void visit(final IfThen ifThen) {
+            return ifThen.getConsequence().accept(new Assignments(builder, scope, true));
+        }
+
+        @Override
+        public Void visit(final ForAll forAll) {
+            return forAll.getFormula().accept(new Assignments(builder, scope, true));
+        }
+
+        @Override
+        public Void visit(final Operation operation) {
+            if (conditional || !operation.getAssignmentOperator().isPresent()) {
+                throw unsupported(operation);
+            }
+            int target = fluent(operation.getConsequent());
+            Optional<NumberTerm> number = operation.getAntecedent().getNumber();
+            if (number.isPresent()) {
+                builder.assign(operation.getAssignmentOperator().get(), target, number.get().getValue());
+            } else {
+                builder.assign(operation.getAssignmentOperator().get(), target, fluent(operation.getAntecedent()));
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(final Or or) {
+            throw unsupported(or);
+        }
+
+        @Override
+        public Void visit(final FunctionTerm functionTerm) {
+            throw unsupported(functionTerm);
+        }
+
+        @Override
+        public Void visit(final FunctionDefinition functionDefinition) {
+            throw unsupported(functionDefinition);
+        }
+
+        /**
+         * Add a fluent that is the target or value of an assignment.
+         * @param term the function term naming the fluent
+         * @return the reference to the fluent
+         * @throws IllegalArgumentException if the term is not an instance of one of the domain's functions
+         */
+        private int fluent(final FunctionTerm term) {
+            int function = -1;
+            if (term.getName() != null) {
+                function = table.functionId(term.getName());
+            }
+            if (function < 0 || table.getArity(function) != term.getTerms().size()) {
+                throw new IllegalArgumentException("Function " + term.getName() + " with " + term.getTerms().size()
+                        + " arguments is not defined by the domain");
+            }
+            int base = table.offset(function);
+            List<Integer> parameters = new ArrayList<>();
+            List<Integer> strides = new ArrayList<>();
+            List<int[]> positions = new ArrayList<>();
+            for (int i = 0; i < term.getTerms().size(); i++) {
+                Term argument = term.getTerms().get(i);
+                if (argument instanceof Variable && scope.containsKey(((Variable) argument).getName())) {
+                    parameters.add(scope.get(((Variable) argument).getName()));
+                    strides.add(table.stride(function, i));
+                    positions.add(table.positions(function, i));
+                } else if (argument instanceof Constant) {
+                    int object = table.getTypeHierarchy().objectId(((Constant) argument).getName());
+                    if (object < 0 || table.positions(function, i)[object] < 0) {
+                        throw new IllegalArgumentException("Argument " + argument + " of function " + term.getName()
+                                + " is not an object of the right type");
+                    }
+                    base += table.positions(function, i)[object] * table.stride(function, i);
+                } else {
+                    throw new IllegalArgumentException("Argument " + argument
+                            + " is neither a variable in scope nor an object");
+                }
+            }
+            return builder.fluent(base, parameters, strides, positions);
+        }
+
+        /**
+         * Create the exception for a formula that is not a numeric effect that can be compiled.
+         * @param formula the formula
+         * @return the exception
+         */
+        private IllegalArgumentException unsupported(final Formula formula) {
+            return new IllegalArgumentException("Effect " + formula + " is of a form that cannot be compiled");
+        }
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.TypeHierarchy;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.ForAll;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FormulaVisitor;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.IfThen;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Or;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Variable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiles conditions made up of conjunctions, disjunctions, negations, atoms, equalities and universal
+ * quantification into {@link CompiledFormula} programs over the atoms of a {@link GroundAtomTable}. Quantified
+ * formulas are expanded over the objects of their variables' types and equalities that do not depend on a parameter
+ * are decided while compiling.
+ *
+ * The program compiled for the precondition of each action is cached, so is only compiled once however many
+ * instances of the action are checked. Looking it up still costs about as much as evaluating it, so the innermost
+ * loops of a search should keep hold of the programs they use. Thread safe.
+ */
+public final class FormulaCompiler {
+
+    private final GroundAtomTable table;
+
+    private final TypeHierarchy hierarchy;
+
+    private final ConcurrentMap<String, CompiledFormula> preconditions = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor.
+     * @param table the atoms of the problem that formulas will be evaluated against
+     */
+    public FormulaCompiler(final GroundAtomTable table) {
+        this.table = table;
+        hierarchy = table.getTypeHierarchy();
+    }
+
+    /**
+     * Get the program for the precondition of an action, compiling it the first time it is asked for. The
+     * parameters of the program are those of the action, in order, so the arguments of a ground operator can be
+     * used as the binding.
+     * @param action the action
+     * @return the program
+     * @throws IllegalArgumentException if the precondition cannot be compiled
+     */
+    public CompiledFormula precondition(final Action action) {
+        CompiledFormula compiled = preconditions.get(action.getName());
+        if (compiled == null) {
+            Formula formula = new And.Builder().build();
+            if (action.getPrecondition().getPrecondition().isPresent()) {
+                formula = action.getPrecondition().getPrecondition().get();
+            }
+            compiled = compile(formula, action.getParameters());
+            CompiledFormula existing = preconditions.putIfAbsent(action.getName(), compiled);
+            if (existing != null) {
+                compiled = existing;
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Compile a ground formula, such as the goal of a problem.
+     * @param formula the formula
+     * @return the program
+     * @throws IllegalArgumentException if the formula cannot be compiled
+     */
+    public CompiledFormula compile(final Formula formula) {
+        return compile(formula, Collections.<Variable>emptyList());
+    }
+
+    /**
+     * Compile a formula whose free variables are bound each time it is evaluated.
+     * @param formula the formula
+     * @param parameters the free variables, in the order objects will be bound to them
+     * @return the program
+     * @throws IllegalArgumentException if the formula cannot be compiled
+     */
+    public CompiledFormula compile(final Formula formula, final List<Variable> parameters) {
+        Map<String, Integer> scope = new HashMap<>();
+        for (int i = 0; i < parameters.size(); i++) {
+            scope.put(parameters.get(i).getName(), i);
+        }
+        Program program = new Program();
+        int entry = formula.accept(program.new Branch(CompiledFormula.TRUE, CompiledFormula.FALSE, scope));
+        return program.build(parameters.size(), entry);
+    }
+
+    /**
+     * Encode an argument as the index of a parameter, or minus one minus the id of an object.
+     * @param term the argument
+     * @param scope the encoding of each variable in scope
+     * @return the encoding
+     * @throws IllegalArgumentException if the argument is neither a variable in scope nor an object
+     */
+    private int argument(final Term term, final Map<String, Integer> scope) {
+        if (term instanceof Variable && scope.containsKey(((Variable) term).getName())) {
+            return scope.get(((Variable) term).getName());
+        }
+        if (term instanceof Constant) {
+            int object = hierarchy.objectId(((Constant) term).getName());
+            if (object >= 0) {
+                return -1 - object;
+            }
+        }
+        throw new IllegalArgumentException("Argument " + term + " is neither a variable in scope nor an object");
+    }
+
+    /**
+     * The instructions of a program being compiled. Each formula is compiled knowing where to go once it is known to
+     * hold or not, so conjunctions and disjunctions are compiled from their last part to their first.
+     */
+    private final class Program {
+
+        private final CompiledFormula.Builder builder = new CompiledFormula.Builder();
+
+        /**
+         * Build the finished program.
+         * @param parameterCount the number of parameters
+         * @param entry the first instruction
+         * @return the program
+         */
+        private CompiledFormula build(final int parameterCount, final int entry) {
+            return builder.build(parameterCount, entry);
+        }
+
+        /**
+         * Compiles one formula, given where to go once it is known to hold or not, returning where to start.
+         */
+        private final class Branch implements FormulaVisitor<Integer> {
+
+            private final int whenTrue;
+
+            private final int whenFalse;
+
+            private final Map<String, Integer> scope;
+
+            /**
+             * Constructor.
+             * @param whenTrue the instruction to go to if the formula holds
+             * @param whenFalse the instruction to go to if the formula does not hold
+             * @param scope the encoding of each variable in scope
+             */
+            private Branch(final int whenTrue, final int whenFalse, final Map<String, Integer> scope) {
+                this.whenTrue = whenTrue;
+                this.whenFalse = whenFalse;
+                this.scope = scope;
+            }
+
+            @Override
+            public Integer visit(final And and) {
+                int entry = whenTrue;
+                List<Formula> conjuncts = and.asList();
+                for (int i = conjuncts.size() - 1; i >= 0; i--) {
+                    entry = conjuncts.get(i).accept(new Branch(entry, whenFalse, scope));
+                }
+                return entry;
+            }
+
+            @Override
+            public Integer visit(final Or or) {
+                int entry = whenFalse;
+                List<Formula> disjuncts = or.asList();
+                for (int i = disjuncts.size() - 1; i >= 0; i--) {
+                    entry = disjuncts.get(i).accept(new Branch(whenTrue, entry, scope));
+                }
+                return entry;
+            }
+
+            @Override
+            public Integer visit(final Not not) {
+                return not.getFormula().accept(new Branch(whenFalse, whenTrue, scope));
+            }
+
+            @Override
+            public Integer visit(final Predicate predicate) {
+                int id = table.predicateId(predicate.getName());
+                if (id < 0 || table.getArity(id) != predicate.getTerms().size()) {
+                    throw new IllegalArgumentException("Predicate " + predicate.getName() + " with "
+                            + predicate.getTerms().size() + " arguments is not defined by the domain");
+                }
+                int base = table.offset(id);
+                List<Integer> parameters = new ArrayList<>();
+                List<Integer> strides = new ArrayList<>();
+                List<int[]> positions = new ArrayList<>();
+                for (int i = 0; i < predicate.getTerms().size(); i++) {
+                    int argument = argument(predicate.getTerms().get(i), scope);
+                    if (argument < 0) {
+                        int position = table.positions(id, i)[-1 - argument];
+                        if (position < 0) {
+                            return whenFalse;
+                        }
+                        base += position * table.stride(id, i);
+                    } else {
+                        parameters.add(argument);
+                        strides.add(table.stride(id, i));
+                        positions.add(table.positions(id, i));
+                    }
+                }
+                return builder.atom(base, parameters, strides, positions, whenTrue, whenFalse);
+            }
+
+            @Override
+            public Integer visit(final Equals equals) {
+                int left = argument(equals.getLeft(), scope);
+                int right = argument(equals.getRight(), scope);
+                if (left == right) {
+                    return whenTrue;
+                } else if (left < 0 && right < 0) {
+                    return whenFalse;
+                }
+                return builder.equality(left, right, whenTrue, whenFalse);
+            }
+
+            @Override
+            public Integer visit(final ForAll forAll) {
+                List<Map<String, Integer>> scopes = new ArrayList<>();
+                scopes.add(scope);
+                for (Variable variable : forAll.getVariables()) {
+                    List<Map<String, Integer>> extended = new ArrayList<>();
+                    for (Map<String, Integer> partial : scopes) {
+                        for (int object : hierarchy.objects(variable.getType())) {
+                            Map<String, Integer> bound = new HashMap<>(partial);
+                            bound.put(variable.getName(), -1 - object);
+                            extended.add(bound);
+                        }
+                    }
+                    scopes = extended;
+                }
+                int entry = whenTrue;
+                for (int i = scopes.size() - 1; i >= 0; i--) {
+                    entry = forAll.getFormula().accept(new Branch(entry, whenFalse, scopes.get(i)));
+                }
+                return entry;
+            }
+
+            @Override
+            public Integer visit(final IfThen ifThen) {
+                throw unsupported(ifThen);
+            }
+
+            @Override
+            public Integer visit(final Operation operation) {
+                throw unsupported(operation);
+            }
+
+            @Override
+            public Integer visit(final FunctionTerm functionTerm) {
+                throw unsupported(functionTerm);
+            }
+
+            @Override
+            public Integer visit(final FunctionDefinition functionDefinition) {
+                throw unsupported(functionDefinition);
+            }
+
+            /**
+             * Create the exception for a formula that is not a condition on a state.
+             * @param formula the formula
+             * @return the exception
+             */
+            private IllegalArgumentException unsupported(final Formula formula) {
+                return new IllegalArgumentException("Formula " + formula + " is of a form that cannot be compiled");
+            }
+        }
+    }
+}
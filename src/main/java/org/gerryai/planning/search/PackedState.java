@@ -0,0 +1,323 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+import org.gerryai.planning.grounding.ConditionalEffect;
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.model.GroundAtomTable;
+
+import java.util.Arrays;
+
+/**
+ * A planning state packed into a bitset over the ids of a {@link GroundAtomTable}, where bit {@code id} is set if
+ * the atom with that id holds. Bits beyond the atoms can hold multi-valued variables as fixed-width fields.
+ *
+ * States are mutable so that search can reuse them: checking whether an operator applies and applying it allocate
+ * nothing, the successor being written into a state supplied by the caller.
+ */
+public final class PackedState {
+
+    private static final int WORD_SHIFT = 6;
+
+    private static final int WORD_BITS = 64;
+
+    private static final int WORD_MASK = WORD_BITS - 1;
+
+    private static final long HASH_SEED = 0x9E3779B97F4A7C15L;
+
+    private static final long MIX_1 = 0xFF51AFD7ED558CCDL;
+
+    private static final long MIX_2 = 0xC4CEB9FE1A85EC53L;
+
+    private static final int MIX_SHIFT = 33;
+
+    private final long[] words;
+
+    /**
+     * Constructor for an empty state.
+     * @param size the number of bits the state must be able to hold
+     */
+    public PackedState(final int size) {
+        words = new long[(size + WORD_MASK) >>> WORD_SHIFT];
+    }
+
+    /**
+     * Constructor for a state holding a copy of a bitset, such as {@link GroundAtomTable#getInitialState()}.
+     * @param bits the bitset
+     */
+    public PackedState(final long[] bits) {
+        words = bits.clone();
+    }
+
+    /**
+     * Create the initial state of a grounded problem.
+     * @param atoms the atoms of the problem
+     * @return the initial state
+     */
+    public static PackedState initial(final GroundAtomTable atoms) {
+        return new PackedState(atoms.getInitialState());
+    }
+
+    /**
+     * Get the number of 64-bit words the state is packed into.
+     * @return the number of words
+     */
+    public int getWordCount() {
+        return words.length;
+    }
+
+    /**
+     * Get one of the words the state is packed into.
+     * @param index the index of the word
+     * @return the word
+     */
+    long word(final int index) {
+        return words[index];
+    }
+
+    /**
+     * Check whether an atom holds in this state.
+     * @param id the id of the atom
+     * @return true if the atom holds
+     */
+    public boolean get(final int id) {
+        return (words[id >>> WORD_SHIFT] & (1L << id)) != 0;
+    }
+
+    /**
+     * Find the next atom that holds in this state, so the atoms that hold can be visited without checking every id.
+     * Bits beyond the atoms are included, so callers using fields must stop at the number of atoms.
+     * @param from the id to start looking from
+     * @return the lowest id no less than {@code from} of an atom that holds, or -1 if there is none
+     */
+    public int nextSetBit(final int from) {
+        int index = from >>> WORD_SHIFT;
+        if (index >= words.length) {
+            return -1;
+        }
+        long word = words[index] & (-1L << from);
+        while (word == 0) {
+            index++;
+            if (index == words.length) {
+                return -1;
+            }
+            word = words[index];
+        }
+        return (index << WORD_SHIFT) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Make an atom hold in this state.
+     * @param id the id of the atom
+     */
+    public void set(final int id) {
+        words[id >>> WORD_SHIFT] |= 1L << id;
+    }
+
+    /**
+     * Make an atom not hold in this state.
+     * @param id the id of the atom
+     */
+    public void clear(final int id) {
+        words[id >>> WORD_SHIFT] &= ~(1L << id);
+    }
+
+    /**
+     * Get the value of a fixed-width field, which may span two words.
+     * @param offset the index of the lowest bit of the field
+     * @param width the number of bits in the field, from 1 to 64
+     * @return the value of the field
+     */
+    public long getField(final int offset, final int width) {
+        int word = offset >>> WORD_SHIFT;
+        int shift = offset & WORD_MASK;
+        long value = words[word] >>> shift;
+        if (shift + width > WORD_BITS) {
+            value |= words[word + 1] << (WORD_BITS - shift);
+        }
+        return value & mask(width);
+    }
+
+    /**
+     * Set the value of a fixed-width field, which may span two words.
+     * @param offset the index of the lowest bit of the field
+     * @param width the number of bits in the field, from 1 to 64
+     * @param value the new value, of which only the lowest {@code width} bits are kept
+     */
+    public void setField(final int offset, final int width, final long value) {
+        int word = offset >>> WORD_SHIFT;
+        int shift = offset & WORD_MASK;
+        long mask = mask(width);
+        long bits = value & mask;
+        words[word] = words[word] & ~(mask << shift) | bits << shift;
+        if (shift + width > WORD_BITS) {
+            int spill = WORD_BITS - shift;
+            words[word + 1] = words[word + 1] & ~(mask >>> spill) | bits >>> spill;
+        }
+    }
+
+    /**
+     * Get a mask of the lowest bits of a word.
+     * @param width the number of bits, from 1 to 64
+     * @return the mask
+     */
+    private static long mask(final int width) {
+        return -1L >>> (WORD_BITS - width);
+    }
+
+    /**
+     * Check whether all of a set of atoms hold in this state, and none of another.
+     * @param positive the atoms that must hold
+     * @param negative the atoms that must not hold
+     * @return true if the condition is met
+     */
+    private boolean holds(final int[] positive, final int[] negative) {
+        for (int id : positive) {
+            if (!get(id)) {
+                return false;
+            }
+        }
+        for (int id : negative) {
+            if (get(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether an operator can be applied in this state.
+     * @param operator the operator
+     * @return true if its precondition holds
+     */
+    public boolean isApplicable(final GroundOperator operator) {
+        return holds(operator.getPrecondition(), operator.getNegativePrecondition());
+    }
+
+    /**
+     * Apply an operator to this state, writing the result into another state. Conditional effects are triggered by
+     * this state, and every atom deleted by the operator is removed before any it adds are added, so an atom both
+     * added and deleted holds in the successor. Whether the operator is applicable is not checked.
+     * @param operator the operator
+     * @param successor the state to overwrite with the result, of the same size as this one
+     * @throws IllegalArgumentException if the successor is this state
+     */
+    public void apply(final GroundOperator operator, final PackedState successor) {
+        if (successor == this) {
+            throw new IllegalArgumentException("The successor must be a different state to the one applied to");
+        }
+        System.arraycopy(words, 0, successor.words, 0, words.length);
+        ConditionalEffect[] conditionalEffects = operator.getConditionalEffects();
+        for (int id : operator.getDeleteEffects()) {
+            successor.clear(id);
+        }
+        for (ConditionalEffect effect : conditionalEffects) {
+            if (holds(effect.getCondition(), effect.getNegativeCondition())) {
+                for (int id : effect.getDeleteEffects()) {
+                    successor.clear(id);
+                }
+            }
+        }
+        for (int id : operator.getAddEffects()) {
+            successor.set(id);
+        }
+        for (ConditionalEffect effect : conditionalEffects) {
+            if (holds(effect.getCondition(), effect.getNegativeCondition())) {
+                for (int id : effect.getAddEffects()) {
+                    successor.set(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Check whether a goal is met in this state.
+     * @param goal the atoms that must hold, as a bitset of the same size as this state
+     * @param negatedGoal the atoms that must not hold, as a bitset of the same size as this state
+     * @return true if the goal is met
+     */
+    public boolean satisfies(final long[] goal, final long[] negatedGoal) {
+        for (int i = 0; i < words.length; i++) {
+            if ((words[i] & goal[i]) != goal[i] || (words[i] & negatedGoal[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Create a copy of this state.
+     * @return the copy
+     */
+    public PackedState copy() {
+        return new PackedState(words);
+    }
+
+    /**
+     * Overwrite this state with another of the same size.
+     * @param other the state to copy
+     */
+    public void copyFrom(final PackedState other) {
+        System.arraycopy(other.words, 0, words, 0, words.length);
+    }
+
+    /**
+     * Get a 64-bit hash of this state, for detecting duplicates among very many states. The hash depends only on the
+     * bits set, so is the same on every run and every platform.
+     * @return the hash
+     */
+    public long hash64() {
+        long hash = words.length;
+        for (long word : words) {
+            hash = (hash ^ fmix64(word + HASH_SEED)) * MIX_1;
+        }
+        return fmix64(hash);
+    }
+
+    /**
+     * The finalisation step of MurmurHash3, which mixes every bit of the input into every bit of the output.
+     * @param value the value to mix
+     * @return the mixed value
+     */
+    private static long fmix64(final long value) {
+        long mixed = value;
+        mixed ^= mixed >>> MIX_SHIFT;
+        mixed *= MIX_1;
+        mixed ^= mixed >>> MIX_SHIFT;
+        mixed *= MIX_2;
+        mixed ^= mixed >>> MIX_SHIFT;
+        return mixed;
+    }
+
+    @Override
+    public int hashCode() {
+        long hash = hash64();
+        return (int) (hash ^ (hash >>> Integer.SIZE));
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        return Arrays.equals(words, ((PackedState) obj).words);
+    }
+}
@@ -0,0 +1,417 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+import org.gerryai.planning.grounding.GroundOperator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the operators applicable in a state using a decision tree over their preconditions, in the style of the
+ * successor generator of Fast Downward, rather than checking the precondition of every operator.
+ *
+ * The conditions of each operator are sorted by atom id and the tree consumes them in that order. Each node holds
+ * the operators with no conditions left, a switch over the atoms that operators below it next require to hold and a
+ * list of tests for the atoms that some of them next require not to hold. A switch leads to a child for each of its
+ * atoms that holds, found either by checking each atom or, where the atoms are dense, by scanning the set bits of
+ * the state in their range. A test leads to one child if its atom holds and another if it does not. Looking up the
+ * operators applicable in a state only visits children the state agrees with, so takes time roughly proportional to
+ * the number of operators found rather than the number of operators.
+ */
+public final class SuccessorGenerator {
+
+    private static final int NONE = -1;
+
+    private static final int WORD_SHIFT = 6;
+
+    private static final int WORD_MASK = Long.SIZE - 1;
+
+    /**
+     * How many atoms per word a switch must have in its range for scanning the state to beat checking each atom.
+     */
+    private static final int DENSE_ATOMS_PER_WORD = 4;
+
+    private final List<GroundOperator> operators;
+
+    private final int[] order;
+
+    private final int[] immediateStart;
+
+    private final int[] immediateEnd;
+
+    private final int[] switchStart;
+
+    private final int[] switchEnd;
+
+    private final boolean[] dense;
+
+    private final int[] switchAtoms;
+
+    private final int[] switchChildren;
+
+    private final int[] testStart;
+
+    private final int[] testEnd;
+
+    private final int[] testAtoms;
+
+    private final int[] trueChildren;
+
+    private final int[] falseChildren;
+
+    private final int depth;
+
+    /**
+     * Constructor.
+     * @param operators the operators to choose from
+     */
+    public SuccessorGenerator(final List<GroundOperator> operators) {
+        this.operators = Collections.unmodifiableList(operators);
+        order = new int[operators.size()];
+        int[][] conditions = new int[operators.size()][];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            conditions[i] = conditions(operators.get(i));
+        }
+        Builder builder = new Builder(conditions);
+        builder.build();
+        immediateStart = builder.immediateStart.toArray();
+        immediateEnd = builder.immediateEnd.toArray();
+        switchStart = builder.switchStart.toArray();
+        switchEnd = builder.switchEnd.toArray();
+        dense = new boolean[switchEnd.length];
+        switchAtoms = builder.switchAtoms.toArray();
+        switchChildren = builder.switchChildren.toArray();
+        testStart = builder.testStart.toArray();
+        testEnd = builder.testEnd.toArray();
+        testAtoms = builder.testAtoms.toArray();
+        trueChildren = builder.trueChildren.toArray();
+        falseChildren = builder.falseChildren.toArray();
+        depth = builder.depth;
+        for (int node = 0; node < switchEnd.length; node++) {
+            int start = switchStart[node];
+            if (start < switchEnd[node]) {
+                int words = (switchAtoms[switchEnd[node] - 1] >>> WORD_SHIFT) - (switchAtoms[start] >>> WORD_SHIFT) + 1;
+                dense[node] = switchEnd[node] - start > DENSE_ATOMS_PER_WORD * words;
+            }
+        }
+    }
+
+    /**
+     * Encode the precondition of an operator as a sorted array of literals, each being twice the id of an atom plus
+     * one if the atom must not hold.
+     * @param operator the operator
+     * @return the literals
+     */
+    private static int[] conditions(final GroundOperator operator) {
+        int[] positive = operator.getPrecondition();
+        int[] negative = operator.getNegativePrecondition();
+        int[] literals = new int[positive.length + negative.length];
+        for (int i = 0; i < positive.length; i++) {
+            literals[i] = positive[i] << 1;
+        }
+        for (int i = 0; i < negative.length; i++) {
+            literals[positive.length + i] = negative[i] << 1 | 1;
+        }
+        Arrays.sort(literals);
+        int size = 0;
+        for (int literal : literals) {
+            if (size == 0 || literals[size - 1] != literal) {
+                literals[size++] = literal;
+            }
+        }
+        return Arrays.copyOf(literals, size);
+    }
+
+    /**
+     * Get the operators chosen from.
+     * @return the operators
+     */
+    public List<GroundOperator> getOperators() {
+        return operators;
+    }
+
+    /**
+     * Get the number of nodes in the tree.
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return immediateEnd.length;
+    }
+
+    /**
+     * Get the number of nodes on the longest path from the root of the tree, which is one more than the most
+     * conditions of any operator.
+     * @return the depth of the tree
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Find the operators applicable in a state. Nothing is allocated other than by the list the operators are added
+     * to.
+     * @param state the state
+     * @param applicable the list to add the applicable operators to
+     */
+    public void generate(final PackedState state, final List<GroundOperator> applicable) {
+        generate(0, state, applicable);
+    }
+
+    /**
+     * Find the operators applicable in a state below a node of the tree.
+     * @param node the node
+     * @param state the state
+     * @param applicable the list to add the applicable operators to
+     */
+    private void generate(final int node, final PackedState state, final List<GroundOperator> applicable) {
+        for (int i = immediateStart[node]; i < immediateEnd[node]; i++) {
+            applicable.add(operators.get(order[i]));
+        }
+        int start = switchStart[node];
+        int end = switchEnd[node];
+        if (dense[node]) {
+            int first = switchAtoms[start];
+            int last = switchAtoms[end - 1];
+            for (int word = first >>> WORD_SHIFT; word <= last >>> WORD_SHIFT; word++) {
+                long bits = state.word(word);
+                if (word == first >>> WORD_SHIFT) {
+                    bits &= -1L << first;
+                }
+                if (word == last >>> WORD_SHIFT) {
+                    bits &= -1L >>> (WORD_MASK - (last & WORD_MASK));
+                }
+                while (bits != 0) {
+                    int index = Arrays.binarySearch(switchAtoms, start, end,
+                            word << WORD_SHIFT | Long.numberOfTrailingZeros(bits));
+                    if (index >= 0) {
+                        generate(switchChildren[index], state, applicable);
+                    }
+                    bits &= bits - 1;
+                }
+            }
+        } else {
+            for (int i = start; i < end; i++) {
+                if (state.get(switchAtoms[i])) {
+                    generate(switchChildren[i], state, applicable);
+                }
+            }
+        }
+        for (int i = testStart[node]; i < testEnd[node]; i++) {
+            int child = falseChildren[i];
+            if (state.get(testAtoms[i])) {
+                child = trueChildren[i];
+            }
+            if (child != NONE) {
+                generate(child, state, applicable);
+            }
+        }
+    }
+
+    /**
+     * Builds the tree breadth first. Nodes are numbered in the order they are created, so are also built in order of
+     * number. Each node is given a contiguous range of the order array, which it sorts by the next condition of each
+     * operator so that the operators of each of its children form a contiguous sub-range.
+     */
+    private final class Builder {
+
+        private final int[][] conditions;
+
+        private final int[] position;
+
+        private final long[] keys;
+
+        private final IntList nodeStart = new IntList();
+        private final IntList nodeEnd = new IntList();
+        private final IntList nodeDepth = new IntList();
+
+        private final IntList immediateStart = new IntList();
+        private final IntList immediateEnd = new IntList();
+        private final IntList switchStart = new IntList();
+        private final IntList switchEnd = new IntList();
+        private final IntList switchAtoms = new IntList();
+        private final IntList switchChildren = new IntList();
+        private final IntList testStart = new IntList();
+        private final IntList testEnd = new IntList();
+        private final IntList testAtoms = new IntList();
+        private final IntList trueChildren = new IntList();
+        private final IntList falseChildren = new IntList();
+
+        private int depth;
+
+        /**
+         * Constructor.
+         * @param conditions the literals of each operator
+         */
+        private Builder(final int[][] conditions) {
+            this.conditions = conditions;
+            position = new int[conditions.length];
+            keys = new long[conditions.length];
+        }
+
+        /**
+         * Build every node of the tree.
+         */
+        private void build() {
+            node(0, order.length, 1);
+            for (int node = 0; node < nodeStart.size(); node++) {
+                build(node);
+            }
+        }
+
+        /**
+         * Create a node for a range of operators, to be built later.
+         * @param start the start of the range, inclusive
+         * @param end the end of the range, exclusive
+         * @param nodeDepth the depth of the node
+         * @return the node
+         */
+        private int node(final int start, final int end, final int nodeDepth) {
+            nodeStart.add(start);
+            nodeEnd.add(end);
+            this.nodeDepth.add(nodeDepth);
+            depth = Math.max(depth, nodeDepth);
+            return nodeStart.size() - 1;
+        }
+
+        /**
+         * Build one node, creating its children.
+         * @param node the node
+         */
+        private void build(final int node) {
+            int start = nodeStart.get(node);
+            int end = nodeEnd.get(node);
+            int childDepth = nodeDepth.get(node) + 1;
+            sort(start, end);
+            int group = start;
+            while (group < end && next(order[group]) == NONE) {
+                group++;
+            }
+            immediateStart.add(start);
+            immediateEnd.add(group);
+            switchStart.add(switchAtoms.size());
+            testStart.add(testAtoms.size());
+            while (group < end) {
+                int atom = next(order[group]) >>> 1;
+                int forbidding = group;
+                while (forbidding < end && next(order[forbidding]) == atom << 1) {
+                    forbidding++;
+                }
+                int groupEnd = forbidding;
+                while (groupEnd < end && next(order[groupEnd]) == (atom << 1 | 1)) {
+                    groupEnd++;
+                }
+                for (int i = group; i < groupEnd; i++) {
+                    position[order[i]]++;
+                }
+                if (forbidding == groupEnd) {
+                    switchAtoms.add(atom);
+                    switchChildren.add(node(group, forbidding, childDepth));
+                } else {
+                    testAtoms.add(atom);
+                    if (group == forbidding) {
+                        trueChildren.add(NONE);
+                    } else {
+                        trueChildren.add(node(group, forbidding, childDepth));
+                    }
+                    falseChildren.add(node(forbidding, groupEnd, childDepth));
+                }
+                group = groupEnd;
+            }
+            switchEnd.add(switchAtoms.size());
+            testEnd.add(testAtoms.size());
+        }
+
+        /**
+         * Get the next condition of an operator.
+         * @param operator the operator
+         * @return the literal, or {@link #NONE} if it has no conditions left
+         */
+        private int next(final int operator) {
+            if (position[operator] == conditions[operator].length) {
+                return NONE;
+            }
+            return conditions[operator][position[operator]];
+        }
+
+        /**
+         * Sort a range of the order array by the next condition of each operator, those with none left first.
+         * @param start the start of the range, inclusive
+         * @param end the end of the range, exclusive
+         */
+        private void sort(final int start, final int end) {
+            for (int i = start; i < end; i++) {
+                keys[i - start] = (long) (next(order[i]) + 1) << Integer.SIZE | order[i];
+            }
+            Arrays.sort(keys, 0, end - start);
+            for (int i = start; i < end; i++) {
+                order[i] = (int) keys[i - start];
+            }
+        }
+    }
+
+    /**
+     * A growable list of ints.
+     */
+    private static final class IntList {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private int[] values = new int[INITIAL_CAPACITY];
+
+        private int size;
+
+        /**
+         * Add a value.
+         * @param value the value
+         */
+        private void add(final int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, 2 * size);
+            }
+            values[size++] = value;
+        }
+
+        /**
+         * Get a value.
+         * @param index the index of the value
+         * @return the value
+         */
+        private int get(final int index) {
+            return values[index];
+        }
+
+        /**
+         * Get the number of values.
+         * @return the number of values
+         */
+        private int size() {
+            return size;
+        }
+
+        /**
+         * Copy the values into an array.
+         * @return the array
+         */
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
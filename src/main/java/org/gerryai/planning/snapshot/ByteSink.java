@@ -0,0 +1,112 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.snapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable array of bytes that snapshots are written into. Not thread safe.
+ */
+final class ByteSink {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Append a single byte.
+     * @param value the byte
+     */
+    void writeByte(final int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte) value;
+    }
+
+    /**
+     * Append bytes from an array.
+     * @param values the bytes
+     */
+    void writeBytes(final byte[] values) {
+        ensureCapacity(values.length);
+        System.arraycopy(values, 0, bytes, size, values.length);
+        size += values.length;
+    }
+
+    /**
+     * Append a non-negative integer as an unsigned varint.
+     * @param value the integer
+     */
+    void writeVarint(final int value) {
+        ensureCapacity(SnapshotFormat.MAX_VARINT_BYTES);
+        int remaining = value;
+        while ((remaining & ~SnapshotFormat.VARINT_MASK) != 0) {
+            bytes[size++] = (byte) ((remaining & SnapshotFormat.VARINT_MASK) | SnapshotFormat.VARINT_MORE);
+            remaining >>>= SnapshotFormat.VARINT_SHIFT;
+        }
+        bytes[size++] = (byte) remaining;
+    }
+
+    /**
+     * Get the number of bytes written.
+     * @return the number of bytes
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Copy the bytes written into an array.
+     * @param target the array to copy into
+     * @param offset where in the array to copy them to
+     */
+    void copyTo(final byte[] target, final int offset) {
+        System.arraycopy(bytes, 0, target, offset, size);
+    }
+
+    /**
+     * Write the bytes written to a stream.
+     * @param outputStream the stream
+     * @throws IOException if the stream could not be written to
+     */
+    void writeTo(final OutputStream outputStream) throws IOException {
+        outputStream.write(bytes, 0, size);
+    }
+
+    /**
+     * Wrap the bytes written in a buffer, without copying them.
+     * @return the buffer, valid until more bytes are written
+     */
+    ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes, 0, size);
+    }
+
+    /**
+     * Make room for more bytes, at least doubling the capacity whenever it has to grow.
+     * @param extra the number of bytes about to be written
+     */
+    private void ensureCapacity(final int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.snapshot;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when input read as a snapshot is not one, is truncated or corrupt, or was written in a version of
+ * the format that is not supported.
+ */
+public class InvalidSnapshotException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     * @param message the detail message
+     */
+    public InvalidSnapshotException(final String message) {
+        super(message);
+    }
+}
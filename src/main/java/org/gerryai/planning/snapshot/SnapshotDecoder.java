@@ -0,0 +1,528 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.snapshot;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.Requirement;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.domain.TypeDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.EitherType;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.ForAll;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.IfThen;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Or;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.PrimitiveType;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Type;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes a single domain or problem from a snapshot held in a buffer. Names are decoded once, when the symbol table
+ * is read, and each constant and primitive type is created once however many times it is used, so the model read
+ * shares them just as a hash-consed parse would. Not thread safe; each snapshot has its own decoder.
+ */
+final class SnapshotDecoder {
+
+    private final ByteBuffer buffer;
+
+    private String[] symbols;
+
+    private Constant[] constants;
+
+    private PrimitiveType[] types;
+
+    /**
+     * Constructor.
+     * @param buffer the buffer, positioned at the start of the snapshot, which is read to its limit
+     */
+    SnapshotDecoder(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Decode a domain.
+     * @return the domain
+     * @throws InvalidSnapshotException if the buffer does not hold a valid snapshot of a domain
+     */
+    Domain decodeDomain() throws InvalidSnapshotException {
+        try {
+            start(SnapshotFormat.DOMAIN);
+            Domain.Builder builder = new Domain.Builder().name(nullableSymbol());
+            for (Requirement requirement : requirements()) {
+                builder.requirement(requirement);
+            }
+            int count = count();
+            for (int i = 0; i < count; i++) {
+                String name = nullableSymbol();
+                builder.type(new TypeDefinition(name, type()));
+            }
+            for (ConstantDefinition constant : constantDefinitions()) {
+                builder.constant(constant);
+            }
+            count = count();
+            for (int i = 0; i < count; i++) {
+                builder.predicate(formula(Predicate.class));
+            }
+            count = count();
+            for (int i = 0; i < count; i++) {
+                builder.function(formula(FunctionDefinition.class));
+            }
+            count = count();
+            for (int i = 0; i < count; i++) {
+                builder.action(action());
+            }
+            end();
+            return builder.build();
+        } catch (BufferUnderflowException e) {
+            throw new InvalidSnapshotException("Snapshot is truncated");
+        }
+    }
+
+    /**
+     * Decode a problem.
+     * @return the problem
+     * @throws InvalidSnapshotException if the buffer does not hold a valid snapshot of a problem
+     */
+    Problem decodeProblem() throws InvalidSnapshotException {
+        try {
+            start(SnapshotFormat.PROBLEM);
+            Problem.Builder builder = new Problem.Builder().name(nullableSymbol()).domain(nullableSymbol());
+            for (Requirement requirement : requirements()) {
+                builder.requirement(requirement);
+            }
+            for (ConstantDefinition object : constantDefinitions()) {
+                builder.object(object);
+            }
+            int count = count();
+            for (int i = 0; i < count; i++) {
+                builder.initialState(formula());
+            }
+            builder.goal(formula());
+            builder.metric(nullableSymbol());
+            builder.metricFormula(formula());
+            end();
+            return builder.build();
+        } catch (BufferUnderflowException e) {
+            throw new InvalidSnapshotException("Snapshot is truncated");
+        }
+    }
+
+    /**
+     * Read and check the header, then read the symbol table.
+     * @param kind the kind of model expected
+     * @throws InvalidSnapshotException if the header is not that of a supported snapshot of the expected kind
+     */
+    private void start(final byte kind) throws InvalidSnapshotException {
+        for (byte magic : SnapshotFormat.MAGIC) {
+            if (buffer.get() != magic) {
+                throw new InvalidSnapshotException("Input is not a snapshot");
+            }
+        }
+        int version = varint();
+        if (version != SnapshotFormat.VERSION) {
+            throw new InvalidSnapshotException("Unsupported snapshot version " + version + ", expected "
+                    + SnapshotFormat.VERSION);
+        }
+        byte actual = buffer.get();
+        if (actual != kind) {
+            throw new InvalidSnapshotException("Snapshot holds a model of kind '" + (char) actual + "', expected '"
+                    + (char) kind + "'");
+        }
+        symbols = new String[count()];
+        byte[] scratch = new byte[0];
+        for (int i = 0; i < symbols.length; i++) {
+            int length = count();
+            if (buffer.hasArray()) {
+                int position = buffer.position();
+                buffer.position(position + length);
+                symbols[i] = new String(buffer.array(), buffer.arrayOffset() + position, length,
+                        StandardCharsets.UTF_8);
+            } else {
+                if (scratch.length < length) {
+                    scratch = new byte[length];
+                }
+                buffer.get(scratch, 0, length);
+                symbols[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+        }
+        constants = new Constant[symbols.length];
+        types = new PrimitiveType[symbols.length];
+    }
+
+    /**
+     * Check that nothing follows the model.
+     * @throws InvalidSnapshotException if there are bytes left over
+     */
+    private void end() throws InvalidSnapshotException {
+        if (buffer.hasRemaining()) {
+            throw new InvalidSnapshotException(buffer.remaining() + " unexpected bytes after the end of the snapshot");
+        }
+    }
+
+    /**
+     * Read an action.
+     * @return the action
+     * @throws InvalidSnapshotException if the snapshot is corrupt
+     */
+    private Action action() throws InvalidSnapshotException {
+        Action.Builder builder = new Action.Builder().name(nullableSymbol());
+        for (Variable parameter : variables()) {
+            builder.parameter(parameter);
+        }
+        if (flag()) {
+            builder.precondition(Optional.fromNullable(formula()));
+        }
+        if (flag()) {
+            builder.effect(Optional.fromNullable(formula()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Read a set of requirements.
+     * @return the requirements
+     * @throws InvalidSnapshotException if a requirement is not known
+     */
+    private List<Requirement> requirements() throws InvalidSnapshotException {
+        int count = count();
+        List<Requirement> requirements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = nullableSymbol();
+            try {
+                requirements.add(Requirement.valueOf(name));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new InvalidSnapshotException("Unknown requirement " + name);
+            }
+        }
+        return requirements;
+    }
+
+    /**
+     * Read a collection of constant definitions.
+     * @return the constant definitions
+     * @throws InvalidSnapshotException if the snapshot is corrupt
+     */
+    private List<ConstantDefinition> constantDefinitions() throws InvalidSnapshotException {
+        int count = count();
+        List<ConstantDefinition> definitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = nullableSymbol();
+            Type type = type();
+            if (type == null) {
+                definitions.add(new ConstantDefinition(name));
+            } else {
+                definitions.add(new ConstantDefinition(name, type));
+            }
+        }
+        return definitions;
+    }
+
+    /**
+     * Read a formula of a particular class.
+     * @param expected the class expected
+     * @param <T> the class expected
+     * @return the formula
+     * @throws InvalidSnapshotException if the formula is missing or of another class
+     */
+    private <T extends Formula> T formula(final Class<T> expected) throws InvalidSnapshotException {
+        Formula formula = formula();
+        if (!expected.isInstance(formula)) {
+            throw new InvalidSnapshotException("Expected a " + expected.getSimpleName());
+        }
+        return expected.cast(formula);
+    }
+
+    /**
+     * Read a formula that may be missing.
+     * @return the formula, or null
+     * @throws InvalidSnapshotException if the snapshot is corrupt
+     */
+    private Formula formula() throws InvalidSnapshotException {
+        int tag = varint();
+        switch (tag) {
+            case SnapshotFormat.NULL:
+                return null;
+            case SnapshotFormat.AND:
+                And.Builder and = new And.Builder();
+                int conjuncts = count();
+                for (int i = 0; i < conjuncts; i++) {
+                    and.and(formula());
+                }
+                return and.build();
+            case SnapshotFormat.OR:
+                Or.Builder or = new Or.Builder();
+                int disjuncts = count();
+                for (int i = 0; i < disjuncts; i++) {
+                    or.or(formula());
+                }
+                return or.build();
+            case SnapshotFormat.NOT:
+                return new Not(formula());
+            case SnapshotFormat.PREDICATE:
+                Predicate.Builder predicate = new Predicate.Builder().name(nullableSymbol());
+                int predicateTerms = count();
+                for (int i = 0; i < predicateTerms; i++) {
+                    predicate.term(term());
+                }
+                return predicate.build();
+            case SnapshotFormat.EQUALS:
+                Term left = term();
+                return new Equals.Builder().left(left).right(term()).build();
+            case SnapshotFormat.FOR_ALL:
+                ForAll.Builder forAll = new ForAll.Builder();
+                for (Variable variable : variables()) {
+                    forAll.variable(variable);
+                }
+                return forAll.formula(formula()).build();
+            case SnapshotFormat.IF_THEN:
+                Formula condition = formula();
+                return new IfThen(condition, formula());
+            case SnapshotFormat.OPERATION:
+                Operation.Builder operation = new Operation.Builder().operator(nullableSymbol());
+                operation.consequent(nullableFormula(FunctionTerm.class));
+                return operation.antecedent(nullableFormula(FunctionTerm.class)).build();
+            case SnapshotFormat.FUNCTION_TERM:
+                FunctionTerm.Builder functionTerm = new FunctionTerm.Builder().name(nullableSymbol());
+                int functionTermTerms = count();
+                for (int i = 0; i < functionTermTerms; i++) {
+                    functionTerm.term(term());
+                }
+                return functionTerm.build();
+            case SnapshotFormat.FUNCTION_DEFINITION:
+                FunctionDefinition.Builder functionDefinition = new FunctionDefinition.Builder()
+                        .name(nullableSymbol());
+                int functionDefinitionTerms = count();
+                for (int i = 0; i < functionDefinitionTerms; i++) {
+                    functionDefinition.term(term());
+                }
+                return functionDefinition.build();
+            default:
+                throw new InvalidSnapshotException("Unknown formula tag " + tag);
+        }
+    }
+
+    /**
+     * Read a formula of a particular class that may be missing.
+     * @param expected the class expected
+     * @param <T> the class expected
+     * @return the formula, or null
+     * @throws InvalidSnapshotException if the formula is of another class
+     */
+    private <T extends Formula> T nullableFormula(final Class<T> expected) throws InvalidSnapshotException {
+        Formula formula = formula();
+        if (formula != null && !expected.isInstance(formula)) {
+            throw new InvalidSnapshotException("Expected a " + expected.getSimpleName());
+        }
+        return expected.cast(formula);
+    }
+
+    /**
+     * Read a list of variables.
+     * @return the variables
+     * @throws InvalidSnapshotException if the snapshot is corrupt or a term is not a variable
+     */
+    private List<Variable> variables() throws InvalidSnapshotException {
+        int count = count();
+        List<Variable> variables = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Term term = term();
+            if (!(term instanceof Variable)) {
+                throw new InvalidSnapshotException("Expected a variable");
+            }
+            variables.add((Variable) term);
+        }
+        return variables;
+    }
+
+    /**
+     * Read a term that may be missing.
+     * @return the term, or null
+     * @throws InvalidSnapshotException if the snapshot is corrupt
+     */
+    private Term term() throws InvalidSnapshotException {
+        int tag = varint();
+        switch (tag) {
+            case SnapshotFormat.NULL:
+                return null;
+            case SnapshotFormat.CONSTANT:
+                int index = varint() - 1;
+                if (index < 0) {
+                    return new Constant(null);
+                }
+                checkSymbol(index);
+                Constant constant = constants[index];
+                if (constant == null) {
+                    constant = new Constant(symbols[index]);
+                    constants[index] = constant;
+                }
+                return constant;
+            case SnapshotFormat.VARIABLE:
+                String name = nullableSymbol();
+                Type type = type();
+                if (type == null) {
+                    return new Variable(name);
+                }
+                return new Variable(name, type);
+            case SnapshotFormat.NUMBER:
+                String text = nullableSymbol();
+                try {
+                    return new NumberTerm(text);
+                } catch (NumberFormatException | NullPointerException e) {
+                    throw new InvalidSnapshotException("Invalid number " + text);
+                }
+            default:
+                throw new InvalidSnapshotException("Unknown term tag " + tag);
+        }
+    }
+
+    /**
+     * Read a type that may be missing.
+     * @return the type, or null
+     * @throws InvalidSnapshotException if the snapshot is corrupt
+     */
+    private Type type() throws InvalidSnapshotException {
+        int tag = varint();
+        switch (tag) {
+            case SnapshotFormat.NULL:
+                return null;
+            case SnapshotFormat.PRIMITIVE_TYPE:
+                return primitiveType();
+            case SnapshotFormat.EITHER_TYPE:
+                int count = count();
+                List<PrimitiveType> either = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    either.add(primitiveType());
+                }
+                return new EitherType(either);
+            default:
+                throw new InvalidSnapshotException("Unknown type tag " + tag);
+        }
+    }
+
+    /**
+     * Read a primitive type by its name, sharing one instance for each name.
+     * @return the type
+     * @throws InvalidSnapshotException if the snapshot is corrupt
+     */
+    private PrimitiveType primitiveType() throws InvalidSnapshotException {
+        int index = varint() - 1;
+        if (index < 0) {
+            return new PrimitiveType(null);
+        }
+        checkSymbol(index);
+        PrimitiveType type = types[index];
+        if (type == null) {
+            type = new PrimitiveType(symbols[index]);
+            types[index] = type;
+        }
+        return type;
+    }
+
+    /**
+     * Read a name that may be missing.
+     * @return the name, or null
+     * @throws InvalidSnapshotException if the name is not in the symbol table
+     */
+    private String nullableSymbol() throws InvalidSnapshotException {
+        int index = varint() - 1;
+        if (index < 0) {
+            return null;
+        }
+        checkSymbol(index);
+        return symbols[index];
+    }
+
+    /**
+     * Check that an index is in the symbol table.
+     * @param index the index
+     * @throws InvalidSnapshotException if it is not
+     */
+    private void checkSymbol(final int index) throws InvalidSnapshotException {
+        if (index >= symbols.length) {
+            throw new InvalidSnapshotException("Symbol " + index + " is not in the symbol table");
+        }
+    }
+
+    /**
+     * Read whether an action precondition or effect was set.
+     * @return true if it was set
+     * @throws InvalidSnapshotException if the tag is not known
+     */
+    private boolean flag() throws InvalidSnapshotException {
+        int tag = varint();
+        if (tag == SnapshotFormat.SET) {
+            return true;
+        }
+        if (tag != SnapshotFormat.UNSET) {
+            throw new InvalidSnapshotException("Unknown tag " + tag);
+        }
+        return false;
+    }
+
+    /**
+     * Read a count, checking that it is no larger than the bytes left, as each thing counted takes at least one.
+     * @return the count
+     * @throws InvalidSnapshotException if the count is too large
+     */
+    private int count() throws InvalidSnapshotException {
+        int count = varint();
+        if (count > buffer.remaining()) {
+            throw new InvalidSnapshotException("Count " + count + " is larger than the rest of the snapshot");
+        }
+        return count;
+    }
+
+    /**
+     * Read an unsigned varint.
+     * @return the value
+     * @throws InvalidSnapshotException if the varint is too long or the value negative
+     */
+    private int varint() throws InvalidSnapshotException {
+        int value = 0;
+        for (int shift = 0; shift < SnapshotFormat.MAX_VARINT_BYTES * SnapshotFormat.VARINT_SHIFT;
+             shift += SnapshotFormat.VARINT_SHIFT) {
+            int b = buffer.get();
+            value |= (b & SnapshotFormat.VARINT_MASK) << shift;
+            if ((b & SnapshotFormat.VARINT_MORE) == 0) {
+                if (value < 0) {
+                    throw new InvalidSnapshotException("Varint is out of range");
+                }
+                return value;
+            }
+        }
+        throw new InvalidSnapshotException("Varint is too long");
+    }
+}
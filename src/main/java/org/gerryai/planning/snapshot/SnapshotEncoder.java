@@ -0,0 +1,400 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.snapshot;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.Requirement;
+import org.gerryai.planning.model.Requirements;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.Effect;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.domain.Precondition;
+import org.gerryai.planning.model.domain.TypeDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.EitherType;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.ForAll;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FormulaVisitor;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.IfThen;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Or;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.PrimitiveType;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.TermVisitor;
+import org.gerryai.planning.model.logic.Type;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Metric;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes a single domain or problem as a snapshot. The model is written to the body first, giving each name an index
+ * in the symbol table the first time it is seen, and the header and symbol table are then written separately, so the
+ * model is only walked once. Not thread safe; each snapshot has its own encoder.
+ */
+final class SnapshotEncoder implements FormulaVisitor<Void>, TermVisitor<Void> {
+
+    private final Map<String, Integer> symbols = new HashMap<>();
+
+    private final List<String> names = new ArrayList<>();
+
+    private final ByteSink header = new ByteSink();
+
+    private final ByteSink body = new ByteSink();
+
+    /**
+     * Encode a domain.
+     * @param domain the domain
+     */
+    void encode(final Domain domain) {
+        nullableSymbol(domain.getName());
+        requirements(domain.getRequirements());
+        body.writeVarint(domain.getTypes().asSet().size());
+        for (TypeDefinition type : domain.getTypes().asSet()) {
+            nullableSymbol(type.getName());
+            type(type.getParent());
+        }
+        constants(domain.getConstants().asSet());
+        formulas(domain.getPredicates().asSet());
+        formulas(domain.getFunctions().asSet());
+        body.writeVarint(domain.getActions().asSet().size());
+        for (Action action : domain.getActions().asSet()) {
+            action(action);
+        }
+        finish(SnapshotFormat.DOMAIN);
+    }
+
+    /**
+     * Encode a problem.
+     * @param problem the problem
+     */
+    void encode(final Problem problem) {
+        nullableSymbol(problem.getName());
+        nullableSymbol(problem.getDomainName());
+        requirements(problem.getRequirements());
+        constants(problem.getObjects().asSet());
+        formulas(problem.getInitialState().asSet());
+        formula(problem.getGoal().getFormula());
+        Metric metric = problem.getMetric();
+        if (metric == null) {
+            nullableSymbol(null);
+            formula(null);
+        } else {
+            nullableSymbol(metric.getName());
+            formula(metric.getFormula());
+        }
+        finish(SnapshotFormat.PROBLEM);
+    }
+
+    /**
+     * Get the header and symbol table, once a model has been encoded.
+     * @return the bytes
+     */
+    ByteSink getHeader() {
+        return header;
+    }
+
+    /**
+     * Get the encoded model, which follows the symbol table.
+     * @return the bytes
+     */
+    ByteSink getBody() {
+        return body;
+    }
+
+    /**
+     * Get the snapshot as a single array.
+     * @return a new array of the bytes
+     */
+    byte[] toByteArray() {
+        byte[] bytes = new byte[header.size() + body.size()];
+        header.copyTo(bytes, 0);
+        body.copyTo(bytes, header.size());
+        return bytes;
+    }
+
+    @Override
+    public Void visit(final And and) {
+        body.writeVarint(SnapshotFormat.AND);
+        formulas(and.asList());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Or or) {
+        body.writeVarint(SnapshotFormat.OR);
+        formulas(or.asList());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Not not) {
+        body.writeVarint(SnapshotFormat.NOT);
+        formula(not.getFormula());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Predicate predicate) {
+        body.writeVarint(SnapshotFormat.PREDICATE);
+        nullableSymbol(predicate.getName());
+        terms(predicate.getTerms());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Equals equals) {
+        body.writeVarint(SnapshotFormat.EQUALS);
+        term(equals.getLeft());
+        term(equals.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visit(final ForAll forAll) {
+        body.writeVarint(SnapshotFormat.FOR_ALL);
+        terms(forAll.getVariables());
+        formula(forAll.getFormula());
+        return null;
+    }
+
+    @Override
+    public Void visit(final IfThen ifThen) {
+        body.writeVarint(SnapshotFormat.IF_THEN);
+        formula(ifThen.getCondition());
+        formula(ifThen.getConsequence());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Operation operation) {
+        body.writeVarint(SnapshotFormat.OPERATION);
+        nullableSymbol(operation.getOperator());
+        formula(operation.getConsequent());
+        formula(operation.getAntecedent());
+        return null;
+    }
+
+    @Override
+    public Void visit(final FunctionTerm functionTerm) {
+        body.writeVarint(SnapshotFormat.FUNCTION_TERM);
+        nullableSymbol(functionTerm.getName());
+        terms(functionTerm.getTerms());
+        return null;
+    }
+
+    @Override
+    public Void visit(final FunctionDefinition functionDefinition) {
+        body.writeVarint(SnapshotFormat.FUNCTION_DEFINITION);
+        nullableSymbol(functionDefinition.getName());
+        terms(functionDefinition.getTerms());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Constant constant) {
+        body.writeVarint(SnapshotFormat.CONSTANT);
+        nullableSymbol(constant.getName());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Variable variable) {
+        body.writeVarint(SnapshotFormat.VARIABLE);
+        nullableSymbol(variable.getName());
+        type(variable.getType());
+        return null;
+    }
+
+    @Override
+    public Void visit(final NumberTerm number) {
+        body.writeVarint(SnapshotFormat.NUMBER);
+        nullableSymbol(number.getText());
+        return null;
+    }
+
+    /**
+     * Write an action.
+     * @param action the action
+     */
+    private void action(final Action action) {
+        nullableSymbol(action.getName());
+        terms(action.getParameters());
+        Precondition precondition = action.getPrecondition();
+        if (precondition == null) {
+            body.writeVarint(SnapshotFormat.UNSET);
+        } else {
+            body.writeVarint(SnapshotFormat.SET);
+            formula(precondition.getPrecondition().orNull());
+        }
+        Effect effect = action.getEffect();
+        if (effect == null) {
+            body.writeVarint(SnapshotFormat.UNSET);
+        } else {
+            body.writeVarint(SnapshotFormat.SET);
+            formula(effect.getEffect().orNull());
+        }
+    }
+
+    /**
+     * Write a set of requirements, each by the name of its constant so the format does not depend on their order.
+     * @param requirements the requirements
+     */
+    private void requirements(final Requirements requirements) {
+        body.writeVarint(requirements.asSet().size());
+        for (Requirement requirement : requirements.asSet()) {
+            nullableSymbol(requirement.name());
+        }
+    }
+
+    /**
+     * Write a collection of constant definitions, each as its name and type.
+     * @param constants the constants
+     */
+    private void constants(final Collection<ConstantDefinition> constants) {
+        body.writeVarint(constants.size());
+        for (ConstantDefinition constant : constants) {
+            nullableSymbol(constant.getName());
+            type(constant.getType());
+        }
+    }
+
+    /**
+     * Write a collection of formulas, preceded by their number.
+     * @param formulas the formulas
+     */
+    private void formulas(final Collection<? extends Formula> formulas) {
+        body.writeVarint(formulas.size());
+        for (Formula formula : formulas) {
+            formula(formula);
+        }
+    }
+
+    /**
+     * Write a formula that may be missing.
+     * @param formula the formula, or null
+     */
+    private void formula(final Formula formula) {
+        if (formula == null) {
+            body.writeVarint(SnapshotFormat.NULL);
+        } else {
+            formula.accept(this);
+        }
+    }
+
+    /**
+     * Write a list of terms, preceded by their number.
+     * @param terms the terms
+     */
+    private void terms(final List<? extends Term> terms) {
+        body.writeVarint(terms.size());
+        for (Term term : terms) {
+            term(term);
+        }
+    }
+
+    /**
+     * Write a term that may be missing.
+     * @param term the term, or null
+     */
+    private void term(final Term term) {
+        if (term == null) {
+            body.writeVarint(SnapshotFormat.NULL);
+        } else {
+            term.accept(this);
+        }
+    }
+
+    /**
+     * Write a type that may be absent.
+     * @param type the type
+     */
+    private void type(final Optional<Type> type) {
+        type(type.orNull());
+    }
+
+    /**
+     * Write a type that may be missing.
+     * @param type the type, or null
+     */
+    private void type(final Type type) {
+        if (type instanceof PrimitiveType) {
+            body.writeVarint(SnapshotFormat.PRIMITIVE_TYPE);
+            nullableSymbol(((PrimitiveType) type).getName());
+        } else if (type instanceof EitherType) {
+            body.writeVarint(SnapshotFormat.EITHER_TYPE);
+            List<PrimitiveType> types = ((EitherType) type).getTypes();
+            body.writeVarint(types.size());
+            for (PrimitiveType primitive : types) {
+                nullableSymbol(primitive.getName());
+            }
+        } else if (type == null) {
+            body.writeVarint(SnapshotFormat.NULL);
+        } else {
+            throw new IllegalArgumentException("Unsupported type " + type.getClass().getName());
+        }
+    }
+
+    /**
+     * Write a name that may be missing as one more than the index of its symbol, or zero if it is missing.
+     * @param name the name, or null
+     */
+    private void nullableSymbol(final String name) {
+        if (name == null) {
+            body.writeVarint(0);
+            return;
+        }
+        Integer index = symbols.get(name);
+        if (index == null) {
+            index = names.size();
+            symbols.put(name, index);
+            names.add(name);
+        }
+        body.writeVarint(index + 1);
+    }
+
+    /**
+     * Write the header and symbol table.
+     * @param kind the kind of model encoded
+     */
+    private void finish(final byte kind) {
+        header.writeBytes(SnapshotFormat.MAGIC);
+        header.writeVarint(SnapshotFormat.VERSION);
+        header.writeByte(kind);
+        header.writeVarint(names.size());
+        for (String name : names) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            header.writeVarint(bytes.length);
+            header.writeBytes(bytes);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.snapshot;
+
+/**
+ * Constants of the snapshot format.
+ *
+ * A snapshot starts with the four magic bytes, the version of the format and a byte giving the kind of model it
+ * holds. Then comes the symbol table: the number of symbols followed by each as its length and UTF-8 bytes. The rest
+ * is the model itself, in which every name is written as one more than the index of its symbol, with zero meaning
+ * null. Counts, indices and tags are all unsigned varints, seven bits to a byte with the high bit set on every byte
+ * but the last, so most take a single byte.
+ */
+final class SnapshotFormat {
+
+    /**
+     * Magic bytes at the start of every snapshot.
+     */
+    static final byte[] MAGIC = {'G', 'P', 'S', 'N'};
+
+    /**
+     * The version of the format written, and the only one that can be read.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Kind byte of a snapshot holding a domain.
+     */
+    static final byte DOMAIN = 'D';
+
+    /**
+     * Kind byte of a snapshot holding a problem.
+     */
+    static final byte PROBLEM = 'P';
+
+    /**
+     * The number of bits held in each byte of a varint.
+     */
+    static final int VARINT_SHIFT = 7;
+
+    /**
+     * Mask for the bits of a varint byte that hold its value.
+     */
+    static final int VARINT_MASK = 0x7F;
+
+    /**
+     * Bit set on every byte of a varint that is followed by another.
+     */
+    static final int VARINT_MORE = 0x80;
+
+    /**
+     * The most bytes a varint holding an int can take.
+     */
+    static final int MAX_VARINT_BYTES = 5;
+
+    /**
+     * Tag for a missing formula, term or type.
+     */
+    static final int NULL = 0;
+
+    /**
+     * Tag for a conjunction, followed by its number of conjuncts and each of them.
+     */
+    static final int AND = 1;
+
+    /**
+     * Tag for a disjunction, followed by its number of disjuncts and each of them.
+     */
+    static final int OR = 2;
+
+    /**
+     * Tag for a negation, followed by the formula negated.
+     */
+    static final int NOT = 3;
+
+    /**
+     * Tag for a predicate, followed by its name, its number of terms and each of them.
+     */
+    static final int PREDICATE = 4;
+
+    /**
+     * Tag for an equality, followed by its left and right terms.
+     */
+    static final int EQUALS = 5;
+
+    /**
+     * Tag for a universal quantification, followed by its number of variables, each of them and its formula.
+     */
+    static final int FOR_ALL = 6;
+
+    /**
+     * Tag for a conditional, followed by its condition and consequence.
+     */
+    static final int IF_THEN = 7;
+
+    /**
+     * Tag for a numeric operation, followed by its operator and its consequent and antecedent functions.
+     */
+    static final int OPERATION = 8;
+
+    /**
+     * Tag for a function term, followed by its name, its number of terms and each of them.
+     */
+    static final int FUNCTION_TERM = 9;
+
+    /**
+     * Tag for a function definition, followed by its name, its number of terms and each of them.
+     */
+    static final int FUNCTION_DEFINITION = 10;
+
+    /**
+     * Tag for a constant, followed by its name.
+     */
+    static final int CONSTANT = 1;
+
+    /**
+     * Tag for a variable, followed by its name and type.
+     */
+    static final int VARIABLE = 2;
+
+    /**
+     * Tag for a number, followed by its text as written.
+     */
+    static final int NUMBER = 3;
+
+    /**
+     * Tag for a primitive type, followed by its name.
+     */
+    static final int PRIMITIVE_TYPE = 1;
+
+    /**
+     * Tag for an either type, followed by its number of types and the name of each.
+     */
+    static final int EITHER_TYPE = 2;
+
+    /**
+     * Tag for an action precondition or effect that was never set, as opposed to one that is empty.
+     */
+    static final int UNSET = 0;
+
+    /**
+     * Tag for an action precondition or effect that was set, followed by its formula.
+     */
+    static final int SET = 1;
+
+    /**
+     * Private constructor, as this only holds constants.
+     */
+    private SnapshotFormat() { }
+}
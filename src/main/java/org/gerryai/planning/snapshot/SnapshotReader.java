@@ -0,0 +1,133 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.snapshot;
+
+import com.google.common.io.ByteStreams;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads domains and problems from snapshots written by {@link SnapshotWriter}. Files are memory-mapped rather than
+ * read, so reading the same snapshot many times only pays for rebuilding the model. The model read is equal to the
+ * one written, with each constant and primitive type shared wherever it is used.
+ *
+ * Stateless, so one reader can be shared by any number of threads.
+ */
+public final class SnapshotReader {
+
+    /**
+     * Read a domain from a snapshot held in a buffer, from its position to its limit. The position of the buffer is
+     * left unchanged.
+     * @param buffer the buffer
+     * @return the domain
+     * @throws InvalidSnapshotException if the buffer does not hold a valid snapshot of a domain
+     */
+    public Domain readDomain(final ByteBuffer buffer) throws InvalidSnapshotException {
+        return new SnapshotDecoder(buffer.duplicate()).decodeDomain();
+    }
+
+    /**
+     * Read a problem from a snapshot held in a buffer, from its position to its limit. The position of the buffer is
+     * left unchanged.
+     * @param buffer the buffer
+     * @return the problem
+     * @throws InvalidSnapshotException if the buffer does not hold a valid snapshot of a problem
+     */
+    public Problem readProblem(final ByteBuffer buffer) throws InvalidSnapshotException {
+        return new SnapshotDecoder(buffer.duplicate()).decodeProblem();
+    }
+
+    /**
+     * Read a domain from a snapshot held in an array.
+     * @param bytes the snapshot
+     * @return the domain
+     * @throws InvalidSnapshotException if the array does not hold a valid snapshot of a domain
+     */
+    public Domain readDomain(final byte[] bytes) throws InvalidSnapshotException {
+        return readDomain(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Read a problem from a snapshot held in an array.
+     * @param bytes the snapshot
+     * @return the problem
+     * @throws InvalidSnapshotException if the array does not hold a valid snapshot of a problem
+     */
+    public Problem readProblem(final byte[] bytes) throws InvalidSnapshotException {
+        return readProblem(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Read a domain from a stream holding nothing but its snapshot, which is read to its end and left open.
+     * @param inputStream the stream
+     * @return the domain
+     * @throws IOException if the stream could not be read or does not hold a valid snapshot of a domain
+     */
+    public Domain readDomain(final InputStream inputStream) throws IOException {
+        return readDomain(ByteStreams.toByteArray(inputStream));
+    }
+
+    /**
+     * Read a problem from a stream holding nothing but its snapshot, which is read to its end and left open.
+     * @param inputStream the stream
+     * @return the problem
+     * @throws IOException if the stream could not be read or does not hold a valid snapshot of a problem
+     */
+    public Problem readProblem(final InputStream inputStream) throws IOException {
+        return readProblem(ByteStreams.toByteArray(inputStream));
+    }
+
+    /**
+     * Read a domain from a snapshot file, which is memory-mapped.
+     * @param path the path of the file
+     * @return the domain
+     * @throws IOException if the file could not be read or does not hold a valid snapshot of a domain
+     */
+    public Domain readDomain(final Path path) throws IOException {
+        return readDomain(map(path));
+    }
+
+    /**
+     * Read a problem from a snapshot file, which is memory-mapped.
+     * @param path the path of the file
+     * @return the problem
+     * @throws IOException if the file could not be read or does not hold a valid snapshot of a problem
+     */
+    public Problem readProblem(final Path path) throws IOException {
+        return readProblem(map(path));
+    }
+
+    /**
+     * Memory-map a file. The mapping stays valid once the channel is closed.
+     * @param path the path of the file
+     * @return the mapped buffer
+     * @throws IOException if the file could not be mapped
+     */
+    private ByteBuffer map(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+}
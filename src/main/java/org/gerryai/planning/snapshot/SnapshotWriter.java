@@ -0,0 +1,170 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.snapshot;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes domains and problems as snapshots: a compact, versioned binary form that {@link SnapshotReader} can turn
+ * back into an equal model far faster than the PDDL text can be parsed. Each snapshot holds a symbol table of every
+ * name used followed by the model, in which names, counts and tags are all written as varints.
+ *
+ * Stateless, so one writer can be shared by any number of threads.
+ */
+public final class SnapshotWriter {
+
+    /**
+     * Get a snapshot of a domain.
+     * @param domain the domain
+     * @return a new array holding the snapshot
+     */
+    public byte[] toBytes(final Domain domain) {
+        SnapshotEncoder encoder = new SnapshotEncoder();
+        encoder.encode(domain);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Get a snapshot of a problem.
+     * @param problem the problem
+     * @return a new array holding the snapshot
+     */
+    public byte[] toBytes(final Problem problem) {
+        SnapshotEncoder encoder = new SnapshotEncoder();
+        encoder.encode(problem);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Write a snapshot of a domain to a stream, which is left open.
+     * @param domain the domain
+     * @param outputStream the stream
+     * @throws IOException if the stream could not be written to
+     */
+    public void write(final Domain domain, final OutputStream outputStream) throws IOException {
+        SnapshotEncoder encoder = new SnapshotEncoder();
+        encoder.encode(domain);
+        write(encoder, outputStream);
+    }
+
+    /**
+     * Write a snapshot of a problem to a stream, which is left open.
+     * @param problem the problem
+     * @param outputStream the stream
+     * @throws IOException if the stream could not be written to
+     */
+    public void write(final Problem problem, final OutputStream outputStream) throws IOException {
+        SnapshotEncoder encoder = new SnapshotEncoder();
+        encoder.encode(problem);
+        write(encoder, outputStream);
+    }
+
+    /**
+     * Write a snapshot of a domain to a channel, such as a {@link FileChannel}, which is left open.
+     * @param domain the domain
+     * @param channel the channel
+     * @throws IOException if the channel could not be written to
+     */
+    public void write(final Domain domain, final WritableByteChannel channel) throws IOException {
+        SnapshotEncoder encoder = new SnapshotEncoder();
+        encoder.encode(domain);
+        write(encoder, channel);
+    }
+
+    /**
+     * Write a snapshot of a problem to a channel, such as a {@link FileChannel}, which is left open.
+     * @param problem the problem
+     * @param channel the channel
+     * @throws IOException if the channel could not be written to
+     */
+    public void write(final Problem problem, final WritableByteChannel channel) throws IOException {
+        SnapshotEncoder encoder = new SnapshotEncoder();
+        encoder.encode(problem);
+        write(encoder, channel);
+    }
+
+    /**
+     * Write a snapshot of a domain to a file, replacing anything already in it.
+     * @param domain the domain
+     * @param path the path of the file
+     * @throws IOException if the file could not be written
+     */
+    public void write(final Domain domain, final Path path) throws IOException {
+        try (FileChannel channel = open(path)) {
+            write(domain, channel);
+        }
+    }
+
+    /**
+     * Write a snapshot of a problem to a file, replacing anything already in it.
+     * @param problem the problem
+     * @param path the path of the file
+     * @throws IOException if the file could not be written
+     */
+    public void write(final Problem problem, final Path path) throws IOException {
+        try (FileChannel channel = open(path)) {
+            write(problem, channel);
+        }
+    }
+
+    /**
+     * Write an encoded snapshot to a stream.
+     * @param encoder the encoder holding the snapshot
+     * @param outputStream the stream
+     * @throws IOException if the stream could not be written to
+     */
+    private void write(final SnapshotEncoder encoder, final OutputStream outputStream) throws IOException {
+        encoder.getHeader().writeTo(outputStream);
+        encoder.getBody().writeTo(outputStream);
+    }
+
+    /**
+     * Write an encoded snapshot to a channel.
+     * @param encoder the encoder holding the snapshot
+     * @param channel the channel
+     * @throws IOException if the channel could not be written to
+     */
+    private void write(final SnapshotEncoder encoder, final WritableByteChannel channel) throws IOException {
+        for (ByteBuffer buffer : new ByteBuffer[] {encoder.getHeader().asByteBuffer(),
+                encoder.getBody().asByteBuffer()}) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Open a file to write a snapshot to.
+     * @param path the path of the file
+     * @return the channel
+     * @throws IOException if the file could not be opened
+     */
+    private FileChannel open(final Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.writer;
+
+import com.google.common.base.Optional;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Output that encodes characters as US-ASCII into a byte buffer, as PDDL is read, with any other character replaced
+ * by {@code ?}. Bytes are collected in an array and copied into the buffer in bulk, which is far cheaper than putting
+ * them one at a time into a direct buffer. If there is a channel the buffer is written to it whenever it fills up;
+ * otherwise a full buffer is an error.
+ */
+final class ByteOutput extends PDDLOutput {
+
+    /**
+     * Highest character that US-ASCII encodes.
+     */
+    private static final char MAX_ASCII = 127;
+
+    /**
+     * Byte written in place of a character that US-ASCII cannot encode.
+     */
+    private static final byte REPLACEMENT = '?';
+
+    /**
+     * Number of bytes collected before they are copied into the buffer. No larger than the buffer used for a channel.
+     */
+    private static final int BATCH_SIZE = 8192;
+
+    private final ByteBuffer buffer;
+
+    private final Optional<WritableByteChannel> channel;
+
+    private final byte[] batch = new byte[BATCH_SIZE];
+
+    private int size;
+
+    /**
+     * Constructor for output into a buffer, starting at its position.
+     * @param buffer the buffer
+     */
+    ByteOutput(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.channel = Optional.absent();
+    }
+
+    /**
+     * Constructor for output to a channel, through a buffer.
+     * @param buffer the empty buffer to collect bytes in
+     * @param channel the channel to write the buffer to
+     */
+    ByteOutput(final ByteBuffer buffer, final WritableByteChannel channel) {
+        this.buffer = buffer;
+        this.channel = Optional.of(channel);
+    }
+
+    @Override
+    void write(final char c) {
+        if (size == batch.length) {
+            copy();
+        }
+        if (c <= MAX_ASCII) {
+            batch[size++] = (byte) c;
+        } else {
+            batch[size++] = REPLACEMENT;
+        }
+    }
+
+    @Override
+    void write(final String text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            write(text.charAt(i));
+        }
+    }
+
+    @Override
+    void finish() {
+        copy();
+        if (channel.isPresent()) {
+            drain();
+        }
+    }
+
+    /**
+     * Copy the collected bytes into the buffer, first writing the buffer to the channel if they do not fit.
+     * @throws BufferOverflowException if they do not fit and there is no channel
+     */
+    private void copy() {
+        if (buffer.remaining() < size) {
+            drain();
+        }
+        buffer.put(batch, 0, size);
+        size = 0;
+    }
+
+    /**
+     * Write the buffer to the channel and empty it.
+     * @throws BufferOverflowException if there is no channel
+     */
+    private void drain() {
+        if (!channel.isPresent()) {
+            throw new BufferOverflowException();
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.get().write(buffer);
+            }
+        } catch (IOException ex) {
+            throw new OutputFailure(ex);
+        }
+        buffer.clear();
+    }
+}
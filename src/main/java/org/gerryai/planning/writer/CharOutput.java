@@ -0,0 +1,91 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.writer;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Output that passes characters on to a {@link Writer} in blocks.
+ */
+final class CharOutput extends PDDLOutput {
+
+    /**
+     * Number of characters buffered before they are passed on.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Writer writer;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    private int size;
+
+    /**
+     * Constructor.
+     * @param writer the writer to pass characters on to
+     */
+    CharOutput(final Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    void write(final char c) {
+        if (size == buffer.length) {
+            drain();
+        }
+        buffer[size++] = c;
+    }
+
+    @Override
+    void write(final String text) {
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            if (size == buffer.length) {
+                drain();
+            }
+            int count = Math.min(length - start, buffer.length - size);
+            text.getChars(start, start + count, buffer, size);
+            size += count;
+            start += count;
+        }
+    }
+
+    @Override
+    void finish() {
+        drain();
+        try {
+            writer.flush();
+        } catch (IOException ex) {
+            throw new OutputFailure(ex);
+        }
+    }
+
+    /**
+     * Pass the buffered characters on to the writer.
+     */
+    private void drain() {
+        try {
+            writer.write(buffer, 0, size);
+        } catch (IOException ex) {
+            throw new OutputFailure(ex);
+        }
+        size = 0;
+    }
+}
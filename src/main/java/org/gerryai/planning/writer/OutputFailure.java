@@ -0,0 +1,45 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.writer;
+
+import java.io.IOException;
+
+/**
+ * Carries an {@link IOException} thrown while writing out through the formula and term visitors, which cannot throw
+ * checked exceptions, to where it can be thrown again.
+ */
+final class OutputFailure extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor.
+     * @param cause the exception thrown by the writer or channel
+     */
+    OutputFailure(final IOException cause) {
+        super(cause);
+    }
+
+    /**
+     * Get the exception thrown by the writer or channel.
+     * @return the exception
+     */
+    IOException getIOException() {
+        return (IOException) getCause();
+    }
+}
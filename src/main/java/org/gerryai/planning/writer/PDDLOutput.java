@@ -0,0 +1,43 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.writer;
+
+/**
+ * Destination that PDDL is written to a character at a time. Implementations buffer what is written and pass it on in
+ * blocks, so no string is built for any part of the model. Any {@link java.io.IOException} is thrown as an {@link
+ * OutputFailure}. Not thread safe.
+ */
+abstract class PDDLOutput {
+
+    /**
+     * Write a single character.
+     * @param c the character
+     */
+    abstract void write(char c);
+
+    /**
+     * Write every character of a string.
+     * @param text the string
+     */
+    abstract void write(String text);
+
+    /**
+     * Pass on anything still buffered, once everything has been written.
+     */
+    abstract void finish();
+}
@@ -0,0 +1,663 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.writer;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.Requirement;
+import org.gerryai.planning.model.Requirements;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.domain.TypeDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.EitherType;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.ForAll;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FormulaVisitor;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.IfThen;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Or;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.PrimitiveType;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.TermVisitor;
+import org.gerryai.planning.model.logic.Type;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Metric;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints a single domain or problem as PDDL. The model is walked once, writing each name, keyword and number straight
+ * to the output, and tracking how deeply nested the current formula is so that lines can be broken and indented.
+ * Not thread safe; each model printed has its own printer.
+ */
+final class PDDLPrinter implements FormulaVisitor<Void>, TermVisitor<Void> {
+
+    /**
+     * Depth of the sections of a domain or problem, such as its predicates or initial state.
+     */
+    private static final int SECTION_DEPTH = 1;
+
+    /**
+     * Depth of the entries in each section, such as a single predicate or fact, and of the parts of an action. When
+     * not pretty-printing, lines are only broken at this depth or above.
+     */
+    private static final int ENTRY_DEPTH = 2;
+
+    /**
+     * The keyword for each requirement.
+     */
+    private static final Map<Requirement, String> REQUIREMENT_KEYWORDS = new EnumMap<>(Requirement.class);
+
+    static {
+        for (Requirement requirement : Requirement.values()) {
+            REQUIREMENT_KEYWORDS.put(requirement, ":" + requirement.name().toLowerCase().replace('_', '-'));
+        }
+    }
+
+    private final PDDLOutput out;
+
+    private final boolean prettyPrint;
+
+    private final int indent;
+
+    private int depth;
+
+    /**
+     * Constructor.
+     * @param out the output to write to
+     * @param prettyPrint true to break every compound formula across lines and indent each line
+     * @param indent the number of spaces to indent each level of nesting by when pretty-printing
+     */
+    PDDLPrinter(final PDDLOutput out, final boolean prettyPrint, final int indent) {
+        this.out = out;
+        this.prettyPrint = prettyPrint;
+        this.indent = indent;
+    }
+
+    /**
+     * Print a domain.
+     * @param domain the domain
+     */
+    void print(final Domain domain) {
+        out.write("(define (domain ");
+        out.write(domain.getName());
+        out.write(')');
+        depth = SECTION_DEPTH;
+        requirements(domain.getRequirements());
+        if (!domain.getTypes().asSet().isEmpty()) {
+            lineBreak();
+            out.write("(:types");
+            types(domain.getTypes().asSet());
+            out.write(')');
+        }
+        if (!domain.getConstants().asSet().isEmpty()) {
+            lineBreak();
+            out.write("(:constants");
+            constants(domain.getConstants().asSet());
+            out.write(')');
+        }
+        if (!domain.getFunctions().asSet().isEmpty()) {
+            lineBreak();
+            out.write("(:functions");
+            entries(domain.getFunctions().asSet());
+            out.write(')');
+        }
+        if (!domain.getPredicates().asSet().isEmpty()) {
+            lineBreak();
+            out.write("(:predicates");
+            depth = ENTRY_DEPTH;
+            for (Predicate predicate : domain.getPredicates().asSet()) {
+                lineBreak();
+                out.write('(');
+                out.write(predicate.getName());
+                if (!predicate.getTerms().isEmpty()) {
+                    out.write(' ');
+                    variables(predicate.getTerms());
+                }
+                out.write(')');
+            }
+            depth = SECTION_DEPTH;
+            out.write(')');
+        }
+        for (Action action : domain.getActions().asSet()) {
+            lineBreak();
+            action(action);
+        }
+        out.write(")\n");
+        out.finish();
+    }
+
+    /**
+     * Print a problem.
+     * @param problem the problem
+     */
+    void print(final Problem problem) {
+        out.write("(define (problem ");
+        out.write(problem.getName());
+        out.write(')');
+        depth = SECTION_DEPTH;
+        lineBreak();
+        out.write("(:domain ");
+        out.write(problem.getDomainName());
+        out.write(')');
+        requirements(problem.getRequirements());
+        if (!problem.getObjects().asSet().isEmpty()) {
+            lineBreak();
+            out.write("(:objects");
+            constants(problem.getObjects().asSet());
+            out.write(')');
+        }
+        lineBreak();
+        out.write("(:init");
+        entries(problem.getInitialState().asSet());
+        out.write(')');
+        lineBreak();
+        out.write("(:goal ");
+        formula(problem.getGoal().getFormula());
+        out.write(')');
+        Metric metric = problem.getMetric();
+        if (metric != null && metric.getName() != null) {
+            lineBreak();
+            out.write("(:metric ");
+            out.write(metric.getName());
+            out.write(' ');
+            metric.getFormula().accept(this);
+            out.write(')');
+        }
+        out.write(")\n");
+        out.finish();
+    }
+
+    @Override
+    public Void visit(final And and) {
+        compound("(and", and.asList());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Or or) {
+        compound("(or", or.asList());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Not not) {
+        out.write("(not ");
+        not.getFormula().accept(this);
+        out.write(')');
+        return null;
+    }
+
+    @Override
+    public Void visit(final Predicate predicate) {
+        out.write('(');
+        out.write(predicate.getName());
+        for (Term term : predicate.getTerms()) {
+            out.write(' ');
+            term.accept(this);
+        }
+        out.write(')');
+        return null;
+    }
+
+    @Override
+    public Void visit(final Equals equals) {
+        out.write("(= ");
+        equals.getLeft().accept(this);
+        out.write(' ');
+        equals.getRight().accept(this);
+        out.write(')');
+        return null;
+    }
+
+    @Override
+    public Void visit(final ForAll forAll) {
+        out.write("(forall (");
+        variables(forAll.getVariables());
+        out.write(')');
+        depth++;
+        lineBreak();
+        forAll.getFormula().accept(this);
+        depth--;
+        out.write(')');
+        return null;
+    }
+
+    @Override
+    public Void visit(final IfThen ifThen) {
+        out.write("(when");
+        depth++;
+        lineBreak();
+        ifThen.getCondition().accept(this);
+        lineBreak();
+        ifThen.getConsequence().accept(this);
+        depth--;
+        out.write(')');
+        return null;
+    }
+
+    @Override
+    public Void visit(final Operation operation) {
+        out.write('(');
+        out.write(operation.getOperator());
+        out.write(' ');
+        operation.getConsequent().accept(this);
+        if (operation.getAntecedent() != null) {
+            out.write(' ');
+            operation.getAntecedent().accept(this);
+        }
+        out.write(')');
+        return null;
+    }
+
+    @Override
+    public Void visit(final FunctionTerm functionTerm) {
+        if (functionTerm.getName() == null) {
+            terms(functionTerm.getTerms());
+            return null;
+        }
+        out.write('(');
+        out.write(functionTerm.getName());
+        for (Term term : functionTerm.getTerms()) {
+            out.write(' ');
+            term.accept(this);
+        }
+        out.write(')');
+        return null;
+    }
+
+    @Override
+    public Void visit(final FunctionDefinition functionDefinition) {
+        out.write('(');
+        out.write(functionDefinition.getName());
+        if (!functionDefinition.getTerms().isEmpty()) {
+            out.write(' ');
+            variables(functionDefinition.getTerms());
+        }
+        out.write(") - number");
+        return null;
+    }
+
+    @Override
+    public Void visit(final Constant constant) {
+        out.write(constant.getName());
+        return null;
+    }
+
+    @Override
+    public Void visit(final Variable variable) {
+        out.write('?');
+        out.write(variable.getName());
+        return null;
+    }
+
+    @Override
+    public Void visit(final NumberTerm number) {
+        if (isPlainNumber(number.getText())) {
+            out.write(number.getText());
+        } else if (Double.compare(number.getValue(), 0) < 0 || Double.isNaN(number.getValue())
+                || Double.isInfinite(number.getValue())) {
+            throw new IllegalArgumentException("PDDL has no literal for the number " + number.getText());
+        } else {
+            out.write(BigDecimal.valueOf(number.getValue()).toPlainString());
+        }
+        return null;
+    }
+
+    /**
+     * Print an action.
+     * @param action the action
+     */
+    private void action(final Action action) {
+        out.write("(:action ");
+        out.write(action.getName());
+        depth = ENTRY_DEPTH;
+        lineBreak();
+        out.write(":parameters (");
+        variables(action.getParameters());
+        out.write(')');
+        if (action.getPrecondition() != null) {
+            lineBreak();
+            out.write(":precondition ");
+            optionalFormula(action.getPrecondition().getPrecondition());
+        }
+        if (action.getEffect() != null) {
+            lineBreak();
+            out.write(":effect ");
+            optionalFormula(action.getEffect().getEffect());
+        }
+        depth = SECTION_DEPTH;
+        out.write(')');
+    }
+
+    /**
+     * Print the requirements section, unless there are no requirements.
+     * @param requirements the requirements
+     */
+    private void requirements(final Requirements requirements) {
+        if (requirements.asSet().isEmpty()) {
+            return;
+        }
+        lineBreak();
+        out.write("(:requirements");
+        for (Requirement requirement : requirements.asSet()) {
+            out.write(' ');
+            out.write(REQUIREMENT_KEYWORDS.get(requirement));
+        }
+        out.write(')');
+    }
+
+    /**
+     * Print each formula in a section on a line of its own.
+     * @param formulas the formulas
+     */
+    private void entries(final Collection<? extends Formula> formulas) {
+        depth = ENTRY_DEPTH;
+        for (Formula formula : formulas) {
+            lineBreak();
+            formula.accept(this);
+        }
+        depth = SECTION_DEPTH;
+    }
+
+    /**
+     * Print a compound formula, with each of the formulas in it on a line of its own.
+     * @param opening the opening bracket and keyword
+     * @param formulas the formulas in it
+     */
+    private void compound(final String opening, final List<Formula> formulas) {
+        out.write(opening);
+        depth++;
+        for (Formula formula : formulas) {
+            lineBreak();
+            formula.accept(this);
+        }
+        depth--;
+        out.write(')');
+    }
+
+    /**
+     * Print a formula that may be missing, as an empty conjunction.
+     * @param formula the formula, or null
+     */
+    private void formula(final Formula formula) {
+        if (formula == null) {
+            out.write("(and)");
+        } else {
+            formula.accept(this);
+        }
+    }
+
+    /**
+     * Print a formula that may be absent, as empty brackets.
+     * @param formula the formula
+     */
+    private void optionalFormula(final Optional<Formula> formula) {
+        if (formula.isPresent()) {
+            formula.get().accept(this);
+        } else {
+            out.write("()");
+        }
+    }
+
+    /**
+     * Print terms separated by spaces.
+     * @param terms the terms
+     */
+    private void terms(final List<Term> terms) {
+        for (int i = 0; i < terms.size(); i++) {
+            if (i > 0) {
+                out.write(' ');
+            }
+            terms.get(i).accept(this);
+        }
+    }
+
+    /**
+     * Print a typed list of variables, giving the type once after each run of variables of the same type. The list
+     * can only leave the variables at its end untyped, so any untyped variable before a typed one is given the type
+     * {@code object}.
+     * @param variables the variables
+     */
+    private void variables(final List<? extends Term> variables) {
+        int size = variables.size();
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                out.write(' ');
+            }
+            variables.get(i).accept(this);
+            Optional<Type> type = typeOf(variables.get(i));
+            boolean last = i == size - 1;
+            if (type.isPresent()) {
+                if (last || !type.equals(typeOf(variables.get(i + 1)))) {
+                    out.write(" - ");
+                    type(type.get());
+                }
+            } else if (!last && typeOf(variables.get(i + 1)).isPresent()) {
+                out.write(" - ");
+                out.write(TypeDefinition.object().getName());
+            }
+        }
+    }
+
+    /**
+     * Print the definitions of a set of types, grouped by parent, with the types whose parent is {@code object} last
+     * as they need not give it.
+     * @param types the type definitions
+     */
+    private void types(final Collection<TypeDefinition> types) {
+        List<Type> parents = new ArrayList<>();
+        boolean rootTypes = false;
+        for (TypeDefinition type : types) {
+            if (isRoot(type.getParent())) {
+                rootTypes = true;
+            } else if (!parents.contains(type.getParent())) {
+                parents.add(type.getParent());
+            }
+        }
+        depth = ENTRY_DEPTH;
+        for (Type parent : parents) {
+            lineBreak();
+            boolean first = true;
+            for (TypeDefinition type : types) {
+                if (parent.equals(type.getParent())) {
+                    first = name(type.getName(), first);
+                }
+            }
+            out.write(" - ");
+            type(parent);
+        }
+        if (rootTypes) {
+            lineBreak();
+            boolean first = true;
+            for (TypeDefinition type : types) {
+                if (isRoot(type.getParent())) {
+                    first = name(type.getName(), first);
+                }
+            }
+        }
+        depth = SECTION_DEPTH;
+    }
+
+    /**
+     * Print the definitions of a set of constants or objects, grouped by type, with the untyped ones last. The set is
+     * only walked once, as a problem may have a great many objects.
+     * @param constants the constant definitions
+     */
+    private void constants(final Collection<ConstantDefinition> constants) {
+        Map<Type, List<String>> names = new LinkedHashMap<>();
+        List<String> untyped = new ArrayList<>();
+        for (ConstantDefinition constant : constants) {
+            if (constant.getType().isPresent()) {
+                List<String> typed = names.get(constant.getType().get());
+                if (typed == null) {
+                    typed = new ArrayList<>();
+                    names.put(constant.getType().get(), typed);
+                }
+                typed.add(constant.getName());
+            } else {
+                untyped.add(constant.getName());
+            }
+        }
+        depth = ENTRY_DEPTH;
+        for (Map.Entry<Type, List<String>> entry : names.entrySet()) {
+            lineBreak();
+            names(entry.getValue());
+            out.write(" - ");
+            type(entry.getKey());
+        }
+        if (!untyped.isEmpty()) {
+            lineBreak();
+            names(untyped);
+        }
+        depth = SECTION_DEPTH;
+    }
+
+    /**
+     * Print a list of names separated by spaces.
+     * @param names the names
+     */
+    private void names(final List<String> names) {
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) {
+                out.write(' ');
+            }
+            out.write(names.get(i));
+        }
+    }
+
+    /**
+     * Print a name in a list of names.
+     * @param name the name
+     * @param first true if it is the first in the list, so need not be separated from the one before
+     * @return false, as the next name is not the first
+     */
+    private boolean name(final String name, final boolean first) {
+        if (!first) {
+            out.write(' ');
+        }
+        out.write(name);
+        return false;
+    }
+
+    /**
+     * Print a type.
+     * @param type the type
+     */
+    private void type(final Type type) {
+        if (type instanceof PrimitiveType) {
+            out.write(((PrimitiveType) type).getName());
+        } else if (type instanceof EitherType) {
+            out.write("(either");
+            for (PrimitiveType member : ((EitherType) type).getTypes()) {
+                out.write(' ');
+                out.write(member.getName());
+            }
+            out.write(')');
+        } else {
+            throw new IllegalArgumentException("Unsupported type " + type.getClass().getName());
+        }
+    }
+
+    /**
+     * Check whether the text of a number is already written the way the grammar reads numbers: digits, optionally
+     * followed by a point and more digits. Numbers built from a double may instead be written with an exponent or a
+     * sign.
+     * @param text the text
+     * @return true if the text can be written as it is
+     */
+    private static boolean isPlainNumber(final String text) {
+        int point = text.indexOf('.');
+        if (point < 0) {
+            return isDigits(text, 0, text.length());
+        }
+        return isDigits(text, 0, point) && isDigits(text, point + 1, text.length());
+    }
+
+    /**
+     * Check whether part of a string is one or more decimal digits.
+     * @param text the string
+     * @param start the index of the first character
+     * @param end the index after the last character
+     * @return true if the part is not empty and only holds digits
+     */
+    private static boolean isDigits(final String text, final int start, final int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a type definition's parent is the root type, so need not be given.
+     * @param parent the parent, or null
+     * @return true if it is the root type
+     */
+    private static boolean isRoot(final Type parent) {
+        return parent == null || TypeDefinition.object().equals(parent);
+    }
+
+    /**
+     * Get the type of a term in a typed list.
+     * @param term the term
+     * @return the type, or absent if the term is not a typed variable
+     */
+    private static Optional<Type> typeOf(final Term term) {
+        if (term instanceof Variable) {
+            return ((Variable) term).getType();
+        }
+        return Optional.absent();
+    }
+
+    /**
+     * Start a new line indented to the current depth when pretty-printing. Otherwise lines are only broken before
+     * sections and their entries, and everything else is separated by a single space.
+     */
+    private void lineBreak() {
+        if (prettyPrint) {
+            out.write('\n');
+            for (int i = depth * indent; i > 0; i--) {
+                out.write(' ');
+            }
+        } else if (depth <= ENTRY_DEPTH) {
+            out.write('\n');
+        } else {
+            out.write(' ');
+        }
+    }
+}
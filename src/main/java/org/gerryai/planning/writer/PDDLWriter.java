@@ -0,0 +1,248 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.writer;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes domains and problems as PDDL that {@link org.gerryai.planning.parser.pddl.PDDLParserService} parses back into
+ * an equal model. The model is streamed to the destination as it is walked, through a small buffer, so no string is
+ * built for any part of it and a problem of any size can be written.
+ *
+ * By default lines are only broken before each section and each entry in a section, such as a predicate, action or
+ * fact of the initial state, which keeps the output small. With pretty-printing enabled every compound formula is
+ * also broken across lines, and each line indented to show how deeply it is nested. Formulas the grammar cannot read
+ * back are still written as PDDL: a disjunction as {@code or}, and a conditional anywhere as {@code when}.
+ *
+ * Numbers are written as they were parsed. A number built from a double is written in plain decimal, without an
+ * exponent, since the grammar only reads digits with an optional fraction. A negative number has no such literal, so
+ * writing one throws {@link IllegalArgumentException}.
+ *
+ * Immutable, so one writer can be shared by any number of threads.
+ */
+public final class PDDLWriter {
+
+    /**
+     * Number of bytes buffered before being written to a channel.
+     */
+    private static final int CHANNEL_BUFFER_SIZE = 65536;
+
+    private final boolean prettyPrint;
+
+    private final int indent;
+
+    /**
+     * Constructor for a writer with the default options.
+     */
+    public PDDLWriter() {
+        this(new Builder());
+    }
+
+    /**
+     * Constructor.
+     * @param builder the builder to build from
+     */
+    private PDDLWriter(final Builder builder) {
+        prettyPrint = builder.prettyPrint;
+        indent = builder.indent;
+    }
+
+    /**
+     * Write a domain to a writer, which is flushed but left open.
+     * @param domain the domain
+     * @param writer the writer
+     * @throws IOException if the writer could not be written to
+     */
+    public void write(final Domain domain, final Writer writer) throws IOException {
+        PDDLPrinter printer = new PDDLPrinter(new CharOutput(writer), prettyPrint, indent);
+        try {
+            printer.print(domain);
+        } catch (OutputFailure ex) {
+            throw ex.getIOException();
+        }
+    }
+
+    /**
+     * Write a problem to a writer, which is flushed but left open.
+     * @param problem the problem
+     * @param writer the writer
+     * @throws IOException if the writer could not be written to
+     */
+    public void write(final Problem problem, final Writer writer) throws IOException {
+        PDDLPrinter printer = new PDDLPrinter(new CharOutput(writer), prettyPrint, indent);
+        try {
+            printer.print(problem);
+        } catch (OutputFailure ex) {
+            throw ex.getIOException();
+        }
+    }
+
+    /**
+     * Write a domain into a buffer as US-ASCII, starting at the buffer's position and leaving it after the last byte
+     * written.
+     * @param domain the domain
+     * @param buffer the buffer
+     * @throws java.nio.BufferOverflowException if the domain does not fit in the space remaining in the buffer
+     */
+    public void write(final Domain domain, final ByteBuffer buffer) {
+        new PDDLPrinter(new ByteOutput(buffer), prettyPrint, indent).print(domain);
+    }
+
+    /**
+     * Write a problem into a buffer as US-ASCII, starting at the buffer's position and leaving it after the last byte
+     * written.
+     * @param problem the problem
+     * @param buffer the buffer
+     * @throws java.nio.BufferOverflowException if the problem does not fit in the space remaining in the buffer
+     */
+    public void write(final Problem problem, final ByteBuffer buffer) {
+        new PDDLPrinter(new ByteOutput(buffer), prettyPrint, indent).print(problem);
+    }
+
+    /**
+     * Write a domain to a channel as US-ASCII, such as to a {@link FileChannel}, which is left open.
+     * @param domain the domain
+     * @param channel the channel
+     * @throws IOException if the channel could not be written to
+     */
+    public void write(final Domain domain, final WritableByteChannel channel) throws IOException {
+        PDDLPrinter printer = new PDDLPrinter(channelOutput(channel), prettyPrint, indent);
+        try {
+            printer.print(domain);
+        } catch (OutputFailure ex) {
+            throw ex.getIOException();
+        }
+    }
+
+    /**
+     * Write a problem to a channel as US-ASCII, such as to a {@link FileChannel}, which is left open.
+     * @param problem the problem
+     * @param channel the channel
+     * @throws IOException if the channel could not be written to
+     */
+    public void write(final Problem problem, final WritableByteChannel channel) throws IOException {
+        PDDLPrinter printer = new PDDLPrinter(channelOutput(channel), prettyPrint, indent);
+        try {
+            printer.print(problem);
+        } catch (OutputFailure ex) {
+            throw ex.getIOException();
+        }
+    }
+
+    /**
+     * Write a domain to a file, replacing anything already in it.
+     * @param domain the domain
+     * @param path the path of the file
+     * @throws IOException if the file could not be written
+     */
+    public void write(final Domain domain, final Path path) throws IOException {
+        try (FileChannel channel = open(path)) {
+            write(domain, channel);
+        }
+    }
+
+    /**
+     * Write a problem to a file, replacing anything already in it.
+     * @param problem the problem
+     * @param path the path of the file
+     * @throws IOException if the file could not be written
+     */
+    public void write(final Problem problem, final Path path) throws IOException {
+        try (FileChannel channel = open(path)) {
+            write(problem, channel);
+        }
+    }
+
+    /**
+     * Create an output that writes to a channel through a buffer outside the heap, which channels can write from
+     * without copying.
+     * @param channel the channel
+     * @return the output
+     */
+    private PDDLOutput channelOutput(final WritableByteChannel channel) {
+        return new ByteOutput(ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE), channel);
+    }
+
+    /**
+     * Open a file to write to.
+     * @param path the path of the file
+     * @return the channel
+     * @throws IOException if the file could not be opened
+     */
+    private FileChannel open(final Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Builder class for {@link PDDLWriter}.
+     */
+    public static class Builder {
+
+        /**
+         * The default number of spaces to indent each level of nesting by when pretty-printing.
+         */
+        private static final int DEFAULT_INDENT = 2;
+
+        private boolean prettyPrint;
+
+        private int indent = DEFAULT_INDENT;
+
+        /**
+         * Set whether to break every compound formula across lines and indent each line to show how deeply it is
+         * nested. Disabled by default.
+         * @param enabled true to pretty-print
+         * @return an updated builder
+         */
+        public Builder prettyPrint(final boolean enabled) {
+            this.prettyPrint = enabled;
+            return this;
+        }
+
+        /**
+         * Set the number of spaces to indent each level of nesting by when pretty-printing. Two by default.
+         * @param spaces the number of spaces
+         * @return an updated builder
+         * @throws IllegalArgumentException if the number is negative
+         */
+        public Builder indent(final int spaces) {
+            if (spaces < 0) {
+                throw new IllegalArgumentException("Indent must not be negative: " + spaces);
+            }
+            this.indent = spaces;
+            return this;
+        }
+
+        /**
+         * Build the finished writer.
+         * @return the writer
+         */
+        public PDDLWriter build() {
+            return new PDDLWriter(this);
+        }
+    }
+}
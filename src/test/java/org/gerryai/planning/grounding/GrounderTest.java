@@ -0,0 +1,258 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding;
+
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.equality;
+import static org.gerryai.planning.model.logic.FormulaBuilder.forAll;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.or;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.gerryai.planning.model.logic.FormulaBuilder.when;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class GrounderTest {
+
+    private Domain.Builder domainBuilder;
+
+    private Problem problem;
+
+    private Grounder grounder;
+
+    @Before
+    public void setUp() {
+        domainBuilder = new Domain.Builder()
+                .name("roads")
+                .type(typeDefinition("place"))
+                .type(typeDefinition("car"))
+                .predicate(predicate("road", variable("a", type("place")), variable("b", type("place"))))
+                .predicate(predicate("at", variable("c", type("car")), variable("p", type("place"))))
+                .predicate(predicate("closed", variable("p", type("place"))));
+        problem = new Problem.Builder()
+                .name("p1")
+                .domain("roads")
+                .object(constantDefinition("a", type("place")))
+                .object(constantDefinition("b", type("place")))
+                .object(constantDefinition("c", type("place")))
+                .object(constantDefinition("car", type("car")))
+                .initialState(predicate("road", constant("a"), constant("b")))
+                .initialState(predicate("road", constant("b"), constant("c")))
+                .initialState(predicate("road", constant("b"), constant("b")))
+                .initialState(predicate("at", constant("car"), constant("a")))
+                .goal(predicate("at", constant("car"), constant("c")))
+                .build();
+        grounder = new Grounder(new ForkJoinPool(2));
+    }
+
+    private Action.Builder drive() {
+        return new Action.Builder()
+                .name("drive")
+                .parameter("c", type("car"))
+                .parameter("from", type("place"))
+                .parameter("to", type("place"))
+                .effect(and(predicate("at", variable("c"), variable("to")),
+                        not(predicate("at", variable("c"), variable("from")))));
+    }
+
+    @Test
+    public void staticAtomsPruneBindings() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(and(predicate("road", variable("from"), variable("to")),
+                        predicate("at", variable("c"), variable("from")))).build())
+                .build();
+        GroundTask task = grounder.ground(domain, problem);
+        assertEquals(Arrays.asList("a b", "b b", "b c"), arguments(task));
+    }
+
+    @Test
+    public void inequalityPrunesBindings() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(and(predicate("road", variable("from"), variable("to")),
+                        not(equality(variable("from"), variable("to"))))).build())
+                .build();
+        assertEquals(Arrays.asList("a b", "b c"), arguments(grounder.ground(domain, problem)));
+    }
+
+    @Test
+    public void negatedStaticAtomsPruneBindings() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(and(not(predicate("road", variable("from"), variable("to"))),
+                        equality(variable("to"), constant("a")))).build())
+                .build();
+        assertEquals(Arrays.asList("a a", "b a", "c a"), arguments(grounder.ground(domain, problem)));
+    }
+
+    @Test
+    public void operatorsHoldAtomIds() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(and(predicate("road", variable("from"), variable("to")),
+                        predicate("at", variable("c"), variable("from")),
+                        not(predicate("closed", variable("to"))))).build())
+                .action(new Action.Builder().name("close").parameter("p", type("place"))
+                        .effect(predicate("closed", variable("p"))).build())
+                .build();
+        GroundTask task = grounder.ground(domain, problem);
+        GroundAtomTable atoms = task.getAtoms();
+        GroundOperator operator = task.getOperators().get(3);
+        assertEquals("drive", operator.getAction().getName());
+        assertArrayEquals(new int[] {atoms.id(predicate("at", constant("car"), constant("a")))},
+                operator.getPrecondition());
+        assertArrayEquals(new int[] {atoms.id(predicate("closed", constant("b")))},
+                operator.getNegativePrecondition());
+        assertArrayEquals(new int[] {atoms.id(predicate("at", constant("car"), constant("b")))},
+                operator.getAddEffects());
+        assertArrayEquals(new int[] {atoms.id(predicate("at", constant("car"), constant("a")))},
+                operator.getDeleteEffects());
+    }
+
+    @Test
+    public void atomBothAddedAndDeletedIsOnlyAdded() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(and(predicate("road", variable("from"), variable("to")),
+                        equality(variable("from"), variable("to")))).build())
+                .build();
+        GroundTask task = grounder.ground(domain, problem);
+        assertEquals(1, task.getOperators().size());
+        assertEquals(1, task.getOperators().get(0).getAddEffects().length);
+        assertEquals(0, task.getOperators().get(0).getDeleteEffects().length);
+    }
+
+    @Test
+    public void unsatisfiableConstantEqualityHasNoOperators() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(equality(constant("a"), constant("b"))).build())
+                .build();
+        assertEquals(0, grounder.ground(domain, problem).getOperators().size());
+    }
+
+    @Test
+    public void parallelAndSequentialGroundingAgree() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(predicate("at", variable("c"), variable("from"))).build())
+                .build();
+        assertEquals(new Grounder(new ForkJoinPool(1)).ground(domain, problem).getOperators(),
+                grounder.ground(domain, problem).getOperators());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void disjunctivePreconditionIsRejected() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(or(predicate("closed", variable("from")),
+                        predicate("closed", variable("to")))).build())
+                .build();
+        grounder.ground(domain, problem);
+    }
+
+    @Test
+    public void conditionalEffectDependingOnStateIsKept() {
+        Domain domain = domainBuilder
+                .action(new Action.Builder().name("close").parameter("p", type("place"))
+                        .effect(when(predicate("at", constant("car"), variable("p")))
+                                .then(predicate("closed", variable("p")))).build())
+                .action(drive().precondition(predicate("at", variable("c"), variable("from"))).build())
+                .build();
+        GroundTask task = grounder.ground(domain, problem);
+        GroundAtomTable atoms = task.getAtoms();
+        GroundOperator close = task.getOperators().get(0);
+        assertEquals(0, close.getAddEffects().length);
+        assertEquals(1, close.getConditionalEffects().length);
+        assertArrayEquals(new int[] {atoms.id(predicate("at", constant("car"), constant("a")))},
+                close.getConditionalEffects()[0].getCondition());
+        assertArrayEquals(new int[] {atoms.id(predicate("closed", constant("a")))},
+                close.getConditionalEffects()[0].getAddEffects());
+    }
+
+    @Test
+    public void conditionalEffectWithStaticConditionIsDecided() {
+        Domain domain = domainBuilder
+                .action(new Action.Builder().name("close").parameter("from", type("place"))
+                        .effect(forAll(when(predicate("road", variable("from"), variable("to")))
+                                .then(predicate("closed", variable("to"))), variable("to", type("place"))))
+                        .build())
+                .build();
+        GroundTask task = grounder.ground(domain, problem);
+        GroundAtomTable atoms = task.getAtoms();
+        GroundOperator closeFromB = task.getOperators().get(1);
+        assertEquals(0, closeFromB.getConditionalEffects().length);
+        assertArrayEquals(new int[] {atoms.id(predicate("closed", constant("b"))),
+                atoms.id(predicate("closed", constant("c")))}, closeFromB.getAddEffects());
+        assertEquals(0, task.getOperators().get(2).getAddEffects().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void quantifiedPreconditionIsRejected() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(forAll(predicate("closed", variable("x")), variable("x"))).build())
+                .build();
+        grounder.ground(domain, problem);
+    }
+
+    @Test
+    public void numericEffectIsLeftOut() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(predicate("road", variable("from"), variable("to")))
+                        .effect(and(predicate("at", variable("c"), variable("to")),
+                                new Operation.Builder().operator("increase")
+                                        .consequent(new FunctionTerm.Builder().name("total-cost").build())
+                                        .antecedent(new FunctionTerm.Builder().term(new NumberTerm("1")).build())
+                                        .build()))
+                        .build())
+                .build();
+        GroundTask task = grounder.ground(domain, problem);
+        assertEquals(Arrays.asList("a b", "b b", "b c"), arguments(task));
+        assertEquals(1, task.getOperators().get(0).getAddEffects().length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void variableThatIsNotAParameterIsRejected() {
+        Domain domain = domainBuilder
+                .action(drive().precondition(predicate("closed", variable("elsewhere"))).build())
+                .build();
+        grounder.ground(domain, problem);
+    }
+
+    private List<String> arguments(GroundTask task) {
+        List<String> objects = task.getAtoms().getTypeHierarchy().getObjects();
+        List<String> arguments = new ArrayList<>();
+        for (GroundOperator operator : task.getOperators()) {
+            arguments.add(objects.get(operator.getArguments()[1]) + " " + objects.get(operator.getArguments()[2]));
+        }
+        return arguments;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding;
+
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.equality;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReachabilityAnalysisTest {
+
+    private Action drive;
+
+    private Action light;
+
+    private Action beam;
+
+    private Domain.Builder domainBuilder;
+
+    private Problem problem;
+
+    @Before
+    public void setUp() {
+        drive = new Action.Builder()
+                .name("drive")
+                .parameter("c", type("car"))
+                .parameter("from", type("place"))
+                .parameter("to", type("place"))
+                .precondition(and(predicate("road", variable("from"), variable("to")),
+                        predicate("at", variable("c"), variable("from"))))
+                .effect(and(predicate("at", variable("c"), variable("to")),
+                        not(predicate("at", variable("c"), variable("from")))))
+                .build();
+        light = new Action.Builder()
+                .name("light")
+                .parameter("c", type("car"))
+                .parameter("p", type("place"))
+                .precondition(and(predicate("at", variable("c"), variable("p")),
+                        not(equality(variable("p"), constant("b")))))
+                .effect(predicate("beacon", variable("p")))
+                .build();
+        beam = new Action.Builder()
+                .name("beam")
+                .parameter("c", type("car"))
+                .parameter("p", type("place"))
+                .precondition(and(predicate("beacon", variable("p")), predicate("beacon", constant("d"))))
+                .effect(predicate("at", variable("c"), variable("p")))
+                .build();
+        domainBuilder = new Domain.Builder()
+                .name("roads")
+                .type(typeDefinition("place"))
+                .type(typeDefinition("car"))
+                .predicate(predicate("road", variable("a", type("place")), variable("b", type("place"))))
+                .predicate(predicate("at", variable("c", type("car")), variable("p", type("place"))))
+                .predicate(predicate("beacon", variable("p", type("place"))));
+        problem = new Problem.Builder()
+                .name("p1")
+                .domain("roads")
+                .object(constantDefinition("a", type("place")))
+                .object(constantDefinition("b", type("place")))
+                .object(constantDefinition("c", type("place")))
+                .object(constantDefinition("d", type("place")))
+                .object(constantDefinition("car", type("car")))
+                .initialState(predicate("road", constant("a"), constant("b")))
+                .initialState(predicate("road", constant("b"), constant("c")))
+                .initialState(predicate("road", constant("d"), constant("a")))
+                .initialState(predicate("at", constant("car"), constant("a")))
+                .goal(predicate("at", constant("car"), constant("d")))
+                .build();
+    }
+
+    @Test
+    public void onlyReachableAtomsAreReached() {
+        Reachability reachability = new ReachabilityAnalysis()
+                .analyse(domainBuilder.action(drive).action(light).action(beam).build(), problem);
+        assertTrue(reachable(reachability, predicate("at", constant("car"), constant("a"))));
+        assertTrue(reachable(reachability, predicate("at", constant("car"), constant("b"))));
+        assertTrue(reachable(reachability, predicate("at", constant("car"), constant("c"))));
+        assertFalse(reachable(reachability, predicate("at", constant("car"), constant("d"))));
+        assertTrue(reachable(reachability, predicate("beacon", constant("a"))));
+        assertFalse(reachable(reachability, predicate("beacon", constant("b"))));
+        assertTrue(reachable(reachability, predicate("beacon", constant("c"))));
+        assertFalse(reachable(reachability, predicate("beacon", constant("d"))));
+    }
+
+    @Test
+    public void onlyReachableInstancesAreFound() {
+        Reachability reachability = new ReachabilityAnalysis()
+                .analyse(domainBuilder.action(drive).action(light).action(beam).build(), problem);
+        assertEquals(Arrays.asList("car a b", "car b c"), names(reachability, drive));
+        assertEquals(Arrays.asList("car a", "car c"), names(reachability, light));
+        assertEquals(0, reachability.getInstances(beam).size());
+        assertEquals(4, reachability.getInstanceCount());
+    }
+
+    @Test
+    public void actionWithoutPreconditionFiresForEveryBinding() {
+        Action spawn = new Action.Builder()
+                .name("spawn")
+                .parameter("c", type("car"))
+                .parameter("p", type("place"))
+                .effect(predicate("at", variable("c"), variable("p")))
+                .build();
+        Reachability reachability = new ReachabilityAnalysis()
+                .analyse(domainBuilder.action(spawn).action(light).action(beam).build(), problem);
+        assertEquals(4, reachability.getInstances(spawn).size());
+        assertEquals(Arrays.asList("car a", "car c", "car d"), names(reachability, light));
+        assertEquals(Arrays.asList("car a", "car c", "car d"), names(reachability, beam));
+    }
+
+    @Test
+    public void groundingReachableInstancesDropsUnreachableOperators() {
+        Domain domain = domainBuilder.action(drive).action(light).action(beam).build();
+        Grounder grounder = new Grounder();
+        List<GroundOperator> all = grounder.ground(domain, problem).getOperators();
+        List<GroundOperator> reachable = grounder.groundReachable(domain, problem).getOperators();
+        assertEquals(4, reachable.size());
+        assertTrue(all.size() > reachable.size());
+        assertTrue(all.containsAll(reachable));
+    }
+
+    private boolean reachable(Reachability reachability, Predicate atom) {
+        GroundAtomTable atoms = reachability.getAtoms();
+        return reachability.isReachable(atoms.id(atom));
+    }
+
+    private List<String> names(Reachability reachability, Action action) {
+        List<String> objects = reachability.getAtoms().getTypeHierarchy().getObjects();
+        List<String> names = new ArrayList<>();
+        for (int[] binding : reachability.getInstances(action)) {
+            StringBuilder name = new StringBuilder();
+            for (int object : binding) {
+                if (name.length() > 0) {
+                    name.append(' ');
+                }
+                name.append(objects.get(object));
+            }
+            names.add(name.toString());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.grounding.benchmark;
+
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.TypeHierarchy;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.benchmark.Benchmarks;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures grounding of the largest logistics and gripper examples as the number of threads grows, and shows how
+ * many typed parameter bindings are pruned by static atoms before being enumerated. Grounding only the instances
+ * found reachable by the relaxed reachability analysis is measured alongside.
+ */
+public final class GroundingBenchmark {
+
+    private static final String[][] EXAMPLES = {
+        {"logistics/logistics.pddl", "logistics/pb2.pddl"},
+        {"gripper/gripper.pddl", "gripper/pb4.pddl"},
+    };
+
+    private GroundingBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        PDDLParserService parserService = new PDDLParserService();
+        for (String[] example : EXAMPLES) {
+            final Domain domain = parserService.parseDomain(Benchmarks.resource(example[0]));
+            final Problem problem = parserService.parseProblem(Benchmarks.resource(example[1]));
+            GroundTask task = new Grounder().ground(domain, problem);
+            System.out.println(String.format(Locale.ROOT, "%s: %d atoms, %d operators from %d typed bindings",
+                    example[1], task.getAtoms().size(), task.getOperators().size(),
+                    bindings(domain, task.getAtoms().getTypeHierarchy())));
+            final Grounder sequential = new Grounder(new ForkJoinPool(1));
+            System.out.println(String.format(Locale.ROOT, "  %d operators reachable",
+                    sequential.groundReachable(domain, problem).getOperators().size()));
+            Benchmarks.measure("  reachable only", new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    sequential.groundReachable(domain, problem);
+                }
+            });
+            for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors() || threads <= 4;
+                    threads *= 2) {
+                final ForkJoinPool pool = new ForkJoinPool(threads);
+                final Grounder grounder = new Grounder(pool);
+                Benchmarks.measure("  " + threads + " threads", new Benchmarks.Task() {
+                    @Override
+                    public void run() {
+                        grounder.ground(domain, problem);
+                    }
+                });
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static long bindings(Domain domain, TypeHierarchy hierarchy) {
+        long total = 0;
+        for (Action action : domain.getActions().asSet()) {
+            long count = 1;
+            for (Variable parameter : action.getParameters()) {
+                count *= hierarchy.objects(parameter.getType()).length;
+            }
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic;
+
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.search.PackedState;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdditiveHeuristicTest {
+
+    @Test
+    public void goalAtomsAreSummed() {
+        GroundTask task = Roads.task(Roads.reachable());
+        assertEquals(3, new AdditiveHeuristic(new RelaxedTask(task)).evaluate(PackedState.initial(task.getAtoms())));
+    }
+
+    @Test
+    public void costsAreUsed() {
+        GroundTask task = Roads.task(Roads.reachable());
+        AdditiveHeuristic heuristic = new AdditiveHeuristic(new RelaxedTask(task, Roads.costs(task, 5)));
+        assertEquals(11, heuristic.evaluate(PackedState.initial(task.getAtoms())));
+    }
+
+    @Test
+    public void repeatedEvaluationGivesSameResult() {
+        GroundTask task = Roads.task(Roads.reachable());
+        AdditiveHeuristic heuristic = new AdditiveHeuristic(new RelaxedTask(task));
+        PackedState state = PackedState.initial(task.getAtoms());
+        PackedState successor = new PackedState(task.getAtoms().size());
+        state.apply(task.getOperators().get(0), successor);
+        assertEquals(3, heuristic.evaluate(state));
+        assertEquals(1, heuristic.evaluate(successor));
+        assertEquals(3, heuristic.evaluate(state));
+    }
+
+    @Test
+    public void unreachableGoalIsDeadEnd() {
+        GroundTask task = Roads.task(Roads.unreachable());
+        assertEquals(Heuristic.DEAD_END,
+                new AdditiveHeuristic(new RelaxedTask(task)).evaluate(PackedState.initial(task.getAtoms())));
+    }
+}
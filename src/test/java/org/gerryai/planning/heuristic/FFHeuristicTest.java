@@ -0,0 +1,67 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.search.PackedState;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FFHeuristicTest {
+
+    @Test
+    public void operatorsOfRelaxedPlanAreCountedOnce() {
+        GroundTask task = Roads.task(Roads.reachable());
+        assertEquals(2, new FFHeuristic(new RelaxedTask(task)).evaluate(PackedState.initial(task.getAtoms())));
+    }
+
+    @Test
+    public void costsAreUsed() {
+        GroundTask task = Roads.task(Roads.reachable());
+        FFHeuristic heuristic = new FFHeuristic(new RelaxedTask(task, Roads.costs(task, 5)));
+        assertEquals(6, heuristic.evaluate(PackedState.initial(task.getAtoms())));
+    }
+
+    @Test
+    public void applicableOperatorsOfRelaxedPlanArePreferred() {
+        GroundTask task = Roads.task(Roads.reachable());
+        FFHeuristic heuristic = new FFHeuristic(new RelaxedTask(task));
+        List<GroundOperator> preferred = new ArrayList<>();
+        heuristic.evaluate(PackedState.initial(task.getAtoms()), preferred);
+        assertEquals(1, preferred.size());
+        assertEquals("drive car a b", Roads.name(task, preferred.get(0)));
+        preferred.clear();
+        heuristic.evaluate(PackedState.initial(task.getAtoms()), preferred);
+        assertEquals(1, preferred.size());
+    }
+
+    @Test
+    public void unreachableGoalIsDeadEnd() {
+        GroundTask task = Roads.task(Roads.unreachable());
+        List<GroundOperator> preferred = new ArrayList<>();
+        assertEquals(Heuristic.DEAD_END,
+                new FFHeuristic(new RelaxedTask(task)).evaluate(PackedState.initial(task.getAtoms()), preferred));
+        assertTrue(preferred.isEmpty());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic;
+
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.search.PackedState;
+import org.junit.Test;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.junit.Assert.assertEquals;
+
+public class MaxHeuristicTest {
+
+    @Test
+    public void costliestGoalAtomIsCounted() {
+        GroundTask task = Roads.task(Roads.reachable());
+        assertEquals(2, new MaxHeuristic(new RelaxedTask(task)).evaluate(PackedState.initial(task.getAtoms())));
+    }
+
+    @Test
+    public void costsAreUsed() {
+        GroundTask task = Roads.task(Roads.reachable());
+        MaxHeuristic heuristic = new MaxHeuristic(new RelaxedTask(task, Roads.costs(task, 5)));
+        assertEquals(6, heuristic.evaluate(PackedState.initial(task.getAtoms())));
+    }
+
+    @Test
+    public void goalStateIsZero() {
+        GroundTask task = Roads.task(predicate("at", constant("car"), constant("a")));
+        assertEquals(0, new MaxHeuristic(new RelaxedTask(task)).evaluate(PackedState.initial(task.getAtoms())));
+    }
+
+    @Test
+    public void unreachableGoalIsDeadEnd() {
+        GroundTask task = Roads.task(Roads.unreachable());
+        assertEquals(Heuristic.DEAD_END,
+                new MaxHeuristic(new RelaxedTask(task)).evaluate(PackedState.initial(task.getAtoms())));
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic;
+
+import org.gerryai.planning.grounding.GroundTask;
+import org.junit.Test;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.or;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.junit.Assert.assertEquals;
+
+public class RelaxedTaskTest {
+
+    @Test
+    public void eachAddEffectIsAUnaryOperatorWithoutStaticAtoms() {
+        GroundTask task = Roads.task(Roads.reachable());
+        RelaxedTask relaxed = new RelaxedTask(task);
+        assertEquals(2 * task.getOperators().size(), relaxed.getUnaryOperatorCount());
+        for (int unary = 0; unary < relaxed.getUnaryOperatorCount(); unary++) {
+            assertEquals(1, relaxed.preconditionStart(unary + 1) - relaxed.preconditionStart(unary));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void disjunctiveGoalIsRejected() {
+        new RelaxedTask(Roads.task(or(predicate("visited", constant("b")), predicate("visited", constant("c")))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeCostIsRejected() {
+        GroundTask task = Roads.task(Roads.reachable());
+        new RelaxedTask(task, Roads.costs(task, -1));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.problem.Problem;
+
+import java.util.List;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+
+/**
+ * A car on the roads a to b to c, with d cut off, for testing heuristics.
+ */
+final class Roads {
+
+    private Roads() { }
+
+    static GroundTask task(Formula goal) {
+        Action drive = new Action.Builder()
+                .name("drive")
+                .parameter("c", type("car"))
+                .parameter("from", type("place"))
+                .parameter("to", type("place"))
+                .precondition(and(predicate("road", variable("from"), variable("to")),
+                        predicate("at", variable("c"), variable("from"))))
+                .effect(and(predicate("at", variable("c"), variable("to")),
+                        not(predicate("at", variable("c"), variable("from"))),
+                        predicate("visited", variable("to"))))
+                .build();
+        Domain domain = new Domain.Builder()
+                .name("roads")
+                .type(typeDefinition("place"))
+                .type(typeDefinition("car"))
+                .predicate(predicate("road", variable("a", type("place")), variable("b", type("place"))))
+                .predicate(predicate("at", variable("c", type("car")), variable("p", type("place"))))
+                .predicate(predicate("visited", variable("p", type("place"))))
+                .action(drive)
+                .build();
+        Problem problem = new Problem.Builder()
+                .name("p1")
+                .domain("roads")
+                .object(constantDefinition("a", type("place")))
+                .object(constantDefinition("b", type("place")))
+                .object(constantDefinition("c", type("place")))
+                .object(constantDefinition("d", type("place")))
+                .object(constantDefinition("car", type("car")))
+                .initialState(predicate("road", constant("a"), constant("b")))
+                .initialState(predicate("road", constant("b"), constant("c")))
+                .initialState(predicate("at", constant("car"), constant("a")))
+                .goal(goal)
+                .build();
+        return new Grounder().ground(domain, problem);
+    }
+
+    static Formula reachable() {
+        return and(predicate("at", constant("car"), constant("c")), predicate("visited", constant("b")));
+    }
+
+    static Formula unreachable() {
+        return predicate("at", constant("car"), constant("d"));
+    }
+
+    static int[] costs(GroundTask task, int fromAToB) {
+        List<GroundOperator> operators = task.getOperators();
+        int[] costs = new int[operators.size()];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = 1;
+            if (name(task, operators.get(i)).equals("drive car a b")) {
+                costs[i] = fromAToB;
+            }
+        }
+        return costs;
+    }
+
+    static String name(GroundTask task, GroundOperator operator) {
+        StringBuilder name = new StringBuilder(operator.getAction().getName());
+        for (int argument : operator.getArguments()) {
+            name.append(' ').append(task.getAtoms().getObjects().get(argument));
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.heuristic.benchmark;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.heuristic.AdditiveHeuristic;
+import org.gerryai.planning.heuristic.FFHeuristic;
+import org.gerryai.planning.heuristic.Heuristic;
+import org.gerryai.planning.heuristic.MaxHeuristic;
+import org.gerryai.planning.heuristic.RelaxedTask;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.benchmark.Benchmarks;
+import org.gerryai.planning.search.PackedState;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the evaluations per second of h_max, h_add and h_FF, in states along a random walk through generated
+ * logistics problems of growing size in which every package has to be moved to the next city.
+ */
+public final class HeuristicBenchmark {
+
+    private static final int[] CITIES = {5, 10, 20};
+
+    private static final int STATES = 100;
+
+    private static int sink;
+
+    private HeuristicBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        PDDLParserService parserService = new PDDLParserService();
+        Domain domain = parserService.parseDomain(Benchmarks.resource("logistics/logistics.pddl"));
+        for (int cities : CITIES) {
+            Problem problem = parserService.parseProblem(Benchmarks.logistics(cities).getBytes(StandardCharsets.UTF_8));
+            GroundTask task = new Grounder().groundReachable(domain, problem);
+            final List<PackedState> states = Benchmarks.walk(task, STATES);
+            RelaxedTask relaxed = new RelaxedTask(task);
+            System.out.println(String.format(Locale.ROOT, "%d cities: %d operators, %d unary operators, %d atoms",
+                    cities, task.getOperators().size(), relaxed.getUnaryOperatorCount(), task.getAtoms().size()));
+            evaluate("h_max", new MaxHeuristic(relaxed), states);
+            evaluate("h_add", new AdditiveHeuristic(relaxed), states);
+            evaluate("h_FF", new FFHeuristic(relaxed), states);
+            final FFHeuristic ff = new FFHeuristic(relaxed);
+            final List<GroundOperator> preferred = new ArrayList<>();
+            double time = Benchmarks.measure("  h_FF with preferred operators", 10, 20, new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (PackedState state : states) {
+                        preferred.clear();
+                        sink += ff.evaluate(state, preferred) + preferred.size();
+                    }
+                }
+            });
+            perSecond(time);
+        }
+        System.out.println(sink);
+    }
+
+    private static void evaluate(String name, final Heuristic heuristic, final List<PackedState> states)
+            throws Exception {
+        double time = Benchmarks.measure("  " + name, 10, 20, new Benchmarks.Task() {
+            @Override
+            public void run() {
+                for (PackedState state : states) {
+                    sink += heuristic.evaluate(state);
+                }
+            }
+        });
+        perSecond(time);
+    }
+
+    private static void perSecond(double micros) {
+        System.out.println(String.format(Locale.ROOT, "    %.0f evaluations per second", STATES * 1e6 / micros));
+    }
+}
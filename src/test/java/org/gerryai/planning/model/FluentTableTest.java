@@ -0,0 +1,107 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FluentTableTest {
+
+    private Domain domain;
+
+    private Problem.Builder problemBuilder;
+
+    @Before
+    public void setUp() {
+        domain = new Domain.Builder()
+                .name("trucks")
+                .type(typeDefinition("truck"))
+                .type(typeDefinition("place"))
+                .function(new FunctionDefinition.Builder().name("total-cost").build())
+                .function(new FunctionDefinition.Builder().name("distance")
+                        .variable("a", type("place")).variable("b", type("place")).build())
+                .function(new FunctionDefinition.Builder().name("fuel").variable("t", type("truck")).build())
+                .build();
+        problemBuilder = new Problem.Builder()
+                .name("p1")
+                .domain("trucks")
+                .object(constantDefinition("a", type("place")))
+                .object(constantDefinition("b", type("place")))
+                .object(constantDefinition("t1", type("truck")))
+                .object(constantDefinition("t2", type("truck")));
+    }
+
+    private static FunctionTerm fluent(final String name, final String... arguments) {
+        FunctionTerm.Builder builder = new FunctionTerm.Builder().name(name);
+        for (String argument : arguments) {
+            builder.term(constant(argument));
+        }
+        return builder.build();
+    }
+
+    private static Operation initially(final FunctionTerm fluent, final String value) {
+        return new Operation.Builder()
+                .operator("=")
+                .consequent(fluent)
+                .antecedent(new FunctionTerm.Builder().term(new NumberTerm(value)).build())
+                .build();
+    }
+
+    @Test
+    public void everyTypedInstanceHasASlot() {
+        FluentTable table = new FluentTable(domain, problemBuilder.build());
+        assertEquals(7, table.size());
+        assertEquals(-1, table.slot(fluent("fuel", "a")));
+        assertEquals(-1, table.slot(fluent("distance", "a")));
+        assertEquals(-1, table.slot(fluent("speed", "t1")));
+        int[] objects = {table.getTypeHierarchy().objectId("b"), table.getTypeHierarchy().objectId("a")};
+        assertEquals(table.slot(fluent("distance", "b", "a")), table.slot(table.functionId("distance"), objects));
+    }
+
+    @Test
+    public void initialValuesAreParsed() {
+        Problem problem = problemBuilder
+                .initialState(initially(fluent("total-cost"), "0"))
+                .initialState(initially(fluent("distance", "a", "b"), "12.5"))
+                .build();
+        FluentTable table = new FluentTable(domain, problem);
+        double[] values = table.getInitialValues();
+        assertEquals(0.0, values[table.slot(fluent("total-cost"))], 0.0);
+        assertEquals(12.5, values[table.slot(fluent("distance", "a", "b"))], 0.0);
+        assertTrue(Double.isNaN(values[table.slot(fluent("distance", "b", "a"))]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void initialValueOfUnknownFluentIsRejected() {
+        new FluentTable(domain, problemBuilder.initialState(initially(fluent("fuel", "a"), "1")).build());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.or;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GroundAtomTableTest {
+
+    private Domain domain;
+
+    private Problem.Builder problemBuilder;
+
+    @Before
+    public void setUp() {
+        domain = new Domain.Builder()
+                .name("logistics")
+                .type(typeDefinition("vehicle"))
+                .type(typeDefinition("truck", type("vehicle")))
+                .type(typeDefinition("place"))
+                .constant(constantDefinition("depot", type("place")))
+                .predicate(predicate("at", variable("v", type("vehicle")), variable("p", type("place"))))
+                .predicate(predicate("empty", variable("v", type("truck"))))
+                .predicate(predicate("linked", variable("a", type("place", "vehicle")),
+                        variable("b", type("place")))) // either type
+                .predicate(predicate("raining"))
+                .predicate(predicate("unused", variable("x", type("nothing"))))
+                .predicate(predicate("anything", variable("x")))
+                .build();
+        problemBuilder = new Problem.Builder()
+                .name("deliver")
+                .domain("logistics")
+                .object(constantDefinition("t1", type("truck")))
+                .object(constantDefinition("t2", type("truck")))
+                .object(constantDefinition("home", type("place")))
+                .initialState(predicate("at", constant("t1"), constant("depot")))
+                .initialState(predicate("raining"))
+                .initialState(not(predicate("empty", constant("t2"))));
+    }
+
+    @Test
+    public void everyWellTypedAtomHasAnId() {
+        GroundAtomTable table = new GroundAtomTable(domain, problemBuilder.goal(predicate("raining")).build());
+        assertEquals(Arrays.asList("depot", "home", "t1", "t2"), table.getObjects());
+        // anything: 4, at: 2 trucks x 2 places, empty: 2 trucks, linked: 4 places or vehicles x 2 places,
+        // raining: 1, unused: 0
+        assertEquals(4 + 4 + 2 + 8 + 1, table.size());
+    }
+
+    @Test
+    public void idsAndAtomsRoundTrip() {
+        GroundAtomTable table = new GroundAtomTable(domain, problemBuilder.goal(predicate("raining")).build());
+        Set<Predicate> atoms = new HashSet<>();
+        for (int id = 0; id < table.size(); id++) {
+            Predicate atom = table.atom(id);
+            assertEquals(id, table.id(atom));
+            assertTrue(atoms.add(atom));
+        }
+        assertTrue(atoms.contains(predicate("at", constant("t2"), constant("home"))));
+        assertTrue(atoms.contains(predicate("linked", constant("t1"), constant("depot"))));
+        assertTrue(atoms.contains(predicate("anything", constant("home"))));
+    }
+
+    @Test
+    public void atomsThatAreNotGroundOrWellTypedHaveNoId() {
+        GroundAtomTable table = new GroundAtomTable(domain, problemBuilder.goal(predicate("raining")).build());
+        assertEquals(-1, table.id(predicate("at", constant("home"), constant("t1"))));
+        assertEquals(-1, table.id(predicate("at", variable("x"), constant("home"))));
+        assertEquals(-1, table.id(predicate("at", constant("t1"))));
+        assertEquals(-1, table.id(predicate("at", constant("t3"), constant("home"))));
+        assertEquals(-1, table.id(predicate("flying", constant("t1"))));
+    }
+
+    @Test
+    public void initialStateHoldsItsPositiveAtoms() {
+        GroundAtomTable table = new GroundAtomTable(domain, problemBuilder.goal(predicate("raining")).build());
+        long[] state = table.getInitialState();
+        assertEquals(table.newBitSet().length, state.length);
+        int count = 0;
+        for (int id = 0; id < table.size(); id++) {
+            if (GroundAtomTable.contains(state, id)) {
+                count++;
+            }
+        }
+        assertEquals(2, count);
+        assertTrue(GroundAtomTable.contains(state, table.id(predicate("at", constant("t1"), constant("depot")))));
+        assertTrue(GroundAtomTable.contains(state, table.id(predicate("raining"))));
+        assertFalse(GroundAtomTable.contains(state, table.id(predicate("empty", constant("t2")))));
+    }
+
+    @Test
+    public void conjunctiveGoalIsSplitIntoLiterals() {
+        GroundAtomTable table = new GroundAtomTable(domain, problemBuilder
+                .goal(and(predicate("at", constant("t2"), constant("home")), not(predicate("raining"))))
+                .build());
+        assertTrue(table.isConjunctiveGoal());
+        assertTrue(GroundAtomTable.contains(table.getGoal(),
+                table.id(predicate("at", constant("t2"), constant("home")))));
+        assertFalse(GroundAtomTable.contains(table.getGoal(), table.id(predicate("raining"))));
+        assertTrue(GroundAtomTable.contains(table.getNegatedGoal(), table.id(predicate("raining"))));
+    }
+
+    @Test
+    public void otherGoalsAreNotConjunctive() {
+        GroundAtomTable table = new GroundAtomTable(domain, problemBuilder
+                .goal(or(predicate("raining"), predicate("empty", constant("t1"))))
+                .build());
+        assertFalse(table.isConjunctiveGoal());
+    }
+
+    @Test
+    public void bitsCanBeSetAndCleared() {
+        long[] bits = new long[2];
+        GroundAtomTable.set(bits, 70);
+        assertTrue(GroundAtomTable.contains(bits, 70));
+        assertFalse(GroundAtomTable.contains(bits, 6));
+        GroundAtomTable.clear(bits, 70);
+        assertFalse(GroundAtomTable.contains(bits, 70));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void initialStateMustHoldOnlyKnownAtoms() {
+        new GroundAtomTable(domain, problemBuilder
+                .initialState(predicate("at", constant("home"), constant("t1")))
+                .goal(predicate("raining"))
+                .build());
+    }
+}
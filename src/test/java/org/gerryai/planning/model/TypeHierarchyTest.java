@@ -0,0 +1,152 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.Type;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TypeHierarchyTest {
+
+    private TypeHierarchy hierarchy;
+
+    @Before
+    public void setUp() {
+        Domain domain = new Domain.Builder()
+                .name("logistics")
+                .type(typeDefinition("vehicle"))
+                .type(typeDefinition("truck", type("vehicle")))
+                .type(typeDefinition("airplane", type("vehicle")))
+                .type(typeDefinition("place"))
+                .type(typeDefinition("airport", type("place", "hub")))
+                .constant(constantDefinition("depot", type("place")))
+                .build();
+        Problem problem = new Problem.Builder()
+                .name("p1")
+                .domain("logistics")
+                .object(constantDefinition("t1", type("truck")))
+                .object(constantDefinition("a1", type("airplane")))
+                .object(constantDefinition("lhr", type("airport")))
+                .object(constantDefinition("ball"))
+                .object(constantDefinition("van", type("truck", "place")))
+                .build();
+        hierarchy = new TypeHierarchy(domain, problem);
+    }
+
+    @Test
+    public void objectIsTheRootWithIdZero() {
+        assertEquals(Arrays.asList("object", "airplane", "airport", "hub", "place", "truck", "vehicle"),
+                hierarchy.getTypes());
+        assertEquals(TypeHierarchy.OBJECT, hierarchy.typeId("object"));
+        assertEquals(-1, hierarchy.typeId("boat"));
+    }
+
+    @Test
+    public void subtypesAreTransitiveAndReflexive() {
+        assertTrue(hierarchy.isSubtype("truck", "vehicle"));
+        assertTrue(hierarchy.isSubtype("truck", "truck"));
+        assertTrue(hierarchy.isSubtype("truck", "object"));
+        assertFalse(hierarchy.isSubtype("vehicle", "truck"));
+        assertFalse(hierarchy.isSubtype("truck", "place"));
+        assertFalse(hierarchy.isSubtype("boat", "object"));
+    }
+
+    @Test
+    public void eitherParentMakesASubtypeOfEachMember() {
+        assertTrue(hierarchy.isSubtype("airport", "place"));
+        assertTrue(hierarchy.isSubtype("airport", "hub"));
+    }
+
+    @Test
+    public void subtypeBitsetsHoldEachSubtype() {
+        long[] subtypes = hierarchy.getSubtypes(hierarchy.typeId("vehicle"));
+        assertTrue(BitSets.contains(subtypes, hierarchy.typeId("vehicle")));
+        assertTrue(BitSets.contains(subtypes, hierarchy.typeId("truck")));
+        assertTrue(BitSets.contains(subtypes, hierarchy.typeId("airplane")));
+        assertFalse(BitSets.contains(subtypes, hierarchy.typeId("place")));
+    }
+
+    @Test
+    public void objectsIncludeConstantsInOrderOfName() {
+        assertEquals(Arrays.asList("a1", "ball", "depot", "lhr", "t1", "van"), hierarchy.getObjects());
+        assertEquals(2, hierarchy.objectId("depot"));
+        assertEquals(-1, hierarchy.objectId("nowhere"));
+    }
+
+    @Test
+    public void objectsOfATypeIncludeThoseOfItsSubtypes() {
+        assertArrayEquals(ids("a1", "t1", "van"), hierarchy.objects(type("vehicle")));
+        assertArrayEquals(ids("depot", "lhr", "van"), hierarchy.objects(type("place")));
+        assertArrayEquals(ids("lhr"), hierarchy.objects(type("hub")));
+    }
+
+    @Test
+    public void everyObjectIsAnObject() {
+        assertArrayEquals(ids("a1", "ball", "depot", "lhr", "t1", "van"), hierarchy.objects(type("object")));
+        assertArrayEquals(ids("a1", "ball", "depot", "lhr", "t1", "van"), hierarchy.objects(Optional.<Type>absent()));
+    }
+
+    @Test
+    public void objectsOfAnEitherTypeAreTheUnion() {
+        assertArrayEquals(ids("a1", "lhr", "t1", "van"), hierarchy.objects(type("airplane", "hub", "truck")));
+        assertSame(hierarchy.objects(type("airplane", "hub", "truck")),
+                hierarchy.objects(type("airplane", "hub", "truck")));
+    }
+
+    @Test
+    public void unknownTypeHasNoObjects() {
+        assertEquals(0, hierarchy.objects(type("boat")).length);
+    }
+
+    @Test
+    public void cyclicHierarchyIsCompiled() {
+        Domain domain = new Domain.Builder()
+                .name("cyclic")
+                .type(typeDefinition("a", type("b")))
+                .type(typeDefinition("b", type("a")))
+                .build();
+        Problem problem = new Problem.Builder().name("p").domain("cyclic")
+                .object(constantDefinition("x", type("a"))).build();
+        TypeHierarchy cyclic = new TypeHierarchy(domain, problem);
+        assertTrue(cyclic.isSubtype("a", "b"));
+        assertTrue(cyclic.isSubtype("b", "a"));
+        assertArrayEquals(new int[] {0}, cyclic.objects(type("b")));
+    }
+
+    private int[] ids(String... names) {
+        int[] ids = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = hierarchy.objectId(names[i]);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.domain;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.logic.Predicate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class DomainIndexTest {
+
+    private Domain domain;
+
+    private Action move;
+
+    private Predicate atOne;
+
+    private Predicate atTwo;
+
+    private FunctionDefinition distance;
+
+    @Before
+    public void setUp() {
+        move = new Action.Builder().name("move").parameter("x").build();
+        atOne = predicate("at", variable("x"));
+        atTwo = predicate("at", variable("x"), variable("y", type("place")));
+        distance = new FunctionDefinition.Builder().name("distance").variable("a").variable("b").build();
+        domain = new Domain.Builder()
+                .name("test")
+                .type(typeDefinition("place"))
+                .constant(constantDefinition("home", type("place")))
+                .predicate(atOne)
+                .predicate(atTwo)
+                .function(distance)
+                .action(move)
+                .build();
+    }
+
+    @Test
+    public void lookUpAction() {
+        assertEquals(Optional.of(move), domain.getIndex().action("move"));
+        assertFalse(domain.getIndex().action("fly").isPresent());
+    }
+
+    @Test
+    public void lookUpPredicateByNameAndArity() {
+        assertEquals(Optional.of(atOne), domain.getIndex().predicate("at", 1));
+        assertEquals(Optional.of(atTwo), domain.getIndex().predicate("at", 2));
+        assertFalse(domain.getIndex().predicate("at", 0).isPresent());
+        assertFalse(domain.getIndex().predicate("in", 1).isPresent());
+    }
+
+    @Test
+    public void lookUpFunction() {
+        assertEquals(Optional.of(distance), domain.getIndex().function("distance"));
+        assertFalse(domain.getIndex().function("cost").isPresent());
+    }
+
+    @Test
+    public void lookUpType() {
+        assertEquals(Optional.of(typeDefinition("place")), domain.getIndex().type("place"));
+        assertFalse(domain.getIndex().type("vehicle").isPresent());
+    }
+
+    @Test
+    public void lookUpConstant() {
+        assertEquals(Optional.of(constantDefinition("home", type("place"))), domain.getIndex().constant("home"));
+        assertFalse(domain.getIndex().constant("away").isPresent());
+    }
+
+    @Test
+    public void indexIsBuiltOnceAndShared() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<DomainIndex>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(new Callable<DomainIndex>() {
+                    @Override
+                    public DomainIndex call() {
+                        return domain.getIndex();
+                    }
+                }));
+            }
+            for (Future<DomainIndex> future : futures) {
+                assertSame(domain.getIndex(), future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void sharedTypesIncludeObject() {
+        assertSame(domain.getIndex().primitiveType("place").get(), domain.getIndex().primitiveType("place").get());
+        assertEquals(Optional.of(TypeDefinition.object()), domain.getIndex().primitiveType("object"));
+        assertFalse(domain.getIndex().primitiveType("vehicle").isPresent());
+        assertEquals(2, domain.getIndex().getPrimitiveTypes().size());
+    }
+
+    @Test
+    public void sharedConstants() {
+        assertEquals(Optional.of(constant("home")), domain.getIndex().constantTerm("home"));
+        assertSame(domain.getIndex().constantTerm("home").get(), domain.getIndex().getConstantTerms().iterator().next());
+        assertFalse(domain.getIndex().constantTerm("away").isPresent());
+    }
+}
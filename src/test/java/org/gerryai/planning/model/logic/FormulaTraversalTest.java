@@ -0,0 +1,157 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.logic;
+
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.equality;
+import static org.gerryai.planning.model.logic.FormulaBuilder.forAll;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.or;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.gerryai.planning.model.logic.FormulaBuilder.when;
+import static org.junit.Assert.assertEquals;
+
+public class FormulaTraversalTest {
+
+    private final Formula formula = and(
+            or(predicate("a"), not(predicate("b"))),
+            forAll(when(predicate("c", variable("x"))).then(predicate("d", variable("x"))), variable("x")),
+            equality(constant("e"), constant("f")));
+
+    @Test
+    public void childrenAreInOrder() {
+        assertEquals(Arrays.asList(predicate("c", variable("x")), predicate("d", variable("x"))),
+                FormulaTraversal.children(when(predicate("c", variable("x"))).then(predicate("d", variable("x")))));
+        assertEquals(0, FormulaTraversal.children(predicate("a")).size());
+    }
+
+    @Test
+    public void preOrderVisitsParentsFirst() {
+        Recorder recorder = new Recorder(true);
+        FormulaTraversal.preOrder(formula, recorder);
+        assertEquals(Arrays.asList("and", "or", "a", "not", "b", "forall", "when", "c", "d", "="), recorder.visited);
+    }
+
+    @Test
+    public void preOrderOnlyDescendsWhenAsked() {
+        Recorder recorder = new Recorder(false);
+        FormulaTraversal.preOrder(formula, recorder);
+        assertEquals(Arrays.asList("and"), recorder.visited);
+    }
+
+    @Test
+    public void postOrderVisitsChildrenFirst() {
+        Recorder recorder = new Recorder(true);
+        FormulaTraversal.postOrder(formula, recorder);
+        assertEquals(Arrays.asList("a", "b", "not", "or", "c", "d", "when", "forall", "=", "and"), recorder.visited);
+    }
+
+    @Test
+    public void subclassIsVisitedThroughAccept() {
+        Recorder recorder = new Recorder(true);
+        FormulaTraversal.preOrder(new Not(predicate("a")) { }, recorder);
+        assertEquals(Arrays.asList("not", "a"), recorder.visited);
+    }
+
+    @Test
+    public void deeplyNestedFormulaIsWalked() {
+        Formula nested = predicate("a");
+        for (int i = 0; i < 100000; i++) {
+            nested = not(nested);
+        }
+        Recorder recorder = new Recorder(true);
+        FormulaTraversal.postOrder(nested, recorder);
+        assertEquals(100001, recorder.visited.size());
+        assertEquals("a", recorder.visited.get(0));
+    }
+
+    private static final class Recorder implements FormulaVisitor<Boolean> {
+
+        private final List<String> visited = new ArrayList<>();
+
+        private final boolean descend;
+
+        private Recorder(boolean descend) {
+            this.descend = descend;
+        }
+
+        private Boolean record(String name) {
+            visited.add(name);
+            return descend;
+        }
+
+        @Override
+        public Boolean visit(And and) {
+            return record("and");
+        }
+
+        @Override
+        public Boolean visit(Or or) {
+            return record("or");
+        }
+
+        @Override
+        public Boolean visit(Not not) {
+            return record("not");
+        }
+
+        @Override
+        public Boolean visit(Predicate predicate) {
+            return record(predicate.getName());
+        }
+
+        @Override
+        public Boolean visit(Equals equals) {
+            return record("=");
+        }
+
+        @Override
+        public Boolean visit(ForAll forAll) {
+            return record("forall");
+        }
+
+        @Override
+        public Boolean visit(IfThen ifThen) {
+            return record("when");
+        }
+
+        @Override
+        public Boolean visit(Operation operation) {
+            return record(operation.getOperator());
+        }
+
+        @Override
+        public Boolean visit(FunctionTerm functionTerm) {
+            return record(functionTerm.getName());
+        }
+
+        @Override
+        public Boolean visit(FunctionDefinition functionDefinition) {
+            return record(functionDefinition.getName());
+        }
+    }
+}
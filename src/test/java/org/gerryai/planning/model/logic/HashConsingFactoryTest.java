@@ -0,0 +1,146 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.logic;
+
+import com.google.common.testing.EqualsTester;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.forAll;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.gerryai.planning.model.logic.FormulaBuilder.when;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class HashConsingFactoryTest {
+
+    private final HashConsingFactory factory = new HashConsingFactory();
+
+    @Test
+    public void equalTermsAreShared() {
+        assertSame(factory.constant("a"), factory.constant("a"));
+        assertSame(factory.variable("x"), factory.variable("x"));
+        assertSame(factory.variable("x", type("block")), factory.variable("x", factory.type("block")));
+        assertSame(factory.type("block"), factory.type("block"));
+        assertNotSame(factory.constant("a"), factory.constant("b"));
+        assertNotSame(factory.variable("x"), factory.variable("x", type("block")));
+    }
+
+    @Test
+    public void equalAtomsAreShared() {
+        Predicate on = factory.predicate("on", factory.constant("a"), factory.constant("b"));
+        assertSame(on, factory.predicate("on", constant("a"), constant("b")));
+        assertSame(on.getTerms().get(0), factory.constant("a"));
+        assertNotSame(on, factory.predicate("on", constant("b"), constant("a")));
+        assertSame(factory.not(on), factory.not(predicate("on", constant("a"), constant("b"))));
+    }
+
+    @Test
+    public void internReturnsEqualSharedFormula() {
+        Formula formula = and(predicate("clear", variable("x")), not(predicate("holding", variable("x"))));
+        Formula interned = factory.intern(formula);
+        assertEquals(formula, interned);
+        And conjunction = (And) interned;
+        assertSame(factory.predicate("clear", variable("x")), conjunction.asList().get(0));
+        assertSame(factory.not(predicate("holding", variable("x"))), conjunction.asList().get(1));
+    }
+
+    @Test
+    public void internSharesAtomsUnderForAllAndWhen() {
+        Formula formula = forAll(when(predicate("clear", variable("x"))).then(not(predicate("holding", variable("x")))),
+                variable("x", type("block")));
+        Formula interned = factory.intern(formula);
+        assertEquals(formula, interned);
+        ForAll quantified = (ForAll) interned;
+        assertSame(factory.variable("x", type("block")), quantified.getVariables().get(0));
+        IfThen ifThen = (IfThen) quantified.getFormula();
+        assertSame(factory.predicate("clear", variable("x")), ifThen.getCondition());
+        assertSame(factory.not(predicate("holding", variable("x"))), ifThen.getConsequence());
+    }
+
+    @Test
+    public void internSharesFunctionTermsOfOperations() {
+        Operation operation = new Operation.Builder()
+                .operator("increase")
+                .consequent(new FunctionTerm.Builder().name("total-cost").build())
+                .antecedent(new FunctionTerm.Builder().name("distance").term(constant("a")).term(constant("b")).build())
+                .build();
+        Operation interned = (Operation) factory.intern(operation);
+        assertEquals(operation, interned);
+        assertSame(factory.intern(operation.getConsequent()), interned.getConsequent());
+        assertSame(factory.intern(operation.getAntecedent()), interned.getAntecedent());
+    }
+
+    @Test
+    public void internOfSharedAtomIsItself() {
+        Predicate on = factory.predicate("on", constant("a"), constant("b"));
+        assertSame(on, factory.intern(on));
+        assertSame(on, factory.intern(predicate("on", constant("a"), constant("b"))));
+    }
+
+    @Test
+    public void sharedAtomsEqualUnsharedAtoms() {
+        new EqualsTester()
+                .addEqualityGroup(
+                        factory.predicate("on", constant("a"), constant("b")),
+                        predicate("on", constant("a"), constant("b")),
+                        new HashConsingFactory().predicate("on", constant("a"), constant("b")))
+                .addEqualityGroup(
+                        factory.not(predicate("on", constant("a"), constant("b"))),
+                        not(predicate("on", constant("a"), constant("b"))))
+                .addEqualityGroup(factory.constant("a"), constant("a"))
+                .testEquals();
+    }
+
+    @Test
+    public void sizeCountsDistinctValues() {
+        factory.predicate("on", constant("a"), constant("b"));
+        factory.predicate("on", constant("a"), constant("b"));
+        factory.predicate("on", constant("b"), constant("a"));
+        assertEquals(4, factory.size());
+    }
+
+    @Test
+    public void predicateIsNotChangedByReusingItsBuilder() {
+        Predicate.Builder builder = new Predicate.Builder().name("on").term(constant("a"));
+        Predicate predicate = builder.build();
+        int hashCode = predicate.hashCode();
+        builder.term(constant("b"));
+        assertEquals(1, predicate.getTerms().size());
+        assertEquals(hashCode, predicate.hashCode());
+    }
+
+    @Test
+    public void seededInstancesAreShared() {
+        Constant home = new Constant("home");
+        PrimitiveType place = new PrimitiveType("place");
+        HashConsingFactory seeded = new HashConsingFactory(Arrays.asList(home), Arrays.asList(place));
+        assertSame(home, seeded.constant("home"));
+        assertSame(place, seeded.type("place"));
+        assertSame(place, seeded.intern(type("place")));
+        assertSame(home, seeded.predicate("at", constant("home")).getTerms().get(0));
+        assertNotSame(home, seeded.constant("away"));
+    }
+}
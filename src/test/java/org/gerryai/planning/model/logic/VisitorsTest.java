@@ -0,0 +1,54 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.logic;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class VisitorsTest {
+
+    private final TermVisitor<String> namer = new TermVisitor<String>() {
+        @Override
+        public String visit(Constant constant) {
+            return "constant " + constant.getName();
+        }
+
+        @Override
+        public String visit(Variable variable) {
+            return "variable " + variable.getName();
+        }
+
+        @Override
+        public String visit(NumberTerm number) {
+            return "number";
+        }
+    };
+
+    @Test
+    public void termIsPassedToMethodForItsClass() {
+        assertEquals("constant a", Visitors.visit(new Constant("a"), namer));
+        assertEquals("variable x", Visitors.visit(new Variable("x"), namer));
+        assertEquals("number", Visitors.visit(new NumberTerm("2.5"), namer));
+    }
+
+    @Test
+    public void subclassOfTermIsVisitedThroughAccept() {
+        assertEquals("constant b", Visitors.visit(new Constant("b") { }, namer));
+    }
+}
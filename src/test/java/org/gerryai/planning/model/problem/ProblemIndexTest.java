@@ -0,0 +1,84 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.model.problem;
+
+import com.google.common.base.Optional;
+import org.gerryai.planning.model.logic.Predicate;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class ProblemIndexTest {
+
+    private Problem problem;
+
+    private Predicate atHome;
+
+    private Predicate atWork;
+
+    @Before
+    public void setUp() {
+        atHome = predicate("at", constant("home"));
+        atWork = predicate("at", constant("work"));
+        problem = new Problem.Builder()
+                .name("test")
+                .domain("test")
+                .object(constantDefinition("home", type("place")))
+                .object(constantDefinition("work", type("place")))
+                .initialState(atHome)
+                .initialState(atWork)
+                .initialState(not(predicate("open", constant("work"))))
+                .goal(atHome)
+                .build();
+    }
+
+    @Test
+    public void lookUpObject() {
+        assertEquals(Optional.of(constantDefinition("work", type("place"))), problem.getIndex().object("work"));
+        assertFalse(problem.getIndex().object("shop").isPresent());
+    }
+
+    @Test
+    public void factsAreGroupedByPredicateName() {
+        assertEquals(new HashSet<>(Arrays.asList(atHome, atWork)),
+                new HashSet<>(problem.getIndex().facts("at")));
+    }
+
+    @Test
+    public void negatedAndMissingFactsAreNotIndexed() {
+        assertEquals(Collections.emptyList(), problem.getIndex().facts("open"));
+        assertEquals(Collections.emptyList(), problem.getIndex().facts("closed"));
+    }
+
+    @Test
+    public void indexIsBuiltOnce() {
+        assertSame(problem.getIndex(), problem.getIndex());
+    }
+}
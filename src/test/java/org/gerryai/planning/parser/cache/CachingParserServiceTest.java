@@ -0,0 +1,238 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.cache;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.InitialStateSink;
+import org.gerryai.planning.parser.ParserService;
+import org.gerryai.planning.parser.error.ParseException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingParserServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final byte[] domainText = "(define (domain d))".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] problemText = "(define (problem p) (:domain d))".getBytes(StandardCharsets.US_ASCII);
+
+    private final Domain domain = new Domain.Builder().name("d").build();
+
+    private final Problem problem = new Problem.Builder()
+            .name("p")
+            .domain("d")
+            .object(constantDefinition("a"))
+            .initialState(predicate("on", constant("a")))
+            .build();
+
+    private ParserService delegate;
+
+    @Before
+    public void setup() throws Exception {
+        delegate = mock(ParserService.class);
+        when(delegate.parseDomain(any(byte[].class))).thenReturn(domain);
+        when(delegate.parseProblem(any(byte[].class))).thenReturn(problem);
+    }
+
+    @Test
+    public void sameInputIsParsedOnce() throws Exception {
+        CachingParserService service = new CachingParserService.Builder(delegate).build();
+        Domain first = service.parseDomain(domainText);
+        assertSame(first, service.parseDomain(domainText.clone()));
+        assertSame(first, service.parseDomain(new ByteArrayInputStream(domainText)));
+        assertSame(first, service.parseDomain(ByteBuffer.wrap(domainText)));
+        verify(delegate, times(1)).parseDomain(any(byte[].class));
+        CacheStatistics statistics = service.getStatistics();
+        assertEquals(3, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(1, statistics.getEntryCount());
+        assertEquals(RetainedSize.of(domain), statistics.getRetainedSize());
+    }
+
+    @Test
+    public void pathsWithTheSameContentShareAnEntry() throws Exception {
+        Path first = folder.newFile().toPath();
+        Path second = folder.newFile().toPath();
+        Files.write(first, problemText);
+        Files.write(second, problemText);
+        CachingParserService service = new CachingParserService.Builder(delegate).build();
+        assertSame(service.parseProblem(first), service.parseProblem(second));
+        verify(delegate, times(1)).parseProblem(any(byte[].class));
+    }
+
+    @Test
+    public void domainsAndProblemsAreCachedSeparately() throws Exception {
+        CachingParserService service = new CachingParserService.Builder(delegate).build();
+        service.parseDomain(domainText);
+        service.parseProblem(domainText);
+        assertEquals(2, service.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedIsEvictedOverTheBound() throws Exception {
+        CachingParserService service = new CachingParserService.Builder(delegate)
+                .maximumRetainedSize(RetainedSize.of(problem) + RetainedSize.of(domain) / 2)
+                .build();
+        service.parseProblem(problemText);
+        service.parseDomain(domainText);
+        CacheStatistics statistics = service.getStatistics();
+        assertEquals(1, statistics.getEvictionCount());
+        assertEquals(1, statistics.getEntryCount());
+        assertTrue(statistics.getRetainedSize() <= RetainedSize.of(problem) + RetainedSize.of(domain) / 2);
+        service.parseDomain(domainText);
+        assertEquals(1, service.getStatistics().getHitCount());
+    }
+
+    @Test
+    public void snapshotsOnDiskSurviveANewService() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        new CachingParserService.Builder(delegate).diskDirectory(directory).build().parseProblem(problemText);
+        CachingParserService service = new CachingParserService.Builder(delegate).diskDirectory(directory).build();
+        Problem read = service.parseProblem(problemText);
+        assertEquals(problem, read);
+        assertNotSame(problem, read);
+        verify(delegate, times(1)).parseProblem(any(byte[].class));
+        assertEquals(1, service.getStatistics().getDiskHitCount());
+        assertEquals(0, service.getStatistics().getMissCount());
+    }
+
+    @Test
+    public void corruptSnapshotIsParsedAgain() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        new CachingParserService.Builder(delegate).diskDirectory(directory).build().parseDomain(domainText);
+        try (DirectoryStream<Path> snapshots = Files.newDirectoryStream(directory)) {
+            for (Path snapshot : snapshots) {
+                Files.write(snapshot, domainText);
+            }
+        }
+        CachingParserService service = new CachingParserService.Builder(delegate).diskDirectory(directory).build();
+        assertSame(domain, service.parseDomain(domainText));
+        assertEquals(1, service.getStatistics().getDiskErrorCount());
+        assertEquals(1, service.getStatistics().getMissCount());
+        assertEquals(domain, new CachingParserService.Builder(mock(ParserService.class)).diskDirectory(directory)
+                .build().parseDomain(domainText));
+    }
+
+    @Test
+    public void failuresAreNotCached() throws Exception {
+        when(delegate.parseDomain(any(byte[].class))).thenThrow(new ParseException("bad"));
+        CachingParserService service = new CachingParserService.Builder(delegate).build();
+        for (int i = 0; i < 2; i++) {
+            try {
+                service.parseDomain(domainText);
+                fail();
+            } catch (ParseException e) {
+                assertEquals("bad", e.getMessage());
+            }
+        }
+        verify(delegate, times(2)).parseDomain(any(byte[].class));
+        assertEquals(0, service.getStatistics().getEntryCount());
+    }
+
+    @Test
+    public void concurrentRequestsWaitForOneParse() throws Exception {
+        final CountDownLatch parsing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(delegate.parseProblem(any(byte[].class))).thenAnswer(new Answer<Problem>() {
+            @Override
+            public Problem answer(InvocationOnMock invocation) throws Exception {
+                parsing.countDown();
+                release.await();
+                return problem;
+            }
+        });
+        final CachingParserService service = new CachingParserService.Builder(delegate).build();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Problem>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(new Callable<Problem>() {
+                    @Override
+                    public Problem call() throws Exception {
+                        return service.parseProblem(problemText);
+                    }
+                }));
+            }
+            parsing.await();
+            release.countDown();
+            for (Future<Problem> future : futures) {
+                assertSame(problem, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        verify(delegate, times(1)).parseProblem(any(byte[].class));
+        assertEquals(3, service.getStatistics().getHitCount());
+    }
+
+    @Test
+    public void problemsWithASinkAreNotCached() throws Exception {
+        CachingParserService service = new CachingParserService.Builder(delegate).build();
+        service.parseProblem(new ByteArrayInputStream(problemText), null);
+        verify(delegate).parseProblem(any(ByteArrayInputStream.class), any(InitialStateSink.class));
+        verify(delegate, never()).parseProblem(any(byte[].class));
+        assertEquals(0, service.getStatistics().getRequestCount());
+    }
+
+    @Test
+    public void problemsParsedAgainstADomainAreNotCached() throws Exception {
+        CachingParserService service = new CachingParserService.Builder(delegate).build();
+        Domain domain = new Domain.Builder().name("test").build();
+        service.parseProblemFor(new ByteArrayInputStream(problemText), domain);
+        verify(delegate).parseProblemFor(any(ByteArrayInputStream.class), eq(domain));
+        verify(delegate, never()).parseProblem(any(byte[].class));
+        assertEquals(0, service.getStatistics().getRequestCount());
+    }
+}
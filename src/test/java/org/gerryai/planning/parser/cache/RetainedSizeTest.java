@@ -0,0 +1,46 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.cache;
+
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Test;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.junit.Assert.assertTrue;
+
+public class RetainedSizeTest {
+
+    @Test
+    public void moreFactsRetainMore() {
+        Problem one = new Problem.Builder().name("p").initialState(predicate("on", constant("a"))).build();
+        Problem two = new Problem.Builder().name("p").initialState(predicate("on", constant("a")))
+                .initialState(predicate("on", constant("b"))).build();
+        assertTrue(RetainedSize.of(one) > 0);
+        assertTrue(RetainedSize.of(two) > RetainedSize.of(one));
+    }
+
+    @Test
+    public void sharedInstancesAreCountedOnce() {
+        Constant shared = constant("a");
+        Problem separate = new Problem.Builder().initialState(predicate("on", constant("a"), constant("a"))).build();
+        Problem hashConsed = new Problem.Builder().initialState(predicate("on", shared, shared)).build();
+        assertTrue(RetainedSize.of(hashConsed) < RetainedSize.of(separate));
+    }
+}
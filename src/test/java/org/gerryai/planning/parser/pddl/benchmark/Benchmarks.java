@@ -0,0 +1,158 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.gerryai.planning.search.PackedState;
+import org.gerryai.planning.search.SuccessorGenerator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Minimal timing harness for the benchmarks. These are plain main classes rather than tests, so they are not run by
+ * surefire or failsafe; run them from the IDE or with exec:java against the test classpath.
+ */
+public final class Benchmarks {
+
+    private static final int WARM_UP_ROUNDS = 200;
+
+    private static final int MEASURED_ROUNDS = 500;
+
+    private Benchmarks() { }
+
+    /**
+     * A unit of work to time.
+     */
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    /**
+     * Run a task repeatedly, discarding the warm-up rounds, and print the mean time per round.
+     */
+    public static double measure(String label, Task task) throws Exception {
+        return measure(label, WARM_UP_ROUNDS, MEASURED_ROUNDS, task);
+    }
+
+    public static double measure(String label, int warmUpRounds, int measuredRounds, Task task) throws Exception {
+        for (int i = 0; i < warmUpRounds; i++) {
+            task.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < measuredRounds; i++) {
+            task.run();
+        }
+        double micros = (System.nanoTime() - start) / 1000.0 / measuredRounds;
+        System.out.println(String.format(Locale.ROOT, "%-40s %12.1f us/round", label, micros));
+        return micros;
+    }
+
+    /**
+     * Read every file of a list into memory, so that I/O is kept out of the measurements.
+     */
+    public static List<byte[]> load(List<Path> paths) throws IOException {
+        List<byte[]> contents = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            contents.add(Files.readAllBytes(path));
+        }
+        return contents;
+    }
+
+    /**
+     * Get the path of a file in the example corpus, such as {@code logistics/pb2.pddl}.
+     */
+    public static Path resource(String name) throws Exception {
+        return Paths.get(Benchmarks.class.getResource("/pddl/example/" + name).toURI());
+    }
+
+    public static List<byte[]> exampleDomains() throws IOException {
+        return load(new PDDLCorpus("pddl/example").getDomains());
+    }
+
+    public static List<byte[]> exampleProblems() throws IOException {
+        return load(new PDDLCorpus("pddl/example").getProblems());
+    }
+
+    /**
+     * Generate a logistics problem with a truck, a post office and an airport per city, five packages per city and an
+     * airplane per two cities. Every package starts at a post office and must reach the next city's.
+     */
+    public static String logistics(int cities) {
+        int packages = 5 * cities;
+        int airplanes = cities / 2 + 1;
+        StringBuilder pddl = new StringBuilder(
+                "(define (problem generated) (:domain logistics) (:requirements :strips :typing) (:objects");
+        for (int i = 0; i < cities; i++) {
+            pddl.append(" c").append(i).append(" - city p").append(i).append(" - location a").append(i)
+                    .append(" - airport t").append(i).append(" - truck");
+        }
+        for (int i = 0; i < packages; i++) {
+            pddl.append(" o").append(i).append(" - package");
+        }
+        for (int i = 0; i < airplanes; i++) {
+            pddl.append(" plane").append(i).append(" - airplane");
+        }
+        pddl.append(") (:init");
+        for (int i = 0; i < cities; i++) {
+            pddl.append(" (in-city p").append(i).append(" c").append(i).append(") (in-city a").append(i)
+                    .append(" c").append(i).append(") (at t").append(i).append(" p").append(i).append(")");
+        }
+        for (int i = 0; i < packages; i++) {
+            pddl.append(" (at o").append(i).append(" p").append(i % cities).append(")");
+        }
+        for (int i = 0; i < airplanes; i++) {
+            pddl.append(" (at plane").append(i).append(" a").append(i).append(")");
+        }
+        pddl.append(") (:goal (and");
+        for (int i = 0; i < packages; i++) {
+            pddl.append(" (at o").append(i).append(" p").append((i + 1) % cities).append(")");
+        }
+        pddl.append(")))");
+        return pddl.toString();
+    }
+
+    /**
+     * Collect the states along a random walk from the initial state of a grounded task, with a fixed seed so that
+     * every run sees the same states.
+     */
+    public static List<PackedState> walk(GroundTask task, int states) {
+        Random random = new Random(1);
+        List<PackedState> walked = new ArrayList<>();
+        PackedState state = PackedState.initial(task.getAtoms());
+        SuccessorGenerator generator = new SuccessorGenerator(task.getOperators());
+        List<GroundOperator> applicable = new ArrayList<>();
+        while (walked.size() < states) {
+            walked.add(state);
+            applicable.clear();
+            generator.generate(state, applicable);
+            PackedState successor = new PackedState(task.getAtoms().size());
+            state.apply(applicable.get(random.nextInt(applicable.size())), successor);
+            state = successor;
+        }
+        return walked;
+    }
+}
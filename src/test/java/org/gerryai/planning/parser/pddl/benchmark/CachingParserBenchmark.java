@@ -0,0 +1,90 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.gerryai.planning.parser.cache.CachingParserService;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compares parsing problem files directly with getting it from a cache, both when it is held in memory and
+ * when it has to be read back from its snapshot on disk.
+ */
+public final class CachingParserBenchmark {
+
+    private static final String[] PROBLEMS = {
+        "/pddl/example/logistics/pb2.pddl",
+        "/pddl/example/tasks/pb1.pddl",
+    };
+
+    private static final int WARM_UP_ROUNDS = 10000;
+
+    private static final int ROUNDS = 2000;
+
+    private static int sink;
+
+    private CachingParserBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        final PDDLParserService parserService = new PDDLParserService();
+        Path directory = Files.createTempDirectory("snapshots");
+        final CachingParserService memory = new CachingParserService.Builder(parserService).build();
+        final CachingParserService disk = new CachingParserService.Builder(parserService).diskDirectory(directory)
+                .maximumRetainedSize(0).build();
+        for (String name : PROBLEMS) {
+            Path problem = Files.createTempFile("problem", ".pddl");
+            Files.write(problem, Files.readAllBytes(Paths.get(CachingParserBenchmark.class
+                    .getResource(name).toURI())));
+            for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+                sink += parserService.parseProblem(problem).getObjects().asSet().size();
+                sink += memory.parseProblem(problem).getObjects().asSet().size();
+                sink += disk.parseProblem(problem).getObjects().asSet().size();
+            }
+            System.out.println(name + ", " + Files.size(problem) + " bytes");
+            compare(parserService, memory, disk, problem);
+        }
+        System.out.println(memory.getStatistics());
+        System.out.println(disk.getStatistics());
+        System.out.println(sink);
+    }
+
+    private static void compare(final PDDLParserService parserService, final CachingParserService memory,
+                                final CachingParserService disk, final Path problem) throws Exception {
+        Benchmarks.measure("  parsed", ROUNDS, ROUNDS, new Benchmarks.Task() {
+            @Override
+            public void run() throws Exception {
+                sink += parserService.parseProblem(problem).getInitialState().asSet().size();
+            }
+        });
+        Benchmarks.measure("  cached in memory", ROUNDS, ROUNDS, new Benchmarks.Task() {
+            @Override
+            public void run() throws Exception {
+                sink += memory.parseProblem(problem).getInitialState().asSet().size();
+            }
+        });
+        Benchmarks.measure("  cached on disk", ROUNDS, ROUNDS, new Benchmarks.Task() {
+            @Override
+            public void run() throws Exception {
+                sink += disk.parseProblem(problem).getInitialState().asSet().size();
+            }
+        });
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the latency of the first parses in a fresh JVM, with and without warming the parser up first, against
+ * the steady-state latency. Each measurement runs in its own child JVM so that nothing is already loaded or compiled.
+ */
+public final class ColdStartBenchmark {
+
+    private static final int FRESH_JVMS = 5;
+
+    private static final int FIRST_PARSES = 3;
+
+    private ColdStartBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            measureInThisJvm(Boolean.parseBoolean(args[0]));
+            return;
+        }
+        for (boolean warmUp : new boolean[] {false, true}) {
+            for (int i = 0; i < FRESH_JVMS; i++) {
+                Process process = new ProcessBuilder(
+                        System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                        "-cp", System.getProperty("java.class.path"),
+                        ColdStartBenchmark.class.getName(), Boolean.toString(warmUp))
+                        .inheritIO()
+                        .start();
+                process.waitFor();
+            }
+        }
+    }
+
+    private static void measureInThisJvm(boolean warmUp) throws Exception {
+        List<byte[]> domains = Benchmarks.exampleDomains();
+        List<byte[]> problems = Benchmarks.exampleProblems();
+        long start = System.nanoTime();
+        PDDLParserService parserService = new PDDLParserService();
+        String label = "cold";
+        if (warmUp) {
+            parserService.warmUp();
+            label = "warmed up";
+        }
+        double warmUpMillis = (System.nanoTime() - start) / 1e6;
+
+        StringBuilder firsts = new StringBuilder();
+        for (int i = 0; i < FIRST_PARSES; i++) {
+            firsts.append(String.format(Locale.ROOT, " %8.2f", parseAll(parserService, domains, problems)));
+        }
+        for (int i = 0; i < 200; i++) {
+            parseAll(parserService, domains, problems);
+        }
+        double steady = 0;
+        for (int i = 0; i < 100; i++) {
+            steady += parseAll(parserService, domains, problems);
+        }
+        System.out.println(String.format(Locale.ROOT,
+                "%-10s warm-up %8.1f ms, first corpus passes%s ms, steady state %8.2f ms",
+                label, warmUpMillis, firsts, steady / 100));
+    }
+
+    private static double parseAll(PDDLParserService parserService, List<byte[]> domains, List<byte[]> problems)
+            throws Exception {
+        long start = System.nanoTime();
+        for (byte[] domain : domains) {
+            parserService.parseDomain(domain);
+        }
+        for (byte[] problem : problems) {
+            parserService.parseProblem(problem);
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the throughput of the recursive-descent fast path with the generated parser, on the STRIPS benchmarks it
+ * is meant for.
+ */
+public final class FastPathBenchmark {
+
+    private static final String[] BENCHMARKS = {
+        "blocksworld", "gripper", "logistics"
+    };
+
+    private FastPathBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        for (String benchmark : BENCHMARKS) {
+            PDDLCorpus corpus = new PDDLCorpus("pddl/example/" + benchmark);
+            final List<byte[]> domains = Benchmarks.load(corpus.getDomains());
+            final List<byte[]> problems = Benchmarks.load(corpus.getProblems());
+
+            double[] micros = new double[2];
+            for (int i = 0; i < micros.length; i++) {
+                final boolean fastPath = i == 1;
+                String mode = "generated parser";
+                if (fastPath) {
+                    mode = "fast path";
+                }
+                final PDDLParserService parserService = new PDDLParserService(new PDDLParserOptions.Builder()
+                        .fastPath(fastPath)
+                        .build());
+                micros[i] = Benchmarks.measure(benchmark + ", " + mode, new Benchmarks.Task() {
+                    @Override
+                    public void run() throws Exception {
+                        for (byte[] domain : domains) {
+                            parserService.parseDomain(domain);
+                        }
+                        for (byte[] problem : problems) {
+                            parserService.parseProblem(problem);
+                        }
+                    }
+                });
+            }
+            System.out.println(String.format(Locale.ROOT, "%-40s %12.1fx", "", micros[0] / micros[1]));
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.ForAll;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FormulaTraversal;
+import org.gerryai.planning.model.logic.FormulaVisitor;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.IfThen;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Or;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.Visitors;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares counting the predicates in the preconditions and effects of every example domain using a chain of
+ * {@code instanceof} checks, a recursive {@link FormulaVisitor} dispatched by {@link Formula#accept} or by
+ * {@link Visitors#visit}, and {@link FormulaTraversal}. Each runs in its own child JVM, so that call sites they share
+ * are not compiled with another's profile, and for many short rounds to let the JIT compiler settle.
+ */
+public final class FormulaVisitorBenchmark {
+
+    private static final String[] ROWS = {
+        "instanceof chain", "recursive visitor, accept", "recursive visitor, static dispatch", "pre-order traversal"};
+
+    private static final int ROUNDS = 20000;
+
+    private static long sink;
+
+    private FormulaVisitorBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            measureInThisJvm(args[0]);
+            return;
+        }
+        for (String row : ROWS) {
+            Process process = new ProcessBuilder(
+                    System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                    "-cp", System.getProperty("java.class.path"),
+                    FormulaVisitorBenchmark.class.getName(), row)
+                    .inheritIO()
+                    .start();
+            process.waitFor();
+        }
+    }
+
+    private static void measureInThisJvm(String row) throws Exception {
+        PDDLParserService parserService = new PDDLParserService();
+        final List<Formula> formulas = new ArrayList<>();
+        for (byte[] bytes : Benchmarks.exampleDomains()) {
+            Domain domain = parserService.parseDomain(bytes);
+            for (Action action : domain.getActions().asSet()) {
+                formulas.addAll(action.getPrecondition().getPrecondition().asSet());
+                formulas.addAll(action.getEffect().getEffect().asSet());
+            }
+        }
+        Benchmarks.Task task;
+        if ("instanceof chain".equals(row)) {
+            task = new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (Formula formula : formulas) {
+                        sink += countInstanceOf(formula);
+                    }
+                }
+            };
+        } else if ("pre-order traversal".equals(row)) {
+            final Marker marker = new Marker();
+            task = new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (Formula formula : formulas) {
+                        FormulaTraversal.preOrder(formula, marker);
+                    }
+                    sink += marker.predicates;
+                }
+            };
+        } else {
+            final Counter counter = new Counter(row.endsWith("static dispatch"));
+            task = new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (Formula formula : formulas) {
+                        sink += counter.count(formula);
+                    }
+                }
+            };
+        }
+        Benchmarks.measure(row, ROUNDS, ROUNDS, task);
+        if (sink == 0) {
+            System.out.println(sink);
+        }
+    }
+
+    private static int countInstanceOf(Formula formula) {
+        if (formula instanceof And) {
+            return countAll(((And) formula).asList());
+        } else if (formula instanceof Or) {
+            return countAll(((Or) formula).asList());
+        } else if (formula instanceof Not) {
+            return countInstanceOf(((Not) formula).getFormula());
+        } else if (formula instanceof ForAll) {
+            return countInstanceOf(((ForAll) formula).getFormula());
+        } else if (formula instanceof IfThen) {
+            return countInstanceOf(((IfThen) formula).getCondition())
+                    + countInstanceOf(((IfThen) formula).getConsequence());
+        } else if (formula instanceof Predicate) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private static int countAll(List<Formula> formulas) {
+        int count = 0;
+        for (Formula formula : formulas) {
+            count += countInstanceOf(formula);
+        }
+        return count;
+    }
+
+    private static final class Counter implements FormulaVisitor<Integer> {
+
+        private final boolean exact;
+
+        private Counter(boolean exact) {
+            this.exact = exact;
+        }
+
+        private int count(Formula formula) {
+            if (exact) {
+                return Visitors.visit(formula, this);
+            }
+            return formula.accept(this);
+        }
+
+        private int countAll(List<Formula> formulas) {
+            int count = 0;
+            for (Formula formula : formulas) {
+                count += count(formula);
+            }
+            return count;
+        }
+
+        @Override
+        public Integer visit(And and) {
+            return countAll(and.asList());
+        }
+
+        @Override
+        public Integer visit(Or or) {
+            return countAll(or.asList());
+        }
+
+        @Override
+        public Integer visit(Not not) {
+            return count(not.getFormula());
+        }
+
+        @Override
+        public Integer visit(Predicate predicate) {
+            return 1;
+        }
+
+        @Override
+        public Integer visit(Equals equals) {
+            return 0;
+        }
+
+        @Override
+        public Integer visit(ForAll forAll) {
+            return count(forAll.getFormula());
+        }
+
+        @Override
+        public Integer visit(IfThen ifThen) {
+            return count(ifThen.getCondition()) + count(ifThen.getConsequence());
+        }
+
+        @Override
+        public Integer visit(Operation operation) {
+            return 0;
+        }
+
+        @Override
+        public Integer visit(FunctionTerm functionTerm) {
+            return 0;
+        }
+
+        @Override
+        public Integer visit(FunctionDefinition functionDefinition) {
+            return 0;
+        }
+    }
+
+    private static final class Marker implements FormulaVisitor<Boolean> {
+
+        private long predicates;
+
+        @Override
+        public Boolean visit(And and) {
+            return true;
+        }
+
+        @Override
+        public Boolean visit(Or or) {
+            return true;
+        }
+
+        @Override
+        public Boolean visit(Not not) {
+            return true;
+        }
+
+        @Override
+        public Boolean visit(Predicate predicate) {
+            predicates++;
+            return false;
+        }
+
+        @Override
+        public Boolean visit(Equals equals) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(ForAll forAll) {
+            return true;
+        }
+
+        @Override
+        public Boolean visit(IfThen ifThen) {
+            return true;
+        }
+
+        @Override
+        public Boolean visit(Operation operation) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(FunctionTerm functionTerm) {
+            return false;
+        }
+
+        @Override
+        public Boolean visit(FunctionDefinition functionDefinition) {
+            return false;
+        }
+    }
+}
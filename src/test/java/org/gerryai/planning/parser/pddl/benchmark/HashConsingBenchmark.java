@@ -0,0 +1,107 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Compares parsing with and without hash-consing on the larger example problems: the heap retained by the parsed
+ * problems, parsing throughput, and the cost of hashing and looking up their initial state facts.
+ * Run with a fixed heap, e.g. -Xms1g -Xmx1g, so that the collector behaves the same way for both modes.
+ */
+public final class HashConsingBenchmark {
+
+    private static final String[] BENCHMARKS = {
+        "blocksworld", "logistics"
+    };
+
+    private static final int COPIES = 2000;
+
+    private HashConsingBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        final List<byte[]> problems = new ArrayList<>();
+        for (String benchmark : BENCHMARKS) {
+            problems.addAll(Benchmarks.load(new PDDLCorpus("pddl/example/" + benchmark).getProblems()));
+        }
+
+        for (final boolean hashConsing : new boolean[] {false, true, false, true}) {
+            String mode = "plain";
+            if (hashConsing) {
+                mode = "hash-consing";
+            }
+            final PDDLParserService parserService = new PDDLParserService(new PDDLParserOptions.Builder()
+                    .hashConsing(hashConsing)
+                    .build());
+
+            List<Problem> retained = new ArrayList<>(COPIES * problems.size());
+            long before = usedHeap();
+            for (int i = 0; i < COPIES; i++) {
+                for (byte[] problem : problems) {
+                    retained.add(parserService.parseProblem(problem));
+                }
+            }
+            long after = usedHeap();
+            System.out.println(String.format(Locale.ROOT, "%-40s %12.1f KB/problem", mode + ", retained heap",
+                    (after - before) / 1024.0 / retained.size()));
+
+            Benchmarks.measure(mode + ", parsing", new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    for (byte[] problem : problems) {
+                        parserService.parseProblem(problem);
+                    }
+                }
+            });
+
+            final List<Problem> parsed = retained.subList(0, problems.size());
+            Benchmarks.measure(mode + ", fact lookups", new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    for (Problem problem : parsed) {
+                        Set<Formula> facts = new HashSet<>(problem.getInitialState().asSet());
+                        for (Formula fact : problem.getInitialState().asSet()) {
+                            if (!facts.contains(fact)) {
+                                throw new IllegalStateException();
+                            }
+                        }
+                    }
+                }
+            });
+            retained.clear();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Token;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.internal.CaseInsensitiveByteBufferStream;
+import org.gerryai.planning.parser.pddl.internal.PDDLByteLexer;
+import org.gerryai.planning.parser.pddl.antlr.PDDL31Lexer;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares the throughput of the generated lexer with the hand-written byte-level lexer, on their own and as part of
+ * parsing the example corpus.
+ */
+public final class LexerBenchmark {
+
+    private LexerBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        final List<byte[]> domains = Benchmarks.exampleDomains();
+        final List<byte[]> problems = Benchmarks.exampleProblems();
+        long bytes = 0;
+        for (byte[] contents : domains) {
+            bytes += contents.length;
+        }
+        for (byte[] contents : problems) {
+            bytes += contents.length;
+        }
+
+        for (final boolean handWritten : new boolean[] {false, true}) {
+            String mode = "generated lexer";
+            if (handWritten) {
+                mode = "hand-written lexer";
+            }
+            double micros = Benchmarks.measure(mode + ", lexing only", 2000, 5000, new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    lexAll(domains, handWritten);
+                    lexAll(problems, handWritten);
+                }
+            });
+            System.out.println(String.format(Locale.ROOT, "%-40s %12.1f MB/s", "", bytes / micros));
+
+            final PDDLParserService parserService = new PDDLParserService(new PDDLParserOptions.Builder()
+                    .handWrittenLexer(handWritten)
+                    .build());
+            Benchmarks.measure(mode + ", parsing", new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    for (byte[] domain : domains) {
+                        parserService.parseDomain(domain);
+                    }
+                    for (byte[] problem : problems) {
+                        parserService.parseProblem(problem);
+                    }
+                }
+            });
+        }
+    }
+
+    private static int lexAll(List<byte[]> inputs, boolean handWritten) {
+        int tokens = 0;
+        for (byte[] input : inputs) {
+            CaseInsensitiveByteBufferStream stream = new CaseInsensitiveByteBufferStream(ByteBuffer.wrap(input));
+            Lexer lexer;
+            if (handWritten) {
+                lexer = new PDDLByteLexer(stream);
+            } else {
+                lexer = new PDDL31Lexer(stream);
+            }
+            while (lexer.nextToken().getType() != Token.EOF) {
+                tokens++;
+            }
+        }
+        return tokens;
+    }
+}
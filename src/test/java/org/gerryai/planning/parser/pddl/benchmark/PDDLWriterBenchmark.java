@@ -0,0 +1,182 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.writer.PDDLWriter;
+
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+
+/**
+ * Compares writing a large generated problem as PDDL, to a file through a channel or a buffered writer and into a
+ * buffer in memory, with writing the same number of bytes straight to a file and with just walking the model and
+ * reading each name in it.
+ */
+public final class PDDLWriterBenchmark {
+
+    private static final int[] PACKAGES = {100000, 1000000};
+
+    private static final int WARM_UP_ROUNDS = 3;
+
+    private static final int ROUNDS = 5;
+
+    private static final int CHUNK = 65536;
+
+    private static final double MEGABYTE = 1024 * 1024;
+
+    private static long sink;
+
+    private PDDLWriterBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        final PDDLWriter writer = new PDDLWriter();
+        for (int packages : PACKAGES) {
+            final Problem problem = logisticsModel(packages);
+            final Path file = Files.createTempFile("problem", ".pddl");
+            writer.write(problem, file);
+            final long size = Files.size(file);
+            final ByteBuffer memory = ByteBuffer.allocateDirect((int) size);
+            final ByteBuffer raw = ByteBuffer.allocateDirect(CHUNK);
+            while (raw.hasRemaining()) {
+                raw.put((byte) 'x');
+            }
+            System.out.println(packages + " packages, " + size + " bytes");
+            for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+                writeRaw(file, raw, size);
+                writer.write(problem, file);
+                memory.clear();
+                writer.write(problem, memory);
+            }
+            report("  raw bytes to file", size, Benchmarks.measure("  raw bytes to file", 0, ROUNDS,
+                    new Benchmarks.Task() {
+                        @Override
+                        public void run() throws Exception {
+                            writeRaw(file, raw, size);
+                        }
+                    }));
+            report("  walk model only", size, Benchmarks.measure("  walk model only", 0, ROUNDS,
+                    new Benchmarks.Task() {
+                        @Override
+                        public void run() throws Exception {
+                            sink += walkModel(problem);
+                        }
+                    }));
+            report("  PDDL to file channel", size, Benchmarks.measure("  PDDL to file channel", 0, ROUNDS,
+                    new Benchmarks.Task() {
+                        @Override
+                        public void run() throws Exception {
+                            writer.write(problem, file);
+                        }
+                    }));
+            report("  PDDL to buffered writer", size, Benchmarks.measure("  PDDL to buffered writer", 0, ROUNDS,
+                    new Benchmarks.Task() {
+                        @Override
+                        public void run() throws Exception {
+                            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+                                writer.write(problem, out);
+                            }
+                        }
+                    }));
+            report("  PDDL to memory", size, Benchmarks.measure("  PDDL to memory", 0, ROUNDS,
+                    new Benchmarks.Task() {
+                        @Override
+                        public void run() throws Exception {
+                            memory.clear();
+                            writer.write(problem, memory);
+                            sink += memory.position();
+                        }
+                    }));
+            Files.delete(file);
+        }
+        System.out.println(sink);
+    }
+
+    private static void writeRaw(final Path file, final ByteBuffer chunk, final long size) throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long remaining = size;
+            while (remaining > 0) {
+                chunk.clear();
+                chunk.limit((int) Math.min(CHUNK, remaining));
+                remaining -= channel.write(chunk);
+            }
+        }
+    }
+
+    private static long walkModel(final Problem problem) {
+        long length = 0;
+        for (ConstantDefinition object : problem.getObjects().asSet()) {
+            length += object.getName().length();
+        }
+        for (Formula fact : problem.getInitialState().asSet()) {
+            length += names((Predicate) fact);
+        }
+        for (Formula goal : ((And) problem.getGoal().getFormula()).asList()) {
+            length += names((Predicate) goal);
+        }
+        return length;
+    }
+
+    private static long names(final Predicate predicate) {
+        long length = predicate.getName().length();
+        for (Term term : predicate.getTerms()) {
+            length += ((Constant) term).getName().length();
+        }
+        return length;
+    }
+
+    private static void report(final String label, final long size, final double microseconds) {
+        System.out.printf("%-40s %8.1f MB/s%n", label, size / MEGABYTE / (microseconds / 1e6));
+    }
+
+    private static Problem logisticsModel(final int packages) {
+        int cities = packages / 5;
+        Problem.Builder builder = new Problem.Builder().name("generated").domain("logistics");
+        for (int i = 0; i < cities; i++) {
+            builder.object(constantDefinition("c" + i, type("city")))
+                    .object(constantDefinition("p" + i, type("location")))
+                    .object(constantDefinition("t" + i, type("truck")))
+                    .initialState(predicate("in-city", constant("p" + i), constant("c" + i)))
+                    .initialState(predicate("at", constant("t" + i), constant("p" + i)));
+        }
+        And.Builder goal = new And.Builder();
+        for (int i = 0; i < packages; i++) {
+            builder.object(constantDefinition("o" + i, type("package")))
+                    .initialState(predicate("at", constant("o" + i), constant("p" + (i % cities))));
+            goal.and(predicate("at", constant("o" + i), constant("p" + ((i + 1) % cities))));
+        }
+        return builder.goal(goal.build()).build();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures batch parsing throughput as the number of threads grows. Near-linear scaling up to the number of cores
+ * shows that the lexer and parser DFA caches shared between threads are not a point of contention once warm; those
+ * caches are only locked when a new DFA state or edge is added.
+ */
+public final class ParallelParsingBenchmark {
+
+    private static final int COPIES = 50;
+
+    private ParallelParsingBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        final List<Path> problems = new PDDLCorpus("pddl/example").getProblems();
+        final PDDLParserService parserService = new PDDLParserService();
+        parserService.warmUp();
+        System.out.println(String.format(Locale.ROOT, "%d problems, %d cores", problems.size() * COPIES,
+                Runtime.getRuntime().availableProcessors()));
+
+        double single = 0;
+        for (int threads = 1; threads <= 2 * Runtime.getRuntime().availableProcessors() || threads <= 4;
+                threads *= 2) {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            double micros = Benchmarks.measure(threads + " threads", 5, 20, new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    List<ListenableFuture<Problem>> futures = new ArrayList<>();
+                    for (int i = 0; i < COPIES; i++) {
+                        futures.addAll(parserService.parseProblems(problems, pool).values());
+                    }
+                    Futures.allAsList(futures).get();
+                }
+            });
+            pool.shutdown();
+            if (threads == 1) {
+                single = micros;
+            }
+            System.out.println(String.format(Locale.ROOT, "%-40s %12.2fx", "  speed-up", single / micros));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import com.google.common.io.ByteSource;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.parser.InitialStateSink;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Compares peak heap use when parsing a large generated problem with and without building a parse tree, and when
+ * streaming its initial state to a sink that keeps nothing.
+ * Run with a fixed heap, e.g. -Xms2g -Xmx2g, so that the collector behaves the same way for both modes.
+ */
+public final class ParseTreeMemoryBenchmark {
+
+    private static final int OBJECTS = 500;
+
+    private static final int FACTS = 250000;
+
+    private ParseTreeMemoryBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        byte[] problem = generateProblem().getBytes(StandardCharsets.US_ASCII);
+        System.out.println(String.format(Locale.ROOT, "problem of %d facts, %d bytes", FACTS, problem.length));
+
+        for (boolean buildParseTree : new boolean[] {true, false, true, false}) {
+            PDDLParserService parserService = new PDDLParserService(new PDDLParserOptions.Builder()
+                    .buildParseTree(buildParseTree)
+                    .build());
+            System.gc();
+            long before = resetPeakHeap();
+            long start = System.nanoTime();
+            parserService.parseProblem(problem);
+            double millis = (System.nanoTime() - start) / 1e6;
+            long peak = peakHeap() - before;
+            String mode = "without parse tree";
+            if (buildParseTree) {
+                mode = "with parse tree";
+            }
+            System.out.println(String.format(Locale.ROOT, "%-40s %8.1f MB peak %8.1f ms", mode,
+                    peak / 1024.0 / 1024.0, millis));
+        }
+
+        PDDLParserService parserService = new PDDLParserService();
+        final long[] count = new long[1];
+        for (int i = 0; i < 2; i++) {
+            System.gc();
+            long before = resetPeakHeap();
+            long start = System.nanoTime();
+            parserService.parseProblem(ByteSource.wrap(problem).openStream(), new InitialStateSink() {
+                @Override
+                public void add(Formula fact) {
+                    count[0]++;
+                }
+            });
+            double millis = (System.nanoTime() - start) / 1e6;
+            long peak = peakHeap() - before;
+            System.out.println(String.format(Locale.ROOT, "%-40s %8.1f MB peak %8.1f ms", "streaming initial state",
+                    peak / 1024.0 / 1024.0, millis));
+        }
+    }
+
+    private static String generateProblem() {
+        StringBuilder builder = new StringBuilder("(define (problem big) (:domain big)\n(:objects");
+        for (int i = 0; i < OBJECTS; i++) {
+            builder.append(" o").append(i);
+        }
+        builder.append(")\n(:init\n");
+        for (int i = 0; i < FACTS; i++) {
+            builder.append("  (link o").append(i % OBJECTS).append(" o").append(i / OBJECTS).append(")\n");
+        }
+        return builder.append(")\n(:goal (and (link o1 o0))))\n").toString();
+    }
+
+    private static long resetPeakHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+/**
+ * Compares full LL prediction with two-stage SLL/LL prediction over the example corpus.
+ */
+public final class PredictionModeBenchmark {
+
+    private PredictionModeBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        final List<byte[]> domains = Benchmarks.exampleDomains();
+        final List<byte[]> problems = Benchmarks.exampleProblems();
+
+        for (final boolean twoStage : new boolean[] {false, true}) {
+            final PDDLParserService parserService = new PDDLParserService(new PDDLParserOptions.Builder()
+                    .twoStagePrediction(twoStage)
+                    .build());
+            String mode = "full LL";
+            if (twoStage) {
+                mode = "SLL then LL";
+            }
+            Benchmarks.measure(mode + ", example domains", new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    for (byte[] domain : domains) {
+                        parserService.parseDomain(new ByteArrayInputStream(domain));
+                    }
+                }
+            });
+            Benchmarks.measure(mode + ", example problems", new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    for (byte[] problem : problems) {
+                        parserService.parseProblem(new ByteArrayInputStream(problem));
+                    }
+                }
+            });
+        }
+    }
+}
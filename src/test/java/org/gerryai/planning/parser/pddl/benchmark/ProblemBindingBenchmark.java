@@ -0,0 +1,76 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.DomainIndex;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+
+import java.nio.file.Path;
+
+/**
+ * Compares parsing problem files alone with parsing them against their domain, and with building the domain's lookup
+ * tables, which parsing against the domain only does once however many problems are parsed.
+ */
+public final class ProblemBindingBenchmark {
+
+    private static final String[][] PROBLEMS = {
+        {"logistics/logistics.pddl", "logistics/pb2.pddl"},
+        {"tasks/tasks.pddl", "tasks/pb1.pddl"},
+    };
+
+    private static final int WARM_UP_ROUNDS = 10000;
+
+    private static final int ROUNDS = 2000;
+
+    private static int sink;
+
+    private ProblemBindingBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        final PDDLParserService parserService = new PDDLParserService();
+        for (String[] names : PROBLEMS) {
+            final Domain domain = parserService.parseDomain(Benchmarks.resource(names[0]));
+            final Path problem = Benchmarks.resource(names[1]);
+            for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+                sink += parserService.parseProblem(problem).getObjects().asSet().size();
+                sink += parserService.parseProblemFor(problem, domain).getObjects().asSet().size();
+            }
+            System.out.println(names[1]);
+            Benchmarks.measure("  parsed alone", ROUNDS, ROUNDS, new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    sink += parserService.parseProblem(problem).getInitialState().asSet().size();
+                }
+            });
+            Benchmarks.measure("  parsed against domain", ROUNDS, ROUNDS, new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    sink += parserService.parseProblemFor(problem, domain).getInitialState().asSet().size();
+                }
+            });
+            Benchmarks.measure("  domain lookup tables built", ROUNDS, ROUNDS, new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    sink += new DomainIndex(domain).getPrimitiveTypes().size();
+                }
+            });
+        }
+        System.out.println(sink);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.benchmark;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.snapshot.SnapshotReader;
+import org.gerryai.planning.snapshot.SnapshotWriter;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Compares parsing generated logistics problems of growing size from PDDL text with reading them back from a
+ * snapshot, both held in memory and memory-mapped from a file.
+ */
+public final class SnapshotBenchmark {
+
+    private static final int[] CITIES = {10, 100, 1000};
+
+    private static final int WARM_UP_ROUNDS = 20000;
+
+    private static int sink;
+
+    private SnapshotBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        final PDDLParserService parserService = new PDDLParserService();
+        final SnapshotWriter writer = new SnapshotWriter();
+        final SnapshotReader reader = new SnapshotReader();
+        final byte[] domainText = Files.readAllBytes(Benchmarks.resource("logistics/logistics.pddl"));
+        final byte[] domainSnapshot = writer.toBytes(parserService.parseDomain(domainText));
+        byte[] warmUpText = Benchmarks.logistics(CITIES[0]).getBytes(StandardCharsets.UTF_8);
+        byte[] warmUpSnapshot = writer.toBytes(parserService.parseProblem(warmUpText));
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            sink += parserService.parseProblem(warmUpText).getObjects().asSet().size();
+            sink += writer.toBytes(reader.readProblem(warmUpSnapshot)).length;
+            sink += reader.readDomain(domainSnapshot).getActions().asSet().size();
+            sink += parserService.parseDomain(domainText).getActions().asSet().size();
+        }
+        Benchmarks.measure("domain, parsed", new Benchmarks.Task() {
+            @Override
+            public void run() throws Exception {
+                sink += parserService.parseDomain(domainText).getActions().asSet().size();
+            }
+        });
+        Benchmarks.measure("domain, snapshot", new Benchmarks.Task() {
+            @Override
+            public void run() throws Exception {
+                Domain domain = reader.readDomain(domainSnapshot);
+                sink += domain.getActions().asSet().size();
+            }
+        });
+        for (int cities : CITIES) {
+            final byte[] text = Benchmarks.logistics(cities).getBytes(StandardCharsets.UTF_8);
+            Problem problem = parserService.parseProblem(text);
+            final byte[] snapshot = writer.toBytes(problem);
+            final Path file = Files.createTempFile("snapshot", ".bin");
+            writer.write(problem, file);
+            System.out.println(String.format(Locale.ROOT, "%d cities: %d bytes of text, %d bytes of snapshot",
+                    cities, text.length, snapshot.length));
+            int rounds = 50000 / cities;
+            double parsed = Benchmarks.measure("  parsed", rounds, rounds, new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    sink += parserService.parseProblem(text).getInitialState().asSet().size();
+                }
+            });
+            double read = Benchmarks.measure("  snapshot in memory", rounds, rounds, new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    sink += reader.readProblem(snapshot).getInitialState().asSet().size();
+                }
+            });
+            double mapped = Benchmarks.measure("  snapshot memory-mapped", rounds, rounds, new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    sink += reader.readProblem(file).getInitialState().asSet().size();
+                }
+            });
+            Benchmarks.measure("  writing the snapshot", rounds, rounds, new Benchmarks.Task() {
+                @Override
+                public void run() throws Exception {
+                    sink += writer.toBytes(reader.readProblem(snapshot)).length;
+                }
+            });
+            System.out.println(String.format(Locale.ROOT, "  speed-up %.1fx in memory, %.1fx memory-mapped",
+                    parsed / read, parsed / mapped));
+            Files.delete(file);
+        }
+        System.out.println(sink);
+    }
+}
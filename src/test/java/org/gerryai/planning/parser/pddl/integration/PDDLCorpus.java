@@ -0,0 +1,88 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The PDDL files kept under a test resource directory, split into domains and problems.
+ */
+public class PDDLCorpus {
+
+    private static final Pattern PROBLEM = Pattern.compile("\\(\\s*problem\\s", Pattern.CASE_INSENSITIVE);
+
+    private final List<Path> domains = new ArrayList<>();
+
+    private final List<Path> problems = new ArrayList<>();
+
+    public PDDLCorpus(String resourceDirectory) {
+        URL url = Thread.currentThread().getContextClassLoader().getResource(resourceDirectory);
+        try {
+            Files.walkFileTree(Paths.get(url.toURI()), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (file.toString().endsWith(".pddl")) {
+                        String text = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+                        if (PROBLEM.matcher(text).find()) {
+                            problems.add(file);
+                        } else {
+                            domains.add(file);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException | URISyntaxException ex) {
+            throw new IllegalStateException("Could not read PDDL corpus " + resourceDirectory, ex);
+        }
+        Collections.sort(domains);
+        Collections.sort(problems);
+    }
+
+    /**
+     * The corpus of example domains and problems, plus the general ones that should parse successfully.
+     */
+    public static PDDLCorpus successful() {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        PDDLCorpus general = new PDDLCorpus("pddl/general/success");
+        corpus.domains.addAll(general.domains);
+        corpus.problems.addAll(general.problems);
+        return corpus;
+    }
+
+    public List<Path> getDomains() {
+        return domains;
+    }
+
+    public List<Path> getProblems() {
+        return problems;
+    }
+}
@@ -28,6 +28,10 @@ import org.junit.Test;
 import java.util.HashSet;
 import java.util.Set;
 
+import static org.gerryai.planning.model.logic.FormulaBuilder.forAll;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -111,4 +115,10 @@ public class TasksPb1IT extends ProblemSuccessTester {
         assertEquals("minimize", metricName);
         assertEquals("total-cost", term.getName());
     }
+
+    @Test
+    public void goalIsUniversallyQuantified() {
+        Formula expected = forAll(predicate("is_done", variable("t")), variable("t", type("task")));
+        assertEquals(expected, problem.getGoal().getFormula());
+    }
 }
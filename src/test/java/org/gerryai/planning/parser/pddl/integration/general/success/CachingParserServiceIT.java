@@ -0,0 +1,90 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.cache.CacheStatistics;
+import org.gerryai.planning.parser.cache.CachingParserService;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Integration test to check that parsing the corpus through a cache, in parallel and more than once, gives the same
+ * models as parsing it directly, and that models cached on disk read back the same in a new service.
+ */
+public class CachingParserServiceIT {
+
+    private static final int THREADS = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    @Test
+    public void cachedModelsMatchParsedModels() throws Exception {
+        Path directory = folder.newFolder().toPath();
+        CachingParserService cache = new CachingParserService.Builder(parserService).diskDirectory(directory).build();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < 2; round++) {
+                for (Map.Entry<Path, ListenableFuture<Domain>> entry
+                        : cache.parseDomains(corpus.getDomains(), executor).entrySet()) {
+                    assertEquals(entry.getKey().toString(), parserService.parseDomain(entry.getKey()),
+                            entry.getValue().get());
+                }
+                for (Map.Entry<Path, ListenableFuture<Problem>> entry
+                        : cache.parseProblems(corpus.getProblems(), executor).entrySet()) {
+                    assertEquals(entry.getKey().toString(), parserService.parseProblem(entry.getKey()),
+                            entry.getValue().get());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+        CacheStatistics statistics = cache.getStatistics();
+        int files = corpus.getDomains().size() + corpus.getProblems().size();
+        assertEquals(2 * files, statistics.getRequestCount());
+        assertEquals(statistics.getEntryCount(), statistics.getMissCount());
+        assertEquals(0, statistics.getDiskErrorCount());
+
+        CachingParserService restarted = new CachingParserService.Builder(parserService).diskDirectory(directory)
+                .build();
+        for (Path path : corpus.getProblems()) {
+            Problem problem = restarted.parseProblem(path);
+            assertEquals(path.toString(), parserService.parseProblem(path), problem);
+            assertSame(path.toString(), problem, restarted.parseProblem(path));
+        }
+        assertEquals(0, restarted.getStatistics().getMissCount());
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.parser.error.MissingRequirementsException;
+import org.gerryai.planning.parser.error.ParseException;
+import org.gerryai.planning.parser.error.SyntaxError;
+import org.gerryai.planning.parser.error.SyntaxErrorException;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.gerryai.planning.parser.pddl.internal.PDDLParserUtils;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Integration test to check that the recursive-descent fast path gives exactly the same models and errors as the
+ * generated parser.
+ */
+public class FastPathIT {
+
+    private static final String[] SUPPORTED = {
+        "blocksworld", "gripper", "logistics"
+    };
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    private final PDDLParserUtils utils = new PDDLParserUtils();
+
+    private final PDDLParserService fastPath = new PDDLParserService(new PDDLParserOptions.Builder()
+            .fastPath(true)
+            .build());
+
+    private final PDDLParserService generated = new PDDLParserService(new PDDLParserOptions.Builder()
+            .fastPath(false)
+            .build());
+
+    @Test
+    public void domainsAreTheSameWithOrWithoutFastPath() throws Exception {
+        assertFalse(corpus.getDomains().isEmpty());
+        for (Path path : corpus.getDomains()) {
+            assertEquals(path.toString(), generated.parseDomain(path), fastPath.parseDomain(path));
+        }
+    }
+
+    @Test
+    public void problemsAreTheSameWithOrWithoutFastPath() throws Exception {
+        assertFalse(corpus.getProblems().isEmpty());
+        for (Path path : corpus.getProblems()) {
+            assertEquals(path.toString(), generated.parseProblem(path), fastPath.parseProblem(path));
+        }
+    }
+
+    @Test
+    public void fastPathSupportsStripsWithTyping() throws Exception {
+        for (Path path : corpus.getDomains()) {
+            if (isSupported(path)) {
+                assertTrue(path.toString(), utils.createFastPathParser(utils.createInputStream(path))
+                        .parseDomain().isPresent());
+            }
+        }
+        for (Path path : corpus.getProblems()) {
+            if (isSupported(path)) {
+                assertTrue(path.toString(), utils.createFastPathParser(utils.createInputStream(path))
+                        .parseProblem().isPresent());
+            }
+        }
+    }
+
+    @Test
+    public void missingRequirementsAreTheSameWithOrWithoutFastPath() throws Exception {
+        for (Path path : new PDDLCorpus("pddl/general/failure").getDomains()) {
+            byte[] contents = Files.readAllBytes(path);
+            assertEquals(path.toString(), describe(generated, contents, false), describe(fastPath, contents, false));
+        }
+    }
+
+    @Test
+    public void errorsAreTheSameWithOrWithoutFastPathForTruncatedInput() throws Exception {
+        for (Path path : corpus.getDomains()) {
+            byte[] contents = Files.readAllBytes(path);
+            for (int i = 1; i < 8; i++) {
+                byte[] truncated = Arrays.copyOf(contents, contents.length * i / 8);
+                assertEquals(path.toString(), describe(generated, truncated, false),
+                        describe(fastPath, truncated, false));
+            }
+        }
+        for (Path path : corpus.getProblems()) {
+            byte[] contents = Files.readAllBytes(path);
+            for (int i = 1; i < 8; i++) {
+                byte[] truncated = Arrays.copyOf(contents, contents.length * i / 8);
+                assertEquals(path.toString(), describe(generated, truncated, true),
+                        describe(fastPath, truncated, true));
+            }
+        }
+    }
+
+    @Test
+    public void resultsAreTheSameWithOrWithoutFastPathForCorruptedInput() throws Exception {
+        Random random = new Random(8);
+        byte[] replacements = "()?-:; \nx1".getBytes("US-ASCII");
+        for (Path path : corpus.getDomains()) {
+            byte[] contents = Files.readAllBytes(path);
+            for (int i = 0; i < 10; i++) {
+                byte[] corrupted = corrupt(contents, random, replacements);
+                assertEquals(path.toString(), describe(generated, corrupted, false),
+                        describe(fastPath, corrupted, false));
+            }
+        }
+        for (Path path : corpus.getProblems()) {
+            byte[] contents = Files.readAllBytes(path);
+            for (int i = 0; i < 10; i++) {
+                byte[] corrupted = corrupt(contents, random, replacements);
+                assertEquals(path.toString(), describe(generated, corrupted, true),
+                        describe(fastPath, corrupted, true));
+            }
+        }
+    }
+
+    @Test
+    public void fastPathIsUsedForByteBuffers() throws Exception {
+        for (Path path : corpus.getProblems()) {
+            if (isSupported(path)) {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+                assertEquals(path.toString(), generated.parseProblem(path), fastPath.parseProblem(buffer));
+            }
+        }
+    }
+
+    /**
+     * Check whether a file belongs to one of the STRIPS benchmarks that the fast path should handle on its own.
+     * Equality is left to the generated parser.
+     */
+    private boolean isSupported(Path path) {
+        if (path.toString().contains("equality")) {
+            return false;
+        }
+        for (String name : SUPPORTED) {
+            if (path.toString().contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replace a single byte of the input with one likely to change its structure.
+     */
+    private byte[] corrupt(byte[] contents, Random random, byte[] replacements) {
+        byte[] corrupted = Arrays.copyOf(contents, contents.length);
+        corrupted[random.nextInt(corrupted.length)] = replacements[random.nextInt(replacements.length)];
+        return corrupted;
+    }
+
+    /**
+     * Parse some input, returning the model or a description of the exception thrown.
+     */
+    private Object describe(PDDLParserService parserService, byte[] contents, boolean problem)
+            throws Exception {
+        try {
+            if (problem) {
+                return parserService.parseProblem(contents);
+            } else {
+                return parserService.parseDomain(contents);
+            }
+        } catch (SyntaxErrorException ex) {
+            List<String> errors = new ArrayList<>();
+            for (SyntaxError error : ex.getSyntaxErrors()) {
+                errors.add(error.getLine() + ":" + error.getCharPositionInLine() + " " + error.getMessage());
+            }
+            return errors;
+        } catch (MissingRequirementsException ex) {
+            return Arrays.asList(ex.getMissingRequirements().toString());
+        } catch (ParseException ex) {
+            fail("Threw " + ex);
+        } catch (RuntimeException ex) {
+            return Arrays.asList(ex.getClass().getName());
+        }
+        return null;
+    }
+}
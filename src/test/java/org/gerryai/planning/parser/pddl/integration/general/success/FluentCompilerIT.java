@@ -0,0 +1,183 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.FluentTable;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.gerryai.planning.search.CompiledMetric;
+import org.gerryai.planning.search.FluentCompiler;
+import org.gerryai.planning.search.PackedState;
+import org.gerryai.planning.search.SuccessorGenerator;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration test to check that the compiled numeric effects of each action agree with interpreting the effects of
+ * the action directly, and the compiled metric with the value of its fluent, in every state visited by a random walk
+ * over each example problem with numeric fluents that can be grounded.
+ */
+public class FluentCompilerIT {
+
+    private static final int STEPS = 100;
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    private final Grounder grounder = new Grounder();
+
+    @Test
+    public void compiledEffectsMatchInterpretation() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = new HashMap<>();
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            domains.put(domain.getName(), domain);
+        }
+        int compiled = 0;
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            Domain domain = domains.get(problem.getDomainName());
+            if (domain.getFunctions().asSet().isEmpty()) {
+                continue;
+            }
+            GroundTask task;
+            try {
+                task = grounder.ground(domain, problem);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            FluentTable table = new FluentTable(domain, problem, task.getAtoms().getTypeHierarchy());
+            FluentCompiler compiler = new FluentCompiler(table);
+            CompiledMetric metric = null;
+            if (problem.getMetric() != null) {
+                metric = compiler.metric(problem.getMetric());
+            }
+            SuccessorGenerator generator = new SuccessorGenerator(task.getOperators());
+            Random random = new Random(path.getFileName().toString().hashCode());
+            PackedState state = PackedState.initial(task.getAtoms());
+            PackedState successor = new PackedState(task.getAtoms().size());
+            double[] values = table.getInitialValues();
+            double[] successorValues = new double[values.length];
+            for (int step = 0; step < STEPS; step++) {
+                List<GroundOperator> applicable = new ArrayList<>();
+                generator.generate(state, applicable);
+                if (applicable.isEmpty()) {
+                    break;
+                }
+                GroundOperator operator = applicable.get(random.nextInt(applicable.size()));
+                double[] expected = values.clone();
+                if (operator.getAction().getEffect().getEffect().isPresent()) {
+                    interpret(operator.getAction().getEffect().getEffect().get(), binding(operator, table), table,
+                            values, expected);
+                }
+                compiler.effect(operator.getAction()).apply(values, operator.getArguments(), successorValues);
+                assertEquals(path.toString(), expected.length, successorValues.length);
+                for (int i = 0; i < expected.length; i++) {
+                    assertEquals(path.toString(), expected[i], successorValues[i], 0.0);
+                }
+                state.apply(operator, successor);
+                state.copyFrom(successor);
+                System.arraycopy(successorValues, 0, values, 0, values.length);
+                if (metric != null) {
+                    assertEquals(path.toString(),
+                            values[table.slot((FunctionTerm) problem.getMetric().getFormula())],
+                            metric.evaluate(values), 0.0);
+                }
+            }
+            compiled++;
+        }
+        assertTrue(compiled > 0);
+    }
+
+    private Map<String, Constant> binding(GroundOperator operator, FluentTable table) {
+        Map<String, Constant> binding = new HashMap<>();
+        List<Variable> parameters = operator.getAction().getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            binding.put(parameters.get(i).getName(),
+                    new Constant(table.getTypeHierarchy().getObjects().get(operator.getArguments()[i])));
+        }
+        return binding;
+    }
+
+    private void interpret(Formula effect, Map<String, Constant> binding, FluentTable table, double[] before,
+                           double[] after) {
+        if (effect instanceof And) {
+            for (Formula conjunct : ((And) effect).asList()) {
+                interpret(conjunct, binding, table, before, after);
+            }
+        } else if (effect instanceof Operation) {
+            Operation operation = (Operation) effect;
+            int target = table.slot(substitute(operation.getConsequent(), binding));
+            double value;
+            if (operation.getAntecedent().getNumber().isPresent()) {
+                value = operation.getAntecedent().getNumber().get().getValue();
+            } else {
+                value = before[table.slot(substitute(operation.getAntecedent(), binding))];
+            }
+            switch (operation.getOperator()) {
+                case "increase":
+                    after[target] += value;
+                    break;
+                case "decrease":
+                    after[target] -= value;
+                    break;
+                case "scale-up":
+                    after[target] *= value;
+                    break;
+                case "scale-down":
+                    after[target] /= value;
+                    break;
+                default:
+                    after[target] = value;
+            }
+        }
+    }
+
+    private FunctionTerm substitute(FunctionTerm term, Map<String, Constant> binding) {
+        FunctionTerm.Builder builder = new FunctionTerm.Builder().name(term.getName());
+        for (Term argument : term.getTerms()) {
+            if (argument instanceof Variable && binding.containsKey(((Variable) argument).getName())) {
+                builder.term(binding.get(((Variable) argument).getName()));
+            } else {
+                builder.term(argument);
+            }
+        }
+        return builder.build();
+    }
+}
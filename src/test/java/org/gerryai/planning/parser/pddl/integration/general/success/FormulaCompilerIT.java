@@ -0,0 +1,102 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.gerryai.planning.search.CompiledFormula;
+import org.gerryai.planning.search.FormulaCompiler;
+import org.gerryai.planning.search.PackedState;
+import org.gerryai.planning.search.SuccessorGenerator;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration test to check that the compiled precondition of each action agrees with the ground operators of each
+ * example problem that can be grounded, and the compiled goal with the goal bitsets, in every state visited by a
+ * random walk.
+ */
+public class FormulaCompilerIT {
+
+    private static final int STEPS = 100;
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    private final Grounder grounder = new Grounder();
+
+    @Test
+    public void compiledFormulasMatchGrounding() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = new HashMap<>();
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            domains.put(domain.getName(), domain);
+        }
+        int compiled = 0;
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            GroundTask task;
+            try {
+                task = grounder.ground(domains.get(problem.getDomainName()), problem);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            GroundAtomTable atoms = task.getAtoms();
+            FormulaCompiler compiler = new FormulaCompiler(atoms);
+            CompiledFormula goal = compiler.compile(problem.getGoal().getFormula());
+            SuccessorGenerator generator = new SuccessorGenerator(task.getOperators());
+            Random random = new Random(path.getFileName().toString().hashCode());
+            PackedState state = PackedState.initial(atoms);
+            PackedState successor = new PackedState(atoms.size());
+            for (int step = 0; step < STEPS; step++) {
+                for (GroundOperator operator : task.getOperators()) {
+                    assertEquals(path.toString(), state.isApplicable(operator),
+                            compiler.precondition(operator.getAction()).evaluate(state, operator.getArguments()));
+                }
+                if (atoms.isConjunctiveGoal()) {
+                    assertEquals(path.toString(), state.satisfies(atoms.getGoal(), atoms.getNegatedGoal()),
+                            goal.evaluate(state));
+                }
+                List<GroundOperator> applicable = new ArrayList<>();
+                generator.generate(state, applicable);
+                if (applicable.isEmpty()) {
+                    break;
+                }
+                state.apply(applicable.get(random.nextInt(applicable.size())), successor);
+                state.copyFrom(successor);
+            }
+            compiled++;
+        }
+        assertTrue(compiled > 0);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration test to check that the ground atom table of each example problem holds its initial state and goal.
+ */
+public class GroundAtomTableIT {
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    @Test
+    public void initialStatesAndGoalsAreHeldAsBitSets() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = new HashMap<>();
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            domains.put(domain.getName(), domain);
+        }
+        assertFalse(corpus.getProblems().isEmpty());
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            GroundAtomTable table = new GroundAtomTable(domains.get(problem.getDomainName()), problem);
+            long[] state = table.getInitialState();
+            int facts = 0;
+            for (Formula fact : problem.getInitialState().asSet()) {
+                if (fact instanceof Predicate) {
+                    int id = table.id((Predicate) fact);
+                    assertTrue(path.toString(), GroundAtomTable.contains(state, id));
+                    assertEquals(path.toString(), fact, table.atom(id));
+                    facts++;
+                }
+            }
+            assertEquals(path.toString(), facts, cardinality(state));
+            if (table.isConjunctiveGoal()) {
+                int literals = goalLiterals(table, problem.getGoal().getFormula(), path.toString());
+                assertEquals(path.toString(), literals,
+                        cardinality(table.getGoal()) + cardinality(table.getNegatedGoal()));
+            }
+        }
+    }
+
+    private int goalLiterals(GroundAtomTable table, Formula formula, String message) {
+        if (formula instanceof And) {
+            int count = 0;
+            for (Formula conjunct : ((And) formula).asList()) {
+                count += goalLiterals(table, conjunct, message);
+            }
+            return count;
+        } else if (formula instanceof Not) {
+            int id = table.id((Predicate) ((Not) formula).getFormula());
+            assertTrue(message, GroundAtomTable.contains(table.getNegatedGoal(), id));
+            return 1;
+        }
+        int id = table.id((Predicate) formula);
+        assertTrue(message, GroundAtomTable.contains(table.getGoal(), id));
+        return 1;
+    }
+
+    private int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.grounding.ConditionalEffect;
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.TypeHierarchy;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.ForAll;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.IfThen;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Integration test to check that grounding each example problem gives the same operators as naively enumerating
+ * every typed binding of every action and evaluating its precondition, and that grounding only reachable instances
+ * gives the operators a relaxed fixpoint over the full grounding would apply.
+ */
+public class GroundingIT {
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    private final Grounder grounder = new Grounder();
+
+    @Test
+    public void groundingMatchesNaiveEnumeration() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = new HashMap<>();
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            domains.put(domain.getName(), domain);
+        }
+        int grounded = 0;
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            Domain domain = domains.get(problem.getDomainName());
+            if (!supported(domain)) {
+                try {
+                    grounder.ground(domain, problem);
+                    fail(path + " should not have been grounded");
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+            }
+            GroundTask task = grounder.ground(domain, problem);
+            List<Reference> expected = naive(domain, problem, task.getAtoms());
+            assertEquals(path.toString(), expected.size(), task.getOperators().size());
+            for (int i = 0; i < expected.size(); i++) {
+                GroundOperator operator = task.getOperators().get(i);
+                assertEquals(path.toString(), expected.get(i).action, operator.getAction());
+                assertArrayEquals(path.toString(), expected.get(i).arguments, operator.getArguments());
+                if (!conditional(operator.getAction().getEffect().getEffect().get())) {
+                    assertArrayEquals(path.toString(), expected.get(i).adds, operator.getAddEffects());
+                }
+            }
+            grounded++;
+        }
+        assertTrue(grounded > 0);
+    }
+
+    @Test
+    public void reachableGroundingMatchesRelaxedFixpoint() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = new HashMap<>();
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            domains.put(domain.getName(), domain);
+        }
+        int grounded = 0;
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            Domain domain = domains.get(problem.getDomainName());
+            if (supported(domain)) {
+                List<GroundOperator> all = grounder.ground(domain, problem).getOperators();
+                GroundTask task = grounder.groundReachable(domain, problem);
+                long[] reached = task.getAtoms().getInitialState();
+                Set<GroundOperator> applied = new HashSet<>();
+                boolean changed = true;
+                while (changed) {
+                    changed = false;
+                    for (GroundOperator operator : all) {
+                        if (!applied.contains(operator) && containsAll(reached, operator.getPrecondition())) {
+                            applied.add(operator);
+                            for (int id : operator.getAddEffects()) {
+                                GroundAtomTable.set(reached, id);
+                            }
+                            for (ConditionalEffect effect : operator.getConditionalEffects()) {
+                                for (int id : effect.getAddEffects()) {
+                                    GroundAtomTable.set(reached, id);
+                                }
+                            }
+                            changed = true;
+                        }
+                    }
+                }
+                List<GroundOperator> expected = new ArrayList<>();
+                for (GroundOperator operator : all) {
+                    if (applied.contains(operator)) {
+                        expected.add(operator);
+                    }
+                }
+                assertEquals(path.toString(), expected, task.getOperators());
+                grounded++;
+            }
+        }
+        assertTrue(grounded > 0);
+    }
+
+    private boolean containsAll(long[] bits, int[] ids) {
+        for (int id : ids) {
+            if (!GroundAtomTable.contains(bits, id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Reference> naive(Domain domain, Problem problem, GroundAtomTable table) {
+        Set<String> fluents = new HashSet<>();
+        List<Action> actions = new ArrayList<>(domain.getActions().asSet());
+        Collections.sort(actions, new Comparator<Action>() {
+            @Override
+            public int compare(Action first, Action second) {
+                return first.getName().compareTo(second.getName());
+            }
+        });
+        for (Action action : actions) {
+            if (action.getEffect().getEffect().isPresent()) {
+                fluents(action.getEffect().getEffect().get(), fluents);
+            }
+        }
+        List<Reference> operators = new ArrayList<>();
+        for (Action action : actions) {
+            enumerate(action, new int[action.getParameters().size()], 0, problem, table, fluents, operators);
+        }
+        return operators;
+    }
+
+    private void enumerate(Action action, int[] binding, int bound, Problem problem, GroundAtomTable table,
+                           Set<String> fluents, List<Reference> operators) {
+        TypeHierarchy hierarchy = table.getTypeHierarchy();
+        if (bound < binding.length) {
+            for (int object : hierarchy.objects(action.getParameters().get(bound).getType())) {
+                binding[bound] = object;
+                enumerate(action, binding, bound + 1, problem, table, fluents, operators);
+            }
+            return;
+        }
+        Map<String, Constant> substitution = new HashMap<>();
+        for (int i = 0; i < binding.length; i++) {
+            substitution.put(action.getParameters().get(i).getName(),
+                    new Constant(hierarchy.getObjects().get(binding[i])));
+        }
+        if (!action.getPrecondition().getPrecondition().isPresent()
+                || holds(action.getPrecondition().getPrecondition().get(), substitution, problem, table, fluents)) {
+            List<Predicate> added = new ArrayList<>();
+            List<Predicate> deleted = new ArrayList<>();
+            if (action.getEffect().getEffect().isPresent()) {
+                effects(action.getEffect().getEffect().get(), substitution, added, deleted);
+            }
+            Set<Integer> ids = new HashSet<>();
+            for (Predicate atom : added) {
+                if (table.id(atom) >= 0) {
+                    ids.add(table.id(atom));
+                }
+            }
+            int[] adds = new int[ids.size()];
+            int i = 0;
+            for (int id : ids) {
+                adds[i++] = id;
+            }
+            Arrays.sort(adds);
+            operators.add(new Reference(action, binding.clone(), adds));
+        }
+    }
+
+    private boolean holds(Formula formula, Map<String, Constant> substitution, Problem problem,
+                          GroundAtomTable table, Set<String> fluents) {
+        if (formula instanceof And) {
+            for (Formula conjunct : ((And) formula).asList()) {
+                if (!holds(conjunct, substitution, problem, table, fluents)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (formula instanceof Not) {
+            Formula negated = ((Not) formula).getFormula();
+            if (negated instanceof Predicate && fluents.contains(((Predicate) negated).getName())) {
+                return true;
+            }
+            return !holds(negated, substitution, problem, table, fluents);
+        } else if (formula instanceof Equals) {
+            return substitute(((Equals) formula).getLeft(), substitution)
+                    .equals(substitute(((Equals) formula).getRight(), substitution));
+        }
+        Predicate atom = substitute((Predicate) formula, substitution);
+        if (fluents.contains(atom.getName())) {
+            return table.id(atom) >= 0;
+        }
+        return problem.getInitialState().asSet().contains(atom);
+    }
+
+    private void fluents(Formula formula, Set<String> fluents) {
+        if (formula instanceof And) {
+            for (Formula conjunct : ((And) formula).asList()) {
+                fluents(conjunct, fluents);
+            }
+        } else if (formula instanceof IfThen) {
+            fluents(((IfThen) formula).getConsequence(), fluents);
+        } else if (formula instanceof ForAll) {
+            fluents(((ForAll) formula).getFormula(), fluents);
+        } else if (formula instanceof Not) {
+            fluents.add(((Predicate) ((Not) formula).getFormula()).getName());
+        } else if (formula instanceof Predicate) {
+            fluents.add(((Predicate) formula).getName());
+        }
+    }
+
+    private void effects(Formula formula, Map<String, Constant> substitution, List<Predicate> added,
+                         List<Predicate> deleted) {
+        if (formula instanceof And) {
+            for (Formula conjunct : ((And) formula).asList()) {
+                effects(conjunct, substitution, added, deleted);
+            }
+        } else if (formula instanceof Not) {
+            deleted.add(substitute((Predicate) ((Not) formula).getFormula(), substitution));
+        } else if (formula instanceof Predicate) {
+            added.add(substitute((Predicate) formula, substitution));
+        }
+    }
+
+    private Predicate substitute(Predicate atom, Map<String, Constant> substitution) {
+        Predicate.Builder builder = new Predicate.Builder().name(atom.getName());
+        for (Term term : atom.getTerms()) {
+            builder.term(substitute(term, substitution));
+        }
+        return builder.build();
+    }
+
+    private Term substitute(Term term, Map<String, Constant> substitution) {
+        if (term instanceof Variable && substitution.containsKey(((Variable) term).getName())) {
+            return substitution.get(((Variable) term).getName());
+        }
+        return term;
+    }
+
+    private boolean supported(Domain domain) {
+        for (Action action : domain.getActions().asSet()) {
+            if (action.getPrecondition().getPrecondition().isPresent()
+                    && !supported(action.getPrecondition().getPrecondition().get())) {
+                return false;
+            }
+            if (action.getEffect().getEffect().isPresent() && !supportedEffect(action.getEffect().getEffect().get())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean supportedEffect(Formula formula) {
+        if (formula instanceof And) {
+            for (Formula conjunct : ((And) formula).asList()) {
+                if (!supportedEffect(conjunct)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (formula instanceof IfThen) {
+            return supported(((IfThen) formula).getCondition()) && supportedEffect(((IfThen) formula).getConsequence());
+        } else if (formula instanceof ForAll) {
+            return supportedEffect(((ForAll) formula).getFormula());
+        }
+        return formula instanceof Operation || supported(formula);
+    }
+
+    private boolean conditional(Formula formula) {
+        if (formula instanceof And) {
+            for (Formula conjunct : ((And) formula).asList()) {
+                if (conditional(conjunct)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return formula instanceof IfThen || formula instanceof ForAll;
+    }
+
+    private boolean supported(Formula formula) {
+        if (formula instanceof And) {
+            for (Formula conjunct : ((And) formula).asList()) {
+                if (!supported(conjunct)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (formula instanceof Not) {
+            return ((Not) formula).getFormula() instanceof Predicate || ((Not) formula).getFormula() instanceof Equals;
+        }
+        return formula instanceof Predicate || formula instanceof Equals;
+    }
+
+    private static final class Reference {
+
+        private final Action action;
+        private final int[] arguments;
+        private final int[] adds;
+
+        private Reference(Action action, int[] arguments, int[] adds) {
+            this.action = action;
+            this.arguments = arguments;
+            this.adds = adds;
+        }
+    }
+}
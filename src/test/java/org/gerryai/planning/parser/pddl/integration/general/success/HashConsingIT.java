@@ -0,0 +1,92 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Integration test to check that hash-consing gives the same models, with equal atoms shared.
+ */
+public class HashConsingIT {
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    private final PDDLParserService plain = new PDDLParserService(new PDDLParserOptions.Builder()
+            .fastPath(false)
+            .build());
+
+    private final PDDLParserService[] hashConsing = {
+        new PDDLParserService(new PDDLParserOptions.Builder().hashConsing(true).fastPath(true).build()),
+        new PDDLParserService(new PDDLParserOptions.Builder().hashConsing(true).fastPath(false).build())
+    };
+
+    @Test
+    public void domainsAreTheSameWithOrWithoutHashConsing() throws Exception {
+        assertFalse(corpus.getDomains().isEmpty());
+        for (Path path : corpus.getDomains()) {
+            for (PDDLParserService parserService : hashConsing) {
+                assertEquals(path.toString(), plain.parseDomain(path), parserService.parseDomain(path));
+            }
+        }
+    }
+
+    @Test
+    public void problemsAreTheSameWithOrWithoutHashConsing() throws Exception {
+        assertFalse(corpus.getProblems().isEmpty());
+        for (Path path : corpus.getProblems()) {
+            for (PDDLParserService parserService : hashConsing) {
+                assertEquals(path.toString(), plain.parseProblem(path), parserService.parseProblem(path));
+            }
+        }
+    }
+
+    @Test
+    public void termsAreSharedWithinEachProblem() throws Exception {
+        for (Path path : new PDDLCorpus("pddl/example/blocksworld").getProblems()) {
+            for (PDDLParserService parserService : hashConsing) {
+                Problem problem = parserService.parseProblem(path);
+                Map<Term, Term> terms = new HashMap<>();
+                for (Formula fact : problem.getInitialState().asSet()) {
+                    if (fact instanceof Predicate) {
+                        for (Term term : ((Predicate) fact).getTerms()) {
+                            if (!terms.containsKey(term)) {
+                                terms.put(term, term);
+                            }
+                            assertSame(path.toString(), terms.get(term), term);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
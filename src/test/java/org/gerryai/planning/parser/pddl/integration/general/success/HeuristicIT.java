@@ -0,0 +1,185 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.grounding.ConditionalEffect;
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.heuristic.AdditiveHeuristic;
+import org.gerryai.planning.heuristic.FFHeuristic;
+import org.gerryai.planning.heuristic.Heuristic;
+import org.gerryai.planning.heuristic.MaxHeuristic;
+import org.gerryai.planning.heuristic.RelaxedTask;
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.gerryai.planning.search.PackedState;
+import org.gerryai.planning.search.SuccessorGenerator;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration test to check that h_max and h_add agree with a naive fixpoint computation over the ground operators,
+ * that h_FF lies between them and that every preferred operator is applicable, in every state visited by a random
+ * walk over each example problem with a conjunctive goal that can be grounded.
+ */
+public class HeuristicIT {
+
+    private static final int STEPS = 50;
+
+    private static final long INFINITY = Long.MAX_VALUE;
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    private final Grounder grounder = new Grounder();
+
+    @Test
+    public void heuristicsMatchReference() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = new HashMap<>();
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            domains.put(domain.getName(), domain);
+        }
+        int evaluated = 0;
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            GroundTask task;
+            try {
+                task = grounder.ground(domains.get(problem.getDomainName()), problem);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            if (!task.getAtoms().isConjunctiveGoal()) {
+                continue;
+            }
+            RelaxedTask relaxed = new RelaxedTask(task);
+            Heuristic max = new MaxHeuristic(relaxed);
+            Heuristic additive = new AdditiveHeuristic(relaxed);
+            FFHeuristic ff = new FFHeuristic(relaxed);
+            SuccessorGenerator generator = new SuccessorGenerator(task.getOperators());
+            Random random = new Random(path.getFileName().toString().hashCode());
+            PackedState state = PackedState.initial(task.getAtoms());
+            PackedState successor = new PackedState(task.getAtoms().size());
+            for (int step = 0; step < STEPS; step++) {
+                check(path.toString(), task, state, max, additive, ff);
+                List<GroundOperator> applicable = new ArrayList<>();
+                generator.generate(state, applicable);
+                if (applicable.isEmpty()) {
+                    break;
+                }
+                state.apply(applicable.get(random.nextInt(applicable.size())), successor);
+                state.copyFrom(successor);
+            }
+            evaluated++;
+        }
+        assertTrue(evaluated > 0);
+    }
+
+    private void check(String message, GroundTask task, PackedState state, Heuristic max, Heuristic additive,
+                       FFHeuristic ff) {
+        assertEquals(message, reference(task, state, false), max.evaluate(state));
+        assertEquals(message, reference(task, state, true), additive.evaluate(state));
+        List<GroundOperator> preferred = new ArrayList<>();
+        int relaxedPlan = ff.evaluate(state, preferred);
+        if (max.evaluate(state) == Heuristic.DEAD_END) {
+            assertEquals(message, Heuristic.DEAD_END, relaxedPlan);
+            assertTrue(message, preferred.isEmpty());
+            return;
+        }
+        assertTrue(message, max.evaluate(state) <= relaxedPlan);
+        assertTrue(message, relaxedPlan <= additive.evaluate(state));
+        for (GroundOperator operator : preferred) {
+            assertTrue(message, state.isApplicable(operator));
+        }
+    }
+
+    private int reference(GroundTask task, PackedState state, boolean additive) {
+        GroundAtomTable atoms = task.getAtoms();
+        long[] costs = new long[atoms.size()];
+        Arrays.fill(costs, INFINITY);
+        for (int atom = 0; atom < atoms.size(); atom++) {
+            if (state.get(atom)) {
+                costs[atom] = 0;
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (GroundOperator operator : task.getOperators()) {
+                changed |= relax(costs, operator.getPrecondition(), new int[0], operator.getAddEffects(), additive);
+                for (ConditionalEffect effect : operator.getConditionalEffects()) {
+                    changed |= relax(costs, operator.getPrecondition(), effect.getCondition(),
+                            effect.getAddEffects(), additive);
+                }
+            }
+        }
+        long[] goal = atoms.getGoal();
+        long total = 0;
+        for (int atom = 0; atom < atoms.size(); atom++) {
+            if (GroundAtomTable.contains(goal, atom)) {
+                if (costs[atom] == INFINITY) {
+                    return Heuristic.DEAD_END;
+                }
+                total = combine(total, costs[atom], additive);
+            }
+        }
+        return (int) total;
+    }
+
+    private boolean relax(long[] costs, int[] precondition, int[] condition, int[] adds, boolean additive) {
+        long cost = 0;
+        for (int[] atoms : new int[][] {precondition, condition}) {
+            for (int atom : atoms) {
+                if (costs[atom] == INFINITY) {
+                    return false;
+                }
+                cost = combine(cost, costs[atom], additive);
+            }
+        }
+        cost++;
+        boolean changed = false;
+        for (int atom : adds) {
+            if (cost < costs[atom]) {
+                costs[atom] = cost;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private long combine(long total, long cost, boolean additive) {
+        if (additive) {
+            return total + cost;
+        }
+        return Math.max(total, cost);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Integration test to check that files, byte arrays, buffers and input streams are all parsed the same way.
+ */
+public class InputSourcesIT {
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    @Test
+    public void domainsAreTheSameFromEverySource() throws Exception {
+        for (Path path : corpus.getDomains()) {
+            Domain expected;
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                expected = parserService.parseDomain(inputStream);
+            }
+            byte[] bytes = Files.readAllBytes(path);
+            assertEquals(path.toString(), expected, parserService.parseDomain(path));
+            assertEquals(path.toString(), expected, parserService.parseDomain(bytes));
+            assertEquals(path.toString(), expected, parserService.parseDomain(direct(bytes)));
+        }
+    }
+
+    @Test
+    public void problemsAreTheSameFromEverySource() throws Exception {
+        for (Path path : corpus.getProblems()) {
+            Problem expected;
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                expected = parserService.parseProblem(inputStream);
+            }
+            byte[] bytes = Files.readAllBytes(path);
+            assertEquals(path.toString(), expected, parserService.parseProblem(path));
+            assertEquals(path.toString(), expected, parserService.parseProblem(bytes));
+            assertEquals(path.toString(), expected, parserService.parseProblem(direct(bytes)));
+        }
+    }
+
+    private ByteBuffer direct(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Integration test to check that every name in a parsed problem is shared with every other use of the same name.
+ */
+public class InternedNamesIT {
+
+    private final PDDLCorpus corpus = new PDDLCorpus("pddl/example/logistics");
+
+    @Test
+    public void namesAreSharedWithFastPath() throws Exception {
+        checkNamesAreShared(new PDDLParserService(new PDDLParserOptions.Builder().fastPath(true).build()));
+    }
+
+    @Test
+    public void namesAreSharedWithGeneratedParser() throws Exception {
+        checkNamesAreShared(new PDDLParserService(new PDDLParserOptions.Builder().fastPath(false).build()));
+    }
+
+    private void checkNamesAreShared(PDDLParserService parserService) throws Exception {
+        assertFalse(corpus.getProblems().isEmpty());
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            Map<String, String> names = new HashMap<>();
+            for (ConstantDefinition object : problem.getObjects().asSet()) {
+                checkShared(names, object.getName());
+            }
+            for (Formula fact : problem.getInitialState().asSet()) {
+                if (fact instanceof Predicate) {
+                    Predicate predicate = (Predicate) fact;
+                    checkShared(names, predicate.getName());
+                    for (Term term : predicate.getTerms()) {
+                        checkShared(names, ((Constant) term).getName());
+                    }
+                }
+            }
+        }
+    }
+
+    private void checkShared(Map<String, String> names, String name) {
+        if (!names.containsKey(name)) {
+            names.put(name, name);
+        }
+        assertSame(name, names.get(name), name);
+    }
+}
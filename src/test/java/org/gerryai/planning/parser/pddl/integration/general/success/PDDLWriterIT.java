@@ -0,0 +1,99 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.gerryai.planning.writer.PDDLWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Integration test to check that every domain and problem that can be parsed, once written as PDDL, parses back into
+ * an equal model, whether it is pretty-printed or not and whether it is written to a writer, a buffer or a file.
+ */
+public class PDDLWriterIT {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    private final PDDLWriter writer = new PDDLWriter();
+
+    private final PDDLWriter prettyWriter = new PDDLWriter.Builder().prettyPrint(true).build();
+
+    @Test
+    public void domainsRoundTrip() throws Exception {
+        assertFalse(corpus.getDomains().isEmpty());
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            for (PDDLWriter pddlWriter : new PDDLWriter[] {writer, prettyWriter}) {
+                StringWriter text = new StringWriter();
+                pddlWriter.write(domain, text);
+                assertEquals(path + "\n" + text, domain,
+                        parserService.parseDomain(text.toString().getBytes(StandardCharsets.US_ASCII)));
+
+                ByteBuffer buffer = ByteBuffer.allocate(text.toString().length());
+                pddlWriter.write(domain, buffer);
+                buffer.flip();
+                assertEquals(path.toString(), domain, parserService.parseDomain(buffer));
+
+                Path file = folder.newFile().toPath();
+                pddlWriter.write(domain, file);
+                assertEquals(path.toString(), domain, parserService.parseDomain(file));
+            }
+        }
+    }
+
+    @Test
+    public void problemsRoundTrip() throws Exception {
+        assertFalse(corpus.getProblems().isEmpty());
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            for (PDDLWriter pddlWriter : new PDDLWriter[] {writer, prettyWriter}) {
+                StringWriter text = new StringWriter();
+                pddlWriter.write(problem, text);
+                assertEquals(path + "\n" + text, problem,
+                        parserService.parseProblem(text.toString().getBytes(StandardCharsets.US_ASCII)));
+
+                ByteBuffer buffer = ByteBuffer.allocate(text.toString().length());
+                pddlWriter.write(problem, buffer);
+                buffer.flip();
+                assertEquals(path.toString(), problem, parserService.parseProblem(buffer));
+
+                Path file = folder.newFile().toPath();
+                pddlWriter.write(problem, file);
+                assertEquals(path.toString(), problem, parserService.parseProblem(file));
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.grounding.ConditionalEffect;
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.gerryai.planning.search.PackedState;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration test to check that random walks through each example problem that can be grounded visit the same
+ * states whether they are packed into bitsets or held as sets of atom ids.
+ */
+public class PackedStateIT {
+
+    private static final int STEPS = 200;
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    private final Grounder grounder = new Grounder();
+
+    @Test
+    public void randomWalksMatchSetSemantics() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = new HashMap<>();
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            domains.put(domain.getName(), domain);
+        }
+        int walked = 0;
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            GroundTask task;
+            try {
+                task = grounder.ground(domains.get(problem.getDomainName()), problem);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            walk(path.toString(), task, new Random(path.getFileName().toString().hashCode()));
+            walked++;
+        }
+        assertTrue(walked > 0);
+    }
+
+    private void walk(String name, GroundTask task, Random random) {
+        GroundAtomTable atoms = task.getAtoms();
+        PackedState state = PackedState.initial(atoms);
+        PackedState successor = new PackedState(atoms.size());
+        Set<Integer> reference = new HashSet<>();
+        for (int id = 0; id < atoms.size(); id++) {
+            if (GroundAtomTable.contains(atoms.getInitialState(), id)) {
+                reference.add(id);
+            }
+        }
+        for (int step = 0; step < STEPS; step++) {
+            List<GroundOperator> applicable = new ArrayList<>();
+            for (GroundOperator operator : task.getOperators()) {
+                boolean expected = holds(reference, operator.getPrecondition(), operator.getNegativePrecondition());
+                assertEquals(name, expected, state.isApplicable(operator));
+                if (expected) {
+                    applicable.add(operator);
+                }
+            }
+            if (applicable.isEmpty()) {
+                return;
+            }
+            GroundOperator operator = applicable.get(random.nextInt(applicable.size()));
+            state.apply(operator, successor);
+            reference = apply(reference, operator);
+            for (int id = 0; id < atoms.size(); id++) {
+                assertEquals(name + " after " + step + " steps", reference.contains(id), successor.get(id));
+            }
+            PackedState copy = state;
+            state = successor;
+            successor = copy;
+            assertEquals(name, fromSet(atoms, reference).hash64(), state.hash64());
+        }
+    }
+
+    private Set<Integer> apply(Set<Integer> state, GroundOperator operator) {
+        Set<Integer> deleted = new HashSet<>();
+        Set<Integer> added = new HashSet<>();
+        addAll(deleted, operator.getDeleteEffects());
+        addAll(added, operator.getAddEffects());
+        for (ConditionalEffect effect : operator.getConditionalEffects()) {
+            if (holds(state, effect.getCondition(), effect.getNegativeCondition())) {
+                addAll(deleted, effect.getDeleteEffects());
+                addAll(added, effect.getAddEffects());
+            }
+        }
+        Set<Integer> successor = new HashSet<>(state);
+        successor.removeAll(deleted);
+        successor.addAll(added);
+        return successor;
+    }
+
+    private boolean holds(Set<Integer> state, int[] positive, int[] negative) {
+        for (int id : positive) {
+            if (!state.contains(id)) {
+                return false;
+            }
+        }
+        for (int id : negative) {
+            if (state.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addAll(Set<Integer> set, int[] ids) {
+        for (int id : ids) {
+            set.add(id);
+        }
+    }
+
+    private PackedState fromSet(GroundAtomTable atoms, Set<Integer> ids) {
+        PackedState state = new PackedState(atoms.size());
+        for (int id : ids) {
+            state.set(id);
+        }
+        return state;
+    }
+}
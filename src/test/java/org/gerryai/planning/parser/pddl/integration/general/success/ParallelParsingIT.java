@@ -0,0 +1,141 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.error.MissingRequirementsException;
+import org.gerryai.planning.parser.error.SyntaxErrorException;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Integration test to check that parsing many files in parallel gives the same results as parsing them one by one.
+ */
+public class ParallelParsingIT {
+
+    private static final int THREADS = 4;
+
+    private static final int REPEATS = 10;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    private final ForkJoinPool pool = new ForkJoinPool(THREADS);
+
+    @After
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void parallelResultsMatchSequentialResults() throws Exception {
+        for (int i = 0; i < REPEATS; i++) {
+            Map<Path, ListenableFuture<Domain>> domains = parserService.parseDomains(corpus.getDomains(), pool);
+            Map<Path, ListenableFuture<Problem>> problems = parserService.parseProblems(corpus.getProblems(), pool);
+
+            assertEquals(corpus.getDomains(), new ArrayList<>(domains.keySet()));
+            assertEquals(corpus.getProblems(), new ArrayList<>(problems.keySet()));
+            for (Map.Entry<Path, ListenableFuture<Domain>> entry : domains.entrySet()) {
+                assertEquals(entry.getKey().toString(), parserService.parseDomain(entry.getKey()),
+                        entry.getValue().get());
+            }
+            for (Map.Entry<Path, ListenableFuture<Problem>> entry : problems.entrySet()) {
+                assertEquals(entry.getKey().toString(), parserService.parseProblem(entry.getKey()),
+                        entry.getValue().get());
+            }
+        }
+    }
+
+    @Test
+    public void failuresOnlyAffectTheirOwnFile() throws Exception {
+        Path good = corpus.getDomains().get(0);
+        Path missingRequirements = new PDDLCorpus("pddl/general/failure").getDomains().get(0);
+        Path syntaxError = temporaryFolder.newFile("syntax-error.pddl").toPath();
+        Files.write(syntaxError, "(define (domain broken) (:requirements :strips)".getBytes(StandardCharsets.US_ASCII));
+
+        Map<Path, ListenableFuture<Domain>> results =
+                parserService.parseDomains(Arrays.asList(syntaxError, good, missingRequirements), pool);
+
+        assertEquals(parserService.parseDomain(good), results.get(good).get());
+        assertFailsWith(SyntaxErrorException.class, results.get(syntaxError));
+        Throwable cause = assertFailsWith(MissingRequirementsException.class, results.get(missingRequirements));
+        assertFalse(((MissingRequirementsException) cause).getMissingRequirements().isEmpty());
+    }
+
+    @Test
+    public void cancelledFilesAreNotParsed() throws Exception {
+        final List<Runnable> queued = new ArrayList<>();
+        Executor queueingExecutor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                queued.add(command);
+            }
+        };
+        Path path = corpus.getProblems().get(0);
+        Path other = corpus.getProblems().get(1);
+
+        Map<Path, ListenableFuture<Problem>> results =
+                parserService.parseProblems(Arrays.asList(path, other, path), queueingExecutor);
+        assertEquals(2, queued.size());
+        assertTrue(results.get(path).cancel(true));
+        for (Runnable task : queued) {
+            task.run();
+        }
+
+        assertTrue(results.get(path).isCancelled());
+        assertEquals(parserService.parseProblem(other), results.get(other).get());
+    }
+
+    private Throwable assertFailsWith(Class<? extends Throwable> expected, ListenableFuture<?> future)
+            throws InterruptedException {
+        try {
+            future.get();
+            fail("Expected " + expected.getSimpleName());
+        } catch (ExecutionException ex) {
+            assertEquals(expected, ex.getCause().getClass());
+            return ex.getCause();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.parser.error.MissingRequirementsException;
+import org.gerryai.planning.parser.error.ParseException;
+import org.gerryai.planning.parser.error.SyntaxError;
+import org.gerryai.planning.parser.error.SyntaxErrorException;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Integration test to check that extracting models while parsing gives the same results as walking a parse tree.
+ */
+public class ParseTreeFreeIT {
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    private final PDDLParserService withTree = new PDDLParserService(new PDDLParserOptions.Builder()
+            .buildParseTree(true)
+            .fastPath(false)
+            .build());
+
+    private final PDDLParserService withoutTree = new PDDLParserService(new PDDLParserOptions.Builder()
+            .buildParseTree(false)
+            .fastPath(false)
+            .build());
+
+    @Test
+    public void domainsAreTheSameWithOrWithoutParseTree() throws Exception {
+        assertFalse(corpus.getDomains().isEmpty());
+        for (Path path : corpus.getDomains()) {
+            assertEquals(path.toString(), withTree.parseDomain(path), withoutTree.parseDomain(path));
+        }
+    }
+
+    @Test
+    public void problemsAreTheSameWithOrWithoutParseTree() throws Exception {
+        assertFalse(corpus.getProblems().isEmpty());
+        for (Path path : corpus.getProblems()) {
+            assertEquals(path.toString(), withTree.parseProblem(path), withoutTree.parseProblem(path));
+        }
+    }
+
+    @Test
+    public void missingRequirementsAreTheSameWithOrWithoutParseTree() throws Exception {
+        for (Path path : new PDDLCorpus("pddl/general/failure").getDomains()) {
+            assertEquals(path.toString(), describe(withTree, path, false), describe(withoutTree, path, false));
+        }
+    }
+
+    @Test
+    public void syntaxErrorsAreTheSameWithOrWithoutParseTree() throws Exception {
+        for (Path path : corpus.getDomains()) {
+            assertEquals(path.toString(), describe(withTree, path, false), describe(withoutTree, path, false));
+        }
+        for (Path path : corpus.getProblems()) {
+            assertEquals(path.toString(), describe(withTree, path, true), describe(withoutTree, path, true));
+        }
+    }
+
+    /**
+     * Parse a file with its last third cut off, describing the exception thrown.
+     */
+    private List<String> describe(PDDLParserService parserService, Path path, boolean problem) throws Exception {
+        byte[] contents = Files.readAllBytes(path);
+        if (!path.toString().contains("failure")) {
+            contents = Arrays.copyOf(contents, contents.length * 2 / 3);
+        }
+        try {
+            if (problem) {
+                parserService.parseProblem(contents);
+            } else {
+                parserService.parseDomain(contents);
+            }
+        } catch (SyntaxErrorException ex) {
+            List<String> errors = new ArrayList<>();
+            for (SyntaxError error : ex.getSyntaxErrors()) {
+                errors.add(error.getLine() + ":" + error.getCharPositionInLine() + " " + error.getMessage());
+            }
+            return errors;
+        } catch (MissingRequirementsException ex) {
+            return Arrays.asList(ex.getMissingRequirements().toString());
+        } catch (ParseException ex) {
+            fail(path + " threw " + ex);
+        }
+        return Arrays.asList("parsed");
+    }
+}
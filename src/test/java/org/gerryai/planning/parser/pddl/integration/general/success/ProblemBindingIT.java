@@ -0,0 +1,179 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.gerryai.planning.model.ConstantDefinition;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.DomainIndex;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.PrimitiveType;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.error.DomainMismatchException;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Integration test to check that parsing each example problem against its domain gives the same problem as parsing it
+ * alone, with its object types and the domain constants it uses shared with the domain, both on the fast path and
+ * through the generated parser, and that a problem is rejected by a domain it does not fit.
+ */
+public class ProblemBindingIT {
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    private final PDDLParserService generatedParserService =
+            new PDDLParserService(new PDDLParserOptions.Builder().fastPath(false).build());
+
+    @Test
+    public void boundProblemsEqualUnboundProblems() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = domains(corpus);
+        int bound = 0;
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            Domain domain = domains.get(problem.getDomainName());
+            for (PDDLParserService service : new PDDLParserService[] {parserService, generatedParserService}) {
+                Problem boundProblem;
+                try (InputStream inputStream = Files.newInputStream(path)) {
+                    boundProblem = service.parseProblemFor(inputStream, domain);
+                }
+                assertEquals(path.toString(), problem, boundProblem);
+                assertSharesDomainInstances(path, domain.getIndex(), boundProblem);
+            }
+            bound++;
+        }
+        assertTrue(bound > 0);
+    }
+
+    @Test
+    public void batchOfBoundProblemsEqualsUnboundProblems() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = domains(corpus);
+        Map<String, List<Path>> problemsByDomain = new HashMap<>();
+        for (Path path : corpus.getProblems()) {
+            String domainName = parserService.parseProblem(path).getDomainName();
+            if (!problemsByDomain.containsKey(domainName)) {
+                problemsByDomain.put(domainName, new ArrayList<Path>());
+            }
+            problemsByDomain.get(domainName).add(path);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            for (Map.Entry<String, List<Path>> batch : problemsByDomain.entrySet()) {
+                Domain domain = domains.get(batch.getKey());
+                Map<Path, ListenableFuture<Problem>> results =
+                        parserService.parseProblemsFor(batch.getValue(), domain, executor);
+                for (Path path : batch.getValue()) {
+                    Problem boundProblem = results.get(path).get();
+                    assertEquals(path.toString(), parserService.parseProblem(path), boundProblem);
+                    assertSharesDomainInstances(path, domain.getIndex(), boundProblem);
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void problemIsRejectedByAnotherDomain() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = domains(corpus);
+        int rejected = 0;
+        for (Path path : corpus.getProblems()) {
+            String domainName = parserService.parseProblem(path).getDomainName();
+            for (Domain domain : domains.values()) {
+                if (domain.getName().equals(domainName)) {
+                    continue;
+                }
+                try {
+                    parserService.parseProblemFor(path, domain);
+                    fail(path + " should not fit domain " + domain.getName());
+                } catch (DomainMismatchException e) {
+                    rejected++;
+                }
+            }
+        }
+        assertTrue(rejected > 0);
+    }
+
+    /**
+     * Parse the domains of a corpus.
+     * @param corpus the corpus
+     * @return the domains, by name
+     * @throws Exception if a domain could not be parsed
+     */
+    private Map<String, Domain> domains(final PDDLCorpus corpus) throws Exception {
+        Map<String, Domain> domains = new HashMap<>();
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            domains.put(domain.getName(), domain);
+        }
+        return domains;
+    }
+
+    /**
+     * Check that the object types of a problem, and the constants of the domain used in its initial state, are the
+     * instances held by the domain's index.
+     * @param path the file the problem was parsed from
+     * @param index the index of the domain
+     * @param problem the problem
+     */
+    private void assertSharesDomainInstances(final Path path, final DomainIndex index, final Problem problem) {
+        for (ConstantDefinition object : problem.getObjects().asSet()) {
+            if (object.getType().isPresent() && object.getType().get() instanceof PrimitiveType) {
+                PrimitiveType type = (PrimitiveType) object.getType().get();
+                assertSame(path.toString(), index.primitiveType(type.getName()).get(), type);
+            }
+        }
+        for (Formula formula : problem.getInitialState().asSet()) {
+            Formula atom = formula;
+            if (atom instanceof Not) {
+                atom = ((Not) atom).getFormula();
+            }
+            if (atom instanceof Predicate) {
+                for (Term term : ((Predicate) atom).getTerms()) {
+                    if (term instanceof Constant && index.constantTerm(((Constant) term).getName()).isPresent()) {
+                        assertSame(path.toString(), index.constantTerm(((Constant) term).getName()).get(), term);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.gerryai.planning.snapshot.SnapshotReader;
+import org.gerryai.planning.snapshot.SnapshotWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Integration test to check that every domain and problem that can be parsed reads back from a snapshot as an equal
+ * model, whether the snapshot is held in memory, streamed or written to a file and memory-mapped.
+ */
+public class SnapshotIT {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    private final SnapshotWriter writer = new SnapshotWriter();
+
+    private final SnapshotReader reader = new SnapshotReader();
+
+    @Test
+    public void domainsRoundTrip() throws Exception {
+        assertFalse(corpus.getDomains().isEmpty());
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            byte[] bytes = writer.toBytes(domain);
+            assertEquals(path.toString(), domain, reader.readDomain(bytes));
+            assertEquals(path.toString(), domain, reader.readDomain(new ByteArrayInputStream(bytes)));
+            Path file = folder.newFile().toPath();
+            writer.write(domain, file);
+            assertEquals(path.toString(), domain, reader.readDomain(file));
+        }
+    }
+
+    @Test
+    public void problemsRoundTrip() throws Exception {
+        assertFalse(corpus.getProblems().isEmpty());
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            byte[] bytes = writer.toBytes(problem);
+            assertEquals(path.toString(), problem, reader.readProblem(bytes));
+            assertEquals(path.toString(), problem, reader.readProblem(new ByteArrayInputStream(bytes)));
+            Path file = folder.newFile().toPath();
+            writer.write(problem, file);
+            assertEquals(path.toString(), problem, reader.readProblem(file));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.InitialStateSink;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration test to check that streaming the initial state gives the same facts and problem header as parsing the
+ * whole problem.
+ */
+public class StreamingInitialStateIT {
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    @Test
+    public void streamedProblemsMatchParsedProblems() throws Exception {
+        check(new PDDLParserService());
+    }
+
+    @Test
+    public void streamedProblemsMatchParsedProblemsWithFullPrediction() throws Exception {
+        check(new PDDLParserService(new PDDLParserOptions.Builder().twoStagePrediction(false).build()));
+    }
+
+    private void check(PDDLParserService parserService) throws Exception {
+        assertFalse(corpus.getProblems().isEmpty());
+        for (Path path : corpus.getProblems()) {
+            Problem expected = parserService.parseProblem(path);
+            CollectingSink sink = new CollectingSink();
+            Problem header;
+            try (InputStream inputStream = Files.newInputStream(path)) {
+                header = parserService.parseProblem(inputStream, sink);
+            }
+
+            assertEquals(path.toString(), expected.getInitialState().asSet(), sink.facts);
+            assertTrue(path.toString(), header.getInitialState().asSet().isEmpty());
+            assertEquals(path.toString(), expected.getName(), header.getName());
+            assertEquals(path.toString(), expected.getDomainName(), header.getDomainName());
+            assertEquals(path.toString(), expected.getRequirements(), header.getRequirements());
+            assertEquals(path.toString(), expected.getObjects(), header.getObjects());
+            assertEquals(path.toString(), expected.getGoal(), header.getGoal());
+            assertEquals(path.toString(), expected.getMetric(), header.getMetric());
+        }
+    }
+
+    private static class CollectingSink implements InitialStateSink {
+
+        private final Set<Formula> facts = new HashSet<>();
+
+        @Override
+        public void add(Formula fact) {
+            facts.add(fact);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.gerryai.planning.search.PackedState;
+import org.gerryai.planning.search.SuccessorGenerator;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Integration test to check that the successor generator finds the same operators as checking every operator, in
+ * every state visited by random walks through each example problem that can be grounded.
+ */
+public class SuccessorGeneratorIT {
+
+    private static final int STEPS = 200;
+
+    private final PDDLParserService parserService = new PDDLParserService();
+
+    private final Grounder grounder = new Grounder();
+
+    @Test
+    public void generatorMatchesLinearScan() throws Exception {
+        PDDLCorpus corpus = new PDDLCorpus("pddl/example");
+        Map<String, Domain> domains = new HashMap<>();
+        for (Path path : corpus.getDomains()) {
+            Domain domain = parserService.parseDomain(path);
+            domains.put(domain.getName(), domain);
+        }
+        int walked = 0;
+        for (Path path : corpus.getProblems()) {
+            Problem problem = parserService.parseProblem(path);
+            GroundTask task;
+            try {
+                task = grounder.ground(domains.get(problem.getDomainName()), problem);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            SuccessorGenerator generator = new SuccessorGenerator(task.getOperators());
+            Random random = new Random(path.getFileName().toString().hashCode());
+            PackedState state = PackedState.initial(task.getAtoms());
+            PackedState successor = new PackedState(task.getAtoms().size());
+            for (int step = 0; step < STEPS; step++) {
+                List<GroundOperator> expected = new ArrayList<>();
+                for (GroundOperator operator : task.getOperators()) {
+                    if (state.isApplicable(operator)) {
+                        expected.add(operator);
+                    }
+                }
+                List<GroundOperator> applicable = new ArrayList<>();
+                generator.generate(state, applicable);
+                assertEquals(path.toString(), expected.size(), applicable.size());
+                assertEquals(path.toString(), new HashSet<>(expected), new HashSet<>(applicable));
+                if (applicable.isEmpty()) {
+                    break;
+                }
+                state.apply(applicable.get(random.nextInt(applicable.size())), successor);
+                state.copyFrom(successor);
+            }
+            walked++;
+        }
+        assertTrue(walked > 0);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Integration test to check that two-stage SLL/LL prediction gives the same model as full LL prediction.
+ */
+public class TwoStagePredictionIT {
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    private final PDDLParserService twoStage = new PDDLParserService(new PDDLParserOptions.Builder()
+            .twoStagePrediction(true)
+            .fastPath(false)
+            .build());
+
+    private final PDDLParserService fullLL = new PDDLParserService(new PDDLParserOptions.Builder()
+            .twoStagePrediction(false)
+            .fastPath(false)
+            .build());
+
+    @Test
+    public void domainsAreTheSameWithEitherPredictionMode() throws Exception {
+        assertFalse(corpus.getDomains().isEmpty());
+        for (Path path : corpus.getDomains()) {
+            try (InputStream first = Files.newInputStream(path); InputStream second = Files.newInputStream(path)) {
+                assertEquals(path.toString(), fullLL.parseDomain(first), twoStage.parseDomain(second));
+            }
+        }
+    }
+
+    @Test
+    public void problemsAreTheSameWithEitherPredictionMode() throws Exception {
+        assertFalse(corpus.getProblems().isEmpty());
+        for (Path path : corpus.getProblems()) {
+            try (InputStream first = Files.newInputStream(path); InputStream second = Files.newInputStream(path)) {
+                assertEquals(path.toString(), fullLL.parseProblem(first), twoStage.parseProblem(second));
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.integration.general.success;
+
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Integration test to check that warming up the parser works and leaves it parsing as normal.
+ */
+public class WarmUpIT {
+
+    private final PDDLCorpus corpus = PDDLCorpus.successful();
+
+    private final PDDLParserService coldParserService = new PDDLParserService();
+
+    @Test
+    public void warmUpParsesTheBundledCorpus() throws Exception {
+        PDDLParserService parserService = new PDDLParserService();
+        parserService.warmUp();
+        parserService.warmUp();
+        assertSameResults(parserService);
+    }
+
+    @Test
+    public void eagerWarmUpParsesTheBundledCorpus() throws Exception {
+        assertSameResults(new PDDLParserService(new PDDLParserOptions.Builder().warmUp(true).build()));
+    }
+
+    private void assertSameResults(PDDLParserService parserService) throws Exception {
+        for (Path path : corpus.getDomains()) {
+            assertEquals(path.toString(), coldParserService.parseDomain(path), parserService.parseDomain(path));
+        }
+        for (Path path : corpus.getProblems()) {
+            assertEquals(path.toString(), coldParserService.parseProblem(path), parserService.parseProblem(path));
+        }
+    }
+}
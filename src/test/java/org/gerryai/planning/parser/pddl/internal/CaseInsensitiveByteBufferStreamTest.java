@@ -0,0 +1,88 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the {@link org.gerryai.planning.parser.pddl.internal.CaseInsensitiveByteBufferStream} class.
+ */
+public class CaseInsensitiveByteBufferStreamTest {
+
+    private static final String TEXT = "(define (Domain BLOCKS-World_2))";
+
+    @Test
+    public void lookAheadMatchesCaseInsensitiveInputStream() throws Exception {
+        CaseInsensitiveByteBufferStream stream = stream(TEXT);
+        CaseInsensitiveInputStream expected = new CaseInsensitiveInputStream(TEXT.toCharArray(), TEXT.length());
+        assertEquals(expected.size(), stream.size());
+        for (int i = 0; i <= TEXT.length(); i++) {
+            assertEquals(expected.LA(1), stream.LA(1));
+            assertEquals(expected.LA(-1), stream.LA(-1));
+            assertEquals(expected.LA(2), stream.LA(2));
+            if (i < TEXT.length()) {
+                expected.consume();
+                stream.consume();
+            }
+        }
+        assertEquals(IntStream.EOF, stream.LA(1));
+    }
+
+    @Test
+    public void getTextReturnsOriginalCase() {
+        assertEquals("Domain BLOCKS", stream(TEXT).getText(Interval.of(9, 21)));
+    }
+
+    @Test
+    public void getTextIsClippedToEndOfInput() {
+        assertEquals("2))", stream(TEXT).getText(Interval.of(29, 40)));
+    }
+
+    @Test
+    public void seekMovesBackwardsAndForwards() {
+        CaseInsensitiveByteBufferStream stream = stream(TEXT);
+        stream.seek(9);
+        assertEquals('d', stream.LA(1));
+        stream.seek(1);
+        assertEquals('d', stream.LA(1));
+        stream.seek(100);
+        assertEquals(TEXT.length(), stream.index());
+    }
+
+    @Test
+    public void readsFromBufferPositionWithoutChangingIt() {
+        ByteBuffer buffer = ByteBuffer.wrap(("xx" + TEXT).getBytes(StandardCharsets.US_ASCII));
+        buffer.position(2);
+        CaseInsensitiveByteBufferStream stream = new CaseInsensitiveByteBufferStream(buffer);
+        assertEquals(TEXT.length(), stream.size());
+        assertEquals('(', stream.LA(1));
+        assertEquals(TEXT, stream.toString());
+        assertEquals(2, buffer.position());
+    }
+
+    private CaseInsensitiveByteBufferStream stream(String text) {
+        return new CaseInsensitiveByteBufferStream(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
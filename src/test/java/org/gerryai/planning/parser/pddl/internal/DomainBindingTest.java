@@ -0,0 +1,118 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.HashConsingFactory;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.error.DomainMismatchException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.equality;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.junit.Assert.assertSame;
+
+public class DomainBindingTest {
+
+    private Domain domain;
+
+    private DomainBinding binding;
+
+    @Before
+    public void setUp() {
+        domain = new Domain.Builder()
+                .name("roads")
+                .type(typeDefinition("place"))
+                .type(typeDefinition("city", type("place")))
+                .constant(constantDefinition("home", type("place")))
+                .predicate(predicate("at", variable("x", type("place"))))
+                .predicate(predicate("road", variable("x", type("place")), variable("y", type("place"))))
+                .build();
+        binding = new DomainBinding(domain);
+    }
+
+    @Test
+    public void problemThatFitsIsReturned() throws Exception {
+        Problem problem = problem()
+                .object(constantDefinition("paris", type("city")))
+                .object(constantDefinition("lyon", type("city", "place")))
+                .initialState(predicate("at", constant("home")))
+                .initialState(predicate("road", constant("home"), constant("paris")))
+                .goal(and(predicate("at", constant("paris")), not(equality(constant("paris"), constant("lyon")))))
+                .build();
+        assertSame(problem, binding.check(problem));
+    }
+
+    @Test(expected = DomainMismatchException.class)
+    public void problemForAnotherDomainIsRejected() throws Exception {
+        binding.check(new Problem.Builder().name("p").domain("rivers").build());
+    }
+
+    @Test(expected = DomainMismatchException.class)
+    public void undefinedObjectTypeIsRejected() throws Exception {
+        binding.check(problem().object(constantDefinition("boat", type("vehicle"))).build());
+    }
+
+    @Test(expected = DomainMismatchException.class)
+    public void undefinedMemberOfEitherTypeIsRejected() throws Exception {
+        binding.check(problem().object(constantDefinition("boat", type("city", "vehicle"))).build());
+    }
+
+    @Test(expected = DomainMismatchException.class)
+    public void undeclaredPredicateIsRejected() throws Exception {
+        binding.check(problem().initialState(predicate("sunny", constant("home"))).build());
+    }
+
+    @Test(expected = DomainMismatchException.class)
+    public void predicateWithWrongArityIsRejected() throws Exception {
+        binding.check(problem().initialState(predicate("road", constant("home"))).build());
+    }
+
+    @Test(expected = DomainMismatchException.class)
+    public void undeclaredConstantIsRejected() throws Exception {
+        binding.check(problem().initialState(predicate("at", constant("paris"))).build());
+    }
+
+    @Test(expected = DomainMismatchException.class)
+    public void goalIsChecked() throws Exception {
+        binding.check(problem()
+                .object(constantDefinition("paris", type("city")))
+                .goal(and(predicate("at", constant("paris")), not(predicate("at", constant("paris"), constant("home")))))
+                .build());
+    }
+
+    @Test
+    public void factorySharesTheDomainsInstances() {
+        HashConsingFactory factory = binding.createHashConsingFactory();
+        assertSame(domain.getIndex().constantTerm("home").get(), factory.constant("home"));
+        assertSame(domain.getIndex().primitiveType("city").get(), factory.type("city"));
+        assertSame(domain.getIndex().primitiveType("object").get(), factory.type("object"));
+    }
+
+    private Problem.Builder problem() {
+        return new Problem.Builder().name("p").domain("roads");
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+import org.gerryai.planning.parser.pddl.antlr.PDDL31Lexer;
+import org.gerryai.planning.parser.pddl.integration.PDDLCorpus;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Differential tests checking that {@link org.gerryai.planning.parser.pddl.internal.PDDLByteLexer} produces the same
+ * tokens and errors as the generated {@link PDDL31Lexer}.
+ */
+public class PDDLByteLexerTest {
+
+    private static final String[] FRAGMENTS = {
+        "(", ")", "?", "-", "=", " ", "\t", "\n", "\r", "\r\n", ":", ";", "/", "//", ".", "_", "0", "42", "3.14",
+        "a", "Z", "x-y", "name_1", "define", "DEFINE", "domain", "domains", "not", "and", "either", "forall", "when",
+        "number", "problem", ":requirements", ":Strips", ":action", ":action-costs", ":action-cost", ":init",
+        ":domain", ":domainx", ":foo", ":negative-preconditions", "; comment", "// comment", "!", "é", "\u0000",
+    };
+
+    private static final int FUZZ_CASES = 20000;
+
+    private static final int MAX_FRAGMENTS = 12;
+
+    @Test
+    public void corpusIsLexedTheSame() throws Exception {
+        List<Path> paths = new ArrayList<>(new PDDLCorpus("pddl").getDomains());
+        paths.addAll(new PDDLCorpus("pddl").getProblems());
+        assertFalse(paths.isEmpty());
+        for (Path path : paths) {
+            assertSameTokens(path.toString(), Files.readAllBytes(path));
+        }
+    }
+
+    @Test
+    public void edgeCasesAreLexedTheSame() {
+        for (String fragment : FRAGMENTS) {
+            assertSameTokens(fragment);
+            assertSameTokens(fragment + " ");
+            assertSameTokens("(" + fragment + ")");
+        }
+        assertSameTokens("; unterminated comment");
+        assertSameTokens("; comment\rx\n(a)");
+        assertSameTokens("1.\n2.5.3 -7 a-1");
+        assertSameTokens(":\n:requirements:typing");
+        assertSameTokens("/\n/x");
+        assertSameTokens("(define (domain d)\r\n  (:requirements :STRIPS :Typing))\r\n");
+    }
+
+    @Test
+    public void randomInputIsLexedTheSame() {
+        Random random = new Random(1);
+        for (int i = 0; i < FUZZ_CASES; i++) {
+            StringBuilder input = new StringBuilder();
+            int fragments = random.nextInt(MAX_FRAGMENTS);
+            for (int j = 0; j < fragments; j++) {
+                input.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertSameTokens(input.toString());
+        }
+    }
+
+    private void assertSameTokens(String input) {
+        assertSameTokens(input.replace("\n", "\\n").replace("\r", "\\r"), input.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private void assertSameTokens(String message, byte[] input) {
+        CaseInsensitiveByteBufferStream expectedStream = new CaseInsensitiveByteBufferStream(ByteBuffer.wrap(input));
+        CaseInsensitiveByteBufferStream actualStream = new CaseInsensitiveByteBufferStream(ByteBuffer.wrap(input));
+        assertEquals(message, lex(new PDDL31Lexer(expectedStream)), lex(new PDDLByteLexer(actualStream)));
+        assertEquals(message, expectedStream.index(), actualStream.index());
+    }
+
+    private List<String> lex(Lexer lexer) {
+        final List<String> result = new ArrayList<>();
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                result.add("error " + line + ":" + charPositionInLine + " " + msg);
+            }
+        });
+        Token token;
+        do {
+            token = lexer.nextToken();
+            result.add(token.getType() + " " + token.getStartIndex() + "-" + token.getStopIndex() + " "
+                    + token.getLine() + ":" + token.getCharPositionInLine() + " " + token.getChannel() + " "
+                    + token.getText());
+        } while (token.getType() != Token.EOF);
+        result.add("end " + lexer.getLine() + ":" + lexer.getCharPositionInLine());
+        return result;
+    }
+}
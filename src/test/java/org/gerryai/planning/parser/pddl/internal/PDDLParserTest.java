@@ -17,12 +17,17 @@
  */
 package org.gerryai.planning.parser.pddl.internal;
 
+import com.google.common.base.Optional;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.Lexer;
 import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.HashConsingFactory;
 import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.InitialStateSink;
+import org.gerryai.planning.parser.pddl.PDDLParserOptions;
 import org.gerryai.planning.parser.pddl.antlr.PDDL31Parser;
 import org.gerryai.planning.parser.pddl.internal.error.SyntaxErrorCollector;
 import org.junit.Before;
@@ -32,6 +37,9 @@ import org.mockito.Mock;
 import java.io.InputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -78,12 +86,21 @@ public class PDDLParserTest {
     @Mock
     private PDDL31Parser.ProblemContext mockProblemParseTree;
 
+    @Mock
+    private FastPathParser mockFastPathParser;
+
     @Mock
     private Domain mockDomain;
 
     @Mock
     private Problem mockProblem;
 
+    @Mock
+    private DomainBinding mockBinding;
+
+    @Mock
+    private HashConsingFactory mockFactory;
+
     private PDDLParser parserService;
 
     @Before
@@ -99,10 +116,15 @@ public class PDDLParserTest {
         when(mockUtils.createExtractProblemListener()).thenReturn(mockExtractProblemListener);
         when(mockUtils.getDomainContext(mockParser)).thenReturn(mockDomainParseTree);
         when(mockUtils.getProblemContext(mockParser)).thenReturn(mockProblemParseTree);
+        when(mockUtils.createFastPathParser(mockCharStream)).thenReturn(mockFastPathParser);
+        when(mockFastPathParser.parseDomain()).thenReturn(Optional.<Domain>absent());
+        when(mockFastPathParser.parseProblem()).thenReturn(Optional.<Problem>absent());
 
         when(mockParser.getEnforceRequirments()).thenReturn(true);
         when(mockExtractDomainListener.extract()).thenReturn(mockDomain);
         when(mockExtractProblemListener.extract()).thenReturn(mockProblem);
+        when(mockBinding.createHashConsingFactory()).thenReturn(mockFactory);
+        when(mockBinding.check(mockProblem)).thenReturn(mockProblem);
 
         parserService = new PDDLParser(mockUtils);
     }
@@ -118,4 +140,141 @@ public class PDDLParserTest {
         assertEquals(mockProblem, parserService.parseProblem(mockInputStream));
         verify(mockParseTreeWalker).walk(mockExtractProblemListener, mockProblemParseTree);
     }
+
+    @Test
+    public void parseDomainUsesFastPathWhenSupported() throws Exception {
+        when(mockFastPathParser.parseDomain()).thenReturn(Optional.of(mockDomain));
+
+        assertEquals(mockDomain, parserService.parseDomain(mockInputStream));
+        verify(mockUtils, never()).createTokenStream(mockLexer);
+        verify(mockCharStream, never()).seek(0);
+    }
+
+    @Test
+    public void parseProblemUsesFastPathWhenSupported() throws Exception {
+        when(mockFastPathParser.parseProblem()).thenReturn(Optional.of(mockProblem));
+
+        assertEquals(mockProblem, parserService.parseProblem(mockInputStream));
+        verify(mockUtils, never()).createTokenStream(mockLexer);
+        verify(mockCharStream, never()).seek(0);
+    }
+
+    @Test
+    public void parseDomainRewindsWhenFastPathNotSupported() throws Exception {
+        assertEquals(mockDomain, parserService.parseDomain(mockInputStream));
+        verify(mockFastPathParser).parseDomain();
+        verify(mockCharStream).seek(0);
+        verify(mockParseTreeWalker).walk(mockExtractDomainListener, mockDomainParseTree);
+    }
+
+    @Test
+    public void parseProblemRewindsWhenFastPathNotSupported() throws Exception {
+        assertEquals(mockProblem, parserService.parseProblem(mockInputStream));
+        verify(mockFastPathParser).parseProblem();
+        verify(mockCharStream).seek(0);
+        verify(mockParseTreeWalker).walk(mockExtractProblemListener, mockProblemParseTree);
+    }
+
+    @Test
+    public void parseProblemAgainstDomainUsesFastPathWhenSupported() throws Exception {
+        when(mockFastPathParser.parseProblem()).thenReturn(Optional.of(mockProblem));
+
+        assertEquals(mockProblem, parserService.parseProblemFor(mockCharStream, mockBinding));
+        verify(mockFastPathParser).setHashConsingFactory(mockFactory);
+        verify(mockBinding).check(mockProblem);
+        verify(mockUtils, never()).createTokenStream(mockLexer);
+    }
+
+    @Test
+    public void parseProblemAgainstDomainRewindsWhenFastPathNotSupported() throws Exception {
+        assertEquals(mockProblem, parserService.parseProblemFor(mockCharStream, mockBinding));
+        verify(mockCharStream).seek(0);
+        verify(mockExtractProblemListener).setHashConsingFactory(mockFactory);
+        verify(mockParseTreeWalker).walk(mockExtractProblemListener, mockProblemParseTree);
+        verify(mockBinding).check(mockProblem);
+    }
+
+    @Test
+    public void parseDomainWithoutFastPath() throws Exception {
+        parserService = new PDDLParser(mockUtils, new PDDLParserOptions.Builder().fastPath(false).build());
+
+        assertEquals(mockDomain, parserService.parseDomain(mockInputStream));
+        verify(mockUtils, never()).createFastPathParser(mockCharStream);
+    }
+
+    @Test
+    public void parseDomainFallsBackToFullPredictionWhenFastPredictionFails() throws Exception {
+        when(mockUtils.getDomainContext(mockParser))
+                .thenThrow(new ParseCancellationException())
+                .thenReturn(mockDomainParseTree);
+
+        assertEquals(mockDomain, parserService.parseDomain(mockInputStream));
+        verify(mockUtils).enableFastPrediction(mockParser);
+        verify(mockTokenStream).seek(0);
+        verify(mockUtils, times(2)).createParser(mockTokenStream, mockSyntaxErrorCollector);
+        verify(mockParseTreeWalker).walk(mockExtractDomainListener, mockDomainParseTree);
+    }
+
+    @Test
+    public void parseProblemFallsBackToFullPredictionWhenFastPredictionFails() throws Exception {
+        when(mockUtils.getProblemContext(mockParser))
+                .thenThrow(new ParseCancellationException())
+                .thenReturn(mockProblemParseTree);
+
+        assertEquals(mockProblem, parserService.parseProblem(mockInputStream));
+        verify(mockUtils).enableFastPrediction(mockParser);
+        verify(mockTokenStream).seek(0);
+        verify(mockUtils, times(2)).createParser(mockTokenStream, mockSyntaxErrorCollector);
+        verify(mockParseTreeWalker).walk(mockExtractProblemListener, mockProblemParseTree);
+    }
+
+    @Test
+    public void parseDomainWithoutParseTree() throws Exception {
+        parserService = new PDDLParser(mockUtils, new PDDLParserOptions.Builder().buildParseTree(false).build());
+
+        assertEquals(mockDomain, parserService.parseDomain(mockInputStream));
+        verify(mockUtils).addParseListener(mockParser, mockExtractDomainListener);
+        verify(mockUtils, never()).createParseTreeWalker();
+    }
+
+    @Test
+    public void parseProblemWithoutParseTree() throws Exception {
+        parserService = new PDDLParser(mockUtils, new PDDLParserOptions.Builder().buildParseTree(false).build());
+
+        assertEquals(mockProblem, parserService.parseProblem(mockInputStream));
+        verify(mockUtils).addParseListener(mockParser, mockExtractProblemListener);
+        verify(mockUtils, never()).createParseTreeWalker();
+    }
+
+    @Test
+    public void parseProblemWithoutParseTreeUsesFreshListenerWhenFastPredictionFails() throws Exception {
+        parserService = new PDDLParser(mockUtils, new PDDLParserOptions.Builder().buildParseTree(false).build());
+        ExtractProblemListener mockFallbackListener = mock(ExtractProblemListener.class);
+        when(mockFallbackListener.extract()).thenReturn(mockProblem);
+        when(mockUtils.createExtractProblemListener())
+                .thenReturn(mockExtractProblemListener)
+                .thenReturn(mockFallbackListener);
+        when(mockUtils.getProblemContext(mockParser))
+                .thenThrow(new ParseCancellationException())
+                .thenReturn(null);
+
+        assertEquals(mockProblem, parserService.parseProblem(mockInputStream));
+        verify(mockUtils).addParseListener(mockParser, mockExtractProblemListener);
+        verify(mockUtils).addParseListener(mockParser, mockFallbackListener);
+        verify(mockTokenStream).seek(0);
+        verify(mockExtractProblemListener, never()).extract();
+    }
+
+    @Test
+    public void parseProblemWithSinkExtractsWithoutParseTree() throws Exception {
+        InitialStateSink mockSink = mock(InitialStateSink.class);
+        ResumingInitialStateSink mockResumingSink = mock(ResumingInitialStateSink.class);
+        when(mockUtils.createResumingInitialStateSink(mockSink)).thenReturn(mockResumingSink);
+        when(mockUtils.createExtractProblemListener(mockResumingSink)).thenReturn(mockExtractProblemListener);
+
+        assertEquals(mockProblem, parserService.parseProblem(mockCharStream, mockSink));
+        verify(mockResumingSink).rewind();
+        verify(mockUtils).addParseListener(mockParser, mockExtractProblemListener);
+        verify(mockUtils, never()).createParseTreeWalker();
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.parser.InitialStateSink;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+/**
+ * Unit tests for the {@link org.gerryai.planning.parser.pddl.internal.ResumingInitialStateSink} class.
+ */
+public class ResumingInitialStateSinkTest {
+
+    @Mock
+    private InitialStateSink mockSink;
+
+    private Formula first = mock(Formula.class);
+
+    private Formula second = mock(Formula.class);
+
+    private Formula third = mock(Formula.class);
+
+    private ResumingInitialStateSink resumingSink;
+
+    @Before
+    public void setup() {
+        initMocks(this);
+        resumingSink = new ResumingInitialStateSink(mockSink);
+    }
+
+    @Test
+    public void factsArePassedOnInOrder() {
+        resumingSink.add(first);
+        resumingSink.add(second);
+
+        InOrder inOrder = inOrder(mockSink);
+        inOrder.verify(mockSink).add(first);
+        inOrder.verify(mockSink).add(second);
+    }
+
+    @Test
+    public void factsAlreadyPassedOnAreSkippedAfterRewinding() {
+        resumingSink.add(first);
+        resumingSink.add(second);
+        resumingSink.rewind();
+        resumingSink.add(first);
+        resumingSink.add(second);
+        resumingSink.add(third);
+
+        verify(mockSink, times(1)).add(first);
+        verify(mockSink, times(1)).add(second);
+        verify(mockSink, times(1)).add(third);
+    }
+
+    @Test
+    public void duplicateFactsInTheInputArePassedOn() {
+        resumingSink.add(first);
+        resumingSink.add(first);
+
+        verify(mockSink, times(2)).add(first);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.parser.pddl.internal;
+
+import org.antlr.v4.runtime.ANTLRInputStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Token;
+import org.gerryai.planning.parser.pddl.antlr.PDDL31Lexer;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Unit tests for the {@link org.gerryai.planning.parser.pddl.internal.SymbolTable} class.
+ */
+public class SymbolTableTest {
+
+    private static final String TEXT = "Block block BLOCK table Table";
+
+    @Test
+    public void namesFromByteBufferAreFoldedAndShared() {
+        List<Token> tokens = names(new PDDLByteLexer(new CaseInsensitiveByteBufferStream(
+                ByteBuffer.wrap(TEXT.getBytes(StandardCharsets.US_ASCII)))));
+        assertNamesFoldedAndShared(tokens);
+    }
+
+    @Test
+    public void namesFromCharStreamAreFoldedAndShared() {
+        List<Token> tokens = names(new PDDL31Lexer(new CaseInsensitiveInputStream(TEXT.toCharArray(),
+                TEXT.length())));
+        assertNamesFoldedAndShared(tokens);
+    }
+
+    @Test
+    public void namesFromOtherStreamsAreFoldedAndShared() {
+        List<Token> tokens = names(new PDDL31Lexer(new ANTLRInputStream(TEXT.toLowerCase())));
+        assertNamesFoldedAndShared(tokens);
+    }
+
+    @Test
+    public void tokensAndStringsShareIds() {
+        SymbolTable symbolTable = new SymbolTable();
+        List<Token> tokens = names(new PDDLByteLexer(new CaseInsensitiveByteBufferStream(
+                ByteBuffer.wrap(TEXT.getBytes(StandardCharsets.US_ASCII)))));
+        String block = symbolTable.intern(tokens.get(0));
+        assertEquals(0, symbolTable.id("block"));
+        assertEquals(1, symbolTable.id("table"));
+        assertSame(block, symbolTable.intern(new String("block")));
+        assertSame(symbolTable.name(1), symbolTable.intern(tokens.get(4)));
+        assertEquals(2, symbolTable.size());
+    }
+
+    @Test
+    public void idsAreDenseWhenTableGrows() {
+        SymbolTable symbolTable = new SymbolTable();
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, symbolTable.id("name" + i));
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, symbolTable.id("name" + i));
+            assertEquals("name" + i, symbolTable.name(i));
+        }
+        assertEquals(10000, symbolTable.size());
+    }
+
+    @Test
+    public void namesFromTokensAreKeptWhenTableGrows() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append(" Name").append(i);
+        }
+        List<Token> tokens = names(new PDDLByteLexer(new CaseInsensitiveByteBufferStream(
+                ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.US_ASCII)))));
+        SymbolTable symbolTable = new SymbolTable();
+        for (int i = 0; i < tokens.size(); i++) {
+            assertEquals("name" + i, symbolTable.intern(tokens.get(i)));
+        }
+        assertEquals(999, symbolTable.id("name999"));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void unknownIdIsRejected() {
+        new SymbolTable().name(0);
+    }
+
+    private void assertNamesFoldedAndShared(List<Token> tokens) {
+        SymbolTable symbolTable = new SymbolTable();
+        String block = symbolTable.intern(tokens.get(0));
+        String table = symbolTable.intern(tokens.get(3));
+        assertEquals("block", block);
+        assertEquals("table", table);
+        assertNotSame(block, tokens.get(0).getText());
+        assertSame(block, symbolTable.intern(tokens.get(1)));
+        assertSame(block, symbolTable.intern(tokens.get(2)));
+        assertSame(table, symbolTable.intern(tokens.get(4)));
+        assertEquals(2, symbolTable.size());
+    }
+
+    private List<Token> names(Lexer lexer) {
+        List<Token> tokens = new ArrayList<>();
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            assertEquals(PDDL31Lexer.NAME, token.getType());
+            tokens.add(token);
+        }
+        return tokens;
+    }
+}
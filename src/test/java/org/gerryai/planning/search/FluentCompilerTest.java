@@ -0,0 +1,177 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+import org.gerryai.planning.model.FluentTable;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.problem.Metric;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.gerryai.planning.model.logic.FormulaBuilder.when;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FluentCompilerTest {
+
+    private Action drive;
+
+    private FluentTable table;
+
+    private FluentCompiler compiler;
+
+    private double[] values;
+
+    @Before
+    public void setUp() {
+        drive = new Action.Builder()
+                .name("drive")
+                .parameter("t", type("truck"))
+                .parameter("from", type("place"))
+                .parameter("to", type("place"))
+                .effect(and(predicate("at", variable("t"), variable("to")),
+                        operation("increase", fluent("total-cost"), fluent("distance", variable("from"), variable("to"))),
+                        operation("decrease", fluent("fuel", variable("t")), number("1"))))
+                .build();
+        Domain domain = new Domain.Builder()
+                .name("trucks")
+                .type(typeDefinition("truck"))
+                .type(typeDefinition("place"))
+                .predicate(predicate("at", variable("t", type("truck")), variable("p", type("place"))))
+                .function(new FunctionDefinition.Builder().name("total-cost").build())
+                .function(new FunctionDefinition.Builder().name("distance")
+                        .variable("a", type("place")).variable("b", type("place")).build())
+                .function(new FunctionDefinition.Builder().name("fuel").variable("t", type("truck")).build())
+                .action(drive)
+                .build();
+        Problem problem = new Problem.Builder()
+                .name("p1")
+                .domain("trucks")
+                .object(constantDefinition("a", type("place")))
+                .object(constantDefinition("b", type("place")))
+                .object(constantDefinition("t1", type("truck")))
+                .initialState(operation("=", fluent("total-cost"), number("0")))
+                .initialState(operation("=", fluent("distance", constant("a"), constant("b")), number("7")))
+                .initialState(operation("=", fluent("fuel", constant("t1")), number("3")))
+                .build();
+        table = new FluentTable(domain, problem);
+        compiler = new FluentCompiler(table);
+        values = table.getInitialValues();
+    }
+
+    private static Operation operation(final String operator, final FunctionTerm consequent,
+                                       final FunctionTerm antecedent) {
+        return new Operation.Builder().operator(operator).consequent(consequent).antecedent(antecedent).build();
+    }
+
+    private static FunctionTerm fluent(final String name, final Term... terms) {
+        FunctionTerm.Builder builder = new FunctionTerm.Builder().name(name);
+        for (Term term : terms) {
+            builder.term(term);
+        }
+        return builder.build();
+    }
+
+    private static FunctionTerm number(final String value) {
+        return new FunctionTerm.Builder().term(new NumberTerm(value)).build();
+    }
+
+    private int slot(final FunctionTerm fluent) {
+        return table.slot(fluent);
+    }
+
+    private int object(final String name) {
+        return table.getTypeHierarchy().objectId(name);
+    }
+
+    @Test
+    public void effectOfActionIsAppliedToBinding() {
+        CompiledAssignments effect = compiler.effect(drive);
+        assertEquals(2, effect.getAssignmentCount());
+        double[] successor = new double[values.length];
+        effect.apply(values, new int[] {object("t1"), object("a"), object("b")}, successor);
+        assertEquals(7.0, successor[slot(fluent("total-cost"))], 0.0);
+        assertEquals(2.0, successor[slot(fluent("fuel", constant("t1")))], 0.0);
+        assertEquals(0.0, values[slot(fluent("total-cost"))], 0.0);
+        assertSame(effect, compiler.effect(drive));
+    }
+
+    @Test
+    public void undefinedValuesPropagate() {
+        double[] successor = new double[values.length];
+        compiler.effect(drive).apply(values, new int[] {object("t1"), object("b"), object("a")}, successor);
+        assertTrue(Double.isNaN(successor[slot(fluent("total-cost"))]));
+    }
+
+    @Test
+    public void valuesAreReadBeforeAssigning() {
+        CompiledAssignments effect = compiler.compile(and(
+                operation("assign", fluent("total-cost"), fluent("fuel", constant("t1"))),
+                operation("scale-up", fluent("fuel", constant("t1")), fluent("total-cost")),
+                operation("increase", fluent("total-cost"), number("1"))));
+        double[] successor = new double[values.length];
+        effect.apply(values, successor);
+        assertEquals(4.0, successor[slot(fluent("total-cost"))], 0.0);
+        assertEquals(0.0, successor[slot(fluent("fuel", constant("t1")))], 0.0);
+    }
+
+    @Test
+    public void literalsAreIgnored() {
+        assertEquals(0, compiler.compile(predicate("at", constant("t1"), constant("a"))).getAssignmentCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void conditionalNumericEffectIsRejected() {
+        compiler.compile(when(predicate("at", constant("t1"), constant("a")))
+                .then(operation("increase", fluent("total-cost"), number("1"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void applyingInPlaceIsRejected() {
+        compiler.effect(drive).apply(values, new int[] {object("t1"), object("a"), object("b")}, values);
+    }
+
+    @Test
+    public void metricReadsItsFluent() {
+        CompiledMetric metric = compiler.metric(new Metric.Builder().name("minimize").formula(fluent("total-cost"))
+                .build());
+        assertTrue(metric.isMinimize());
+        values[slot(fluent("total-cost"))] = 12.0;
+        assertEquals(12.0, metric.evaluate(values), 0.0);
+        assertFalse(compiler.metric(new Metric.Builder().name("maximize").formula(number("3")).build())
+                .isMinimize());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.equality;
+import static org.gerryai.planning.model.logic.FormulaBuilder.forAll;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.or;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.gerryai.planning.model.logic.FormulaBuilder.when;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FormulaCompilerTest {
+
+    private Action drive;
+
+    private GroundAtomTable table;
+
+    private FormulaCompiler compiler;
+
+    private PackedState state;
+
+    @Before
+    public void setUp() {
+        drive = new Action.Builder()
+                .name("drive")
+                .parameter("c", type("car"))
+                .parameter("from", type("place"))
+                .parameter("to", type("place"))
+                .precondition(and(predicate("road", variable("from"), variable("to")),
+                        predicate("at", variable("c"), variable("from")),
+                        not(equality(variable("from"), variable("to")))))
+                .effect(predicate("at", variable("c"), variable("to")))
+                .build();
+        Domain domain = new Domain.Builder()
+                .name("roads")
+                .type(typeDefinition("place"))
+                .type(typeDefinition("car"))
+                .predicate(predicate("road", variable("a", type("place")), variable("b", type("place"))))
+                .predicate(predicate("at", variable("c", type("car")), variable("p", type("place"))))
+                .predicate(predicate("closed", variable("p", type("place"))))
+                .action(drive)
+                .build();
+        Problem problem = new Problem.Builder()
+                .name("p1")
+                .domain("roads")
+                .object(constantDefinition("a", type("place")))
+                .object(constantDefinition("b", type("place")))
+                .object(constantDefinition("car", type("car")))
+                .initialState(predicate("road", constant("a"), constant("b")))
+                .initialState(predicate("road", constant("b"), constant("b")))
+                .initialState(predicate("at", constant("car"), constant("a")))
+                .goal(predicate("at", constant("car"), constant("b")))
+                .build();
+        table = new GroundAtomTable(domain, problem);
+        compiler = new FormulaCompiler(table);
+        state = PackedState.initial(table);
+    }
+
+    private int id(final Predicate atom) {
+        return table.id(atom);
+    }
+
+    private int object(final String name) {
+        return table.getTypeHierarchy().objectId(name);
+    }
+
+    @Test
+    public void conjunctionAndNegation() {
+        CompiledFormula formula = compiler.compile(and(predicate("at", constant("car"), constant("a")),
+                not(predicate("closed", constant("b")))));
+        assertTrue(formula.evaluate(state));
+        state.set(id(predicate("closed", constant("b"))));
+        assertFalse(formula.evaluate(state));
+    }
+
+    @Test
+    public void negatedDisjunction() {
+        CompiledFormula formula = compiler.compile(not(or(predicate("closed", constant("a")),
+                predicate("closed", constant("b")))));
+        assertTrue(formula.evaluate(state));
+        state.set(id(predicate("closed", constant("b"))));
+        assertFalse(formula.evaluate(state));
+    }
+
+    @Test
+    public void parametersAreBound() {
+        CompiledFormula formula = compiler.compile(predicate("road", variable("x"), variable("y")),
+                Arrays.asList(variable("x"), variable("y")));
+        assertTrue(formula.evaluate(state, new int[] {object("a"), object("b")}));
+        assertFalse(formula.evaluate(state, new int[] {object("b"), object("a")}));
+        assertFalse(formula.evaluate(state, new int[] {object("car"), object("a")}));
+    }
+
+    @Test
+    public void equalitiesAreDecidedWhenGround() {
+        assertEquals(0, compiler.compile(equality(constant("a"), constant("b"))).getInstructionCount());
+        assertFalse(compiler.compile(equality(constant("a"), constant("b"))).evaluate(state));
+        assertTrue(compiler.compile(not(equality(constant("a"), constant("b")))).evaluate(state));
+    }
+
+    @Test
+    public void forAllIsExpanded() {
+        CompiledFormula formula = compiler.compile(forAll(not(predicate("closed", variable("p"))),
+                variable("p", type("place"))));
+        assertEquals(2, formula.getInstructionCount());
+        assertTrue(formula.evaluate(state));
+        state.set(id(predicate("closed", constant("a"))));
+        assertFalse(formula.evaluate(state));
+    }
+
+    @Test
+    public void preconditionIsCompiledOnceAndBoundToParameters() {
+        CompiledFormula precondition = compiler.precondition(drive);
+        assertSame(precondition, compiler.precondition(drive));
+        assertTrue(precondition.evaluate(state, new int[] {object("car"), object("a"), object("b")}));
+        assertFalse(precondition.evaluate(state, new int[] {object("car"), object("b"), object("b")}));
+        assertFalse(precondition.evaluate(state, new int[] {object("car"), object("b"), object("a")}));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongNumberOfObjectsIsRejected() {
+        compiler.precondition(drive).evaluate(state);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void effectIsRejected() {
+        compiler.compile(when(predicate("closed", constant("a"))).then(predicate("closed", constant("b"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unboundVariableIsRejected() {
+        compiler.compile(predicate("closed", variable("p")));
+    }
+}
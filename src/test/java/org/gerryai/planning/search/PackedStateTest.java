@@ -0,0 +1,216 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.gerryai.planning.model.logic.FormulaBuilder.when;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PackedStateTest {
+
+    private GroundTask task;
+
+    private GroundAtomTable atoms;
+
+    @Before
+    public void setUp() {
+        Domain domain = new Domain.Builder()
+                .name("roads")
+                .type(typeDefinition("place"))
+                .type(typeDefinition("car"))
+                .predicate(predicate("road", variable("a", type("place")), variable("b", type("place"))))
+                .predicate(predicate("at", variable("c", type("car")), variable("p", type("place"))))
+                .predicate(predicate("closed", variable("p", type("place"))))
+                .action(new Action.Builder()
+                        .name("drive")
+                        .parameter("c", type("car"))
+                        .parameter("from", type("place"))
+                        .parameter("to", type("place"))
+                        .precondition(and(predicate("road", variable("from"), variable("to")),
+                                predicate("at", variable("c"), variable("from")),
+                                not(predicate("closed", variable("to")))))
+                        .effect(and(predicate("at", variable("c"), variable("to")),
+                                not(predicate("at", variable("c"), variable("from")))))
+                        .build())
+                .action(new Action.Builder()
+                        .name("close")
+                        .parameter("p", type("place"))
+                        .effect(when(predicate("at", constant("car"), variable("p")))
+                                .then(predicate("closed", variable("p"))))
+                        .build())
+                .build();
+        Problem problem = new Problem.Builder()
+                .name("p1")
+                .domain("roads")
+                .object(constantDefinition("a", type("place")))
+                .object(constantDefinition("b", type("place")))
+                .object(constantDefinition("car", type("car")))
+                .initialState(predicate("road", constant("a"), constant("b")))
+                .initialState(predicate("road", constant("b"), constant("b")))
+                .initialState(predicate("at", constant("car"), constant("a")))
+                .goal(predicate("at", constant("car"), constant("b")))
+                .build();
+        task = new Grounder(new ForkJoinPool(1)).ground(domain, problem);
+        atoms = task.getAtoms();
+    }
+
+    private GroundOperator operator(final String name, final String... arguments) {
+        for (GroundOperator operator : task.getOperators()) {
+            List<String> names = new ArrayList<>();
+            for (int argument : operator.getArguments()) {
+                names.add(atoms.getObjects().get(argument));
+            }
+            if (operator.getAction().getName().equals(name) && names.equals(Arrays.asList(arguments))) {
+                return operator;
+            }
+        }
+        throw new AssertionError("No operator " + name);
+    }
+
+    private int at(final String place) {
+        return atoms.id(predicate("at", constant("car"), constant(place)));
+    }
+
+    private int closed(final String place) {
+        return atoms.id(predicate("closed", constant(place)));
+    }
+
+    @Test
+    public void initialStateHoldsInitialAtoms() {
+        PackedState state = PackedState.initial(atoms);
+        assertTrue(state.get(at("a")));
+        assertFalse(state.get(at("b")));
+    }
+
+    @Test
+    public void applyWritesSuccessorAndLeavesStateUnchanged() {
+        PackedState state = PackedState.initial(atoms);
+        PackedState successor = new PackedState(atoms.size());
+        state.apply(operator("drive", "car", "a", "b"), successor);
+        assertTrue(successor.get(at("b")));
+        assertFalse(successor.get(at("a")));
+        assertTrue(state.get(at("a")));
+        assertTrue(successor.satisfies(atoms.getGoal(), atoms.getNegatedGoal()));
+        assertFalse(state.satisfies(atoms.getGoal(), atoms.getNegatedGoal()));
+    }
+
+    @Test
+    public void atomAddedAndDeletedHolds() {
+        PackedState state = PackedState.initial(atoms);
+        state.clear(at("a"));
+        state.set(at("b"));
+        PackedState successor = new PackedState(atoms.size());
+        state.apply(operator("drive", "car", "b", "b"), successor);
+        assertTrue(successor.get(at("b")));
+    }
+
+    @Test
+    public void negativePreconditionIsChecked() {
+        PackedState state = PackedState.initial(atoms);
+        GroundOperator drive = operator("drive", "car", "a", "b");
+        assertTrue(state.isApplicable(drive));
+        state.set(closed("b"));
+        assertFalse(state.isApplicable(drive));
+        assertFalse(state.isApplicable(operator("drive", "car", "b", "b")));
+    }
+
+    @Test
+    public void conditionalEffectIsTriggeredByState() {
+        PackedState state = PackedState.initial(atoms);
+        PackedState successor = new PackedState(atoms.size());
+        state.apply(operator("close", "a"), successor);
+        assertTrue(successor.get(closed("a")));
+        state.apply(operator("close", "b"), successor);
+        assertFalse(successor.get(closed("b")));
+        assertEquals(state, successor);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void applyingInPlaceIsRejected() {
+        PackedState state = PackedState.initial(atoms);
+        state.apply(operator("drive", "car", "a", "b"), state);
+    }
+
+    @Test
+    public void fieldsCanSpanWords() {
+        PackedState state = new PackedState(192);
+        state.set(59);
+        state.set(72);
+        state.setField(60, 12, 0xABC);
+        state.setField(128, 64, -2L);
+        assertEquals(0xABC, state.getField(60, 12));
+        assertEquals(-2L, state.getField(128, 64));
+        assertTrue(state.get(59));
+        assertTrue(state.get(72));
+        state.setField(60, 12, 0x1FFF);
+        assertEquals(0xFFF, state.getField(60, 12));
+        assertTrue(state.get(72));
+    }
+
+    @Test
+    public void nextSetBitVisitsAtomsThatHold() {
+        PackedState state = new PackedState(192);
+        state.set(3);
+        state.set(64);
+        state.set(191);
+        assertEquals(3, state.nextSetBit(0));
+        assertEquals(64, state.nextSetBit(4));
+        assertEquals(191, state.nextSetBit(65));
+        assertEquals(-1, state.nextSetBit(192));
+        state.clear(191);
+        assertEquals(-1, state.nextSetBit(65));
+    }
+
+    @Test
+    public void equalStatesHaveEqualHashes() {
+        PackedState state = PackedState.initial(atoms);
+        PackedState copy = state.copy();
+        assertEquals(state, copy);
+        assertEquals(state.hash64(), copy.hash64());
+        copy.set(closed("b"));
+        assertNotEquals(state, copy);
+        assertNotEquals(state.hash64(), copy.hash64());
+        state.copyFrom(copy);
+        assertEquals(state.hashCode(), copy.hashCode());
+    }
+}
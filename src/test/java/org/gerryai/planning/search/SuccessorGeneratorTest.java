@@ -0,0 +1,148 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SuccessorGeneratorTest {
+
+    private GroundTask task;
+
+    private SuccessorGenerator generator;
+
+    @Before
+    public void setUp() {
+        Domain domain = new Domain.Builder()
+                .name("lights")
+                .type(typeDefinition("switch"))
+                .predicate(predicate("on", variable("s", type("switch"))))
+                .predicate(predicate("broken", variable("s", type("switch"))))
+                .action(new Action.Builder()
+                        .name("flip")
+                        .parameter("first", type("switch"))
+                        .parameter("second", type("switch"))
+                        .precondition(and(predicate("on", variable("first")),
+                                not(predicate("on", variable("second"))),
+                                not(predicate("broken", variable("first")))))
+                        .effect(and(predicate("on", variable("second")), not(predicate("on", variable("first")))))
+                        .build())
+                .action(new Action.Builder()
+                        .name("repair")
+                        .parameter("s", type("switch"))
+                        .precondition(predicate("broken", variable("s")))
+                        .effect(not(predicate("broken", variable("s"))))
+                        .build())
+                .action(new Action.Builder()
+                        .name("wait")
+                        .effect(predicate("broken", constant("s1")))
+                        .build())
+                .build();
+        Problem problem = new Problem.Builder()
+                .name("p1")
+                .domain("lights")
+                .object(constantDefinition("s1", type("switch")))
+                .object(constantDefinition("s2", type("switch")))
+                .object(constantDefinition("s3", type("switch")))
+                .initialState(predicate("on", constant("s1")))
+                .goal(predicate("on", constant("s3")))
+                .build();
+        task = new Grounder(new ForkJoinPool(1)).ground(domain, problem);
+        generator = new SuccessorGenerator(task.getOperators());
+    }
+
+    private List<GroundOperator> generate(final PackedState state) {
+        List<GroundOperator> applicable = new ArrayList<>();
+        generator.generate(state, applicable);
+        return applicable;
+    }
+
+    @Test
+    public void matchesLinearScanInEveryState() {
+        GroundAtomTable atoms = task.getAtoms();
+        assertTrue(atoms.size() < Integer.SIZE);
+        for (int bits = 0; bits < 1 << atoms.size(); bits++) {
+            PackedState state = new PackedState(atoms.size());
+            for (int id = 0; id < atoms.size(); id++) {
+                if ((bits & 1 << id) != 0) {
+                    state.set(id);
+                }
+            }
+            List<GroundOperator> expected = new ArrayList<>();
+            for (GroundOperator operator : task.getOperators()) {
+                if (state.isApplicable(operator)) {
+                    expected.add(operator);
+                }
+            }
+            List<GroundOperator> applicable = generate(state);
+            assertEquals(expected.size(), applicable.size());
+            assertEquals(new HashSet<>(expected), new HashSet<>(applicable));
+        }
+    }
+
+    @Test
+    public void operatorWithoutPreconditionIsAlwaysApplicable() {
+        PackedState state = new PackedState(task.getAtoms().size());
+        List<GroundOperator> applicable = generate(state);
+        assertEquals(1, applicable.size());
+        assertEquals("wait", applicable.get(0).getAction().getName());
+    }
+
+    @Test
+    public void contradictoryPreconditionIsNeverMet() {
+        PackedState state = PackedState.initial(task.getAtoms());
+        for (GroundOperator operator : generate(state)) {
+            assertTrue(operator.getAction().getName().equals("wait")
+                    || operator.getArguments()[0] != operator.getArguments()[1]);
+        }
+        assertEquals(3, generate(state).size());
+    }
+
+    @Test
+    public void emptyGeneratorFindsNothing() {
+        SuccessorGenerator empty = new SuccessorGenerator(Collections.<GroundOperator>emptyList());
+        List<GroundOperator> applicable = new ArrayList<>();
+        empty.generate(PackedState.initial(task.getAtoms()), applicable);
+        assertEquals(0, applicable.size());
+        assertEquals(1, empty.getNodeCount());
+    }
+}
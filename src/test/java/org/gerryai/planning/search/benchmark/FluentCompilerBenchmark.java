@@ -0,0 +1,172 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search.benchmark;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.FluentTable;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.benchmark.Benchmarks;
+import org.gerryai.planning.search.CompiledAssignments;
+import org.gerryai.planning.search.CompiledMetric;
+import org.gerryai.planning.search.FluentCompiler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares applying the numeric effects of every ground operator of a generated action-costs problem, and reading
+ * its metric, by interpreting the effects against a substitution and by applying the compiled assignments.
+ */
+public final class FluentCompilerBenchmark {
+
+    private static final int CITIES = 30;
+
+    private static final String DOMAIN = "(define (domain roads)"
+            + " (:requirements :strips :typing :numeric-fluents :action-costs) (:types truck city)"
+            + " (:functions (road-length ?a ?b - city) - number (fuel ?t - truck) - number (total-cost) - number)"
+            + " (:predicates (at ?t - truck ?c - city) (road ?a ?b - city))"
+            + " (:action drive :parameters (?t - truck ?from ?to - city)"
+            + " :precondition (and (at ?t ?from) (road ?from ?to))"
+            + " :effect (and (not (at ?t ?from)) (at ?t ?to) (increase (total-cost) (road-length ?from ?to))"
+            + " (decrease (fuel ?t) 1))))";
+
+    private static double sink;
+
+    private FluentCompilerBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        PDDLParserService parserService = new PDDLParserService();
+        Domain domain = parserService.parseDomain(DOMAIN.getBytes(StandardCharsets.UTF_8));
+        final Problem problem = parserService.parseProblem(roads(CITIES).getBytes(StandardCharsets.UTF_8));
+        GroundTask task = new Grounder().ground(domain, problem);
+        final List<GroundOperator> operators = task.getOperators();
+        final FluentTable table = new FluentTable(domain, problem, task.getAtoms().getTypeHierarchy());
+        final FluentCompiler compiler = new FluentCompiler(table);
+        final CompiledMetric metric = compiler.metric(problem.getMetric());
+        final CompiledAssignments[] compiled = new CompiledAssignments[operators.size()];
+        final List<Map<String, Constant>> substitutions = new ArrayList<>();
+        for (int i = 0; i < compiled.length; i++) {
+            GroundOperator operator = operators.get(i);
+            compiled[i] = compiler.effect(operator.getAction());
+            Map<String, Constant> substitution = new HashMap<>();
+            for (int j = 0; j < operator.getArguments().length; j++) {
+                substitution.put(operator.getAction().getParameters().get(j).getName(),
+                        new Constant(table.getTypeHierarchy().getObjects().get(operator.getArguments()[j])));
+            }
+            substitutions.add(substitution);
+        }
+        final double[] values = table.getInitialValues();
+        final double[] successor = new double[values.length];
+        System.out.println(CITIES + " cities: " + operators.size() + " operators, " + values.length + " fluents");
+        Benchmarks.measure("  interpreted effects and metric", 20, 50, new Benchmarks.Task() {
+            @Override
+            public void run() {
+                for (int i = 0; i < operators.size(); i++) {
+                    System.arraycopy(values, 0, successor, 0, values.length);
+                    interpret(operators.get(i).getAction().getEffect().getEffect().get(), substitutions.get(i),
+                            table, values, successor);
+                    sink += successor[table.slot((FunctionTerm) problem.getMetric().getFormula())];
+                }
+            }
+        });
+        Benchmarks.measure("  compiled effects and metric", 20, 50, new Benchmarks.Task() {
+            @Override
+            public void run() {
+                for (int i = 0; i < compiled.length; i++) {
+                    compiled[i].apply(values, operators.get(i).getArguments(), successor);
+                    sink += metric.evaluate(successor);
+                }
+            }
+        });
+        System.out.println(sink);
+    }
+
+    private static void interpret(Formula effect, Map<String, Constant> substitution, FluentTable table,
+                                  double[] before, double[] after) {
+        if (effect instanceof And) {
+            for (Formula conjunct : ((And) effect).asList()) {
+                interpret(conjunct, substitution, table, before, after);
+            }
+        } else if (effect instanceof Operation) {
+            Operation operation = (Operation) effect;
+            int target = table.slot(substitute(operation.getConsequent(), substitution));
+            double value;
+            if (operation.getAntecedent().getNumber().isPresent()) {
+                value = Double.parseDouble(operation.getAntecedent().getNumber().get().getText());
+            } else {
+                value = before[table.slot(substitute(operation.getAntecedent(), substitution))];
+            }
+            switch (operation.getOperator()) {
+                case "increase":
+                    after[target] += value;
+                    break;
+                case "decrease":
+                    after[target] -= value;
+                    break;
+                default:
+                    after[target] = value;
+            }
+        }
+    }
+
+    private static FunctionTerm substitute(FunctionTerm term, Map<String, Constant> substitution) {
+        FunctionTerm.Builder builder = new FunctionTerm.Builder().name(term.getName());
+        for (Term argument : term.getTerms()) {
+            if (argument instanceof Variable && substitution.containsKey(((Variable) argument).getName())) {
+                builder.term(substitution.get(((Variable) argument).getName()));
+            } else {
+                builder.term(argument);
+            }
+        }
+        return builder.build();
+    }
+
+    private static String roads(int cities) {
+        StringBuilder pddl = new StringBuilder("(define (problem generated) (:domain roads)"
+                + " (:requirements :strips :typing :numeric-fluents :action-costs) (:objects");
+        for (int i = 0; i < cities; i++) {
+            pddl.append(" c").append(i).append(" - city t").append(i).append(" - truck");
+        }
+        pddl.append(") (:init (= (total-cost) 0)");
+        for (int i = 0; i < cities; i++) {
+            pddl.append(" (at t").append(i).append(" c").append(i).append(") (= (fuel t").append(i).append(") 100)");
+            for (int j = 0; j < cities; j++) {
+                if (i != j) {
+                    pddl.append(" (road c").append(i).append(" c").append(j).append(") (= (road-length c").append(i)
+                            .append(" c").append(j).append(") ").append(1 + (i * j) % 17).append(")");
+                }
+            }
+        }
+        pddl.append(") (:goal (at t0 c1)) (:metric minimize (total-cost)))");
+        return pddl.toString();
+    }
+}
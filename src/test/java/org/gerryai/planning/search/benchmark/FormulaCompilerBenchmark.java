@@ -0,0 +1,179 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search.benchmark;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.GroundAtomTable;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Constant;
+import org.gerryai.planning.model.logic.Equals;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.Not;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.logic.Term;
+import org.gerryai.planning.model.logic.Variable;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.benchmark.Benchmarks;
+import org.gerryai.planning.search.CompiledFormula;
+import org.gerryai.planning.search.FormulaCompiler;
+import org.gerryai.planning.search.PackedState;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares checking the preconditions of every ground operator, and the goal, in states along a random walk through
+ * the largest logistics and gripper examples by interpreting the formulas against a substitution and by evaluating
+ * the compiled programs.
+ */
+public final class FormulaCompilerBenchmark {
+
+    private static final String[][] EXAMPLES = {
+        {"logistics/logistics.pddl", "logistics/pb2.pddl"},
+        {"gripper/gripper.pddl", "gripper/pb4.pddl"},
+    };
+
+    private static final int STATES = 50;
+
+    private static int sink;
+
+    private FormulaCompilerBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        PDDLParserService parserService = new PDDLParserService();
+        for (String[] example : EXAMPLES) {
+            Domain domain = parserService.parseDomain(Benchmarks.resource(example[0]));
+            final Problem problem = parserService.parseProblem(Benchmarks.resource(example[1]));
+            GroundTask task = new Grounder().ground(domain, problem);
+            final GroundAtomTable atoms = task.getAtoms();
+            final List<GroundOperator> operators = task.getOperators();
+            final List<PackedState> states = Benchmarks.walk(task, STATES);
+            final FormulaCompiler compiler = new FormulaCompiler(atoms);
+            final CompiledFormula goal = compiler.compile(problem.getGoal().getFormula());
+            final List<Map<String, Constant>> substitutions = new ArrayList<>();
+            for (GroundOperator operator : operators) {
+                Map<String, Constant> substitution = new HashMap<>();
+                for (int i = 0; i < operator.getArguments().length; i++) {
+                    substitution.put(operator.getAction().getParameters().get(i).getName(),
+                            new Constant(atoms.getObjects().get(operator.getArguments()[i])));
+                }
+                substitutions.add(substitution);
+            }
+            System.out.println(example[1] + ": " + operators.size() + " operators");
+            Benchmarks.measure("  interpreted preconditions", 20, 50, new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (PackedState state : states) {
+                        for (int i = 0; i < operators.size(); i++) {
+                            if (holds(operators.get(i).getAction().getPrecondition().getPrecondition().get(),
+                                    substitutions.get(i), atoms, state)) {
+                                sink++;
+                            }
+                        }
+                    }
+                }
+            });
+            Benchmarks.measure("  compiled preconditions", 20, 50, new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (PackedState state : states) {
+                        for (GroundOperator operator : operators) {
+                            if (compiler.precondition(operator.getAction()).evaluate(state,
+                                    operator.getArguments())) {
+                                sink++;
+                            }
+                        }
+                    }
+                }
+            });
+            final CompiledFormula[] compiled = new CompiledFormula[operators.size()];
+            for (int i = 0; i < compiled.length; i++) {
+                compiled[i] = compiler.precondition(operators.get(i).getAction());
+            }
+            Benchmarks.measure("  compiled preconditions, looked up once", 20, 50, new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (PackedState state : states) {
+                        for (int i = 0; i < compiled.length; i++) {
+                            if (compiled[i].evaluate(state, operators.get(i).getArguments())) {
+                                sink++;
+                            }
+                        }
+                    }
+                }
+            });
+            Benchmarks.measure("  interpreted goal", new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (PackedState state : states) {
+                        if (holds(problem.getGoal().getFormula(), new HashMap<String, Constant>(), atoms, state)) {
+                            sink++;
+                        }
+                    }
+                }
+            });
+            Benchmarks.measure("  compiled goal", new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (PackedState state : states) {
+                        if (goal.evaluate(state)) {
+                            sink++;
+                        }
+                    }
+                }
+            });
+        }
+        System.out.println(sink);
+    }
+
+    private static boolean holds(Formula formula, Map<String, Constant> substitution, GroundAtomTable atoms,
+                                 PackedState state) {
+        if (formula instanceof And) {
+            for (Formula conjunct : ((And) formula).asList()) {
+                if (!holds(conjunct, substitution, atoms, state)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (formula instanceof Not) {
+            return !holds(((Not) formula).getFormula(), substitution, atoms, state);
+        } else if (formula instanceof Equals) {
+            return substitute(((Equals) formula).getLeft(), substitution)
+                    .equals(substitute(((Equals) formula).getRight(), substitution));
+        }
+        Predicate.Builder builder = new Predicate.Builder().name(((Predicate) formula).getName());
+        for (Term term : ((Predicate) formula).getTerms()) {
+            builder.term(substitute(term, substitution));
+        }
+        int id = atoms.id(builder.build());
+        return id >= 0 && state.get(id);
+    }
+
+    private static Term substitute(Term term, Map<String, Constant> substitution) {
+        if (term instanceof Variable && substitution.containsKey(((Variable) term).getName())) {
+            return substitution.get(((Variable) term).getName());
+        }
+        return term;
+    }
+}
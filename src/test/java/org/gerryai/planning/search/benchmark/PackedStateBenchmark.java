@@ -0,0 +1,95 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search.benchmark;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.benchmark.Benchmarks;
+import org.gerryai.planning.search.PackedState;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures how many successor states per second can be generated and hashed with packed states, by expanding every
+ * applicable operator along a fixed walk through the largest logistics and gripper examples.
+ */
+public final class PackedStateBenchmark {
+
+    private static final String[][] EXAMPLES = {
+        {"logistics/logistics.pddl", "logistics/pb2.pddl"},
+        {"gripper/gripper.pddl", "gripper/pb4.pddl"},
+    };
+
+    private static final int STEPS = 1000;
+
+    private static long sink;
+
+    private PackedStateBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        PDDLParserService parserService = new PDDLParserService();
+        for (String[] example : EXAMPLES) {
+            Domain domain = parserService.parseDomain(Benchmarks.resource(example[0]));
+            Problem problem = parserService.parseProblem(Benchmarks.resource(example[1]));
+            GroundTask task = new Grounder().groundReachable(domain, problem);
+            final List<GroundOperator> operators = task.getOperators();
+            final PackedState initial = PackedState.initial(task.getAtoms());
+            long successors = expand(initial, operators);
+            System.out.println(String.format(Locale.ROOT, "%s: %d atoms in %d words, %d operators",
+                    example[1], task.getAtoms().size(), initial.getWordCount(), operators.size()));
+            double micros = Benchmarks.measure("  expand " + STEPS + " states", new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    expand(initial, operators);
+                }
+            });
+            System.out.println(String.format(Locale.ROOT, "  %d successors, %.2f million per second",
+                    successors, successors / micros));
+        }
+        System.out.println(sink);
+    }
+
+    private static long expand(PackedState initial, List<GroundOperator> operators) {
+        PackedState state = initial.copy();
+        PackedState successor = new PackedState(initial.getWordCount() * Long.SIZE);
+        PackedState next = new PackedState(initial.getWordCount() * Long.SIZE);
+        long count = 0;
+        for (int step = 0; step < STEPS; step++) {
+            int chosen = -1;
+            for (int i = 0; i < operators.size(); i++) {
+                GroundOperator operator = operators.get(i);
+                if (state.isApplicable(operator)) {
+                    state.apply(operator, successor);
+                    sink += successor.hash64();
+                    count++;
+                    if (chosen < 0 || (step + i) % 3 == 0) {
+                        chosen = i;
+                    }
+                }
+            }
+            state.apply(operators.get(chosen), next);
+            state.copyFrom(next);
+        }
+        return count;
+    }
+}
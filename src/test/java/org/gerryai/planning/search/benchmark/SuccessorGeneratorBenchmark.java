@@ -0,0 +1,92 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.search.benchmark;
+
+import org.gerryai.planning.grounding.GroundOperator;
+import org.gerryai.planning.grounding.GroundTask;
+import org.gerryai.planning.grounding.Grounder;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.gerryai.planning.parser.pddl.benchmark.Benchmarks;
+import org.gerryai.planning.search.PackedState;
+import org.gerryai.planning.search.SuccessorGenerator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Compares finding the applicable operators with the successor generator against checking every operator, in
+ * states along a random walk through generated logistics problems of growing size.
+ */
+public final class SuccessorGeneratorBenchmark {
+
+    private static final int[] CITIES = {5, 20, 40};
+
+    private static final int STATES = 100;
+
+    private static int sink;
+
+    private SuccessorGeneratorBenchmark() { }
+
+    public static void main(String[] args) throws Exception {
+        PDDLParserService parserService = new PDDLParserService();
+        Domain domain = parserService.parseDomain(Benchmarks.resource("logistics/logistics.pddl"));
+        for (int cities : CITIES) {
+            Problem problem = parserService.parseProblem(Benchmarks.logistics(cities).getBytes(StandardCharsets.UTF_8));
+            GroundTask task = new Grounder().groundReachable(domain, problem);
+            final List<GroundOperator> operators = task.getOperators();
+            final List<PackedState> states = Benchmarks.walk(task, STATES);
+            final SuccessorGenerator generator = new SuccessorGenerator(operators);
+            System.out.println(String.format(Locale.ROOT, "%d cities: %d operators, tree of %d nodes and depth %d",
+                    cities, operators.size(), generator.getNodeCount(), generator.getDepth()));
+            Benchmarks.measure("  linear scan of " + STATES + " states", 20, 20, new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (PackedState state : states) {
+                        for (GroundOperator operator : operators) {
+                            if (state.isApplicable(operator)) {
+                                sink++;
+                            }
+                        }
+                    }
+                }
+            });
+            final List<GroundOperator> applicable = new ArrayList<>();
+            Benchmarks.measure("  successor generator", 20, 20, new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    for (PackedState state : states) {
+                        applicable.clear();
+                        generator.generate(state, applicable);
+                        sink += applicable.size();
+                    }
+                }
+            });
+            Benchmarks.measure("  building the generator", 2, 5, new Benchmarks.Task() {
+                @Override
+                public void run() {
+                    sink += new SuccessorGenerator(operators).getNodeCount();
+                }
+            });
+        }
+        System.out.println(sink);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.snapshot;
+
+import org.gerryai.planning.model.Requirement;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.logic.And;
+import org.gerryai.planning.model.logic.Formula;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.logic.Predicate;
+import org.gerryai.planning.model.problem.Problem;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.equality;
+import static org.gerryai.planning.model.logic.FormulaBuilder.forAll;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.or;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.gerryai.planning.model.logic.FormulaBuilder.when;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SnapshotReaderTest {
+
+    private final SnapshotWriter writer = new SnapshotWriter();
+
+    private final SnapshotReader reader = new SnapshotReader();
+
+    private Domain domain() {
+        Action move = new Action.Builder()
+                .name("move")
+                .parameter("from", type("room"))
+                .parameter("to", type("room", "hall"))
+                .precondition(and(predicate("at", variable("from")), not(equality(variable("from"), variable("to"))),
+                        or(predicate("open", variable("to")), predicate("lit", variable("to")))))
+                .effect(and(predicate("at", variable("to")),
+                        forAll(when(predicate("carried", variable("b"))).then(predicate("in", variable("b"),
+                                variable("to"))), variable("b", type("ball"))),
+                        new Operation.Builder()
+                                .operator("increase")
+                                .consequent(new FunctionTerm.Builder().name("total-cost").build())
+                                .antecedent(new FunctionTerm.Builder().term(new NumberTerm("1.50")).build())
+                                .build()))
+                .build();
+        return new Domain.Builder()
+                .name("rooms")
+                .requirement(Requirement.STRIPS)
+                .requirement(Requirement.ACTION_COSTS)
+                .type(typeDefinition("room"))
+                .type(typeDefinition("hall", type("room")))
+                .type(typeDefinition("ball"))
+                .constant(constantDefinition("lobby", type("hall")))
+                .constant(constantDefinition("thing"))
+                .predicate(predicate("at", variable("r", type("room"))))
+                .function(new FunctionDefinition.Builder().name("total-cost").build())
+                .action(move)
+                .action(new Action.Builder().name("wait").build())
+                .action(new Action.Builder().name("rest").precondition().effect().build())
+                .build();
+    }
+
+    private Problem problem() {
+        Problem.Builder builder = new Problem.Builder()
+                .name("p1")
+                .domain("rooms")
+                .object(constantDefinition("kitchen", type("room")))
+                .object(constantDefinition("b1", type("ball")))
+                .initialState(predicate("at", constant("kitchen")))
+                .initialState(predicate("carried", constant("b1")))
+                .goal(predicate("in", constant("b1"), constant("lobby")))
+                .metric("minimize");
+        builder.metricFormula(new FunctionTerm.Builder().name("total-cost").build());
+        return builder.build();
+    }
+
+    @Test
+    public void domainRoundTrips() throws Exception {
+        Domain domain = domain();
+        assertEquals(domain, reader.readDomain(writer.toBytes(domain)));
+    }
+
+    @Test
+    public void problemRoundTrips() throws Exception {
+        Problem problem = problem();
+        assertEquals(problem, reader.readProblem(writer.toBytes(problem)));
+    }
+
+    @Test
+    public void emptyModelsRoundTrip() throws Exception {
+        Problem problem = new Problem.Builder().build();
+        Problem read = reader.readProblem(writer.toBytes(problem));
+        assertEquals(problem, read);
+        assertNull(read.getGoal().getFormula());
+        assertEquals(new Domain.Builder().build(), reader.readDomain(writer.toBytes(new Domain.Builder().build())));
+    }
+
+    @Test
+    public void streamGivesTheSameBytes() throws Exception {
+        Domain domain = domain();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writer.write(domain, stream);
+        assertEquals(Arrays.toString(writer.toBytes(domain)), Arrays.toString(stream.toByteArray()));
+        assertEquals(domain, reader.readDomain(new ByteArrayInputStream(stream.toByteArray())));
+    }
+
+    @Test
+    public void numbersKeepTheirText() throws Exception {
+        Domain read = reader.readDomain(writer.toBytes(domain()));
+        Operation operation = (Operation) ((And) read.getActions().byName("move")
+                .get().getEffect().getEffect().get()).asList().get(2);
+        assertEquals("1.50", operation.getAntecedent().getNumber().get().getText());
+    }
+
+    @Test
+    public void constantsAreShared() throws Exception {
+        Problem read = reader.readProblem(writer.toBytes(problem()));
+        Predicate goal = (Predicate) read.getGoal().getFormula();
+        for (Formula fact : read.getInitialState().asSet()) {
+            Predicate predicate = (Predicate) fact;
+            if (predicate.getName().equals("carried")) {
+                assertSame(goal.getTerms().get(0), predicate.getTerms().get(0));
+            }
+        }
+    }
+
+    @Test
+    public void bufferPositionIsLeftUnchanged() throws Exception {
+        byte[] bytes = writer.toBytes(problem());
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 1);
+        buffer.put((byte) 0).put(bytes).position(1);
+        assertEquals(problem(), reader.readProblem(buffer));
+        assertEquals(1, buffer.position());
+    }
+
+    @Test(expected = InvalidSnapshotException.class)
+    public void textIsRejected() throws Exception {
+        reader.readDomain("(define (domain rooms))".getBytes("US-ASCII"));
+    }
+
+    @Test(expected = InvalidSnapshotException.class)
+    public void otherVersionIsRejected() throws Exception {
+        byte[] bytes = writer.toBytes(domain());
+        bytes[SnapshotFormat.MAGIC.length] = SnapshotFormat.VERSION + 1;
+        reader.readDomain(bytes);
+    }
+
+    @Test(expected = InvalidSnapshotException.class)
+    public void problemIsNotReadAsDomain() throws Exception {
+        reader.readDomain(writer.toBytes(problem()));
+    }
+
+    @Test
+    public void truncatedSnapshotIsRejected() throws Exception {
+        byte[] bytes = writer.toBytes(domain());
+        for (int length = 0; length < bytes.length; length++) {
+            boolean rejected = false;
+            try {
+                reader.readDomain(Arrays.copyOf(bytes, length));
+            } catch (InvalidSnapshotException e) {
+                rejected = true;
+            }
+            assertTrue("Truncated to " + length + " bytes", rejected);
+        }
+    }
+
+    @Test(expected = InvalidSnapshotException.class)
+    public void trailingBytesAreRejected() throws Exception {
+        byte[] bytes = writer.toBytes(domain());
+        reader.readDomain(Arrays.copyOf(bytes, bytes.length + 1));
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Gerry AI - Open framework for automated planning
+ * Copyright (c) 2014 David Edwards <david@more.fool.me.uk>
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.gerryai.planning.writer;
+
+import org.gerryai.planning.model.Requirement;
+import org.gerryai.planning.model.domain.Action;
+import org.gerryai.planning.model.domain.Domain;
+import org.gerryai.planning.model.domain.FunctionDefinition;
+import org.gerryai.planning.model.logic.FunctionTerm;
+import org.gerryai.planning.model.logic.NumberTerm;
+import org.gerryai.planning.model.logic.Operation;
+import org.gerryai.planning.model.problem.Problem;
+import org.gerryai.planning.parser.pddl.PDDLParserService;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.gerryai.planning.model.logic.FormulaBuilder.and;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constant;
+import static org.gerryai.planning.model.logic.FormulaBuilder.constantDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.forAll;
+import static org.gerryai.planning.model.logic.FormulaBuilder.not;
+import static org.gerryai.planning.model.logic.FormulaBuilder.predicate;
+import static org.gerryai.planning.model.logic.FormulaBuilder.type;
+import static org.gerryai.planning.model.logic.FormulaBuilder.typeDefinition;
+import static org.gerryai.planning.model.logic.FormulaBuilder.variable;
+import static org.gerryai.planning.model.logic.FormulaBuilder.when;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PDDLWriterTest {
+
+    private final Domain domain = new Domain.Builder()
+            .name("roads")
+            .requirement(Requirement.TYPING)
+            .type(typeDefinition("city", type("place")))
+            .predicate(predicate("road", variable("x", type("city")), variable("y", type("city"))))
+            .action(new Action.Builder()
+                    .name("drive")
+                    .parameter("from", type("city"))
+                    .parameter("to", type("city"))
+                    .precondition(and(predicate("road", variable("from"), variable("to")),
+                            not(predicate("road", variable("to"), variable("from")))))
+                    .effect(forAll(when(predicate("road", variable("from"), variable("z")))
+                            .then(predicate("road", variable("to"), variable("z"))), variable("z", type("city"))))
+                    .build())
+            .build();
+
+    private final Problem problem = new Problem.Builder()
+            .name("trip")
+            .domain("roads")
+            .object(constantDefinition("paris", type("city")))
+            .initialState(predicate("road", constant("paris"), constant("paris")))
+            .goal(and(predicate("road", constant("paris"), constant("paris"))))
+            .build();
+
+    @Test
+    public void domainIsWrittenWithLinesBrokenBeforeEntries() throws Exception {
+        assertEquals("(define (domain roads)\n"
+                + "(:requirements :typing)\n"
+                + "(:types\n"
+                + "city - place)\n"
+                + "(:predicates\n"
+                + "(road ?x ?y - city))\n"
+                + "(:action drive\n"
+                + ":parameters (?from ?to - city)\n"
+                + ":precondition (and (road ?from ?to) (not (road ?to ?from)))\n"
+                + ":effect (forall (?z - city) (when (road ?from ?z) (road ?to ?z)))))\n",
+                write(new PDDLWriter(), domain));
+    }
+
+    @Test
+    public void domainIsPrettyPrinted() throws Exception {
+        assertEquals("(define (domain roads)\n"
+                + "    (:requirements :typing)\n"
+                + "    (:types\n"
+                + "        city - place)\n"
+                + "    (:predicates\n"
+                + "        (road ?x ?y - city))\n"
+                + "    (:action drive\n"
+                + "        :parameters (?from ?to - city)\n"
+                + "        :precondition (and\n"
+                + "            (road ?from ?to)\n"
+                + "            (not (road ?to ?from)))\n"
+                + "        :effect (forall (?z - city)\n"
+                + "            (when\n"
+                + "                (road ?from ?z)\n"
+                + "                (road ?to ?z)))))\n",
+                write(new PDDLWriter.Builder().prettyPrint(true).indent(4).build(), domain));
+    }
+
+    @Test
+    public void problemIsWrittenWithEachFactOnALine() throws Exception {
+        assertEquals("(define (problem trip)\n"
+                + "(:domain roads)\n"
+                + "(:objects\n"
+                + "paris - city)\n"
+                + "(:init\n"
+                + "(road paris paris))\n"
+                + "(:goal (and\n"
+                + "(road paris paris))))\n",
+                write(new PDDLWriter(), problem));
+    }
+
+    @Test
+    public void numericFluentsAndMetricAreWritten() throws Exception {
+        FunctionTerm total = new FunctionTerm.Builder().name("total-cost").build();
+        FunctionTerm zero = new FunctionTerm.Builder().term(new NumberTerm("0")).build();
+        Problem.Builder builder = new Problem.Builder()
+                .name("costs")
+                .domain("roads")
+                .initialState(new Operation.Builder().operator("=").consequent(total).antecedent(zero).build())
+                .goal(and())
+                .metric("minimize");
+        builder.metricFormula(total);
+        assertEquals("(define (problem costs)\n"
+                + "(:domain roads)\n"
+                + "(:init\n"
+                + "(= (total-cost) 0))\n"
+                + "(:goal (and))\n"
+                + "(:metric minimize (total-cost)))\n",
+                write(new PDDLWriter(), builder.build()));
+    }
+
+    @Test
+    public void numbersBuiltFromDoublesAreWrittenInPlainDecimal() throws Exception {
+        Problem costs = costs(new NumberTerm(1e10), new NumberTerm(12345678.9));
+        String text = write(new PDDLWriter(), costs);
+        assertEquals("(define (problem costs)\n"
+                + "(:domain roads)\n"
+                + "(:requirements :numeric-fluents)\n"
+                + "(:init\n"
+                + "(= (total-cost) 10000000000)\n"
+                + "(= (fuel) 12345678.9))\n"
+                + "(:goal (and\n"
+                + "(arrived))))\n",
+                text);
+        assertEquals(costs, new PDDLParserService().parseProblem(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeNumberIsRejected() throws Exception {
+        write(new PDDLWriter(), costs(new NumberTerm(-3.0), new NumberTerm("0")));
+    }
+
+    @Test
+    public void untypedVariableBeforeTypedVariableIsGivenRootType() throws Exception {
+        Domain untyped = new Domain.Builder()
+                .name("d")
+                .function(new FunctionDefinition.Builder().name("f").variable("a").variable("b", type("city"))
+                        .variable("c").build())
+                .build();
+        assertEquals("(define (domain d)\n"
+                + "(:functions\n"
+                + "(f ?a - object ?b - city ?c) - number))\n",
+                write(new PDDLWriter(), untyped));
+    }
+
+    @Test
+    public void bufferHoldsSameTextAsWriter() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        new PDDLWriter().write(problem, buffer);
+        buffer.flip();
+        assertEquals(write(new PDDLWriter(), problem), StandardCharsets.US_ASCII.decode(buffer).toString());
+    }
+
+    @Test
+    public void charactersOutsideAsciiAreReplacedInBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        new PDDLWriter().write(new Problem.Builder().name("café").domain("d").build(), buffer);
+        buffer.flip();
+        assertEquals("(define (problem caf?)", StandardCharsets.US_ASCII.decode(buffer).toString().split("\n")[0]);
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void bufferThatIsTooSmallOverflows() {
+        new PDDLWriter().write(domain, ByteBuffer.allocate(16));
+    }
+
+    @Test(expected = IOException.class)
+    public void channelFailureIsThrown() throws Exception {
+        WritableByteChannel channel = mock(WritableByteChannel.class);
+        when(channel.write(any(ByteBuffer.class))).thenThrow(new IOException("disk full"));
+        new PDDLWriter().write(domain, channel);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeIndentIsRejected() {
+        new PDDLWriter.Builder().indent(-1);
+    }
+
+    private Problem costs(final NumberTerm totalCost, final NumberTerm fuel) {
+        return new Problem.Builder()
+                .name("costs")
+                .domain("roads")
+                .requirement(Requirement.NUMERIC_FLUENTS)
+                .initialState(assignment("total-cost", totalCost))
+                .initialState(assignment("fuel", fuel))
+                .goal(and(predicate("arrived")))
+                .build();
+    }
+
+    private Operation assignment(final String function, final NumberTerm value) {
+        return new Operation.Builder()
+                .operator("=")
+                .consequent(new FunctionTerm.Builder().name(function).build())
+                .antecedent(new FunctionTerm.Builder().term(value).build())
+                .build();
+    }
+
+    private String write(final PDDLWriter writer, final Domain model) throws IOException {
+        StringWriter text = new StringWriter();
+        writer.write(model, text);
+        return text.toString();
+    }
+
+    private String write(final PDDLWriter writer, final Problem model) throws IOException {
+        StringWriter text = new StringWriter();
+        writer.write(model, text);
+        return text.toString();
+    }
+}